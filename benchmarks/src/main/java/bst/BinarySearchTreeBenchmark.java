@@ -0,0 +1,117 @@
+package bst;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * Regression baseline for the core BinarySearchTree operations across tree sizes and
+ * key distributions:
+ *   random - keys inserted in shuffled order, looked up uniformly
+ *   sorted - keys inserted in ascending order, looked up uniformly
+ *   skewed - keys inserted in shuffled order, 90% of lookups hit 1% of the keys
+ *
+ * Each runs on the plain (balanced=false) and the self-balancing tree. Sorted input
+ * degenerates the plain tree into a list, which is what the comparison shows; that
+ * combination is refused above 100,000 keys rather than spending hours in setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class BinarySearchTreeBenchmark {
+
+    private static final int PROBES = 4096;
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int size;
+
+    @Param({"random", "sorted", "skewed"})
+    public String distribution;
+
+    @Param({"true", "false"})
+    public boolean balanced;
+
+    private BinarySearchTree<Integer, Integer> tree;
+    private Integer[] probes;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void buildTree() {
+        if (!balanced && distribution.equals("sorted") && size > 100000) {
+            throw new IllegalStateException("Skipped: sorted input makes the plain tree O(n^2) to build");
+        }
+        List<Integer> keys = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            keys.add(i);
+        }
+        Random random = new Random(size);
+        if (!distribution.equals("sorted")) {
+            Collections.shuffle(keys, random);
+        }
+        tree = new BinarySearchTree<>(balanced);
+        for (Integer key : keys) {
+            tree.put(key, key);
+        }
+
+        probes = new Integer[PROBES];
+        int hotKeys = Math.max(1, size / 100);
+        for (int i = 0; i < PROBES; i++) {
+            boolean hot = distribution.equals("skewed") && random.nextInt(10) != 0;
+            probes[i] = random.nextInt(hot ? hotKeys : size);
+        }
+    }
+
+    private Integer nextProbe() {
+        return probes[next++ & (PROBES - 1)];
+    }
+
+    @Benchmark
+    public Integer get() {
+        return tree.get(nextProbe());
+    }
+
+    /** Overwrites the value of an existing key; the shape of the tree does not change. */
+    @Benchmark
+    public boolean putExisting() {
+        Integer key = nextProbe();
+        return tree.put(key, key);
+    }
+
+    /** Removes a key and inserts it again, exercising unlinking, relinking and rebalancing. */
+    @Benchmark
+    public boolean removeAndPut() {
+        Integer key = nextProbe();
+        tree.remove(key);
+        return tree.put(key, key);
+    }
+
+    /** Scans for a value; the tree is built without the value index. */
+    @Benchmark
+    public Integer reverseLookup() {
+        return tree.reverseLookup(nextProbe());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public String toStringAll() {
+        return tree.toString();
+    }
+}
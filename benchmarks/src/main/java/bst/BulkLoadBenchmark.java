@@ -0,0 +1,93 @@
+package bst;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * Time to load pre-sorted pairs with BinarySearchTree.bulkLoad versus looped put on a
+ * self-balancing tree. The height of the resulting tree is printed after each trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class BulkLoadBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int size;
+
+    private Integer[] keys;
+    private BinarySearchTree<Integer, Integer> last;
+
+    @Setup(Level.Trial)
+    public void createKeys() {
+        keys = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = i;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void reportHeight() {
+        System.out.printf("%nheight after loading %d keys: %d%n", size, last.getHeight());
+    }
+
+    @Benchmark
+    public BinarySearchTree<Integer, Integer> loopedPut() {
+        BinarySearchTree<Integer, Integer> tree = new BinarySearchTree<>(true);
+        for (Integer key : keys) {
+            tree.put(key, key);
+        }
+        return last = tree;
+    }
+
+    @Benchmark
+    public BinarySearchTree<Integer, Integer> bulkLoad() {
+        BinarySearchTree<Integer, Integer> tree = new BinarySearchTree<>();
+        tree.bulkLoad(keys, keys);
+        return last = tree;
+    }
+
+    /** Two interleaved trees of size / 2 keys each, rebuilt before every merge. */
+    @State(Scope.Benchmark)
+    public static class Halves {
+        private BinarySearchTree<Integer, Integer> evens;
+        private BinarySearchTree<Integer, Integer> odds;
+
+        @Setup(Level.Iteration)
+        public void buildHalves(BulkLoadBenchmark benchmark) {
+            Integer[] half = new Integer[benchmark.size / 2];
+            for (int i = 0; i < half.length; i++) {
+                half[i] = 2 * i;
+            }
+            evens = new BinarySearchTree<>();
+            evens.bulkLoad(half, half);
+            for (int i = 0; i < half.length; i++) {
+                half[i] = 2 * i + 1;
+            }
+            odds = new BinarySearchTree<>();
+            odds.bulkLoad(half, half);
+        }
+    }
+
+    @Benchmark
+    public BinarySearchTree<Integer, Integer> putAll(Halves halves) {
+        halves.evens.putAll(halves.odds);
+        return last = halves.evens;
+    }
+}
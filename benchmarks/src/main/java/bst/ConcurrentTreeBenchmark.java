@@ -0,0 +1,83 @@
+package bst;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * Throughput of ConcurrentBinarySearchTree against a BinarySearchTree behind a global
+ * lock, under mixed read/write loads. The thread count is a JMH option, so sweep it
+ * from the command line:
+ *   for t in 1 2 4 8 16 32; do ./gradlew :benchmarks:jmh -Pjmh="ConcurrentTreeBenchmark -t $t"; done
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConcurrentTreeBenchmark {
+
+    private static final int KEYS = 100000;
+
+    @Param({"locked", "concurrent"})
+    public String tree;
+
+    @Param({"50", "90", "99"})
+    public int readPercentage;
+
+    private BinarySearchTree<Integer, Integer> locked;
+    private ConcurrentBinarySearchTree<Integer, Integer> concurrent;
+
+    @Setup(Level.Trial)
+    public void buildTree() {
+        if (tree.equals("locked")) {
+            locked = new BinarySearchTree<>(true);
+        } else {
+            concurrent = new ConcurrentBinarySearchTree<>();
+        }
+        for (int i = 0; i < KEYS; i++) {
+            put(i, i);
+        }
+    }
+
+    private Integer get(Integer key) {
+        if (locked == null) {
+            return concurrent.get(key);
+        }
+        synchronized (locked) {
+            return locked.get(key);
+        }
+    }
+
+    private boolean put(Integer key, Integer value) {
+        if (locked == null) {
+            return concurrent.put(key, value);
+        }
+        synchronized (locked) {
+            return locked.put(key, value);
+        }
+    }
+
+    @Benchmark
+    public Object mixed() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Integer key = random.nextInt(KEYS);
+        if (random.nextInt(100) < readPercentage) {
+            return get(key);
+        }
+        return put(key, key);
+    }
+}
@@ -0,0 +1,91 @@
+package bst;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * Lookup cost of LongBinarySearchTree against BinarySearchTree<Long, V> in
+ * self-balancing mode. The heap retained per entry is printed once per trial,
+ * since JMH itself only reports time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class LongTreeBenchmark {
+
+    private static final int PROBES = 4096;
+
+    // Shared value so that only the per-entry cost of the tree itself is measured
+    private static final String VALUE = "value";
+
+    @Param({"1000000"})
+    public int size;
+
+    @Param({"long", "generic"})
+    public String tree;
+
+    private LongBinarySearchTree<String> primitive;
+    private BinarySearchTree<Long, String> generic;
+    private long[] probes;
+    private Long[] boxedProbes;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void buildTree() {
+        Random random = new Random(5);
+        long[] keys = new long[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = random.nextLong();
+        }
+        long before = usedHeap();
+        if (tree.equals("long")) {
+            primitive = new LongBinarySearchTree<>();
+            for (long key : keys) {
+                primitive.put(key, VALUE);
+            }
+        } else {
+            generic = new BinarySearchTree<>(true);
+            for (long key : keys) {
+                generic.put(key, VALUE);
+            }
+        }
+        System.out.printf("%n%s tree: %.1f bytes/entry%n", tree, (double) (usedHeap() - before) / size);
+
+        probes = new long[PROBES];
+        boxedProbes = new Long[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            probes[i] = keys[random.nextInt(size)];
+            boxedProbes[i] = probes[i];
+        }
+    }
+
+    @Benchmark
+    public String get() {
+        int probe = next++ & (PROBES - 1);
+        return primitive != null ? primitive.get(probes[probe]) : generic.get(boxedProbes[probe]);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,65 @@
+package bst;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * Compares reverseLookup and containsValue with and without the value-to-key index
+ * (BinarySearchTree(balanced, indexValues)).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ReverseLookupBenchmark {
+
+    private static final int PROBES = 1024;
+
+    @Param({"1000000"})
+    public int size;
+
+    @Param({"false", "true"})
+    public boolean indexValues;
+
+    private BinarySearchTree<Integer, Integer> tree;
+    private Integer[] probes;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void buildTree() {
+        tree = new BinarySearchTree<>(true, indexValues);
+        for (int i = 0; i < size; i++) {
+            tree.put(i, i + size);
+        }
+        probes = new Integer[PROBES];
+        Random random = new Random(11);
+        for (int i = 0; i < PROBES; i++) {
+            probes[i] = random.nextInt(size) + size;
+        }
+    }
+
+    @Benchmark
+    public Integer reverseLookup() {
+        return tree.reverseLookup(probes[next++ & (PROBES - 1)]);
+    }
+
+    @Benchmark
+    public boolean containsValue() {
+        return tree.containsValue(probes[next++ & (PROBES - 1)]);
+    }
+}
@@ -0,0 +1,114 @@
+package bst;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * Startup cost of a read-mostly tree: opening a MappedBinarySearchTree snapshot versus
+ * rebuilding a BinarySearchTree with put, plus the lookup cost of each once ready.
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class SnapshotBenchmark {
+
+    private static final int PROBES = 1024;
+
+    @Param({"1000000"})
+    public int size;
+
+    private Path file;
+    private String[] probes;
+    private int next;
+    private BinarySearchTree<String, Integer> heapTree;
+    private MappedBinarySearchTree<String, Integer> mappedTree;
+
+    @Setup(Level.Trial)
+    public void writeSnapshot() throws IOException {
+        BinarySearchTree<String, Integer> tree = new BinarySearchTree<>(true);
+        for (int i = 0; i < size; i++) {
+            tree.put(key(i), i);
+        }
+        file = Files.createTempFile("bst", ".snapshot");
+        MappedBinarySearchTree.write(tree, file, MappedBinarySearchTree.STRINGS, MappedBinarySearchTree.INTEGERS);
+        heapTree = tree;
+        mappedTree = openSnapshot();
+        probes = new String[PROBES];
+        Random random = new Random(13);
+        for (int i = 0; i < PROBES; i++) {
+            probes[i] = key(random.nextInt(size));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteSnapshot() throws IOException {
+        mappedTree.close();
+        Files.delete(file);
+    }
+
+    private static String key(int i) {
+        return "user-" + i;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public BinarySearchTree<String, Integer> startupRebuild() {
+        BinarySearchTree<String, Integer> tree = new BinarySearchTree<>(true);
+        for (int i = 0; i < size; i++) {
+            tree.put(key(i), i);
+        }
+        return tree;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public Integer startupMapped() throws IOException {
+        try (MappedBinarySearchTree<String, Integer> tree = openSnapshot()) {
+            return tree.get(probes[0]);
+        }
+    }
+
+    private MappedBinarySearchTree<String, Integer> openSnapshot() throws IOException {
+        return MappedBinarySearchTree.open(file, MappedBinarySearchTree.STRINGS, MappedBinarySearchTree.INTEGERS);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    public Integer getHeap() {
+        return heapTree.get(probes[next++ & (PROBES - 1)]);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    public Integer getMapped() {
+        return mappedTree.get(probes[next++ & (PROBES - 1)]);
+    }
+}
@@ -0,0 +1,67 @@
+package bst;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * Cost of publishing a new version of a lookup table after one update: deep-copying a
+ * BinarySearchTree versus a path-copying PersistentBinarySearchTree put.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class SnapshotPublishBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int size;
+
+    private BinarySearchTree<Integer, Integer> mutable;
+    private PersistentBinarySearchTree<Integer, Integer> persistent;
+    private Random random;
+    private int version;
+
+    // Holds the last published version, as a reader-facing field would
+    private volatile Object published;
+
+    @Setup(Level.Trial)
+    public void buildTrees() {
+        mutable = new BinarySearchTree<>(true);
+        for (int i = 0; i < size; i++) {
+            mutable.put(i, i);
+        }
+        persistent = PersistentBinarySearchTree.of(mutable);
+        random = new Random(17);
+    }
+
+    /** Apply the update, then copy the whole tree for readers. */
+    @Benchmark
+    public Object deepCopy() {
+        mutable.put(random.nextInt(size), ++version);
+        BinarySearchTree<Integer, Integer> copy = new BinarySearchTree<>(true);
+        copy.bulkLoad(mutable.iterator());
+        return published = copy;
+    }
+
+    /** Each update already is a new, independent version. */
+    @Benchmark
+    public Object persistentPut() {
+        persistent = persistent.put(random.nextInt(size), ++version);
+        return published = persistent;
+    }
+}
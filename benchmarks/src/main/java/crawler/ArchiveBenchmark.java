@@ -0,0 +1,126 @@
+package crawler;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.sun.net.httpserver.HttpExchange;
+
+/*
+ * Time to crawl a synthetic site served from a local HttpServer with archiving off
+ * and on. Every page has `pageKB` KB of text and links to `fanout` other pages, and
+ * the server waits `latencyMillis` before each response; up to 32 pages are fetched
+ * at once. With archiving on, every response goes to a CrawlArchive in a temporary
+ * directory, which is flushed before the crawl counts as done.
+ *
+ * Besides the time per crawl, the counters report the pages fetched, the body bytes
+ * archived, the compressed bytes written, the responses the archive dropped, and
+ * the time its writer thread spent compressing and writing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ArchiveBenchmark {
+
+    @Param({"1000"})
+    public int pages;
+
+    @Param({"4"})
+    public int fanout;
+
+    @Param({"20"})
+    public int pageKB;
+
+    @Param({"5"})
+    public int latencyMillis;
+
+    @Param({"off", "on"})
+    public String archive;
+
+    private BenchmarkSite site;
+    private HttpFetcher fetcher;
+    private Path directory;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class ArchiveCounters {
+        public long pages;
+        public long archivedKB;
+        public long writtenKB;
+        public long dropped;
+        public long writeMillis;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        site = new BenchmarkSite(64, latencyMillis, this::handle, "/page/");
+        fetcher = new HttpFetcher();
+        directory = Files.createTempDirectory("archive-benchmark");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        fetcher.close();
+        site.close();
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private void handle(HttpExchange exchange, String context, long page) throws IOException {
+        StringBuilder html = new StringBuilder("<html><body>\n<p>");
+        Random random = new Random(page);
+        while (html.length() < pageKB * 1024) {
+            html.append(Integer.toString(random.nextInt(5000), 36)).append(' ');
+        }
+        html.append("</p>\n");
+        site.appendLinks(html, page, fanout, pages);
+        html.append("</body></html>\n");
+        site.send(exchange, html);
+    }
+
+    @Benchmark
+    public long crawl(ArchiveCounters counters) throws Exception {
+        CrawlArchive sink = archive.equals("on") ? new CrawlArchive(directory) : null;
+        fetcher.setArchive(sink);
+        CrawlScheduler scheduler = new CrawlScheduler(1, 10 * pages, Integer.MAX_VALUE, pages, 1000);
+        scheduler.setFetcher(fetcher, 32);
+        scheduler.submit(site.url(0), 0);
+        scheduler.start();
+        scheduler.completion().get(5, TimeUnit.MINUTES);
+        scheduler.shutdown(5, TimeUnit.SECONDS);
+        counters.pages += scheduler.getPagesScanned();
+        if (sink != null) {
+            sink.close();
+            counters.archivedKB += sink.getBytesIn() / 1024;
+            counters.writtenKB += sink.getBytesWritten() / 1024;
+            counters.dropped += sink.getDropped();
+            counters.writeMillis += Math.round(sink.getWriteMillis());
+        }
+        return scheduler.getPagesScanned();
+    }
+}
@@ -0,0 +1,112 @@
+package crawler;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/*
+ * Local HttpServer that serves the synthetic sites the crawl benchmarks fetch. Each
+ * benchmark makes its pages with a Handler; the site answers requests under the
+ * contexts it was given, on a fixed, pre-started pool of threads, so that the
+ * server's threads do not show up as crawl threads, each after `latencyMillis`.
+ *
+ * TCP_NODELAY is set on every connection: without it, a response written in two
+ * segments waits for the delayed ACK of the first, about 40 ms on Linux, and every
+ * benchmark would measure that instead of the crawl.
+ */
+class BenchmarkSite implements AutoCloseable {
+
+    static {
+        // Read once, when the first HttpServer is made
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    /** Answers the request for one page of the site. */
+    interface Handler {
+        /**
+         * @param exchange The request, to answer with send or directly
+         * @param context The context the page is under, such as "/page/"
+         * @param page The number that follows the context in the path
+         */
+        void handle(HttpExchange exchange, String context, long page) throws IOException;
+    }
+
+    private final HttpServer server;
+    private final ThreadPoolExecutor threads;
+    private final int latencyMillis;
+    private final AtomicLong bytesSent = new AtomicLong();
+
+    /**
+     * @param threads Number of threads answering requests
+     * @param latencyMillis How long each request waits before it is answered
+     * @param handler Makes the pages
+     * @param contexts Paths the pages are under, such as "/page/"
+     */
+    BenchmarkSite(int threads, int latencyMillis, Handler handler, String... contexts) throws IOException {
+        this.threads = (ThreadPoolExecutor) Executors.newFixedThreadPool(threads);
+        this.threads.prestartAllCoreThreads();
+        this.latencyMillis = latencyMillis;
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        server.setExecutor(this.threads);
+        for (String context : contexts) {
+            server.createContext(context, exchange -> {
+                long page = Long.parseLong(exchange.getRequestURI().getPath().substring(context.length()));
+                if (latencyMillis > 0) {
+                    try {
+                        Thread.sleep(latencyMillis);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                handler.handle(exchange, context, page);
+            });
+        }
+        server.start();
+    }
+
+    /** Absolute URL of a page under a context. */
+    String url(String context, long page) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + context + page;
+    }
+
+    /** Absolute URL of /page/i. */
+    String url(long page) {
+        return url("/page/", page);
+    }
+
+    /** Appends links to `fanout` pages after `page`, wrapping around at `pages`. */
+    void appendLinks(StringBuilder html, long page, int fanout, int pages) {
+        for (int i = 1; i <= fanout; i++) {
+            html.append("<a href=\"").append(url((page * fanout + i) % pages)).append("\">next</a>\n");
+        }
+    }
+
+    /** Answers with an HTML page. */
+    void send(HttpExchange exchange, CharSequence html) throws IOException {
+        byte[] body = html.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+        bytesSent.addAndGet(body.length);
+    }
+
+    /** Body bytes sent by send so far. */
+    long getBytesSent() {
+        return bytesSent.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        threads.shutdownNow();
+    }
+}
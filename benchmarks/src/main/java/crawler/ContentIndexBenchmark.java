@@ -0,0 +1,124 @@
+package crawler;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.sun.management.OperatingSystemMXBean;
+import com.sun.net.httpserver.HttpExchange;
+
+/*
+ * Crawl of a synthetic site full of duplicate pages, served from a local
+ * HttpServer, with and without a ContentIndex. The site has `pages` pages of a few
+ * hundred words each, every one linking to `fanout` others and to a printer-friendly
+ * copy of itself, and every link carries a new session ID, so that no URL is ever
+ * seen twice. Without the index the crawl only ends at its page limit, ten times the
+ * number of pages; with it, only the pages reached from an original are fetched.
+ *
+ * Besides the time per crawl, the counters report the pages fetched, the copies
+ * that were not searched for links, the time spent parsing and fingerprinting, and
+ * the CPU time of the whole process, the server serving the pages included.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ContentIndexBenchmark {
+
+    @Param({"500"})
+    public int pages;
+
+    @Param({"4"})
+    public int fanout;
+
+    @Param({"off", "on"})
+    public String index;
+
+    private BenchmarkSite site;
+    private HttpFetcher fetcher;
+    private OperatingSystemMXBean os;
+    private final AtomicLong sessions = new AtomicLong();
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class DedupCounters {
+        public long pages;
+        public long copies;
+        public long parseMillis;
+        public long cpuMillis;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        site = new BenchmarkSite(8, 0, this::handle, "/page/", "/print/");
+        fetcher = new HttpFetcher();
+        os = (OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fetcher.close();
+        site.close();
+    }
+
+    private void handle(HttpExchange exchange, String context, long page) throws IOException {
+        StringBuilder html = new StringBuilder("<html><body>\n<h1>Page ").append(page).append("</h1>\n<p>");
+        Random random = new Random(page);
+        for (int i = 0; i < 300; i++) {
+            html.append(Integer.toString(random.nextInt(5000), 36)).append(i % 15 == 14 ? ".\n" : " ");
+        }
+        html.append("</p>\n");
+        for (int i = 1; i <= fanout; i++) {
+            html.append("<a href=\"").append(url("/page/", (page * fanout + i) % pages)).append("\">next</a>\n");
+        }
+        if (context.equals("/page/")) {
+            html.append("<a href=\"").append(url("/print/", page)).append("\">printer friendly</a>\n");
+        }
+        html.append("</body></html>\n");
+        site.send(exchange, html);
+    }
+
+    private String url(String context, long page) {
+        return site.url(context, page) + "?sid=" + sessions.incrementAndGet();
+    }
+
+    @Benchmark
+    public long crawl(DedupCounters counters) throws Exception {
+        long cpuBefore = os.getProcessCpuTime();
+        CrawlScheduler scheduler = new CrawlScheduler(1, 10 * pages, Integer.MAX_VALUE, 10 * pages, 1000);
+        scheduler.setFetcher(fetcher, 32);
+        if (index.equals("on")) {
+            scheduler.setContentIndex(new ContentIndex(pages));
+        }
+        scheduler.submit(url("/page/", 0), 0);
+        scheduler.start();
+        scheduler.completion().get(5, TimeUnit.MINUTES);
+        scheduler.shutdown(5, TimeUnit.SECONDS);
+        CrawlMetrics metrics = scheduler.getMetrics();
+        LatencyStats parse = metrics.getParseLatency();
+        counters.pages += metrics.getPagesFetched();
+        counters.copies += metrics.getExactCopies() + metrics.getNearCopies();
+        counters.parseMillis += Math.round(parse.getCount() * parse.getMeanMillis());
+        counters.cpuMillis += TimeUnit.NANOSECONDS.toMillis(os.getProcessCpuTime() - cpuBefore);
+        return metrics.getPagesFetched();
+    }
+}
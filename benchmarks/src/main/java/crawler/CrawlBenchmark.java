@@ -0,0 +1,161 @@
+package crawler;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.sun.net.httpserver.HttpExchange;
+
+/*
+ * Time to crawl a synthetic site served from a local HttpServer, with the
+ * CrawlScheduler and its asynchronous HttpFetcher (one worker thread, two fetcher
+ * threads, up to `inFlight` pages at once) against the old thread-per-link design
+ * with blocking streams. Every page links to `fanout` other pages and the server
+ * waits `latencyMillis` before each response, so the crawl is dominated by waiting
+ * on the network as a real one is.
+ *
+ * Besides the time per crawl, the "pages" and "peakThreads" counters report how
+ * many pages were fetched and how many threads the crawl added at its peak.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CrawlBenchmark {
+
+    @Param({"500"})
+    public int pages;
+
+    @Param({"4"})
+    public int fanout;
+
+    @Param({"5"})
+    public int latencyMillis;
+
+    @Param({"1", "8", "32", "128"})
+    public int inFlight;
+
+    private BenchmarkSite site;
+    private HttpFetcher fetcher;
+    private ThreadMXBean threads;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class CrawlCounters {
+        public long pages;
+        public long peakThreads;
+    }
+
+    @Setup(Level.Trial)
+    public void startServer() throws IOException {
+        site = new BenchmarkSite(64, latencyMillis, this::handle, "/page/");
+        threads = ManagementFactory.getThreadMXBean();
+        fetcher = new HttpFetcher();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopServer() {
+        fetcher.close();
+        site.close();
+    }
+
+    private void handle(HttpExchange exchange, String context, long page) throws IOException {
+        StringBuilder html = new StringBuilder("<html><body>\n");
+        site.appendLinks(html, page, fanout, pages);
+        html.append("</body></html>\n");
+        site.send(exchange, html);
+    }
+
+    @Benchmark
+    public long scheduler(CrawlCounters counters) throws Exception {
+        int before = threads.getThreadCount();
+        threads.resetPeakThreadCount();
+        CrawlScheduler scheduler = new CrawlScheduler(1, 10 * pages, Integer.MAX_VALUE, pages, 1000);
+        scheduler.setFetcher(fetcher, inFlight);
+        scheduler.submit(site.url(0), 0);
+        scheduler.start();
+        scheduler.completion().get(5, TimeUnit.MINUTES);
+        scheduler.shutdown(5, TimeUnit.SECONDS);
+        counters.pages += scheduler.getPagesScanned();
+        counters.peakThreads += threads.getPeakThreadCount() - before;
+        return scheduler.getPagesScanned();
+    }
+
+    /** The previous design: every new link starts a thread of its own. */
+    @Benchmark
+    public long threadPerLink(CrawlCounters counters) throws Exception {
+        int before = threads.getThreadCount();
+        threads.resetPeakThreadCount();
+        ThreadPerLink crawl = new ThreadPerLink();
+        crawl.start(site.url(0));
+        crawl.done.await(5, TimeUnit.MINUTES);
+        counters.pages += crawl.fetched.get();
+        counters.peakThreads += threads.getPeakThreadCount() - before;
+        return crawl.fetched.get();
+    }
+
+    private static class ThreadPerLink {
+        private final Set<String> seen = ConcurrentHashMap.newKeySet();
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final AtomicInteger fetched = new AtomicInteger();
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        void start(String url) {
+            seen.add(url);
+            outstanding.incrementAndGet();
+            new Thread(() -> scan(url)).start();
+        }
+
+        private void scan(String url) {
+            try (Reader in = new InputStreamReader(new URL(url).openStream(), StandardCharsets.UTF_8)) {
+                fetched.incrementAndGet();
+                HtmlLinkExtractor extractor = new HtmlLinkExtractor(url, new HtmlLinkExtractor.Listener() {
+                    @Override
+                    public void link(String link) {
+                        if (seen.add(link)) {
+                            start(link);
+                        }
+                    }
+
+                    @Override
+                    public void image(String image) {
+                    }
+                });
+                extractor.feed(in);
+                extractor.finish();
+            } catch (IOException e) {
+                // counted as not fetched
+            } finally {
+                if (outstanding.decrementAndGet() == 0) {
+                    done.countDown();
+                }
+            }
+        }
+    }
+}
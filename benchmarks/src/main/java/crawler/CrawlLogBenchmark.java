@@ -0,0 +1,134 @@
+package crawler;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.sun.net.httpserver.HttpExchange;
+
+/*
+ * Cost of checkpointing a crawl to a CrawlLog, and time to resume from one.
+ *
+ * crawl: time to crawl a synthetic site from a local HttpServer (as in
+ * CrawlBenchmark, with 32 pages in flight) without a checkpoint ("off") and with
+ * a log whose batches are never forced to disk ("never"), forced at most every
+ * second ("1000") or forced after every batch ("0"). Servers answer at once, so
+ * the crawl runs as fast as the crawler can, and the overhead shows fully.
+ *
+ * replay: time to rebuild the seen pages and frontier of a crawl from a log of
+ * `records` queued pages, a third of them scanned, by memory-mapping it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CrawlLogBenchmark {
+
+    @Param({"2000"})
+    public int pages;
+
+    @Param({"off", "never", "1000", "0"})
+    public String fsyncMillis;
+
+    @Param({"1000000"})
+    public int records;
+
+    private BenchmarkSite site;
+    private HttpFetcher fetcher;
+    private Path directory;
+    private Path replayLog;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class LogCounters {
+        public long pages;
+        public long batches;
+        public long syncs;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        site = new BenchmarkSite(8, 0, this::handle, "/page/");
+        fetcher = new HttpFetcher();
+        directory = Files.createTempDirectory("crawl-log-benchmark");
+        replayLog = directory.resolve("replay.log");
+        try (CrawlLog log = new CrawlLog(replayLog, false, 64 * 1024, 100, -1)) {
+            for (int i = 0; i < records; i++) {
+                String url = "https://www.example" + (i % 1000) + ".com/articles/2024/page-" + i + ".html";
+                log.queued(url, i % 5);
+                if (i % 3 == 0) {
+                    log.scanned(url);
+                }
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        fetcher.close();
+        site.close();
+        try (var files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    private void handle(HttpExchange exchange, String context, long page) throws IOException {
+        StringBuilder html = new StringBuilder("<html><body>\n");
+        site.appendLinks(html, page, 4, pages);
+        html.append("<img src=\"/images/").append(page).append(".png\">\n</body></html>\n");
+        site.send(exchange, html);
+    }
+
+    @Benchmark
+    public long crawl(LogCounters counters) throws Exception {
+        CrawlScheduler scheduler = new CrawlScheduler(1, 10 * pages, Integer.MAX_VALUE, pages, 1000);
+        scheduler.setFetcher(fetcher, 32);
+        CrawlLog log = null;
+        if (!fsyncMillis.equals("off")) {
+            long fsync = fsyncMillis.equals("never") ? -1 : Long.parseLong(fsyncMillis);
+            log = new CrawlLog(directory.resolve("crawl.log"), false, 64 * 1024, 100, fsync);
+            scheduler.setCheckpoint(log);
+        }
+        scheduler.submit(site.url(0), 0);
+        scheduler.start();
+        scheduler.completion().get(5, TimeUnit.MINUTES);
+        scheduler.shutdown(5, TimeUnit.SECONDS);
+        if (log != null) {
+            log.close();
+            counters.batches += log.getBatches();
+            counters.syncs += log.getSyncs();
+        }
+        counters.pages += scheduler.getPagesScanned();
+        return scheduler.getPagesScanned();
+    }
+
+    @Benchmark
+    public int replay() throws Exception {
+        try (CrawlLog log = new CrawlLog(replayLog, true)) {
+            CrawlScheduler scheduler = new CrawlScheduler(1, 100, Integer.MAX_VALUE, Integer.MAX_VALUE, 1000,
+                    new FingerprintSeenUrlStore());
+            return scheduler.resume(log);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package crawler;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.sun.net.httpserver.HttpExchange;
+
+/*
+ * Useful pages found within a fixed budget of fetches, crawling a synthetic site
+ * from a local HttpServer with a FifoFrontier and with a PriorityFrontier and the
+ * default WeightedPageScorer, its tree kept small enough to spill to disk.
+ *
+ * The site is mostly junk: every /page/i links to `fanout` deeper pages without end.
+ * The useful pages are `galleries` pages /gallery/j, each linked from a couple of
+ * pages chosen at random, the low-numbered ones much more often, and linking to two
+ * more galleries. The crawl may fetch `budget` pages; the "useful" counter reports
+ * how many of them were galleries.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class FrontierBenchmark {
+
+    @Param({"500"})
+    public int budget;
+
+    @Param({"5"})
+    public int fanout;
+
+    @Param({"1000"})
+    public int galleries;
+
+    @Param({"fifo", "priority"})
+    public String frontier;
+
+    private BenchmarkSite site;
+    private HttpFetcher fetcher;
+    private Path spillDirectory;
+    private final AtomicLong useful = new AtomicLong();
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class BudgetCounters {
+        public long pages;
+        public long useful;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        site = new BenchmarkSite(8, 0, this::handle, "/page/", "/gallery/");
+        fetcher = new HttpFetcher();
+        spillDirectory = Files.createTempDirectory("frontier-benchmark");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        fetcher.close();
+        site.close();
+        Files.delete(spillDirectory);
+    }
+
+    private void handle(HttpExchange exchange, String context, long page) throws IOException {
+        StringBuilder html = new StringBuilder("<html><body>\n");
+        Random random = new Random(page);
+        if (context.equals("/gallery/")) {
+            useful.incrementAndGet();
+            for (long child = 2 * page + 1; child <= 2 * page + 2; child++) {
+                html.append("<a href=\"/gallery/").append(child % galleries).append("\">more</a>\n");
+            }
+        } else {
+            for (int i = 1; i <= fanout; i++) {
+                html.append("<a href=\"/page/").append(page * fanout + i).append("\">next</a>\n");
+            }
+            for (int i = 0; i < 2; i++) {
+                double u = random.nextDouble();
+                html.append("<a href=\"/gallery/").append((int) (galleries * u * u)).append("\">gallery</a>\n");
+            }
+        }
+        html.append("</body></html>\n");
+        site.send(exchange, html);
+    }
+
+    @Benchmark
+    public long crawl(BudgetCounters counters) throws Exception {
+        useful.set(0);
+        Frontier pages = frontier.equals("fifo") ? new FifoFrontier(1000000)
+                : new PriorityFrontier(1000, new WeightedPageScorer(), spillDirectory, 1000000);
+        // The page limit counts pages as they are queued, so the budget is enforced by
+        // stopping the crawl; one page is fetched at a time, in the frontier's order
+        CrawlScheduler scheduler = new CrawlScheduler(1, pages, Integer.MAX_VALUE, Integer.MAX_VALUE, 1000,
+                new ConcurrentSeenUrlStore());
+        scheduler.setFetcher(fetcher, 1);
+        scheduler.submit(site.url(0), 0);
+        scheduler.start();
+        while (scheduler.getPagesScanned() < budget) {
+            Thread.sleep(1);
+        }
+        scheduler.shutdown(5, TimeUnit.SECONDS);
+        counters.pages += scheduler.getPagesScanned();
+        counters.useful += useful.get();
+        return useful.get();
+    }
+}
@@ -0,0 +1,133 @@
+package crawler;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * Time to crawl a site without a network, as a build would to catch a drop in
+ * throughput: the site of a SyntheticFetcher with `pages` pages linking to `fanout`
+ * new ones each, answered either by the SyntheticFetcher itself or, replayed, by a
+ * ReplayFetcher from a CrawlArchive of the same pages written once in setUp. Every
+ * response is `latencyMillis` late for the synthetic backend; replay answers at disk
+ * speed. The crawl goes through a PoliteFrontier with no delay between fetches, with
+ * up to 32 pages in flight, as the Driver's offline backends do.
+ *
+ * The archive also holds the site's images, so that both backends show them.
+ *
+ * Besides the time per crawl, the counters report the pages scanned and the requests
+ * the fetcher answered, robots.txt included.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class OfflineCrawlBenchmark {
+
+    private static final Map<String, List<String>> HTML = Map.of("Content-Type", List.of("text/html; charset=utf-8"));
+
+    @Param({"2000"})
+    public int pages;
+
+    @Param({"8"})
+    public int fanout;
+
+    @Param({"8192"})
+    public int pageBytes;
+
+    @Param({"5"})
+    public long latencyMillis;
+
+    @Param({"synthetic", "replay"})
+    public String backend;
+
+    private SyntheticFetcher synthetic;
+    private Path directory;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class CrawlCounters {
+        public long pages;
+        public long requests;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        synthetic = new SyntheticFetcher(pages, fanout, 16, pageBytes, latencyMillis, 2);
+        if (backend.equals("replay")) {
+            directory = Files.createTempDirectory("offline-crawl-benchmark");
+            try (CrawlArchive archive = new CrawlArchive(directory)) {
+                for (int i = 0; i < pages; i++) {
+                    byte[] page = synthetic.page(i);
+                    archive.record(synthetic.url(i), 200, HTML, page, page.length);
+                }
+                for (int j = 0; j < SyntheticFetcher.IMAGES; j++) {
+                    try (FetchStream image = synthetic.openStream(synthetic.imageUrl(j))) {
+                        byte[] png = image.readAllBytes();
+                        archive.record(synthetic.imageUrl(j), 200, image.getHeaders(), png, png.length);
+                    }
+                }
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        synthetic.close();
+        if (directory != null) {
+            try (Stream<Path> paths = Files.walk(directory)) {
+                for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                    Files.delete(path);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public long crawl(CrawlCounters counters) throws Exception {
+        OfflineFetcher fetcher = backend.equals("replay") ? ReplayFetcher.open(directory, 2) : synthetic;
+        // The few images are shown once per run, from the same backend as the pages
+        PictureViewer.getDecoder().setFetcher(fetcher);
+        try {
+            Frontier frontier = new PoliteFrontier(pages, 2, 0, fetcher);
+            CrawlScheduler scheduler = new CrawlScheduler(2, frontier, Integer.MAX_VALUE, pages, 1000,
+                    new ConcurrentSeenUrlStore());
+            scheduler.setFetcher(fetcher, 32);
+            long requests = fetcher.getRequests();
+            scheduler.submit(synthetic.url(0), 0);
+            scheduler.start();
+            scheduler.completion().get(5, TimeUnit.MINUTES);
+            scheduler.shutdown(5, TimeUnit.SECONDS);
+            counters.pages += scheduler.getPagesScanned();
+            counters.requests += fetcher.getRequests() - requests;
+            return scheduler.getPagesScanned();
+        } finally {
+            PictureViewer.getDecoder().setFetcher(null);
+            if (fetcher != synthetic) {
+                fetcher.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package crawler;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/*
+ * Cost of extracting links and images from a whole page, over the saved pages in
+ * src/main/resources/pages: a link-heavy front page, an image gallery, a long text
+ * article and a minified page with very long lines.
+ *
+ * The regex benchmarks reproduce the extraction PageScanner used before
+ * HtmlLinkExtractor: the page split into lines, and the link and image patterns run
+ * over each line. The "raw" variants report values as written; the "normalized"
+ * variants also resolve and canonicalize them, as the crawler does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PageScannerBenchmark {
+
+    private static final String PAGE_URL = "https://www.example.com/section/page.html";
+
+    private static final Pattern LINK_PATTERN = Pattern.compile("href=(\"|\')([^\"\']+)\\1");
+    private static final Pattern IMAGE_PATTERN = Pattern.compile("<img\\s+[^>]*?src=(\"|\')([^\"\']+)\\1");
+
+    @Param({"news-front.html", "gallery.html", "docs-article.html", "minified-shop.html"})
+    public String page;
+
+    private String html;
+    private char[] chars;
+
+    @Setup(Level.Trial)
+    public void loadPage() throws IOException {
+        html = String.join("\n", readPage(page));
+        chars = html.toCharArray();
+        // How many values each approach finds, since they do not agree exactly
+        int[] found = new int[2];
+        regex(null, url -> found[0]++);
+        tokenizer(null, url -> found[1]++);
+        System.out.printf("%n%s: regex found %d links and images, tokenizer %d%n", page, found[0], found[1]);
+    }
+
+    static List<String> readPage(String name) throws IOException {
+        try (InputStream in = PageScannerBenchmark.class.getResourceAsStream("/pages/" + name)) {
+            if (in == null) {
+                throw new IOException("No saved page named " + name);
+            }
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            return reader.lines().collect(Collectors.toList());
+        }
+    }
+
+    private interface Sink {
+        void accept(String url);
+    }
+
+    private void regex(String pageUrl, Sink sink) throws IOException {
+        BufferedReader reader = new BufferedReader(new StringReader(html));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            ArrayList<String> links = new ArrayList<>();
+            Matcher matcher = LINK_PATTERN.matcher(line);
+            while (matcher.find()) {
+                links.add(matcher.group(2));
+            }
+            ArrayList<String> images = new ArrayList<>();
+            matcher = IMAGE_PATTERN.matcher(line);
+            while (matcher.find()) {
+                images.add(matcher.group(2));
+            }
+            for (String link : links) {
+                sink.accept(pageUrl == null ? link : UrlNormalizer.normalize(pageUrl, link));
+            }
+            for (String image : images) {
+                sink.accept(pageUrl == null ? image : UrlNormalizer.normalize(pageUrl, image));
+            }
+        }
+    }
+
+    private void tokenizer(String pageUrl, Sink sink) {
+        HtmlLinkExtractor extractor = new HtmlLinkExtractor(pageUrl, new HtmlLinkExtractor.Listener() {
+            @Override
+            public void link(String url) {
+                sink.accept(url);
+            }
+
+            @Override
+            public void image(String url) {
+                sink.accept(url);
+            }
+        });
+        // Fed in network-sized chunks, as PageScanner does
+        for (int offset = 0; offset < chars.length; offset += 8192) {
+            extractor.feed(chars, offset, Math.min(8192, chars.length - offset));
+        }
+        extractor.finish();
+    }
+
+    @Benchmark
+    public void regexRaw(Blackhole blackhole) throws IOException {
+        regex(null, blackhole::consume);
+    }
+
+    @Benchmark
+    public void tokenizerRaw(Blackhole blackhole) {
+        tokenizer(null, blackhole::consume);
+    }
+
+    @Benchmark
+    public void regexNormalized(Blackhole blackhole) throws IOException {
+        regex(PAGE_URL, blackhole::consume);
+    }
+
+    @Benchmark
+    public void tokenizerNormalized(Blackhole blackhole) {
+        tokenizer(PAGE_URL, blackhole::consume);
+    }
+}
@@ -0,0 +1,178 @@
+package crawler;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.sun.net.httpserver.HttpExchange;
+
+/*
+ * Time and bytes to crawl again a site crawled before, cold (every page downloaded
+ * and parsed) against a recrawl with a RecrawlStore (conditional requests, and the
+ * links of pages answered 304 taken from the store). The site is served from a local
+ * HttpServer that honours If-None-Match and If-Modified-Since: `pages` pages of about
+ * `pageKB` KB, each linking to `fanout` others, every response `latencyMillis` late.
+ * Before each iteration `changedPercent` percent of the pages, picked at random, get
+ * a new version, and the store is read back from the file the last crawl saved it to;
+ * a recrawl includes saving it again.
+ *
+ * Besides the time per crawl, the counters report the pages scanned, those answered
+ * 304, the KB of bodies the server sent and the KB the crawl counted as downloaded.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RecrawlBenchmark {
+
+    // When the first version of every page was made
+    private static final Instant CREATED = Instant.parse("2024-01-01T00:00:00Z");
+
+    @Param({"1000"})
+    public int pages;
+
+    @Param({"4"})
+    public int fanout;
+
+    @Param({"20"})
+    public int pageKB;
+
+    @Param({"5"})
+    public int latencyMillis;
+
+    @Param({"10"})
+    public int changedPercent;
+
+    @Param({"cold", "recrawl"})
+    public String mode;
+
+    private BenchmarkSite site;
+    private HttpFetcher fetcher;
+    private Path file;
+    private RecrawlStore store;
+    private final Random random = new Random(42);
+    // Version of each page, and what the server sent
+    private AtomicIntegerArray versions;
+    private final AtomicLong notModified = new AtomicLong();
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class RecrawlCounters {
+        public long pages;
+        public long notModified;
+        public long kbSent;
+        public long kbDownloaded;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        versions = new AtomicIntegerArray(pages);
+        site = new BenchmarkSite(64, latencyMillis, this::handle, "/page/");
+        fetcher = new HttpFetcher();
+        file = Files.createTempFile("recrawl-benchmark", ".store");
+        Files.delete(file);
+        if (mode.equals("recrawl")) {
+            // The crawl before, which every recrawl follows
+            store = new RecrawlStore(file);
+            crawl(store);
+            store.save();
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void changePages() {
+        for (int i = 0; i < pages * changedPercent / 100; i++) {
+            versions.incrementAndGet(random.nextInt(pages));
+        }
+        if (mode.equals("recrawl")) {
+            store = new RecrawlStore(file);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        fetcher.close();
+        site.close();
+        Files.deleteIfExists(file);
+    }
+
+    private void handle(HttpExchange exchange, String context, long page) throws IOException {
+        int version = versions.get((int) page);
+        String etag = "\"" + page + "-" + version + "\"";
+        // A version a day, so that If-Modified-Since sees every change
+        String lastModified = DateTimeFormatter.RFC_1123_DATE_TIME
+                .format(CREATED.plus(Duration.ofDays(version)).atOffset(ZoneOffset.UTC));
+        exchange.getResponseHeaders().set("ETag", etag);
+        exchange.getResponseHeaders().set("Last-Modified", lastModified);
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        String ifModifiedSince = exchange.getRequestHeaders().getFirst("If-Modified-Since");
+        if (ifNoneMatch != null ? ifNoneMatch.equals(etag) : lastModified.equals(ifModifiedSince)) {
+            notModified.incrementAndGet();
+            // Read to the end first, or the server closes the connection the client may already be reusing
+            exchange.getRequestBody().close();
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+        StringBuilder html = new StringBuilder("<html><body>\n<h1>Page " + page + " version " + version + "</h1>\n");
+        site.appendLinks(html, page, fanout, pages);
+        while (html.length() < pageKB * 1024) {
+            html.append("<p>Lorem ipsum dolor sit amet, consectetur adipiscing elit, sed do eiusmod tempor.</p>\n");
+        }
+        html.append("</body></html>\n");
+        site.send(exchange, html);
+    }
+
+    private CrawlScheduler crawl(RecrawlStore recrawl) throws Exception {
+        CrawlScheduler scheduler = new CrawlScheduler(1, 10 * pages, Integer.MAX_VALUE, pages, 1000);
+        scheduler.setFetcher(fetcher, 32);
+        if (recrawl != null) {
+            scheduler.setRecrawlStore(recrawl);
+        }
+        scheduler.submit(site.url(0), 0);
+        scheduler.start();
+        scheduler.completion().get(5, TimeUnit.MINUTES);
+        scheduler.shutdown(5, TimeUnit.SECONDS);
+        return scheduler;
+    }
+
+    @Benchmark
+    public long crawl(RecrawlCounters counters) throws Exception {
+        long sent = site.getBytesSent();
+        long answered = notModified.get();
+        CrawlScheduler scheduler = crawl(store);
+        if (store != null) {
+            store.save();
+        }
+        counters.pages += scheduler.getPagesScanned();
+        counters.notModified += notModified.get() - answered;
+        counters.kbSent += (site.getBytesSent() - sent) / 1024;
+        counters.kbDownloaded += scheduler.getMetrics().getBytesDownloaded() / 1024;
+        return scheduler.getPagesScanned();
+    }
+}
@@ -0,0 +1,104 @@
+package crawler;
+
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * Dedup throughput of the SeenUrlStore implementations against the old HashSet behind
+ * one synchronized block, with the store already holding `urls` URLs. Each add is a
+ * link found on a page: most have been seen before, one in eight is new. The heap
+ * retained per URL is printed once per trial. The thread count is a JMH option:
+ *   for t in 1 4 16; do ./gradlew :benchmarks:jmh -Pjmh="SeenUrlStoreBenchmark -t $t"; done
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SeenUrlStoreBenchmark {
+
+    private static final int PROBES = 1 << 16;
+
+    @Param({"1000000"})
+    public int urls;
+
+    @Param({"synchronized", "concurrent", "fingerprint", "bloom"})
+    public String store;
+
+    private HashSet<String> synchronizedSet;
+    private SeenUrlStore seen;
+    private String[] probes;
+
+    @Setup(Level.Trial)
+    public void fillStore() {
+        long before = usedHeap();
+        switch (store) {
+        case "synchronized":
+            synchronizedSet = new HashSet<>();
+            break;
+        case "concurrent":
+            seen = new ConcurrentSeenUrlStore();
+            break;
+        case "fingerprint":
+            seen = new FingerprintSeenUrlStore();
+            break;
+        default:
+            seen = new BloomSeenUrlStore(4L * urls, 0.001);
+        }
+        for (int i = 0; i < urls; i++) {
+            add(url(i));
+        }
+        System.out.printf("%n%s store: %.1f bytes/URL%n", store, (double) (usedHeap() - before) / urls);
+
+        probes = new String[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            // Every eighth probe is a URL the store has not held before
+            probes[i] = url(i % 8 == 0 ? urls + i : (int) ((i * 2654435761L) % urls));
+        }
+    }
+
+    private static String url(int i) {
+        return "https://www.example.com/section/" + (i % 100) + "/article-" + i + ".html";
+    }
+
+    private boolean add(String url) {
+        if (seen != null) {
+            return seen.add(url);
+        }
+        synchronized (synchronizedSet) {
+            return synchronizedSet.add(url);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    public boolean add(Cursor cursor) {
+        return add(probes[cursor.next++ & (PROBES - 1)]);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,884 @@
+// Binary Search Tree (BST) custom implementation with special functionality for projects
+package bst;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+public class BinarySearchTree<K extends Comparable<K>, V> implements Iterable<Map.Entry<K, V>> {
+    
+    // Node class for representing individual elements in the binary search tree.
+    // Nodes are handed out directly as read-only entries during iteration.
+    private class Node implements Map.Entry<K, V> {
+        private K key;
+        private V value;
+        private Node left, right;
+        // Height of the subtree rooted at this node (a leaf has height 1)
+        private int height = 1;
+        // Number of nodes in the subtree rooted at this node
+        private int size = 1;
+
+        private Node(K key, V data) {
+            this.key = key;
+            this.value = data;
+        }
+
+        public K getKey() {
+            return key;
+        }
+
+        public V getValue() {
+            return value;
+        }
+
+        // Values must change through put, which keeps the value index in sync
+        public V setValue(V value) {
+            throw new UnsupportedOperationException();
+        }
+
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> other = (Map.Entry<?, ?>) o;
+            return key.equals(other.getKey()) && Objects.equals(value, other.getValue());
+        }
+
+        public int hashCode() {
+            return key.hashCode() ^ Objects.hashCode(value);
+        }
+
+        public String toString() {
+            return key + "=" + value;
+        }
+    }
+
+    // Root of the binary search tree
+    private Node root;
+
+    // Whether put and remove rebalance the tree (AVL rotations) after each update
+    private final boolean balanced;
+
+    // Optional secondary index from each value to the key (or HashSet of keys)
+    // mapped to it; null when the tree was created without value indexing
+    private final HashMap<V, Object> valueIndex;
+
+    // Reusable stack of the nodes visited by the last descent, so put and remove
+    // can walk back up the tree without recursion or per-call allocation
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Node[] path = (Node[]) new BinarySearchTree.Node[32];
+
+    /**
+     * Creates an empty, unbalanced tree. Its shape depends on insertion order.
+     */
+    public BinarySearchTree() {
+        this(false);
+    }
+
+    /**
+     * Creates an empty tree.
+     * @param balanced true to keep the tree height-balanced (AVL) on every put and remove,
+     *        so that get, put and remove stay O(log n) even for keys inserted in sorted order
+     */
+    public BinarySearchTree(boolean balanced) {
+        this(balanced, false);
+    }
+
+    /**
+     * Creates an empty tree.
+     * @param balanced true to keep the tree height-balanced (AVL) on every put and remove
+     * @param indexValues true to maintain a value-to-key index, making reverseLookup and
+     *        containsValue near-constant time at the cost of one hash entry per distinct value
+     */
+    public BinarySearchTree(boolean balanced, boolean indexValues) {
+        this.balanced = balanced;
+        this.valueIndex = indexValues ? new HashMap<>() : null;
+    }
+
+    /**
+     * Returns whether this tree rebalances itself on put and remove.
+     * @return true if the tree was created in self-balancing mode
+     */
+    public boolean isSelfBalancing() {
+        return balanced;
+    }
+
+    /**
+     * Search for the Node with the key equal to the parameter.
+     * If found, return the corresponding data value.
+     * @param key The key to search for
+     * @return The corresponding data value or null if not found
+     */
+    public V get(K key) {
+        Node localRoot = root;
+        while (localRoot != null) {
+            int compNum = key.compareTo(localRoot.key);
+            if (compNum == 0) {
+                return localRoot.value;
+            }
+            localRoot = compNum < 0 ? localRoot.left : localRoot.right;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the number of leaves in the tree.
+     * @return The number of leaves in the tree
+     */
+    public int countLeaves() {
+        if (root == null) {
+            return 0;
+        }
+        return countLeavesHelper(root);
+    }
+
+    // Helper method for recursive counting of leaves
+    private int countLeavesHelper(Node localRoot) {
+        if (localRoot == null) {
+            return 0;
+        }
+        if (localRoot.left == null && localRoot.right == null) {
+            return 1;  // Node is a leaf
+        }
+        return countLeavesHelper(localRoot.left) + countLeavesHelper(localRoot.right);
+    }
+
+    /**
+     * Find the Node with the smallest key, and return its value.
+     * @return The value of the Node with the smallest key
+     */
+    public V getValueForSmallestKey() {
+        if (root == null) {
+            return null;
+        }
+        return getSmallestHelper(root);
+    }
+
+    // Helper method for recursive search of smallest key
+    private V getSmallestHelper(Node localRoot) {
+        if (localRoot.left == null) {
+            return localRoot.value;
+        }
+        return getSmallestHelper(localRoot.left);
+    }
+
+    /**
+     * Find any key that is mapped to the given value.
+     * @param value The value to search for
+     * @return Any key that maps to the given value or null if not found
+     */
+    @SuppressWarnings("unchecked")
+    public K reverseLookup(V value) {
+        if (valueIndex != null) {
+            Object keys = valueIndex.get(value);
+            if (keys instanceof HashSet) {
+                return ((HashSet<K>) keys).iterator().next();
+            }
+            return (K) keys;
+        }
+        if (root == null) {
+            return null;
+        }
+        return reverseLookupHelper(root, value);
+    }
+
+    // Helper method for recursive reverse lookup
+    private K reverseLookupHelper(Node localRoot, V value) {
+        if (localRoot == null) {
+            return null;
+        }
+        if (Objects.equals(localRoot.value, value)) {
+            return localRoot.key;
+        }
+        K leftFound = reverseLookupHelper(localRoot.left, value);
+        if (leftFound != null) {
+            return leftFound;
+        }
+        K rightFound = reverseLookupHelper(localRoot.right, value);
+        if (rightFound != null) {
+            return rightFound;
+        }
+        return null;
+    }
+
+    /**
+     * Inserts a key-value pair into the binary search tree.
+     * @param key The key to insert
+     * @param data The corresponding data value
+     * @return true if the key is inserted, false if the key already exists (update data)
+     */
+    public boolean put(K key, V data) {
+        if (root == null) {
+            root = new Node(key, data);
+            indexAdd(data, key);
+            return true;
+        }
+        int depth = 0;
+        Node localRoot = root;
+        while (true) {
+            int comparison = key.compareTo(localRoot.key);
+            if (comparison == 0) {
+                indexRemove(localRoot.value, key);
+                indexAdd(data, key);
+                localRoot.value = data;
+                Arrays.fill(path, 0, depth, null);
+                return false;
+            }
+            depth = push(depth, localRoot);
+            if (comparison < 0) {
+                if (localRoot.left == null) {
+                    localRoot.left = new Node(key, data);
+                    break;
+                }
+                localRoot = localRoot.left;
+            } else {
+                if (localRoot.right == null) {
+                    localRoot.right = new Node(key, data);
+                    break;
+                }
+                localRoot = localRoot.right;
+            }
+        }
+        indexAdd(data, key);
+        retrace(depth);
+        return true;
+    }
+
+    /**
+     * Replaces the contents of the tree with the given entries, building a perfectly
+     * balanced tree in O(n) instead of inserting them one at a time.
+     * @param keys The keys, in strictly ascending order
+     * @param values The values, where values[i] belongs to keys[i]
+     * @throws IllegalArgumentException if the arrays differ in length or the keys are not strictly ascending
+     */
+    public void bulkLoad(K[] keys, V[] values) {
+        if (keys.length != values.length) {
+            throw new IllegalArgumentException("Got " + keys.length + " keys but " + values.length + " values");
+        }
+        for (int i = 1; i < keys.length; i++) {
+            if (keys[i - 1].compareTo(keys[i]) >= 0) {
+                throw new IllegalArgumentException("Keys are not strictly ascending at index " + i);
+            }
+        }
+        load(keys, values, keys.length);
+    }
+
+    /**
+     * Replaces the contents of the tree with the given entries, building a perfectly
+     * balanced tree in O(n) instead of inserting them one at a time.
+     * @param sorted The entries, in strictly ascending key order
+     * @throws IllegalArgumentException if the keys are not strictly ascending
+     */
+    @SuppressWarnings("unchecked")
+    public void bulkLoad(Iterator<? extends Map.Entry<K, V>> sorted) {
+        K[] keys = newKeyArray(16);
+        V[] values = (V[]) new Object[16];
+        int count = 0;
+        while (sorted.hasNext()) {
+            Map.Entry<K, V> entry = sorted.next();
+            if (count > 0 && keys[count - 1].compareTo(entry.getKey()) >= 0) {
+                throw new IllegalArgumentException("Keys are not strictly ascending at index " + count);
+            }
+            if (count == keys.length) {
+                keys = Arrays.copyOf(keys, count * 2);
+                values = Arrays.copyOf(values, count * 2);
+            }
+            keys[count] = entry.getKey();
+            values[count] = entry.getValue();
+            count++;
+        }
+        load(keys, values, count);
+    }
+
+    /**
+     * Copies every entry of other into this tree; where both trees hold a key, the value
+     * from other wins. Large merges flatten both trees, merge them and rebuild a balanced
+     * tree in O(n + m); small ones fall back to individual puts.
+     * @param other The tree to copy entries from; it is not modified
+     */
+    @SuppressWarnings("unchecked")
+    public void putAll(BinarySearchTree<K, ? extends V> other) {
+        int n = size(root);
+        int m = other.size();
+        // m inserts cost about m * log2(n + m) steps; the rebuild costs n + m
+        if ((long) m * (32 - Integer.numberOfLeadingZeros(n + m)) < n + m) {
+            for (Map.Entry<K, ? extends V> entry : other) {
+                put(entry.getKey(), entry.getValue());
+            }
+            return;
+        }
+        K[] keys = newKeyArray(n + m);
+        V[] values = (V[]) new Object[n + m];
+        Iterator<Map.Entry<K, V>> mine = iterator();
+        Iterator<? extends Map.Entry<K, ? extends V>> theirs = other.iterator();
+        Map.Entry<K, V> a = mine.hasNext() ? mine.next() : null;
+        Map.Entry<K, ? extends V> b = theirs.hasNext() ? theirs.next() : null;
+        int count = 0;
+        while (a != null || b != null) {
+            int comparison = a == null ? 1 : b == null ? -1 : a.getKey().compareTo(b.getKey());
+            if (comparison < 0) {
+                keys[count] = a.getKey();
+                values[count++] = a.getValue();
+            } else {
+                keys[count] = b.getKey();
+                values[count++] = b.getValue();
+                b = theirs.hasNext() ? theirs.next() : null;
+            }
+            if (comparison <= 0) {
+                a = mine.hasNext() ? mine.next() : null;
+            }
+        }
+        load(keys, values, count);
+    }
+
+    // Array for keys, made of their erasure, Comparable, as a K[] cannot be created
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static <K extends Comparable<K>> K[] newKeyArray(int length) {
+        return (K[]) new Comparable[length];
+    }
+
+    // Replaces the tree with the first count entries of the sorted arrays
+    private void load(K[] keys, V[] values, int count) {
+        clear();
+        root = build(keys, values, 0, count);
+        for (int i = 0; i < count; i++) {
+            indexAdd(values[i], keys[i]);
+        }
+    }
+
+    // Builds a perfectly balanced subtree from the entries in [lo, hi)
+    private Node build(K[] keys, V[] values, int lo, int hi) {
+        if (lo >= hi) {
+            return null;
+        }
+        int mid = (lo + hi) >>> 1;
+        Node node = new Node(keys[mid], values[mid]);
+        node.left = build(keys, values, lo, mid);
+        node.right = build(keys, values, mid + 1, hi);
+        update(node);
+        return node;
+    }
+
+    // Records key under value in the secondary index, if there is one
+    @SuppressWarnings("unchecked")
+    private void indexAdd(V value, K key) {
+        if (valueIndex == null) {
+            return;
+        }
+        Object keys = valueIndex.putIfAbsent(value, key);
+        if (keys == null) {
+            return;
+        }
+        if (keys instanceof HashSet) {
+            ((HashSet<K>) keys).add(key);
+        } else {
+            HashSet<K> set = new HashSet<>();
+            set.add((K) keys);
+            set.add(key);
+            valueIndex.put(value, set);
+        }
+    }
+
+    // Drops key from the entry for value in the secondary index, if there is one
+    @SuppressWarnings("unchecked")
+    private void indexRemove(V value, K key) {
+        if (valueIndex == null) {
+            return;
+        }
+        Object keys = valueIndex.get(value);
+        if (keys instanceof HashSet) {
+            HashSet<K> set = (HashSet<K>) keys;
+            set.remove(key);
+            if (set.size() == 1) {
+                valueIndex.put(value, set.iterator().next());
+            }
+        } else {
+            valueIndex.remove(value);
+        }
+    }
+
+    // Records a node on the descent path, growing the path stack if needed
+    private int push(int depth, Node node) {
+        if (depth == path.length) {
+            path = Arrays.copyOf(path, depth * 2);
+        }
+        path[depth] = node;
+        return depth + 1;
+    }
+
+    // Walks back up the recorded path after an insertion or removal, updating
+    // heights and sizes and, in balanced mode, rotating any subtree that became unbalanced
+    private void retrace(int depth) {
+        for (int i = depth - 1; i >= 0; i--) {
+            Node node = path[i];
+            path[i] = null;
+            update(node);
+            if (!balanced) {
+                continue;
+            }
+            Node subtreeRoot = rebalance(node);
+            if (subtreeRoot != node) {
+                replaceChild(i == 0 ? null : path[i - 1], node, subtreeRoot);
+            }
+        }
+    }
+
+    // Points the parent (or the root, if parent is null) at a replacement child
+    private void replaceChild(Node parent, Node oldChild, Node newChild) {
+        if (parent == null) {
+            root = newChild;
+        } else if (parent.left == oldChild) {
+            parent.left = newChild;
+        } else {
+            parent.right = newChild;
+        }
+    }
+
+    private int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private void update(Node node) {
+        node.height = Math.max(height(node.left), height(node.right)) + 1;
+        node.size = size(node.left) + size(node.right) + 1;
+    }
+
+    // Restores the AVL property at node and returns the new root of its subtree
+    private Node rebalance(Node node) {
+        int balance = height(node.left) - height(node.right);
+        if (balance > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (balance < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    /**
+     * Returns a string representation of the binary search tree.
+     * @return String representation of the binary search tree
+     */
+    public String toString() {
+        StringBuilder answer = new StringBuilder();
+        for (Map.Entry<K, V> entry : this) {
+            answer.append('{').append(entry.getKey()).append(':').append(entry.getValue()).append('}');
+        }
+        return answer.toString();
+    }
+
+    /**
+     * Returns an iterator over the entries of the tree in ascending key order.
+     * The tree must not be modified while the iteration is in progress.
+     * @return Iterator over read-only entries
+     */
+    public Iterator<Map.Entry<K, V>> iterator() {
+        return new EntryIterator(null, null);
+    }
+
+    /**
+     * Returns a view of the entries whose keys lie in [from, to), in ascending key order.
+     * Iteration descends straight to the first matching key and stops after the last one,
+     * so only the matching part of the tree is visited.
+     * @param from The lowest key to include, or null for no lower bound
+     * @param to The key to stop before, or null for no upper bound
+     * @return Iterable over read-only entries in the range
+     */
+    public Iterable<Map.Entry<K, V>> range(K from, K to) {
+        return () -> new EntryIterator(from, to);
+    }
+
+    /**
+     * Returns a spliterator over the entries in ascending key order. It splits by rank,
+     * so each half gets an exact share of the entries.
+     * @return Sized, sorted spliterator over read-only entries
+     */
+    public Spliterator<Map.Entry<K, V>> spliterator() {
+        return new EntrySpliterator(0, size(root));
+    }
+
+    /**
+     * Returns a stream of the entries in ascending key order. Call parallel() on the
+     * result to process disjoint key ranges on several threads.
+     * @return Stream over read-only entries
+     */
+    public Stream<Map.Entry<K, V>> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /** Find the greatest key less than or equal to the given key, or null if there is none. */
+    public K floorKey(K key) {
+        return keyOf(lowerNode(key, true));
+    }
+
+    /** Find the greatest key strictly less than the given key, or null if there is none. */
+    public K lowerKey(K key) {
+        return keyOf(lowerNode(key, false));
+    }
+
+    /** Find the least key greater than or equal to the given key, or null if there is none. */
+    public K ceilingKey(K key) {
+        return keyOf(higherNode(key, true));
+    }
+
+    /** Find the least key strictly greater than the given key, or null if there is none. */
+    public K higherKey(K key) {
+        return keyOf(higherNode(key, false));
+    }
+
+    private K keyOf(Node node) {
+        return node == null ? null : node.key;
+    }
+
+    // Finds the node with the greatest key below (or, if inclusive, equal to) key
+    private Node lowerNode(K key, boolean inclusive) {
+        Node best = null;
+        Node localRoot = root;
+        while (localRoot != null) {
+            int compNum = key.compareTo(localRoot.key);
+            if (compNum == 0 && inclusive) {
+                return localRoot;
+            }
+            if (compNum > 0) {
+                best = localRoot;
+                localRoot = localRoot.right;
+            } else {
+                localRoot = localRoot.left;
+            }
+        }
+        return best;
+    }
+
+    // Finds the node with the least key above (or, if inclusive, equal to) key
+    private Node higherNode(K key, boolean inclusive) {
+        Node best = null;
+        Node localRoot = root;
+        while (localRoot != null) {
+            int compNum = key.compareTo(localRoot.key);
+            if (compNum == 0 && inclusive) {
+                return localRoot;
+            }
+            if (compNum < 0) {
+                best = localRoot;
+                localRoot = localRoot.left;
+            } else {
+                localRoot = localRoot.right;
+            }
+        }
+        return best;
+    }
+
+    // In-order iterator that keeps the pending ancestors on an explicit stack, so it
+    // allocates a single array up front and nothing per element
+    private class EntryIterator implements Iterator<Map.Entry<K, V>> {
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private Node[] stack = (Node[]) new BinarySearchTree.Node[height(root) + 1];
+        private int depth;
+        // Key to stop before, or null to run to the end of the tree
+        private final K to;
+        // Entries left to return, for iterators that cover a fixed number of ranks
+        private int remaining = Integer.MAX_VALUE;
+
+        // Starts at the first key >= from (or the smallest key, if from is null)
+        private EntryIterator(K from, K to) {
+            this.to = to;
+            Node localRoot = root;
+            while (localRoot != null) {
+                if (from != null && localRoot.key.compareTo(from) < 0) {
+                    localRoot = localRoot.right;
+                } else {
+                    stack[depth++] = localRoot;
+                    localRoot = localRoot.left;
+                }
+            }
+        }
+
+        // Starts at the key of the given rank and returns count entries
+        private EntryIterator(int rank, int count) {
+            this.to = null;
+            this.remaining = count;
+            Node localRoot = root;
+            while (localRoot != null) {
+                int leftSize = size(localRoot.left);
+                if (rank <= leftSize) {
+                    stack[depth++] = localRoot;
+                    localRoot = localRoot.left;
+                } else {
+                    rank -= leftSize + 1;
+                    localRoot = localRoot.right;
+                }
+            }
+        }
+
+        public boolean hasNext() {
+            return remaining > 0 && depth > 0 && (to == null || stack[depth - 1].key.compareTo(to) < 0);
+        }
+
+        public Map.Entry<K, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Node next = stack[--depth];
+            for (Node localRoot = next.right; localRoot != null; localRoot = localRoot.left) {
+                stack[depth++] = localRoot;
+            }
+            remaining--;
+            return next;
+        }
+    }
+
+    // Spliterator over the entries with ranks in [lo, hi). Splitting halves the rank
+    // range; traversal starts with a single O(log n) descent to rank lo.
+    private class EntrySpliterator implements Spliterator<Map.Entry<K, V>> {
+        private int lo;
+        private final int hi;
+        private EntryIterator cursor;
+
+        private EntrySpliterator(int lo, int hi) {
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        public boolean tryAdvance(Consumer<? super Map.Entry<K, V>> action) {
+            if (cursor == null) {
+                cursor = new EntryIterator(lo, hi - lo);
+            }
+            if (!cursor.hasNext()) {
+                return false;
+            }
+            action.accept(cursor.next());
+            return true;
+        }
+
+        public void forEachRemaining(Consumer<? super Map.Entry<K, V>> action) {
+            if (cursor == null) {
+                cursor = new EntryIterator(lo, hi - lo);
+            }
+            while (cursor.hasNext()) {
+                action.accept(cursor.next());
+            }
+        }
+
+        public Spliterator<Map.Entry<K, V>> trySplit() {
+            int mid = (lo + hi) >>> 1;
+            if (cursor != null || mid <= lo) {
+                return null;
+            }
+            EntrySpliterator prefix = new EntrySpliterator(lo, mid);
+            lo = mid;
+            return prefix;
+        }
+
+        public long estimateSize() {
+            return cursor == null ? hi - lo : cursor.remaining;
+        }
+
+        public int characteristics() {
+            return ORDERED | SORTED | DISTINCT | NONNULL | SIZED | SUBSIZED;
+        }
+
+        public Comparator<? super Map.Entry<K, V>> getComparator() {
+            return Map.Entry.comparingByKey();
+        }
+    }
+
+    /** Check if the tree contains a specific key. */
+    public boolean containsKey(K key) {
+        Node localRoot = root;
+        while (localRoot != null) {
+            int compNum = key.compareTo(localRoot.key);
+            if (compNum == 0) {
+                return true;
+            }
+            localRoot = compNum < 0 ? localRoot.left : localRoot.right;
+        }
+        return false;
+    }
+
+    /** Check if the tree contains a specific value. */
+    public boolean containsValue(V value) {
+        if (valueIndex != null) {
+            return valueIndex.containsKey(value);
+        }
+        return containsValueHelper(root, value);
+    }
+
+    private boolean containsValueHelper(Node localRoot, V value) {
+        if (localRoot == null) {
+            return false;
+        }
+        if (Objects.equals(localRoot.value, value)) {
+            return true;
+        }
+        return containsValueHelper(localRoot.left, value) || containsValueHelper(localRoot.right, value);
+    }
+
+    /** Get the height of the tree. */
+    public int getHeight() {
+        return height(root);
+    }
+
+    /** Get the number of keys in the tree. */
+    public int size() {
+        return size(root);
+    }
+
+    /** Check if the tree is balanced. */
+    public boolean isBalanced() {
+        if (balanced) {
+            return true; // rebalancing keeps every node within the AVL bound
+        }
+        ArrayDeque<Node> pending = new ArrayDeque<>();
+        if (root != null) {
+            pending.push(root);
+        }
+        while (!pending.isEmpty()) {
+            Node localRoot = pending.pop();
+            if (Math.abs(height(localRoot.left) - height(localRoot.right)) > 1) {
+                return false;
+            }
+            if (localRoot.left != null) {
+                pending.push(localRoot.left);
+            }
+            if (localRoot.right != null) {
+                pending.push(localRoot.right);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Find the k-th smallest key, counting from zero.
+     * Runs in O(log n) when the tree is balanced.
+     * @param k The rank of the key to find, so select(0) is the smallest key
+     * @return The key with exactly k smaller keys in the tree, or null if k is out of range
+     */
+    public K select(int k) {
+        if (k < 0 || k >= size(root)) {
+            return null;
+        }
+        Node localRoot = root;
+        while (true) {
+            int leftSize = size(localRoot.left);
+            if (k == leftSize) {
+                return localRoot.key;
+            }
+            if (k < leftSize) {
+                localRoot = localRoot.left;
+            } else {
+                k -= leftSize + 1;
+                localRoot = localRoot.right;
+            }
+        }
+    }
+
+    /**
+     * Count the keys that are strictly smaller than the given key.
+     * Runs in O(log n) when the tree is balanced.
+     * @param key The key to rank; it does not need to be in the tree
+     * @return The number of keys smaller than key, which is its index if present
+     */
+    public int rank(K key) {
+        int rank = 0;
+        Node localRoot = root;
+        while (localRoot != null) {
+            int compNum = key.compareTo(localRoot.key);
+            if (compNum == 0) {
+                return rank + size(localRoot.left);
+            }
+            if (compNum < 0) {
+                localRoot = localRoot.left;
+            } else {
+                rank += size(localRoot.left) + 1;
+                localRoot = localRoot.right;
+            }
+        }
+        return rank;
+    }
+
+    /** Clear the entire tree. */
+    public void clear() {
+        root = null;
+        if (valueIndex != null) {
+            valueIndex.clear();
+        }
+    }
+    
+    /** Remove a node with the given key from the tree. */
+    public void remove(K key) {
+        int depth = 0;
+        Node localRoot = root;
+        while (localRoot != null) {
+            int compNum = key.compareTo(localRoot.key);
+            if (compNum == 0) {
+                break;
+            }
+            depth = push(depth, localRoot);
+            localRoot = compNum < 0 ? localRoot.left : localRoot.right;
+        }
+        if (localRoot == null) {
+            // Key not found
+            Arrays.fill(path, 0, depth, null);
+            return;
+        }
+        indexRemove(localRoot.value, localRoot.key);
+
+        // Case 2: Node with two children -- move the in-order successor's entry
+        // into this node, then unlink the successor instead
+        Node target = localRoot;
+        if (localRoot.left != null && localRoot.right != null) {
+            depth = push(depth, localRoot);
+            target = localRoot.right;
+            while (target.left != null) {
+                depth = push(depth, target);
+                target = target.left;
+            }
+            localRoot.key = target.key;
+            localRoot.value = target.value;
+        }
+
+        // Case 1: Node with only one child or no child
+        Node child = target.left != null ? target.left : target.right;
+        replaceChild(depth == 0 ? null : path[depth - 1], target, child);
+        retrace(depth);
+    }
+    
+}
\ No newline at end of file
@@ -0,0 +1,107 @@
+package bst;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/*
+ * Thread-safe ordered map with the same operations as BinarySearchTree, for trees
+ * shared between many threads. Entries live in a lock-free skip list, so readers
+ * never block and writers only contend when they touch neighbouring keys.
+ */
+public class ConcurrentBinarySearchTree<K extends Comparable<K>, V> {
+
+    // The skip list rejects null values, so they are stored as this placeholder instead
+    private static final Object NULL_VALUE = new Object();
+
+    private final ConcurrentSkipListMap<K, Object> map = new ConcurrentSkipListMap<>();
+
+    /**
+     * Search for the entry with the key equal to the parameter.
+     * @param key The key to search for
+     * @return The corresponding data value or null if not found
+     */
+    public V get(K key) {
+        return unmask(map.get(key));
+    }
+
+    /**
+     * Inserts a key-value pair, replacing the value if the key is already present.
+     * @param key The key to insert
+     * @param data The corresponding data value
+     * @return true if the key is inserted, false if the key already exists (update data)
+     */
+    public boolean put(K key, V data) {
+        return map.put(key, mask(data)) == null;
+    }
+
+    /** Remove the entry with the given key, if present. */
+    public void remove(K key) {
+        map.remove(key);
+    }
+
+    /**
+     * Find the entry with the smallest key, and return its value.
+     * @return The value of the entry with the smallest key, or null if the tree is empty
+     */
+    public V getValueForSmallestKey() {
+        Map.Entry<K, Object> first = map.firstEntry();
+        return first == null ? null : unmask(first.getValue());
+    }
+
+    /** Check if the tree contains a specific key. */
+    public boolean containsKey(K key) {
+        return map.containsKey(key);
+    }
+
+    /** Check if the tree contains a specific value. Scans every entry. */
+    public boolean containsValue(V value) {
+        return map.containsValue(mask(value));
+    }
+
+    /**
+     * Find any key that is mapped to the given value. Scans entries in key order.
+     * @param value The value to search for
+     * @return Any key that maps to the given value or null if not found
+     */
+    public K reverseLookup(V value) {
+        Object masked = mask(value);
+        for (Map.Entry<K, Object> entry : map.entrySet()) {
+            if (entry.getValue().equals(masked)) {
+                return entry.getKey();
+            }
+        }
+        return null;
+    }
+
+    /** Get the number of keys in the tree. Takes O(n) time, as the count is not cached. */
+    public int size() {
+        return map.size();
+    }
+
+    /** Clear the entire tree. */
+    public void clear() {
+        map.clear();
+    }
+
+    /**
+     * Returns a string representation of the tree in key order, in the same format as
+     * BinarySearchTree. The result is weakly consistent with concurrent updates.
+     * @return String representation of the tree
+     */
+    public String toString() {
+        StringBuilder answer = new StringBuilder();
+        for (Map.Entry<K, Object> entry : map.entrySet()) {
+            answer.append('{').append(entry.getKey()).append(':').append(unmask(entry.getValue())).append('}');
+        }
+        return answer.toString();
+    }
+
+    private static Object mask(Object value) {
+        return value == null ? NULL_VALUE : value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private V unmask(Object value) {
+        return value == NULL_VALUE ? null : (V) value;
+    }
+}
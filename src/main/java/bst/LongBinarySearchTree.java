@@ -0,0 +1,308 @@
+package bst;
+
+import java.util.Arrays;
+
+/*
+ * Self-balancing (AVL) binary search tree specialized for primitive long keys.
+ * Instead of one object per node, keys, values, child links and heights are kept
+ * in parallel arrays and nodes refer to each other by int index. Keys are never
+ * boxed, lookups walk flat arrays, and get, put and remove allocate nothing once
+ * the arrays have grown to fit the tree. Removed slots are recycled through a
+ * free list.
+ *
+ * int keys can be stored in this tree as well; they widen to long without loss.
+ */
+public class LongBinarySearchTree<V> {
+
+    // Index used as the null link; slot 0 is never a real node and has height 0
+    private static final int NIL = 0;
+
+    private long[] keys;
+    private Object[] values;
+    private int[] left;
+    private int[] right;
+    // AVL heights fit in a byte: a tree of height 127 would need far more than 2^31 nodes
+    private byte[] height;
+
+    private int root = NIL;
+    private int size;
+    // Next never-used slot, and the head of the list of freed slots (chained through left[])
+    private int nextSlot = 1;
+    private int freeHead = NIL;
+
+    // Reusable stack of the slots visited by the last descent or traversal
+    private int[] path = new int[64];
+
+    /**
+     * Receives the entries of the tree in key order from forEach.
+     */
+    public interface EntryVisitor<V> {
+        void visit(long key, V value);
+    }
+
+    /** Creates an empty tree with room for a small number of entries. */
+    public LongBinarySearchTree() {
+        this(16);
+    }
+
+    /**
+     * Creates an empty tree.
+     * @param expectedSize The number of entries to allocate room for up front
+     */
+    public LongBinarySearchTree(int expectedSize) {
+        int capacity = Math.max(2, expectedSize + 1);
+        keys = new long[capacity];
+        values = new Object[capacity];
+        left = new int[capacity];
+        right = new int[capacity];
+        height = new byte[capacity];
+    }
+
+    /**
+     * Search for the entry with the given key.
+     * @param key The key to search for
+     * @return The corresponding data value or null if not found
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        int node = find(key);
+        return node == NIL ? null : (V) values[node];
+    }
+
+    /** Check if the tree contains a specific key. */
+    public boolean containsKey(long key) {
+        return find(key) != NIL;
+    }
+
+    private int find(long key) {
+        int node = root;
+        while (node != NIL) {
+            long nodeKey = keys[node];
+            if (key == nodeKey) {
+                return node;
+            }
+            node = key < nodeKey ? left[node] : right[node];
+        }
+        return NIL;
+    }
+
+    /**
+     * Inserts a key-value pair into the tree.
+     * @param key The key to insert
+     * @param data The corresponding data value
+     * @return true if the key is inserted, false if the key already exists (update data)
+     */
+    public boolean put(long key, V data) {
+        int depth = 0;
+        int node = root;
+        while (node != NIL) {
+            long nodeKey = keys[node];
+            if (key == nodeKey) {
+                values[node] = data;
+                return false;
+            }
+            depth = push(depth, node);
+            node = key < nodeKey ? left[node] : right[node];
+        }
+        int created = allocate(key, data);
+        if (depth == 0) {
+            root = created;
+        } else {
+            int parent = path[depth - 1];
+            if (key < keys[parent]) {
+                left[parent] = created;
+            } else {
+                right[parent] = created;
+            }
+        }
+        size++;
+        retrace(depth);
+        return true;
+    }
+
+    /** Remove the entry with the given key from the tree, if present. */
+    public void remove(long key) {
+        int depth = 0;
+        int node = root;
+        while (node != NIL && keys[node] != key) {
+            depth = push(depth, node);
+            node = key < keys[node] ? left[node] : right[node];
+        }
+        if (node == NIL) {
+            return; // Key not found
+        }
+
+        // A node with two children takes over its in-order successor's entry,
+        // and the successor is unlinked instead
+        int target = node;
+        if (left[node] != NIL && right[node] != NIL) {
+            depth = push(depth, node);
+            target = right[node];
+            while (left[target] != NIL) {
+                depth = push(depth, target);
+                target = left[target];
+            }
+            keys[node] = keys[target];
+            values[node] = values[target];
+        }
+
+        int child = left[target] != NIL ? left[target] : right[target];
+        replaceChild(depth == 0 ? NIL : path[depth - 1], target, child);
+        release(target);
+        size--;
+        retrace(depth);
+    }
+
+    /** Get the number of keys in the tree. */
+    public int size() {
+        return size;
+    }
+
+    /** Get the height of the tree. */
+    public int getHeight() {
+        return height[root];
+    }
+
+    /** Clear the entire tree, keeping the allocated arrays for reuse. */
+    public void clear() {
+        Arrays.fill(values, 0, nextSlot, null);
+        root = NIL;
+        size = 0;
+        nextSlot = 1;
+        freeHead = NIL;
+    }
+
+    /**
+     * Visits every entry in ascending key order without allocating.
+     * The tree must not be modified from inside the visitor.
+     * @param visitor Receives each key and value
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(EntryVisitor<? super V> visitor) {
+        int depth = 0;
+        int node = root;
+        while (node != NIL || depth > 0) {
+            while (node != NIL) {
+                depth = push(depth, node);
+                node = left[node];
+            }
+            node = path[--depth];
+            visitor.visit(keys[node], (V) values[node]);
+            node = right[node];
+        }
+    }
+
+    /**
+     * Returns a string representation of the tree in the same format as BinarySearchTree.
+     * @return String representation of the tree
+     */
+    public String toString() {
+        StringBuilder answer = new StringBuilder();
+        forEach((key, value) -> answer.append('{').append(key).append(':').append(value).append('}'));
+        return answer.toString();
+    }
+
+    private int allocate(long key, V data) {
+        int slot;
+        if (freeHead != NIL) {
+            slot = freeHead;
+            freeHead = left[slot];
+        } else {
+            if (nextSlot == keys.length) {
+                grow();
+            }
+            slot = nextSlot++;
+        }
+        keys[slot] = key;
+        values[slot] = data;
+        left[slot] = NIL;
+        right[slot] = NIL;
+        height[slot] = 1;
+        return slot;
+    }
+
+    private void release(int slot) {
+        values[slot] = null;
+        left[slot] = freeHead;
+        freeHead = slot;
+    }
+
+    private void grow() {
+        int capacity = keys.length + (keys.length >> 1);
+        keys = Arrays.copyOf(keys, capacity);
+        values = Arrays.copyOf(values, capacity);
+        left = Arrays.copyOf(left, capacity);
+        right = Arrays.copyOf(right, capacity);
+        height = Arrays.copyOf(height, capacity);
+    }
+
+    private int push(int depth, int node) {
+        if (depth == path.length) {
+            path = Arrays.copyOf(path, depth * 2);
+        }
+        path[depth] = node;
+        return depth + 1;
+    }
+
+    // Walks back up the recorded path, updating heights and rotating where needed
+    private void retrace(int depth) {
+        for (int i = depth - 1; i >= 0; i--) {
+            int node = path[i];
+            int subtreeRoot = rebalance(node);
+            if (subtreeRoot != node) {
+                replaceChild(i == 0 ? NIL : path[i - 1], node, subtreeRoot);
+            }
+        }
+    }
+
+    private void replaceChild(int parent, int oldChild, int newChild) {
+        if (parent == NIL) {
+            root = newChild;
+        } else if (left[parent] == oldChild) {
+            left[parent] = newChild;
+        } else {
+            right[parent] = newChild;
+        }
+    }
+
+    private void update(int node) {
+        height[node] = (byte) (Math.max(height[left[node]], height[right[node]]) + 1);
+    }
+
+    // Restores the AVL property at node and returns the new root of its subtree
+    private int rebalance(int node) {
+        update(node);
+        int balance = height[left[node]] - height[right[node]];
+        if (balance > 1) {
+            if (height[left[left[node]]] < height[right[left[node]]]) {
+                left[node] = rotateLeft(left[node]);
+            }
+            return rotateRight(node);
+        }
+        if (balance < -1) {
+            if (height[right[right[node]]] < height[left[right[node]]]) {
+                right[node] = rotateRight(right[node]);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private int rotateRight(int node) {
+        int pivot = left[node];
+        left[node] = right[pivot];
+        right[pivot] = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private int rotateLeft(int node) {
+        int pivot = right[node];
+        right[node] = left[pivot];
+        left[pivot] = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+}
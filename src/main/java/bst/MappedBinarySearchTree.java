@@ -0,0 +1,264 @@
+package bst;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+/*
+ * Read-only view of a BinarySearchTree snapshot stored on disk. write() flattens a tree
+ * into a compact sorted file; open() memory-maps that file, and lookups binary-search
+ * the mapped bytes directly, decoding only the keys they probe. Opening a snapshot
+ * costs the same regardless of its size, and the entries stay off the heap, in the
+ * OS page cache, where they can be shared between processes.
+ *
+ * File layout (big-endian):
+ *   int magic, int version, int count
+ *   int[count + 1] offsets of each entry, relative to the start of the entry data
+ *   entries: int keyLength, key bytes, int valueLength (-1 for null), value bytes
+ *
+ * Snapshots are limited to 2 GB, the largest region a single MappedByteBuffer can map.
+ */
+public class MappedBinarySearchTree<K extends Comparable<K>, V> implements Closeable {
+
+    /**
+     * Converts keys or values to and from the bytes stored in a snapshot.
+     */
+    public interface Codec<T> {
+        byte[] encode(T value);
+
+        /** Decodes a value from the buffer's remaining bytes. */
+        T decode(ByteBuffer buffer);
+    }
+
+    public static final Codec<String> STRINGS = new Codec<String>() {
+        public byte[] encode(String value) {
+            return value.getBytes(StandardCharsets.UTF_8);
+        }
+
+        public String decode(ByteBuffer buffer) {
+            return StandardCharsets.UTF_8.decode(buffer).toString();
+        }
+    };
+
+    public static final Codec<Integer> INTEGERS = new Codec<Integer>() {
+        public byte[] encode(Integer value) {
+            return ByteBuffer.allocate(Integer.BYTES).putInt(value).array();
+        }
+
+        public Integer decode(ByteBuffer buffer) {
+            return buffer.getInt(buffer.position());
+        }
+    };
+
+    public static final Codec<Long> LONGS = new Codec<Long>() {
+        public byte[] encode(Long value) {
+            return ByteBuffer.allocate(Long.BYTES).putLong(value).array();
+        }
+
+        public Long decode(ByteBuffer buffer) {
+            return buffer.getLong(buffer.position());
+        }
+    };
+
+    private static final int MAGIC = 0x42535453; // "BSTS"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 3 * Integer.BYTES;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final Codec<K> keyCodec;
+    private final Codec<V> valueCodec;
+    private final int count;
+    // Absolute position of the first entry in the mapped buffer
+    private final int dataStart;
+
+    private MappedBinarySearchTree(FileChannel channel, MappedByteBuffer buffer, Codec<K> keyCodec,
+            Codec<V> valueCodec) throws IOException {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.keyCodec = keyCodec;
+        this.valueCodec = valueCodec;
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a BinarySearchTree snapshot");
+        }
+        if (buffer.getInt(Integer.BYTES) != VERSION) {
+            throw new IOException("Unsupported snapshot version " + buffer.getInt(Integer.BYTES));
+        }
+        this.count = buffer.getInt(2 * Integer.BYTES);
+        this.dataStart = HEADER_BYTES + (count + 1) * Integer.BYTES;
+    }
+
+    /**
+     * Writes the entries of a tree to a snapshot file. The file is written under a
+     * temporary name and moved into place, so readers never see a half-written snapshot.
+     * @param tree The tree to save
+     * @param file The snapshot file to create or replace
+     * @param keyCodec Encodes the keys
+     * @param valueCodec Encodes the non-null values
+     * @throws IOException if the file cannot be written or would exceed 2 GB
+     */
+    public static <K extends Comparable<K>, V> void write(BinarySearchTree<K, V> tree, Path file,
+            Codec<K> keyCodec, Codec<V> valueCodec) throws IOException {
+        int count = tree.size();
+        int[] offsets = new int[count + 1];
+        long dataStart = HEADER_BYTES + (count + 1L) * Integer.BYTES;
+        if (dataStart > Integer.MAX_VALUE) {
+            throw new IOException("Snapshot of " + count + " entries exceeds 2 GB");
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            out.position(dataStart);
+            DataOutputStream data = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(out), 1 << 16));
+            int index = 0;
+            for (Map.Entry<K, V> entry : tree) {
+                offsets[index++] = data.size();
+                byte[] key = keyCodec.encode(entry.getKey());
+                data.writeInt(key.length);
+                data.write(key);
+                if (entry.getValue() == null) {
+                    data.writeInt(-1);
+                } else {
+                    byte[] value = valueCodec.encode(entry.getValue());
+                    data.writeInt(value.length);
+                    data.write(value);
+                }
+                // DataOutputStream.size() saturates at Integer.MAX_VALUE
+                if (data.size() == Integer.MAX_VALUE || dataStart + data.size() > Integer.MAX_VALUE) {
+                    throw new IOException("Snapshot of " + count + " entries exceeds 2 GB");
+                }
+            }
+            offsets[count] = data.size();
+            data.flush();
+
+            ByteBuffer header = ByteBuffer.allocate((int) dataStart);
+            header.putInt(MAGIC).putInt(VERSION).putInt(count);
+            header.asIntBuffer().put(offsets);
+            header.rewind();
+            out.write(header, 0);
+            out.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Memory-maps a snapshot file written by write(). Nothing is read until it is looked up.
+     * @param file The snapshot file
+     * @param keyCodec Decodes the keys; must match the codec the file was written with
+     * @param valueCodec Decodes the values; must match the codec the file was written with
+     * @return A read-only tree over the file, safe to share between threads
+     * @throws IOException if the file cannot be mapped or is not a snapshot
+     */
+    public static <K extends Comparable<K>, V> MappedBinarySearchTree<K, V> open(Path file, Codec<K> keyCodec,
+            Codec<V> valueCodec) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot exceeds 2 GB");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new MappedBinarySearchTree<>(channel, buffer, keyCodec, valueCodec);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Search for the entry with the key equal to the parameter, in O(log n) probes.
+     * @param key The key to search for
+     * @return The corresponding data value or null if not found
+     */
+    public V get(K key) {
+        int index = indexOf(key);
+        return index < 0 ? null : valueAt(index);
+    }
+
+    /** Check if the snapshot contains a specific key. */
+    public boolean containsKey(K key) {
+        return indexOf(key) >= 0;
+    }
+
+    /** Get the number of keys in the snapshot. */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Find the entry with the smallest key, and return its value.
+     * @return The value of the entry with the smallest key, or null if the snapshot is empty
+     */
+    public V getValueForSmallestKey() {
+        return count == 0 ? null : valueAt(0);
+    }
+
+    /**
+     * Loads the whole snapshot back onto the heap as a balanced BinarySearchTree.
+     * @param indexValues whether the new tree should maintain a value-to-key index
+     * @return A new tree with the snapshot's entries
+     */
+    @SuppressWarnings("unchecked")
+    public BinarySearchTree<K, V> toTree(boolean indexValues) {
+        K[] keys = BinarySearchTree.newKeyArray(count);
+        V[] values = (V[]) new Object[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = keyAt(i);
+            values[i] = valueAt(i);
+        }
+        BinarySearchTree<K, V> tree = new BinarySearchTree<>(true, indexValues);
+        tree.bulkLoad(keys, values);
+        return tree;
+    }
+
+    /** Releases the file handle. The mapping itself is released once it is garbage collected. */
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // Binary search over the sorted entries; returns the index of key or -1
+    private int indexOf(K key) {
+        int lo = 0;
+        int hi = count - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int compNum = key.compareTo(keyAt(mid));
+            if (compNum == 0) {
+                return mid;
+            }
+            if (compNum < 0) {
+                hi = mid - 1;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return -1;
+    }
+
+    private int entryStart(int index) {
+        return dataStart + buffer.getInt(HEADER_BYTES + index * Integer.BYTES);
+    }
+
+    private K keyAt(int index) {
+        int start = entryStart(index);
+        int length = buffer.getInt(start);
+        return keyCodec.decode(buffer.slice(start + Integer.BYTES, length));
+    }
+
+    private V valueAt(int index) {
+        int start = entryStart(index);
+        int valueStart = start + Integer.BYTES + buffer.getInt(start);
+        int length = buffer.getInt(valueStart);
+        return length < 0 ? null : valueCodec.decode(buffer.slice(valueStart + Integer.BYTES, length));
+    }
+}
@@ -0,0 +1,311 @@
+package bst;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/*
+ * Immutable, self-balancing (AVL) binary search tree. put and remove leave the tree
+ * they are called on untouched and return a new version that shares every node off
+ * the updated path with the old one (path copying), so an update allocates only
+ * O(log n) nodes. Versions can be handed to other threads and read without locking:
+ * all fields are final, so a published version is always seen fully built.
+ */
+public final class PersistentBinarySearchTree<K extends Comparable<K>, V> implements Iterable<Map.Entry<K, V>> {
+
+    // Immutable node; doubles as the read-only entry returned during iteration
+    private static final class Node<K, V> implements Map.Entry<K, V> {
+        private final K key;
+        private final V value;
+        private final Node<K, V> left, right;
+        private final int height;
+        private final int size;
+
+        private Node(K key, V value, Node<K, V> left, Node<K, V> right) {
+            this.key = key;
+            this.value = value;
+            this.left = left;
+            this.right = right;
+            this.height = Math.max(height(left), height(right)) + 1;
+            this.size = size(left) + size(right) + 1;
+        }
+
+        public K getKey() {
+            return key;
+        }
+
+        public V getValue() {
+            return value;
+        }
+
+        public V setValue(V value) {
+            throw new UnsupportedOperationException();
+        }
+
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> other = (Map.Entry<?, ?>) o;
+            return key.equals(other.getKey()) && Objects.equals(value, other.getValue());
+        }
+
+        public int hashCode() {
+            return key.hashCode() ^ Objects.hashCode(value);
+        }
+
+        public String toString() {
+            return key + "=" + value;
+        }
+    }
+
+    private static final PersistentBinarySearchTree<?, ?> EMPTY = new PersistentBinarySearchTree<>(null);
+
+    private final Node<K, V> root;
+
+    private PersistentBinarySearchTree(Node<K, V> root) {
+        this.root = root;
+    }
+
+    /**
+     * Returns the empty tree.
+     * @return A tree with no entries
+     */
+    @SuppressWarnings("unchecked")
+    public static <K extends Comparable<K>, V> PersistentBinarySearchTree<K, V> empty() {
+        return (PersistentBinarySearchTree<K, V>) EMPTY;
+    }
+
+    /**
+     * Builds a persistent copy of a mutable tree in O(n).
+     * @param tree The tree to copy; later changes to it do not affect the copy
+     * @return A balanced persistent tree with the same entries
+     */
+    public static <K extends Comparable<K>, V> PersistentBinarySearchTree<K, V> of(BinarySearchTree<K, V> tree) {
+        Iterator<Map.Entry<K, V>> entries = tree.iterator();
+        return new PersistentBinarySearchTree<>(build(entries, tree.size()));
+    }
+
+    // Builds a perfectly balanced tree from the next count entries, in order
+    private static <K, V> Node<K, V> build(Iterator<Map.Entry<K, V>> entries, int count) {
+        if (count == 0) {
+            return null;
+        }
+        int leftCount = (count - 1) / 2;
+        Node<K, V> left = build(entries, leftCount);
+        Map.Entry<K, V> entry = entries.next();
+        Node<K, V> right = build(entries, count - 1 - leftCount);
+        return new Node<>(entry.getKey(), entry.getValue(), left, right);
+    }
+
+    /**
+     * Search for the entry with the key equal to the parameter.
+     * @param key The key to search for
+     * @return The corresponding data value or null if not found
+     */
+    public V get(K key) {
+        Node<K, V> localRoot = root;
+        while (localRoot != null) {
+            int compNum = key.compareTo(localRoot.key);
+            if (compNum == 0) {
+                return localRoot.value;
+            }
+            localRoot = compNum < 0 ? localRoot.left : localRoot.right;
+        }
+        return null;
+    }
+
+    /** Check if the tree contains a specific key. */
+    public boolean containsKey(K key) {
+        Node<K, V> localRoot = root;
+        while (localRoot != null) {
+            int compNum = key.compareTo(localRoot.key);
+            if (compNum == 0) {
+                return true;
+            }
+            localRoot = compNum < 0 ? localRoot.left : localRoot.right;
+        }
+        return false;
+    }
+
+    /**
+     * Find the entry with the smallest key, and return its value.
+     * @return The value of the entry with the smallest key, or null if the tree is empty
+     */
+    public V getValueForSmallestKey() {
+        if (root == null) {
+            return null;
+        }
+        Node<K, V> localRoot = root;
+        while (localRoot.left != null) {
+            localRoot = localRoot.left;
+        }
+        return localRoot.value;
+    }
+
+    /**
+     * Returns a version of this tree with the key mapped to the given value.
+     * This tree is not modified.
+     * @param key The key to insert or update
+     * @param data The corresponding data value
+     * @return The new version, or this tree if the key already maps to the same value
+     */
+    public PersistentBinarySearchTree<K, V> put(K key, V data) {
+        Node<K, V> newRoot = putHelper(root, key, data);
+        return newRoot == root ? this : new PersistentBinarySearchTree<>(newRoot);
+    }
+
+    private static <K extends Comparable<K>, V> Node<K, V> putHelper(Node<K, V> localRoot, K key, V data) {
+        if (localRoot == null) {
+            return new Node<>(key, data, null, null);
+        }
+        int comparison = key.compareTo(localRoot.key);
+        if (comparison == 0) {
+            if (localRoot.value == data) {
+                return localRoot;
+            }
+            return new Node<>(key, data, localRoot.left, localRoot.right);
+        }
+        if (comparison < 0) {
+            Node<K, V> left = putHelper(localRoot.left, key, data);
+            return left == localRoot.left ? localRoot : balance(localRoot.key, localRoot.value, left, localRoot.right);
+        }
+        Node<K, V> right = putHelper(localRoot.right, key, data);
+        return right == localRoot.right ? localRoot : balance(localRoot.key, localRoot.value, localRoot.left, right);
+    }
+
+    /**
+     * Returns a version of this tree without the given key. This tree is not modified.
+     * @param key The key to remove
+     * @return The new version, or this tree if the key is not present
+     */
+    public PersistentBinarySearchTree<K, V> remove(K key) {
+        Node<K, V> newRoot = removeHelper(root, key);
+        return newRoot == root ? this : new PersistentBinarySearchTree<>(newRoot);
+    }
+
+    private static <K extends Comparable<K>, V> Node<K, V> removeHelper(Node<K, V> localRoot, K key) {
+        if (localRoot == null) {
+            return null; // Key not found
+        }
+        int compNum = key.compareTo(localRoot.key);
+        if (compNum < 0) {
+            Node<K, V> left = removeHelper(localRoot.left, key);
+            return left == localRoot.left ? localRoot : balance(localRoot.key, localRoot.value, left, localRoot.right);
+        }
+        if (compNum > 0) {
+            Node<K, V> right = removeHelper(localRoot.right, key);
+            return right == localRoot.right ? localRoot : balance(localRoot.key, localRoot.value, localRoot.left, right);
+        }
+        // Node with only one child or no child
+        if (localRoot.left == null) {
+            return localRoot.right;
+        }
+        if (localRoot.right == null) {
+            return localRoot.left;
+        }
+        // Node with two children: replace it with its in-order successor
+        Node<K, V> successor = localRoot.right;
+        while (successor.left != null) {
+            successor = successor.left;
+        }
+        return balance(successor.key, successor.value, localRoot.left, removeSmallest(localRoot.right));
+    }
+
+    private static <K, V> Node<K, V> removeSmallest(Node<K, V> localRoot) {
+        if (localRoot.left == null) {
+            return localRoot.right;
+        }
+        return balance(localRoot.key, localRoot.value, removeSmallest(localRoot.left), localRoot.right);
+    }
+
+    /** Get the number of keys in the tree. */
+    public int size() {
+        return size(root);
+    }
+
+    /** Get the height of the tree. */
+    public int getHeight() {
+        return height(root);
+    }
+
+    /** Check if the tree contains no entries. */
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    /**
+     * Returns an iterator over the entries of this version in ascending key order.
+     * @return Iterator over read-only entries
+     */
+    public Iterator<Map.Entry<K, V>> iterator() {
+        return new Iterator<Map.Entry<K, V>>() {
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            private final Node<K, V>[] stack = new Node[height(root) + 1];
+            private int depth = pushLeftSpine(root, 0);
+
+            private int pushLeftSpine(Node<K, V> localRoot, int depth) {
+                for (; localRoot != null; localRoot = localRoot.left) {
+                    stack[depth++] = localRoot;
+                }
+                return depth;
+            }
+
+            public boolean hasNext() {
+                return depth > 0;
+            }
+
+            public Map.Entry<K, V> next() {
+                if (depth == 0) {
+                    throw new NoSuchElementException();
+                }
+                Node<K, V> next = stack[--depth];
+                depth = pushLeftSpine(next.right, depth);
+                return next;
+            }
+        };
+    }
+
+    /**
+     * Returns a string representation of the tree in the same format as BinarySearchTree.
+     * @return String representation of the tree
+     */
+    public String toString() {
+        StringBuilder answer = new StringBuilder();
+        for (Map.Entry<K, V> entry : this) {
+            answer.append('{').append(entry.getKey()).append(':').append(entry.getValue()).append('}');
+        }
+        return answer.toString();
+    }
+
+    private static int height(Node<?, ?> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static int size(Node<?, ?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    // Creates a node from its parts, applying the AVL rotations needed to keep it balanced
+    private static <K, V> Node<K, V> balance(K key, V value, Node<K, V> left, Node<K, V> right) {
+        int balance = height(left) - height(right);
+        if (balance > 1) {
+            if (height(left.left) >= height(left.right)) {
+                return new Node<>(left.key, left.value, left.left, new Node<>(key, value, left.right, right));
+            }
+            Node<K, V> pivot = left.right;
+            return new Node<>(pivot.key, pivot.value, new Node<>(left.key, left.value, left.left, pivot.left),
+                    new Node<>(key, value, pivot.right, right));
+        }
+        if (balance < -1) {
+            if (height(right.right) >= height(right.left)) {
+                return new Node<>(right.key, right.value, new Node<>(key, value, left, right.left), right.right);
+            }
+            Node<K, V> pivot = right.left;
+            return new Node<>(pivot.key, pivot.value, new Node<>(key, value, left, pivot.left),
+                    new Node<>(right.key, right.value, pivot.right, right.right));
+        }
+        return new Node<>(key, value, left, right);
+    }
+}
@@ -0,0 +1,308 @@
+package crawler;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+/*
+ * Reads the responses stored by a CrawlArchive. The indexes of all the files in the
+ * archive directory are loaded when the reader is opened, so that read() goes
+ * straight to a record's offset and decompresses that record alone. A URL archived
+ * more than once is read from its latest record. The seeds of the crawls archived
+ * are listed apart from the URLs.
+ *
+ * Index lines that are cut off, or that point past the end of their file, are left
+ * out. Reads may run on any number of threads at once.
+ */
+public class ArchiveReader implements AutoCloseable {
+
+    private final Path directory;
+    // Latest record of each URL, and the URLs in the order first archived
+    private final Map<String, Location> locations = new HashMap<>();
+    private final List<String> urls = new ArrayList<>();
+    private final List<String> seeds = new ArrayList<>();
+    private final Map<Path, FileChannel> channels = new ConcurrentHashMap<>();
+
+    // Where a record is: file, offset and compressed length
+    private static class Location {
+        final Path file;
+        final long offset;
+        final int length;
+
+        Location(Path file, long offset, int length) {
+            this.file = file;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    /** A response read back from the archive. */
+    public static final class Record {
+        private final String url;
+        private final Instant date;
+        private final int statusCode;
+        private final Map<String, List<String>> headers;
+        private final byte[] body;
+
+        Record(String url, Instant date, int statusCode, Map<String, List<String>> headers, byte[] body) {
+            this.url = url;
+            this.date = date;
+            this.statusCode = statusCode;
+            this.headers = headers;
+            this.body = body;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        /** When the response was archived, to the second. */
+        public Instant getDate() {
+            return date;
+        }
+
+        public int getStatusCode() {
+            return statusCode;
+        }
+
+        /** Response headers by name, ignoring case. */
+        public Map<String, List<String>> getHeaders() {
+            return headers;
+        }
+
+        /** First value of a header, or null if the response has none. */
+        public String getHeader(String name) {
+            List<String> values = headers.get(name);
+            return values == null || values.isEmpty() ? null : values.get(0);
+        }
+
+        /** The body as it was received. */
+        public byte[] getBody() {
+            return body;
+        }
+
+        @Override
+        public String toString() {
+            return statusCode + " " + url + " (" + body.length + " bytes)";
+        }
+    }
+
+    /**
+     * Opens an archive and loads its indexes.
+     * @param directory Directory a CrawlArchive wrote to
+     */
+    public ArchiveReader(Path directory) throws IOException {
+        this.directory = directory;
+        TreeMap<Integer, Path> indexes = new TreeMap<>();
+        try (Stream<Path> paths = Files.list(directory)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                Integer number = CrawlArchive.fileNumber(path, CrawlArchive.INDEX_SUFFIX);
+                if (number != null) {
+                    indexes.put(number, path);
+                }
+            }
+        }
+        for (Map.Entry<Integer, Path> index : indexes.entrySet()) {
+            Path file = directory.resolve(CrawlArchive.fileName(index.getKey(), CrawlArchive.RECORD_SUFFIX));
+            if (Files.exists(file)) {
+                load(index.getValue(), file, Files.size(file));
+            }
+        }
+    }
+
+    private void load(Path index, Path file, long fileSize) throws IOException {
+        String text = Files.readString(index, StandardCharsets.UTF_8);
+        int start = 0;
+        int end;
+        while ((end = text.indexOf('\n', start)) >= 0) {
+            String[] fields = text.substring(start, end).split("\t", 4);
+            start = end + 1;
+            if (fields.length < 4) {
+                continue;
+            }
+            long offset;
+            int length;
+            try {
+                offset = Long.parseLong(fields[0]);
+                length = Integer.parseInt(fields[1]);
+            } catch (NumberFormatException e) {
+                continue;
+            }
+            if (offset < 0 || length <= 0 || offset + length > fileSize) {
+                continue;
+            }
+            if (fields[2].equals(CrawlArchive.SEED_STATUS)) {
+                seeds.add(fields[3]);
+                continue;
+            }
+            if (locations.put(fields[3], new Location(file, offset, length)) == null) {
+                urls.add(fields[3]);
+            }
+        }
+    }
+
+    /** Directory of the archive files. */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /** Number of URLs in the archive. */
+    public int size() {
+        return urls.size();
+    }
+
+    /** Whether the archive has a response for a URL. */
+    public boolean contains(String url) {
+        return locations.containsKey(url);
+    }
+
+    /** The URLs in the archive, in the order they were first archived. */
+    public List<String> getUrls() {
+        return Collections.unmodifiableList(urls);
+    }
+
+    /** The seeds of the crawls archived, in the order they were archived. */
+    public List<String> getSeeds() {
+        return Collections.unmodifiableList(seeds);
+    }
+
+    /**
+     * Reads the latest response archived for a URL.
+     * @param url The URL, exactly as it was archived
+     * @return The response, or null if the URL is not in the archive
+     * @throws IOException if the record cannot be read or is not a valid record
+     */
+    public Record read(String url) throws IOException {
+        Location location = locations.get(url);
+        if (location == null) {
+            return null;
+        }
+        FileChannel channel = channels.computeIfAbsent(location.file, this::open);
+        if (channel == null) {
+            throw new IOException("Cannot open " + location.file);
+        }
+        ByteBuffer compressed = ByteBuffer.allocate(location.length);
+        while (compressed.hasRemaining()) {
+            if (channel.read(compressed, location.offset + compressed.position()) < 0) {
+                throw new IOException("Record cut off in " + location.file + " at " + location.offset);
+            }
+        }
+        byte[] bytes;
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed.array()))) {
+            bytes = in.readAllBytes();
+        }
+        return parse(bytes);
+    }
+
+    private FileChannel open(Path file) {
+        try {
+            return FileChannel.open(file, StandardOpenOption.READ);
+        } catch (IOException e) {
+            System.out.println("Error opening " + file + ": " + e);
+            return null;
+        }
+    }
+
+    // Parses a WARC response record holding an HTTP response
+    static Record parse(byte[] bytes) throws IOException {
+        int warcEnd = headerEnd(bytes, 0);
+        Map<String, List<String>> warc = fields(bytes, 0, warcEnd);
+        String url = first(warc, "WARC-Target-URI");
+        String length = first(warc, "Content-Length");
+        if (url == null || length == null || !"response".equals(first(warc, "WARC-Type"))) {
+            throw new IOException("Not a WARC response record");
+        }
+        int block = warcEnd + 4;
+        int blockEnd;
+        try {
+            blockEnd = Math.toIntExact(block + Long.parseLong(length));
+        } catch (NumberFormatException | ArithmeticException e) {
+            throw new IOException("Bad Content-Length: " + length);
+        }
+        if (blockEnd > bytes.length) {
+            throw new IOException("Record shorter than its Content-Length");
+        }
+        int httpEnd = headerEnd(bytes, block);
+        if (httpEnd > blockEnd) {
+            throw new IOException("HTTP header runs past the record");
+        }
+        int lineEnd = indexOf(bytes, block, (byte) '\r');
+        String[] statusLine = new String(bytes, block, lineEnd - block, StandardCharsets.UTF_8).split(" ", 3);
+        int statusCode;
+        try {
+            statusCode = Integer.parseInt(statusLine[1]);
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            throw new IOException("Bad status line");
+        }
+        Map<String, List<String>> headers = fields(bytes, lineEnd + 2, httpEnd);
+        String date = first(warc, "WARC-Date");
+        Instant instant = date == null ? null : Instant.parse(date);
+        return new Record(url, instant, statusCode, headers, Arrays.copyOfRange(bytes, httpEnd + 4, blockEnd));
+    }
+
+    // Index of the blank line that ends a header starting at from
+    private static int headerEnd(byte[] bytes, int from) throws IOException {
+        for (int i = from; i + 3 < bytes.length; i++) {
+            if (bytes[i] == '\r' && bytes[i + 1] == '\n' && bytes[i + 2] == '\r' && bytes[i + 3] == '\n') {
+                return i;
+            }
+        }
+        throw new IOException("Header without an end");
+    }
+
+    private static int indexOf(byte[] bytes, int from, byte b) {
+        for (int i = from; i < bytes.length; i++) {
+            if (bytes[i] == b) {
+                return i;
+            }
+        }
+        return bytes.length;
+    }
+
+    // "Name: value" lines between from and end, by name ignoring case
+    private static Map<String, List<String>> fields(byte[] bytes, int from, int end) {
+        Map<String, List<String>> fields = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        if (from >= end) {
+            return fields;
+        }
+        for (String line : new String(bytes, from, end - from, StandardCharsets.UTF_8).split("\r\n")) {
+            int colon = line.indexOf(':');
+            if (colon > 0) {
+                fields.computeIfAbsent(line.substring(0, colon).trim(), name -> new ArrayList<>())
+                        .add(line.substring(colon + 1).trim());
+            }
+        }
+        return fields;
+    }
+
+    private static String first(Map<String, List<String>> fields, String name) {
+        List<String> values = fields.get(name);
+        return values == null ? null : values.get(0);
+    }
+
+    /** Closes the archive files. */
+    @Override
+    public void close() throws IOException {
+        for (FileChannel channel : channels.values()) {
+            channel.close();
+        }
+        channels.clear();
+    }
+}
@@ -0,0 +1,105 @@
+package crawler;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+ * Approximate SeenUrlStore for very large crawls: a Bloom filter whose size is fixed
+ * up front from the expected number of URLs and the acceptable false-positive rate.
+ * A URL that was never added is reported as seen with roughly that probability, and
+ * its page is then skipped; a URL that was added is always reported as seen.
+ *
+ * Bits are set with compare-and-set on an AtomicLongArray, so adds never lock. The
+ * bit positions come from the URL's 64-bit fingerprint by double hashing. When two
+ * threads add the same URL at the same moment, both may be told it is new; for the
+ * crawler that costs at most one repeated fetch.
+ */
+public class BloomSeenUrlStore implements SeenUrlStore {
+
+    private final AtomicLongArray words;
+    private final long bits;
+    private final int hashes;
+    private final AtomicLong added = new AtomicLong();
+
+    /**
+     * @param expectedUrls Number of URLs the filter is sized for
+     * @param falsePositiveRate Probability of reporting an unseen URL as seen once
+     *        expectedUrls URLs have been added, between 0 and 1 exclusive
+     */
+    public BloomSeenUrlStore(long expectedUrls, double falsePositiveRate) {
+        if (expectedUrls < 1 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Need expectedUrls >= 1 and 0 < falsePositiveRate < 1");
+        }
+        // Optimal size m = -n ln p / (ln 2)^2 bits and k = (m / n) ln 2 hash functions
+        double ln2 = Math.log(2);
+        long optimalBits = (long) Math.ceil(-expectedUrls * Math.log(falsePositiveRate) / (ln2 * ln2));
+        long wordCount = Math.max(1, (optimalBits + 63) / 64);
+        if (wordCount > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Filter would need more than 2^31 words");
+        }
+        words = new AtomicLongArray((int) wordCount);
+        bits = wordCount * 64;
+        hashes = Math.max(1, (int) Math.round((double) bits / expectedUrls * ln2));
+    }
+
+    @Override
+    public boolean add(String url) {
+        long fingerprint = FingerprintSeenUrlStore.fingerprint(url);
+        long step = (fingerprint >>> 32) | 1;
+        boolean changed = false;
+        for (int i = 0; i < hashes; i++) {
+            long bit = ((fingerprint + i * step) & Long.MAX_VALUE) % bits;
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current = words.get(word);
+            while ((current & mask) == 0) {
+                if (words.compareAndSet(word, current, current | mask)) {
+                    changed = true;
+                    break;
+                }
+                current = words.get(word);
+            }
+        }
+        if (changed) {
+            added.incrementAndGet();
+        }
+        return changed;
+    }
+
+    @Override
+    public boolean contains(String url) {
+        long fingerprint = FingerprintSeenUrlStore.fingerprint(url);
+        long step = (fingerprint >>> 32) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = ((fingerprint + i * step) & Long.MAX_VALUE) % bits;
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Number of URLs added that were not already reported as seen. */
+    @Override
+    public long size() {
+        return added.get();
+    }
+
+    /** Size of the bit array in bytes. */
+    public long tableBytes() {
+        return bits / 8;
+    }
+
+    /** Number of bit positions set per URL. */
+    public int getHashCount() {
+        return hashes;
+    }
+
+    /**
+     * Estimates the current false-positive rate from the number of URLs added so far.
+     * @return (1 - e^(-k n / m))^k
+     */
+    public double expectedFalsePositiveRate() {
+        return Math.pow(1 - Math.exp(-hashes * (double) added.get() / bits), hashes);
+    }
+}
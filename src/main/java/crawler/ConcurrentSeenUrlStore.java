@@ -0,0 +1,40 @@
+package crawler;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Exact SeenUrlStore over a ConcurrentHashMap key set. Adding a URL is a single
+ * compare-and-set in the common case, so crawler threads do not wait on each other
+ * the way they did on one synchronized HashSet. Every URL string is retained.
+ */
+public class ConcurrentSeenUrlStore implements SeenUrlStore {
+
+    private final Set<String> urls;
+
+    public ConcurrentSeenUrlStore() {
+        this(16);
+    }
+
+    /**
+     * @param expectedUrls Number of URLs to size the table for up front
+     */
+    public ConcurrentSeenUrlStore(int expectedUrls) {
+        urls = ConcurrentHashMap.newKeySet(expectedUrls);
+    }
+
+    @Override
+    public boolean add(String url) {
+        return urls.add(url);
+    }
+
+    @Override
+    public boolean contains(String url) {
+        return urls.contains(url);
+    }
+
+    @Override
+    public long size() {
+        return urls.size();
+    }
+}
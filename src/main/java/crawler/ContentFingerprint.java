@@ -0,0 +1,173 @@
+package crawler;
+
+import java.nio.CharBuffer;
+
+/*
+ * Fingerprints of the content of one page, computed in a single pass over its
+ * characters as the body arrives, for a ContentIndex to recognize copies of pages
+ * seen before under another URL.
+ *
+ * The exact fingerprint is a 64-bit hash of every character, so it only matches a
+ * copy identical to the character. The SimHash fingerprint is taken from the text
+ * alone, leaving out the tags: every run of SHINGLE_WORDS consecutive words is hashed,
+ * and the fingerprint has the bits set in more than half of the hashes. Pages sharing
+ * most of their text get fingerprints that differ in few bits, whatever their markup,
+ * so a session ID in every link, or the navigation left out of a printer-friendly
+ * copy, leaves the fingerprint close to the original.
+ *
+ * The number of hashes with each bit set is kept bit-sliced, as a binary counter per
+ * bit spread over one long per power of two, so that counting a hash takes a couple
+ * of word operations rather than one per bit.
+ */
+public class ContentFingerprint {
+
+    // Words per shingle
+    static final int SHINGLE_WORDS = 4;
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    // Letters and digits in lower case, and 0 for other characters, below 128
+    private static final char[] ASCII_WORD_CHARS = new char[128];
+
+    static {
+        for (char c = 0; c < 128; c++) {
+            ASCII_WORD_CHARS[c] = Character.isLetterOrDigit(c) ? Character.toLowerCase(c) : 0;
+        }
+    }
+
+    private long exact = FNV_OFFSET;
+    private boolean inTag;
+    private long wordHash = FNV_OFFSET;
+    private int wordLength;
+    // Hashes of the last SHINGLE_WORDS words, as a ring
+    private final long[] words = new long[SHINGLE_WORDS];
+    private int wordCount;
+    // Bit i of ones[k] is bit k of the number of hashes with bit i set
+    private final long[] ones = new long[32];
+    private int shingles;
+    private long simHash;
+    private boolean finished;
+
+    /**
+     * Adds the next chunk of the page, leaving the buffer's position where it is.
+     * @param chunk Characters following those of the previous call
+     */
+    public void feed(CharBuffer chunk) {
+        if (chunk.hasArray()) {
+            char[] chars = chunk.array();
+            for (int i = chunk.arrayOffset() + chunk.position(), end = chunk.arrayOffset() + chunk.limit(); i < end; i++) {
+                step(chars[i]);
+            }
+        } else {
+            for (int i = chunk.position(), end = chunk.limit(); i < end; i++) {
+                step(chunk.get(i));
+            }
+        }
+    }
+
+    /**
+     * Adds the next characters of the page.
+     * @param text Characters following those of the previous call
+     */
+    public void feed(CharSequence text) {
+        for (int i = 0; i < text.length(); i++) {
+            step(text.charAt(i));
+        }
+    }
+
+    private void step(char c) {
+        exact = (exact ^ c) * FNV_PRIME;
+        if (inTag) {
+            inTag = c != '>';
+        } else if (c == '<') {
+            endWord();
+            inTag = true;
+        } else {
+            char lower = c < 128 ? ASCII_WORD_CHARS[c] : Character.isLetterOrDigit(c) ? Character.toLowerCase(c) : 0;
+            if (lower != 0) {
+                wordHash = (wordHash ^ lower) * FNV_PRIME;
+                wordLength++;
+            } else {
+                endWord();
+            }
+        }
+    }
+
+    private void endWord() {
+        if (wordLength == 0) {
+            return;
+        }
+        int last = wordCount % SHINGLE_WORDS;
+        words[last] = wordHash;
+        wordHash = FNV_OFFSET;
+        wordLength = 0;
+        if (++wordCount >= SHINGLE_WORDS) {
+            long shingle = FNV_OFFSET;
+            for (int i = 1; i <= SHINGLE_WORDS; i++) {
+                shingle = (shingle ^ words[(last + i) % SHINGLE_WORDS]) * FNV_PRIME;
+            }
+            // Adds one to the counters of the bits set, carrying as in binary addition
+            long carry = mix(shingle);
+            for (int k = 0; carry != 0; k++) {
+                long next = ones[k] & carry;
+                ones[k] ^= carry;
+                carry = next;
+            }
+            shingles++;
+        }
+    }
+
+    /** Ends the page; the fingerprints can be read from then on. */
+    public void finish() {
+        if (finished) {
+            return;
+        }
+        endWord();
+        int planes = 32 - Integer.numberOfLeadingZeros(shingles);
+        for (int bit = 0; bit < 64; bit++) {
+            long count = 0;
+            for (int k = 0; k < planes; k++) {
+                count |= (ones[k] >>> bit & 1) << k;
+            }
+            if (2 * count > shingles) {
+                simHash |= 1L << bit;
+            }
+        }
+        exact = mix(exact);
+        finished = true;
+    }
+
+    /** Hash of all the characters of the page. */
+    public long getExact() {
+        checkFinished();
+        return exact;
+    }
+
+    /** SimHash of the text of the page; meaningful only with enough shingles. */
+    public long getSimHash() {
+        checkFinished();
+        return simHash;
+    }
+
+    /** Number of runs of SHINGLE_WORDS words in the text that the SimHash was taken from. */
+    public int getShingles() {
+        return shingles;
+    }
+
+    private void checkFinished() {
+        if (!finished) {
+            throw new IllegalStateException("Page not finished");
+        }
+    }
+
+    // The MurmurHash3 finalizer, so that every bit depends on every input bit
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
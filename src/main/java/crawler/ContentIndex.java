@@ -0,0 +1,194 @@
+package crawler;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Fingerprints of the pages scanned so far, to tell when a page is a copy of one
+ * already scanned under another URL: a mirror, the same page with a session ID, or a
+ * printer-friendly version.
+ *
+ * Exact fingerprints are kept in a FingerprintSeenUrlStore. Near-duplicates are found
+ * from the SimHash fingerprints, two of which match when they differ in at most
+ * MAX_DISTANCE = 5 bits; pages whose text differs in a few words out of a few hundred
+ * nearly always do, and unrelated pages about once in 10^12 pairs. Split into six
+ * blocks of 10 or 11 bits, two such fingerprints agree on at least one block, so each
+ * fingerprint is filed in six tables, under each of its blocks, and a lookup only
+ * compares a fingerprint with those that share a block with it. The tables are
+ * open-addressing long[] arrays split into locked segments, as in
+ * FingerprintSeenUrlStore, taking 80 to 150 bytes per page in all.
+ *
+ * Pages with less than MIN_SHINGLES shingles of text, such as pages made of scripts,
+ * are compared by their exact fingerprint only, as all their SimHashes look alike.
+ * Looking up and adding a page is not atomic: two copies scanned at the same moment
+ * may both be taken as new, which only costs the work the index would have saved.
+ */
+public class ContentIndex {
+
+    /** How a page compares with the pages already in the index. */
+    public enum Match {
+        /** No page like it was seen; it is now in the index. */
+        NEW,
+        /** The same characters were seen before. */
+        EXACT,
+        /** A page with nearly the same text was seen before. */
+        NEAR
+    }
+
+    static final int MAX_DISTANCE = 5;
+    static final int MIN_SHINGLES = 16;
+
+    // One more block than bits that may differ, so that some block has none of them
+    private static final int BLOCKS = MAX_DISTANCE + 1;
+    private static final int SEGMENT_BITS = 4;
+    private static final int MIN_SEGMENT_CAPACITY = 64;
+    // Marks an empty slot; a SimHash of 0 is filed as 1, one bit away
+    private static final long EMPTY = 0;
+
+    private final FingerprintSeenUrlStore exact;
+    // segments[block][segment], the segment chosen by the hash of the block
+    private final Segment[][] segments = new Segment[BLOCKS][1 << SEGMENT_BITS];
+    private final LongAdder pages = new LongAdder();
+    private final LongAdder exactCopies = new LongAdder();
+    private final LongAdder nearCopies = new LongAdder();
+
+    public ContentIndex() {
+        this(1024);
+    }
+
+    /**
+     * @param expectedPages Number of pages to size the tables for up front
+     */
+    public ContentIndex(long expectedPages) {
+        exact = new FingerprintSeenUrlStore(expectedPages);
+        long perSegment = Math.max(MIN_SEGMENT_CAPACITY, expectedPages / (1 << SEGMENT_BITS) * 2);
+        int capacity = Integer.highestOneBit((int) Math.min(perSegment, 1 << 30) - 1) << 1;
+        for (Segment[] table : segments) {
+            for (int i = 0; i < table.length; i++) {
+                table[i] = new Segment(capacity);
+            }
+        }
+    }
+
+    /**
+     * Looks for a page like this one, and adds this one if there is none.
+     * @param fingerprint The fingerprints of a finished page
+     * @return Whether the page is new, or an exact or near copy of one added before
+     */
+    public Match add(ContentFingerprint fingerprint) {
+        pages.increment();
+        if (!exact.addFingerprint(fingerprint.getExact())) {
+            exactCopies.increment();
+            return Match.EXACT;
+        }
+        if (fingerprint.getShingles() < MIN_SHINGLES) {
+            return Match.NEW;
+        }
+        long simHash = fingerprint.getSimHash() == EMPTY ? 1 : fingerprint.getSimHash();
+        for (int block = 0; block < BLOCKS; block++) {
+            if (segmentFor(block, simHash).containsNear(block, simHash)) {
+                nearCopies.increment();
+                return Match.NEAR;
+            }
+        }
+        for (int block = 0; block < BLOCKS; block++) {
+            segmentFor(block, simHash).add(block, simHash);
+        }
+        return Match.NEW;
+    }
+
+    /** Number of pages looked up. */
+    public long getPages() {
+        return pages.sum();
+    }
+
+    /** Number of pages found identical to one seen before. */
+    public long getExactCopies() {
+        return exactCopies.sum();
+    }
+
+    /** Number of pages found nearly identical to one seen before. */
+    public long getNearCopies() {
+        return nearCopies.sum();
+    }
+
+    /** Bytes held by the fingerprint tables. */
+    public long tableBytes() {
+        long bytes = exact.tableBytes();
+        for (Segment[] table : segments) {
+            for (Segment segment : table) {
+                synchronized (segment) {
+                    bytes += 8L * segment.table.length;
+                }
+            }
+        }
+        return bytes;
+    }
+
+    private Segment segmentFor(int block, long simHash) {
+        return segments[block][hash(blockOf(block, simHash)) >>> (32 - SEGMENT_BITS)];
+    }
+
+    // Bits block * 64 / BLOCKS up to (block + 1) * 64 / BLOCKS of the SimHash
+    private static int blockOf(int block, long simHash) {
+        int from = block * 64 / BLOCKS;
+        int to = (block + 1) * 64 / BLOCKS;
+        return (int) (simHash >>> from) & ((1 << (to - from)) - 1);
+    }
+
+    // Spreads the values of a block over the segments and slots
+    private static int hash(int block) {
+        int hash = block * 0x9e3779b9;
+        return hash ^ hash >>> 16;
+    }
+
+    /*
+     * One open-addressing table of SimHashes, placed by the hash of one of their
+     * blocks, so that all those sharing that block are in one run of slots. Kept at
+     * most three quarters full.
+     */
+    private static class Segment {
+        private long[] table;
+        private int count;
+
+        Segment(int capacity) {
+            table = new long[capacity];
+        }
+
+        synchronized boolean containsNear(int block, long simHash) {
+            int key = blockOf(block, simHash);
+            int mask = table.length - 1;
+            for (int slot = start(key, mask); table[slot] != EMPTY; slot = (slot + 1) & mask) {
+                if (blockOf(block, table[slot]) == key && Long.bitCount(table[slot] ^ simHash) <= MAX_DISTANCE) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        synchronized void add(int block, long simHash) {
+            place(table, block, simHash);
+            if (++count > table.length - (table.length >>> 2)) {
+                long[] bigger = new long[table.length * 2];
+                for (long filed : table) {
+                    if (filed != EMPTY) {
+                        place(bigger, block, filed);
+                    }
+                }
+                table = bigger;
+            }
+        }
+
+        private static void place(long[] table, int block, long simHash) {
+            int mask = table.length - 1;
+            int slot = start(blockOf(block, simHash), mask);
+            while (table[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = simHash;
+        }
+
+        private static int start(int key, int mask) {
+            return hash(key) & mask;
+        }
+    }
+}
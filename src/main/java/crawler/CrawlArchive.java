@@ -0,0 +1,598 @@
+package crawler;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/*
+ * Archive of the responses a crawl downloads, so that pages and images can be
+ * analysed again without fetching them again. Each response, its URL, status line,
+ * headers and body, is stored as a WARC/1.1 "response" record compressed as a gzip
+ * member of its own, so the files can be read by any WARC tool, and any record can be
+ * decompressed alone from its offset. The files are named crawl-00001.warc.gz and so
+ * on; a new one is started when the current one would grow past maxFileBytes. Each
+ * file has an index beside it, crawl-00001.idx, with one line per record:
+ *   offset TAB length TAB status TAB url
+ * which an ArchiveReader loads to find a record without reading the files through.
+ * The seed of a crawl is archived too, as a "warcinfo" record with a "seed" field,
+ * indexed with "seed" for its status, so that a crawl replayed from the archive
+ * starts from the same page.
+ *
+ * record() only queues the response and returns; a background thread compresses the
+ * records and writes them, one batch per write, when a batch is full or flushMillis
+ * after its first record. The queue is bounded by the bytes it holds: when it is full,
+ * further responses are dropped and counted rather than waited for, as a crawl that
+ * downloads faster than its disk takes the archive should not slow down for it.
+ *
+ * A record is written before its index line, so every line of an index names a whole
+ * record; a crash can only leave a record at the end of a file without its line.
+ */
+public class CrawlArchive implements AutoCloseable {
+
+    static final String FILE_PREFIX = "crawl-";
+    static final String RECORD_SUFFIX = ".warc.gz";
+    static final String INDEX_SUFFIX = ".idx";
+    // Status field of the index line of a seed
+    static final String SEED_STATUS = "seed";
+
+    // Fast rather than small: page text still shrinks about five times
+    private static final int COMPRESSION_LEVEL = Deflater.BEST_SPEED;
+    // Body bytes compressed before deciding whether the rest is worth looking for matches in
+    private static final int SAMPLE_BYTES = 4096;
+    // Size at which the queued records are written without waiting for flushMillis
+    private static final long BATCH_BYTES = 256 * 1024;
+    // Room kept free in the output buffer for one call to the deflater
+    private static final int MIN_ROOM = 8192;
+
+    // Magic, deflate, no flags, no time, no extra flags, unknown OS
+    private static final byte[] GZIP_HEADER = { 0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, (byte) 0xff };
+    private static final byte[] RECORD_END = "\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final Path directory;
+    private final long maxFileBytes;
+    private final long maxQueuedBytes;
+    private final long flushNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition recordsReady = lock.newCondition();
+    private final Condition recordsWritten = lock.newCondition();
+    private ArrayDeque<Response> queue = new ArrayDeque<>();
+    private long queuedBytes;
+    private long firstQueued;
+    private boolean closed;
+    private final Thread writer;
+
+    // Used by the writer thread only
+    private final Deflater deflater = new Deflater(COMPRESSION_LEVEL, true);
+    private final CRC32 crc = new CRC32();
+    private ByteBuffer member = ByteBuffer.allocate(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+    private ByteBuffer batch = ByteBuffer.allocate(1024 * 1024);
+    private final StringBuilder indexLines = new StringBuilder();
+    private FileChannel file;
+    private FileChannel index;
+    private int fileNumber;
+    private long fileBytes;
+
+    private long records;
+    private long written;
+    private long dropped;
+    private long bytesIn;
+    private long bytesWritten;
+    private long batches;
+    private long files;
+    private long writeNanos;
+
+    // A response waiting to be written, or the seed of a crawl, whose body is its warcinfo fields
+    private static class Response {
+        final String url;
+        final int statusCode;
+        final Map<String, List<String>> headers;
+        final byte[] body;
+        final int length;
+        final long millis;
+        final boolean seed;
+
+        Response(String url, int statusCode, Map<String, List<String>> headers, byte[] body, int length,
+                boolean seed) {
+            this.url = url;
+            this.statusCode = statusCode;
+            this.headers = headers;
+            this.body = body;
+            this.length = length;
+            this.millis = System.currentTimeMillis();
+            this.seed = seed;
+        }
+    }
+
+    /**
+     * Opens an archive with files of up to 1 GB, 16 MB of queued responses, written within 100 ms.
+     * @see #CrawlArchive(Path, long, long, long)
+     */
+    public CrawlArchive(Path directory) throws IOException {
+        this(directory, 1L << 30, 16L << 20, 100);
+    }
+
+    /**
+     * Opens an archive for writing. Files already in the directory are kept, and the
+     * new records go to new files numbered after them.
+     * @param directory Directory of the archive files; created if it does not exist
+     * @param maxFileBytes Size past which a new file is started; a single record larger
+     *        than this gets a file of its own
+     * @param maxQueuedBytes Most body bytes waiting to be written; responses that do not
+     *        fit are dropped
+     * @param flushMillis Longest time a response waits in memory before its batch is written
+     */
+    public CrawlArchive(Path directory, long maxFileBytes, long maxQueuedBytes, long flushMillis)
+            throws IOException {
+        if (maxFileBytes < 1 || maxQueuedBytes < 1 || flushMillis < 1) {
+            throw new IllegalArgumentException("Need maxFileBytes, maxQueuedBytes and flushMillis >= 1");
+        }
+        this.directory = directory;
+        this.maxFileBytes = maxFileBytes;
+        this.maxQueuedBytes = maxQueuedBytes;
+        this.flushNanos = TimeUnit.MILLISECONDS.toNanos(flushMillis);
+        Files.createDirectories(directory);
+        fileNumber = lastFileNumber(directory);
+        writer = new Thread(this::writeLoop, "crawl-archive-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // Number of the last archive file in a directory, or 0 if there is none
+    static int lastFileNumber(Path directory) throws IOException {
+        int last = 0;
+        try (Stream<Path> paths = Files.list(directory)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                Integer number = fileNumber(path, RECORD_SUFFIX);
+                if (number != null) {
+                    last = Math.max(last, number);
+                }
+            }
+        }
+        return last;
+    }
+
+    // Number of an archive or index file from its name, or null if it is neither
+    static Integer fileNumber(Path path, String suffix) {
+        String name = path.getFileName().toString();
+        if (!name.startsWith(FILE_PREFIX) || !name.endsWith(suffix)) {
+            return null;
+        }
+        try {
+            return Integer.parseInt(name.substring(FILE_PREFIX.length(), name.length() - suffix.length()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    static String fileName(int number, String suffix) {
+        return String.format("%s%05d%s", FILE_PREFIX, number, suffix);
+    }
+
+    /**
+     * Queues a response for archiving and returns at once.
+     * @param url Absolute URL the response was fetched from
+     * @param statusCode HTTP status code
+     * @param headers Response headers; names that are null or start with ':' are left out
+     * @param body The body as it was received; not copied, so it must not change afterwards
+     * @param length Number of bytes of body that were received
+     * @return false if the response was dropped because the queue was full, the URL
+     *         cannot be archived, or the archive is closed
+     */
+    public boolean record(String url, int statusCode, Map<String, List<String>> headers, byte[] body, int length) {
+        return enqueue(new Response(url, statusCode, headers, body, length, false));
+    }
+
+    /**
+     * Queues the seed of a crawl for archiving, for ReplayFetcher to start from. An
+     * archive written by several crawls holds the seed of each; replay starts from
+     * the first.
+     * @param url Canonical URL of the seed page
+     * @return false if the seed was dropped, as record() drops responses
+     */
+    public boolean recordSeed(String url) {
+        byte[] fields = ("seed: " + url + "\r\n").getBytes(StandardCharsets.UTF_8);
+        return enqueue(new Response(url, 0, Map.of(), fields, fields.length, true));
+    }
+
+    private boolean enqueue(Response response) {
+        String url = response.url;
+        int length = response.length;
+        if (url.indexOf('\n') >= 0 || url.indexOf('\r') >= 0) {
+            return false; // would break the record header and the index line
+        }
+        lock.lock();
+        try {
+            if (closed || queuedBytes + length > maxQueuedBytes) {
+                dropped++;
+                return false;
+            }
+            if (queue.isEmpty()) {
+                firstQueued = System.nanoTime();
+                recordsReady.signal();
+            }
+            queue.add(response);
+            queuedBytes += length;
+            records++;
+            bytesIn += length;
+            if (queuedBytes >= BATCH_BYTES) {
+                recordsReady.signal();
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void writeLoop() {
+        while (true) {
+            ArrayDeque<Response> responses;
+            long responseBytes;
+            lock.lock();
+            try {
+                while (true) {
+                    boolean due = closed || System.nanoTime() - firstQueued >= flushNanos;
+                    if (queuedBytes >= BATCH_BYTES || (!queue.isEmpty() && due)) {
+                        break;
+                    }
+                    if (closed) {
+                        return;
+                    }
+                    if (queue.isEmpty()) {
+                        recordsReady.awaitUninterruptibly();
+                    } else {
+                        recordsReady.awaitNanos(flushNanos - (System.nanoTime() - firstQueued));
+                    }
+                }
+                responses = queue;
+                queue = new ArrayDeque<>();
+                // Still counted as queued until written, so the bound covers the batch in hand
+                responseBytes = queuedBytes;
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                lock.unlock();
+            }
+            long start = System.nanoTime();
+            IOException failure = null;
+            try {
+                write(responses);
+            } catch (IOException e) {
+                failure = e;
+            }
+            lock.lock();
+            try {
+                writeNanos += System.nanoTime() - start;
+                if (failure != null) {
+                    // The crawl goes on without an archive rather than stopping
+                    System.out.println("Error writing crawl archive: " + failure);
+                    closed = true;
+                    dropped += responses.size() + queue.size();
+                    queue.clear();
+                    queuedBytes = 0;
+                } else {
+                    queuedBytes -= responseBytes;
+                    written += responses.size();
+                    batches++;
+                }
+                recordsWritten.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // Compresses a batch of responses and writes it, starting new files as needed; called on the writer thread
+    private void write(ArrayDeque<Response> responses) throws IOException {
+        for (Response response : responses) {
+            compress(response);
+            int length = member.remaining();
+            long offset = fileBytes + batch.position();
+            if (file == null || (offset > 0 && offset + length > maxFileBytes)) {
+                writeBatch();
+                roll();
+                offset = 0;
+            }
+            if (batch.remaining() < length) {
+                writeBatch();
+                if (batch.capacity() < length) {
+                    batch = ByteBuffer.allocate(length);
+                }
+            }
+            batch.put(member);
+            indexLines.append(offset).append('\t').append(length).append('\t')
+                    .append(response.seed ? SEED_STATUS : String.valueOf(response.statusCode))
+                    .append('\t').append(response.url).append('\n');
+        }
+        writeBatch();
+    }
+
+    // Writes the records compressed so far to the current file, then their index lines
+    private void writeBatch() throws IOException {
+        if (batch.position() == 0) {
+            return;
+        }
+        batch.flip();
+        int length = batch.remaining();
+        while (batch.hasRemaining()) {
+            file.write(batch);
+        }
+        batch.clear();
+        ByteBuffer lines = ByteBuffer.wrap(indexLines.toString().getBytes(StandardCharsets.UTF_8));
+        indexLines.setLength(0);
+        while (lines.hasRemaining()) {
+            index.write(lines);
+        }
+        fileBytes += length;
+        lock.lock();
+        try {
+            bytesWritten += length;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Closes the current file and starts the next one
+    private void roll() throws IOException {
+        closeFiles();
+        fileNumber++;
+        file = FileChannel.open(directory.resolve(fileName(fileNumber, RECORD_SUFFIX)),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        index = FileChannel.open(directory.resolve(fileName(fileNumber, INDEX_SUFFIX)),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        fileBytes = 0;
+        lock.lock();
+        try {
+            files++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void closeFiles() throws IOException {
+        if (file != null) {
+            file.close();
+            index.close();
+            file = null;
+            index = null;
+        }
+    }
+
+    // Compresses one response as a gzip member into member, ready to be read
+    private void compress(Response response) {
+        byte[] http = response.seed ? new byte[0] : httpHeader(response);
+        byte[] warc = warcHeader(response, http.length + response.length);
+        member.clear();
+        member.put(GZIP_HEADER);
+        deflater.reset();
+        setStrategy(Deflater.DEFAULT_STRATEGY);
+        crc.reset();
+        deflate(warc, 0, warc.length);
+        deflate(http, 0, http.length);
+        int sample = Math.min(SAMPLE_BYTES, response.length);
+        deflate(response.body, 0, sample);
+        if (sample < response.length) {
+            // A body that matching did not halve is text without repeats or compressed
+            // already, as images are; Huffman coding alone shrinks it as much, 3 times faster
+            syncFlush();
+            if (deflater.getBytesWritten() > deflater.getBytesRead() / 2) {
+                setStrategy(Deflater.HUFFMAN_ONLY);
+            }
+            deflate(response.body, sample, response.length - sample);
+        }
+        deflate(RECORD_END, 0, RECORD_END.length);
+        deflater.finish();
+        while (!deflater.finished()) {
+            ensureRoom();
+            deflater.deflate(member);
+        }
+        ensureRoom();
+        member.putInt((int) crc.getValue()).putInt((int) deflater.getBytesRead());
+        member.flip();
+    }
+
+    private void deflate(byte[] bytes, int offset, int length) {
+        crc.update(bytes, offset, length);
+        deflater.setInput(bytes, offset, length);
+        while (!deflater.needsInput()) {
+            ensureRoom();
+            deflater.deflate(member);
+        }
+    }
+
+    // Compresses all the input so far, so that getBytesWritten counts it
+    private void syncFlush() {
+        int room;
+        do {
+            ensureRoom();
+            room = member.remaining();
+        } while (deflater.deflate(member, Deflater.SYNC_FLUSH) == room);
+    }
+
+    // zlib only takes a new strategy while no input is waiting, so it is passed on at once
+    private void setStrategy(int strategy) {
+        deflater.setStrategy(strategy);
+        ensureRoom();
+        deflater.deflate(member);
+    }
+
+    private void ensureRoom() {
+        if (member.remaining() < MIN_ROOM) {
+            ByteBuffer larger = ByteBuffer.allocate(2 * member.capacity()).order(ByteOrder.LITTLE_ENDIAN);
+            member.flip();
+            member = larger.put(member);
+        }
+    }
+
+    private static byte[] warcHeader(Response response, long contentLength) {
+        StringBuilder header = new StringBuilder(256);
+        header.append("WARC/1.1\r\n")
+                .append("WARC-Type: ").append(response.seed ? "warcinfo" : "response").append("\r\n")
+                .append("WARC-Record-ID: <urn:uuid:").append(UUID.randomUUID()).append(">\r\n")
+                .append("WARC-Date: ")
+                .append(DateTimeFormatter.ISO_INSTANT.format(Instant.ofEpochSecond(response.millis / 1000)))
+                .append("\r\n");
+        if (response.seed) {
+            header.append("Content-Type: application/warc-fields\r\n");
+        } else {
+            header.append("WARC-Target-URI: ").append(response.url).append("\r\n")
+                    .append("Content-Type: application/http;msgtype=response\r\n");
+        }
+        header.append("Content-Length: ").append(contentLength).append("\r\n\r\n");
+        return header.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /*
+     * The status line and headers as received. The reason phrase is not known, so it
+     * is left empty. Transfer-Encoding is left out, as the body is stored decoded from
+     * chunks.
+     */
+    private static byte[] httpHeader(Response response) {
+        StringBuilder header = new StringBuilder(512);
+        header.append("HTTP/1.1 ").append(response.statusCode).append(" \r\n");
+        for (Map.Entry<String, List<String>> field : response.headers.entrySet()) {
+            String name = field.getKey();
+            if (name == null || name.startsWith(":") || name.equalsIgnoreCase("Transfer-Encoding")) {
+                continue;
+            }
+            for (String value : field.getValue()) {
+                header.append(name).append(": ").append(value).append("\r\n");
+            }
+        }
+        header.append("\r\n");
+        return header.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Waits until every response queued so far has been written to the files, so that
+     * an ArchiveReader opened afterwards finds them.
+     */
+    public void flush() {
+        lock.lock();
+        try {
+            long target = records;
+            while (!closed && written < target) {
+                firstQueued -= flushNanos; // due now
+                recordsReady.signal();
+                recordsWritten.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Directory of the archive files. */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /** Number of records queued since the archive was opened, seeds included. */
+    public long getRecords() {
+        lock.lock();
+        try {
+            return records;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Number of responses dropped because the queue was full or the archive closed. */
+    public long getDropped() {
+        lock.lock();
+        try {
+            return dropped;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Number of body bytes queued since the archive was opened. */
+    public long getBytesIn() {
+        lock.lock();
+        try {
+            return bytesIn;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Number of compressed bytes written, records and headers included. */
+    public long getBytesWritten() {
+        lock.lock();
+        try {
+            return bytesWritten;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Number of batches written since the archive was opened. */
+    public long getBatches() {
+        lock.lock();
+        try {
+            return batches;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Number of archive files started since the archive was opened. */
+    public long getFiles() {
+        lock.lock();
+        try {
+            return files;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Time the writer thread spent compressing and writing, in milliseconds. */
+    public double getWriteMillis() {
+        lock.lock();
+        try {
+            return writeNanos / 1e6;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Writes the queued responses and closes the files; later responses are dropped. */
+    @Override
+    public void close() throws IOException {
+        flush();
+        lock.lock();
+        try {
+            closed = true;
+            recordsReady.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (file != null) {
+            file.force(false);
+            index.force(false);
+        }
+        closeFiles();
+    }
+}
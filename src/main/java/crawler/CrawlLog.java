@@ -0,0 +1,428 @@
+package crawler;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+/*
+ * Append-only log of the state of a crawl, from which a crawl can be resumed after
+ * the JVM stops: which pages were queued (and so seen), which were scanned, and
+ * which images were shown. Pages queued but not scanned when the log ends are the
+ * frontier of the resumed crawl; scanned pages are not fetched again.
+ *
+ * Records are appended to an in-memory batch and written by a background thread,
+ * one batch per write, when the batch is full or flushMillis after its first record.
+ * How often the file is forced to disk is configurable: after every batch, at most
+ * every fsyncMillis, or never (leaving it to the operating system). Appending only
+ * waits when batches are produced faster than the disk takes them.
+ *
+ * Replay memory-maps the file and decodes it in place. Each batch carries its length
+ * and a CRC-32C checksum, so a batch torn by a crash is detected; replay stops there
+ * and the log is cut back to the last whole batch. Since a page is marked scanned
+ * only after the links found on it were queued, and batches are written in order,
+ * every prefix of the log is a consistent state.
+ *
+ * File layout (big-endian): batches of
+ *   int payloadLength, int crc32c of the payload, payload
+ * where the payload is a sequence of records
+ *   byte type, [int depth for QUEUED], short urlLength, UTF-8 url bytes
+ */
+public class CrawlLog implements AutoCloseable {
+
+    /** Receives the records of a log being replayed, in the order they were appended. */
+    public interface Listener {
+        void queued(String url, int depth);
+
+        void scanned(String url);
+
+        void image(String url);
+    }
+
+    private static final byte QUEUED = 1;
+    private static final byte SCANNED = 2;
+    private static final byte IMAGE = 3;
+
+    private static final int BATCH_HEADER_BYTES = 2 * Integer.BYTES;
+    // Longest URL logged; longer ones are not checkpointed
+    private static final int MAX_URL_BYTES = Short.MAX_VALUE;
+    // Largest region mapped at once during replay
+    private static final int MAP_WINDOW_BYTES = 1 << 30;
+
+    private final FileChannel channel;
+    private final int batchBytes;
+    private final long flushNanos;
+    private final long fsyncNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition batchReady = lock.newCondition();
+    private final Condition batchWritten = lock.newCondition();
+    private ByteBuffer batch;
+    private ByteBuffer spare;
+    private long batchStarted;
+    private int batchRecords;
+    private boolean closed;
+    private long lastSync = System.nanoTime();
+    private final Thread writer;
+
+    private long records;
+    private long recordsWritten;
+    private long replayed;
+    private long batches;
+    private long syncs;
+    private long bytesWritten;
+    private long writeNanos;
+
+    /**
+     * Opens a log with batches of 64 KB written within 100 ms, forced to disk at most every second.
+     * @see #CrawlLog(Path, boolean, int, long, long)
+     */
+    public CrawlLog(Path file, boolean append) throws IOException {
+        this(file, append, 64 * 1024, 100, 1000);
+    }
+
+    /**
+     * Opens a log for writing. To resume from an existing log, open it with append
+     * and call replay() before appending anything.
+     * @param file The log file; created if it does not exist
+     * @param append Whether to keep the records already in the file, or start a new log
+     * @param batchBytes Size at which a batch is written at once
+     * @param flushMillis Longest time a record waits in memory before its batch is written
+     * @param fsyncMillis 0 to force every batch to disk, a positive period to force it
+     *        at most that often, or a negative value to never force it
+     */
+    public CrawlLog(Path file, boolean append, int batchBytes, long flushMillis, long fsyncMillis)
+            throws IOException {
+        if (batchBytes < 1024 || flushMillis < 1) {
+            throw new IllegalArgumentException("Need batchBytes >= 1024 and flushMillis >= 1");
+        }
+        this.batchBytes = batchBytes;
+        this.flushNanos = TimeUnit.MILLISECONDS.toNanos(flushMillis);
+        this.fsyncNanos = fsyncMillis < 0 ? -1 : TimeUnit.MILLISECONDS.toNanos(fsyncMillis);
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        if (!append) {
+            channel.truncate(0);
+        }
+        channel.position(channel.size());
+        batch = newBatch();
+        spare = newBatch();
+        writer = new Thread(this::writeLoop, "crawl-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // Room for a full batch plus one more record of the longest kind
+    private ByteBuffer newBatch() {
+        ByteBuffer buffer = ByteBuffer.allocate(BATCH_HEADER_BYTES + batchBytes + 7 + MAX_URL_BYTES);
+        buffer.position(BATCH_HEADER_BYTES);
+        return buffer;
+    }
+
+    /** Records that a page was seen and queued, at the given depth. */
+    public void queued(String url, int depth) {
+        append(QUEUED, depth, url);
+    }
+
+    /** Records that a page was scanned and its links queued. */
+    public void scanned(String url) {
+        append(SCANNED, 0, url);
+    }
+
+    /** Records that an image was seen. */
+    public void image(String url) {
+        append(IMAGE, 0, url);
+    }
+
+    private void append(byte type, int depth, String url) {
+        byte[] bytes = url.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_URL_BYTES) {
+            return;
+        }
+        lock.lock();
+        try {
+            // Wait while both batches are full: the writer is behind
+            while (!closed && batch.position() - BATCH_HEADER_BYTES >= batchBytes) {
+                batchWritten.awaitUninterruptibly();
+            }
+            if (closed) {
+                return; // late records of pages that finished after the crawl stopped
+            }
+            if (batch.position() == BATCH_HEADER_BYTES) {
+                batchStarted = System.nanoTime();
+                batchReady.signal();
+            }
+            batch.put(type);
+            if (type == QUEUED) {
+                batch.putInt(depth);
+            }
+            batch.putShort((short) bytes.length).put(bytes);
+            batchRecords++;
+            records++;
+            if (batch.position() - BATCH_HEADER_BYTES >= batchBytes) {
+                batchReady.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void writeLoop() {
+        while (true) {
+            ByteBuffer full;
+            int fullRecords;
+            boolean sync;
+            lock.lock();
+            try {
+                while (true) {
+                    int size = batch.position() - BATCH_HEADER_BYTES;
+                    boolean due = closed || System.nanoTime() - batchStarted >= flushNanos;
+                    if (size >= batchBytes || (size > 0 && due)) {
+                        break;
+                    }
+                    if (closed) {
+                        return;
+                    }
+                    if (size == 0) {
+                        batchReady.awaitUninterruptibly();
+                    } else {
+                        batchReady.awaitNanos(flushNanos - (System.nanoTime() - batchStarted));
+                    }
+                }
+                full = batch;
+                fullRecords = batchRecords;
+                batch = spare;
+                batchRecords = 0;
+                spare = null;
+                long now = System.nanoTime();
+                sync = fsyncNanos == 0 || (fsyncNanos > 0 && now - lastSync >= fsyncNanos);
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                lock.unlock();
+            }
+            long start = System.nanoTime();
+            IOException failure = null;
+            int written = 0;
+            try {
+                written = write(full, sync);
+            } catch (IOException e) {
+                failure = e;
+            }
+            lock.lock();
+            try {
+                writeNanos += System.nanoTime() - start;
+                if (failure != null) {
+                    // The crawl goes on without checkpoints rather than stopping
+                    System.out.println("Error writing crawl log: " + failure);
+                    closed = true;
+                } else {
+                    bytesWritten += written;
+                    batches++;
+                    if (sync) {
+                        syncs++;
+                    }
+                }
+                full.clear().position(BATCH_HEADER_BYTES);
+                spare = full;
+                recordsWritten += fullRecords;
+                if (sync) {
+                    lastSync = System.nanoTime();
+                }
+                batchWritten.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // Frames a batch with its length and checksum and writes it, returning the bytes written;
+    // called on the writer thread, without the lock, so the counters are updated by the caller
+    private int write(ByteBuffer full, boolean sync) throws IOException {
+        int length = full.position() - BATCH_HEADER_BYTES;
+        CRC32C crc = new CRC32C();
+        crc.update(full.array(), BATCH_HEADER_BYTES, length);
+        full.putInt(0, length).putInt(Integer.BYTES, (int) crc.getValue());
+        full.flip();
+        while (full.hasRemaining()) {
+            channel.write(full);
+        }
+        if (sync) {
+            channel.force(false);
+        }
+        return BATCH_HEADER_BYTES + length;
+    }
+
+    /**
+     * Writes every record appended so far and forces the file to disk, waiting until done.
+     */
+    public void flush() throws IOException {
+        lock.lock();
+        try {
+            long target = records;
+            while (!closed && recordsWritten < target) {
+                if (batch.position() > BATCH_HEADER_BYTES) {
+                    batchStarted -= flushNanos; // due now
+                    batchReady.signal();
+                }
+                batchWritten.awaitUninterruptibly();
+            }
+            if (target > 0 && channel.isOpen()) {
+                channel.force(false);
+                syncs++;
+                lastSync = System.nanoTime();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Replays the records of the log, which must have been opened with append, and
+     * cuts off a batch torn by a crash, so that new records follow the last whole one.
+     * @param listener Receives the records
+     * @return Number of records replayed
+     */
+    public long replay(Listener listener) throws IOException {
+        lock.lock();
+        try {
+            if (records > 0) {
+                throw new IllegalStateException("Records were appended before replay");
+            }
+            long end = replay(channel, listener);
+            if (end < channel.size()) {
+                channel.truncate(end);
+            }
+            channel.position(end);
+            return replayed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Replays whole batches from the start of the file and returns where the last one ends
+    private long replay(FileChannel file, Listener listener) throws IOException {
+        long size = file.size();
+        long position = 0;
+        byte[] url = new byte[MAX_URL_BYTES];
+        CRC32C crc = new CRC32C();
+        while (position + BATCH_HEADER_BYTES <= size) {
+            // Maps as many whole batches as fit in a window; a batch is never larger than one
+            MappedByteBuffer window = file.map(FileChannel.MapMode.READ_ONLY, position,
+                    Math.min(size - position, MAP_WINDOW_BYTES));
+            int offset = 0;
+            while (offset + BATCH_HEADER_BYTES <= window.limit()) {
+                int length = window.getInt(offset);
+                int checksum = window.getInt(offset + Integer.BYTES);
+                int payload = offset + BATCH_HEADER_BYTES;
+                if (length < 0 || payload + (long) length > window.limit()) {
+                    break;
+                }
+                crc.reset();
+                crc.update(window.duplicate().position(payload).limit(payload + length));
+                if ((int) crc.getValue() != checksum) {
+                    return position + offset;
+                }
+                ByteBuffer records = window.duplicate().position(payload).limit(payload + length);
+                while (records.hasRemaining()) {
+                    byte type = records.get();
+                    int depth = type == QUEUED ? records.getInt() : 0;
+                    int urlLength = records.getShort();
+                    records.get(url, 0, urlLength);
+                    String text = new String(url, 0, urlLength, StandardCharsets.UTF_8);
+                    if (type == QUEUED) {
+                        listener.queued(text, depth);
+                    } else if (type == SCANNED) {
+                        listener.scanned(text);
+                    } else {
+                        listener.image(text);
+                    }
+                    replayed++;
+                }
+                offset = payload + length;
+            }
+            if (offset == 0) {
+                break; // a torn batch at the end of the file
+            }
+            position += offset;
+        }
+        return position;
+    }
+
+    /** Number of records appended since the log was opened. */
+    public long getRecords() {
+        lock.lock();
+        try {
+            return records;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Number of batches written since the log was opened. */
+    public long getBatches() {
+        lock.lock();
+        try {
+            return batches;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Number of times the file was forced to disk. */
+    public long getSyncs() {
+        lock.lock();
+        try {
+            return syncs;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Number of bytes written since the log was opened. */
+    public long getBytesWritten() {
+        lock.lock();
+        try {
+            return bytesWritten;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Time the writer thread spent writing and forcing batches, in milliseconds. */
+    public double getWriteMillis() {
+        lock.lock();
+        try {
+            return writeNanos / 1e6;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Writes the remaining records, forces them to disk and closes the file. */
+    @Override
+    public void close() throws IOException {
+        flush();
+        lock.lock();
+        try {
+            closed = true;
+            batchReady.signalAll();
+            batchWritten.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+    }
+}
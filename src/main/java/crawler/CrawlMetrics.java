@@ -0,0 +1,205 @@
+package crawler;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Counters and latency histograms of one crawl, kept by its CrawlScheduler and
+ * filled in by the PageScanners. Gauges such as the frontier size are read from the
+ * scheduler when asked for. Recording is lock-free, so it costs the crawl a few
+ * atomic increments per page.
+ *
+ * Fetch latency runs from sending the request to reading the last byte of the body;
+ * parse latency is the time spent extracting links from the body as it arrives, and
+ * fingerprinting it with a ContentIndex.
+ * The mean fetch time is also kept per host, up to MAX_HOSTS hosts, to find slow ones.
+ */
+public class CrawlMetrics implements CrawlMetricsMXBean {
+
+    // Hosts whose fetch times are kept; later hosts are not tracked
+    private static final int MAX_HOSTS = 10000;
+
+    private final CrawlScheduler scheduler;
+    private final LongAdder linksChecked = new LongAdder();
+    private final LongAdder pagesFetched = new LongAdder();
+    private final LongAdder bytesDownloaded = new LongAdder();
+    private final LongAdder pagesNotModified = new LongAdder();
+    private final LatencyHistogram fetchLatency = new LatencyHistogram();
+    private final LatencyHistogram parseLatency = new LatencyHistogram();
+    private final ErrorCounter errors = new ErrorCounter();
+    private final ConcurrentHashMap<String, HostStats> hosts = new ConcurrentHashMap<>();
+
+    // Fetches from one host and their total time
+    private static class HostStats {
+        final LongAdder fetches = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+    }
+
+    CrawlMetrics(CrawlScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    // Called for every link whose page is checked against the seen pages
+    void linkChecked() {
+        linksChecked.increment();
+    }
+
+    /**
+     * Records a response.
+     * @param result The response
+     * @param parseNanos Time spent extracting links from its body
+     */
+    void pageFetched(FetchResult result, long parseNanos) {
+        pagesFetched.increment();
+        bytesDownloaded.add(result.getBodyBytes());
+        fetchLatency.record(result.getElapsedNanos());
+        if (result.getBodyBytes() > 0) {
+            parseLatency.record(parseNanos);
+        }
+        if (result.getStatusCode() >= 400) {
+            errors.record("HTTP " + result.getStatusCode());
+        }
+        String origin = PoliteFrontier.originOf(result.getUrl());
+        HostStats host = hosts.get(origin);
+        if (host == null && hosts.size() < MAX_HOSTS) {
+            host = hosts.computeIfAbsent(origin, o -> new HostStats());
+        }
+        if (host != null) {
+            host.fetches.increment();
+            host.nanos.add(result.getElapsedNanos());
+        }
+    }
+
+    // Called for every page the server answered 304 Not Modified, whose links were known
+    void pageNotModified() {
+        pagesNotModified.increment();
+    }
+
+    /** Records a page that could not be fetched or scanned. */
+    void pageFailed(Throwable error) {
+        errors.record(error);
+    }
+
+    @Override
+    public long getPagesScanned() {
+        return scheduler.getPagesScanned();
+    }
+
+    /** Number of responses received, whatever their status. */
+    @Override
+    public long getPagesFetched() {
+        return pagesFetched.sum();
+    }
+
+    @Override
+    public double getPagesPerSecond() {
+        return scheduler.getPagesPerSecond();
+    }
+
+    /** Number of body bytes downloaded. */
+    @Override
+    public long getBytesDownloaded() {
+        return bytesDownloaded.sum();
+    }
+
+    /** Number of pages unchanged since the last crawl, whose links were taken from a RecrawlStore. */
+    @Override
+    public long getPagesNotModified() {
+        return pagesNotModified.sum();
+    }
+
+    @Override
+    public int getFrontierSize() {
+        return scheduler.getFrontierSize();
+    }
+
+    @Override
+    public int getInFlight() {
+        return scheduler.getInFlight();
+    }
+
+    /** Number of links checked against the pages seen before. */
+    @Override
+    public long getLinksChecked() {
+        return linksChecked.sum();
+    }
+
+    @Override
+    public long getDuplicateLinks() {
+        return scheduler.getDuplicateLinks();
+    }
+
+    @Override
+    public long getDroppedLinks() {
+        return scheduler.getDroppedLinks();
+    }
+
+    /** Fraction of the links checked that led to a page seen before. */
+    @Override
+    public double getDedupHitRate() {
+        long checked = linksChecked.sum();
+        return checked == 0 ? 0 : (double) scheduler.getDuplicateLinks() / checked;
+    }
+
+    /** Number of pages not searched for links as they were identical to one scanned before. */
+    @Override
+    public long getExactCopies() {
+        ContentIndex index = scheduler.getContentIndex();
+        return index == null ? 0 : index.getExactCopies();
+    }
+
+    /** Number of pages not searched for links as their text nearly matched a page scanned before. */
+    @Override
+    public long getNearCopies() {
+        ContentIndex index = scheduler.getContentIndex();
+        return index == null ? 0 : index.getNearCopies();
+    }
+
+    @Override
+    public LatencyStats getFetchLatency() {
+        return fetchLatency.getStats();
+    }
+
+    @Override
+    public LatencyStats getParseLatency() {
+        return parseLatency.getStats();
+    }
+
+    /** Number of pages that failed, or were answered with an error status. */
+    @Override
+    public long getErrorCount() {
+        return errors.getTotal();
+    }
+
+    @Override
+    public Map<String, Long> getErrorsByType() {
+        return errors.getCounts();
+    }
+
+    /** The five hosts with the longest mean fetch time, slowest first, with that time in milliseconds. */
+    @Override
+    public Map<String, Double> getSlowestHosts() {
+        return getSlowestHosts(5);
+    }
+
+    /** The hosts with the longest mean fetch time, slowest first, with that time in milliseconds. */
+    public Map<String, Double> getSlowestHosts(int limit) {
+        List<Map.Entry<String, Double>> means = new ArrayList<>();
+        hosts.forEach((origin, host) -> {
+            long fetches = host.fetches.sum();
+            if (fetches > 0) {
+                means.add(Map.entry(origin, host.nanos.sum() / 1e6 / fetches));
+            }
+        });
+        means.sort(Map.Entry.<String, Double>comparingByValue().reversed());
+        Map<String, Double> slowest = new LinkedHashMap<>();
+        for (Map.Entry<String, Double> mean : means.subList(0, Math.min(limit, means.size()))) {
+            slowest.put(mean.getKey(), mean.getValue());
+        }
+        return slowest;
+    }
+}
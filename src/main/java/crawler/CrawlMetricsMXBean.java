@@ -0,0 +1,42 @@
+package crawler;
+
+import java.util.Map;
+
+/** Management interface of CrawlMetrics, as shown by JMX consoles under crawler:type=CrawlMetrics. */
+public interface CrawlMetricsMXBean {
+    long getPagesScanned();
+
+    long getPagesFetched();
+
+    double getPagesPerSecond();
+
+    long getBytesDownloaded();
+
+    long getPagesNotModified();
+
+    int getFrontierSize();
+
+    int getInFlight();
+
+    long getLinksChecked();
+
+    long getDuplicateLinks();
+
+    long getDroppedLinks();
+
+    double getDedupHitRate();
+
+    long getExactCopies();
+
+    long getNearCopies();
+
+    LatencyStats getFetchLatency();
+
+    LatencyStats getParseLatency();
+
+    long getErrorCount();
+
+    Map<String, Long> getErrorsByType();
+
+    Map<String, Double> getSlowestHosts();
+}
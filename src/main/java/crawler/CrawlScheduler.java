@@ -0,0 +1,487 @@
+package crawler;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Runs a crawl with a fixed number of worker threads that take pages from a bounded
+ * frontier queue, instead of starting a new thread for every link found. A worker
+ * only starts a page's fetch on a Fetcher and moves on to the next page; the page is
+ * scanned as its body arrives, on the fetcher's threads. At most maxInFlight pages
+ * are fetched at once.
+ *
+ * Backpressure: when the frontier is full, submit() blocks for up to the configured
+ * timeout, which slows link extraction down to the pace of the workers. Links that
+ * still do not fit are counted as dropped and held back, and the workers queue them
+ * once the frontier has room. Each URL is queued at most once, as remembered by a
+ * pluggable SeenUrlStore; a link is marked seen only once it is admitted under the
+ * page limit, so a link refused by it is not remembered. The crawl ends
+ * when no page is queued or being scanned, or when the page limit has been used up;
+ * completion() is then completed.
+ *
+ * With a CrawlLog, every page queued, page scanned and image seen is checkpointed,
+ * and resume() rebuilds the seen pages and the frontier of an earlier crawl from its
+ * log. Links dropped because the frontier stayed full are queued again on resume;
+ * links beyond the page limit are not checkpointed.
+ *
+ * With a ContentIndex, pages whose content is a copy of a page already scanned are
+ * not searched for links and images, so a site's mirrors and session-ID URLs do not
+ * fan out again.
+ *
+ * With a RecrawlStore from an earlier crawl, pages are fetched with conditional GETs,
+ * and those the server reports unchanged are not downloaded or parsed: their links
+ * and images are taken from the store.
+ */
+public class CrawlScheduler {
+
+    // How long an idle worker waits for work before checking for shutdown again
+    private static final long POLL_MILLIS = 100;
+
+    private final int workers;
+    private final int maxDepth;
+    private final int maxPages;
+    private final long submitTimeoutMillis;
+    private final Frontier frontier;
+    private final SeenUrlStore seenPages;
+    private final CompletableFuture<Void> completion = new CompletableFuture<>();
+    private final CrawlMetrics metrics = new CrawlMetrics(this);
+
+    // Pages accepted so far, counted against maxPages
+    private final AtomicInteger admitted = new AtomicInteger();
+    // Pages queued or being scanned; the crawl is complete when this drops to zero
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private final AtomicLong pagesScanned = new AtomicLong();
+    private final AtomicLong droppedLinks = new AtomicLong();
+    private final AtomicLong duplicateLinks = new AtomicLong();
+    // Pages admitted that did not fit in the frontier, queued again once it has room
+    private final ConcurrentLinkedDeque<CrawlTask> dropped = new ConcurrentLinkedDeque<>();
+
+    private Fetcher fetcher;
+    private boolean ownsFetcher;
+    private int maxInFlight;
+    private Semaphore inFlightPermits;
+    private ExecutorService pool;
+    private volatile boolean running;
+    private long startNanos;
+    private CrawlLog checkpoint;
+    private ContentIndex contentIndex;
+    private RecrawlStore recrawlStore;
+    // Pages of an earlier crawl still to be scanned, queued once the workers run
+    private List<CrawlTask> resumed = new ArrayList<>();
+
+    /**
+     * Creates a scheduler that remembers seen pages in a ConcurrentSeenUrlStore; call
+     * submit() with the seed page and then start().
+     * @param workers Number of worker threads starting fetches, and by default the
+     *        number of pages fetched at once
+     * @param frontierCapacity Maximum number of pages waiting in the frontier
+     * @param maxDepth Links further than this from the seed are not followed
+     * @param maxPages Total number of pages the crawl may scan
+     * @param submitTimeoutMillis How long submit() may block on a full frontier before dropping a link
+     */
+    public CrawlScheduler(int workers, int frontierCapacity, int maxDepth, int maxPages, long submitTimeoutMillis) {
+        this(workers, frontierCapacity, maxDepth, maxPages, submitTimeoutMillis, new ConcurrentSeenUrlStore());
+    }
+
+    /**
+     * Creates a scheduler that remembers seen pages in the given store.
+     * @param seenPages Store of the pages already queued
+     * @see #CrawlScheduler(int, int, int, int, long)
+     */
+    public CrawlScheduler(int workers, int frontierCapacity, int maxDepth, int maxPages, long submitTimeoutMillis,
+            SeenUrlStore seenPages) {
+        this(workers, new FifoFrontier(frontierCapacity), maxDepth, maxPages, submitTimeoutMillis, seenPages);
+    }
+
+    /**
+     * Creates a scheduler that takes pages from the given frontier, which decides the
+     * order they are fetched in, and remembers seen pages in the given store.
+     * @param frontier The pages waiting to be fetched
+     * @see #CrawlScheduler(int, int, int, int, long, SeenUrlStore)
+     */
+    public CrawlScheduler(int workers, Frontier frontier, int maxDepth, int maxPages, long submitTimeoutMillis,
+            SeenUrlStore seenPages) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("Need at least one worker");
+        }
+        this.workers = workers;
+        this.maxInFlight = workers;
+        this.maxDepth = maxDepth;
+        this.maxPages = maxPages;
+        this.submitTimeoutMillis = submitTimeoutMillis;
+        this.frontier = frontier;
+        this.seenPages = seenPages;
+    }
+
+    /**
+     * Queues a page for scanning, blocking while the frontier is full.
+     * @param url The page to scan
+     * @param depth Number of links between the seed and this page
+     * @return true if the page will be scanned: it was queued, or the frontier stayed
+     *         full until the timeout and the page is held back until it has room; false
+     *         if it is null, too deep, was seen before, the page limit is reached or the
+     *         crawl is over
+     */
+    public boolean submit(String url, int depth) {
+        if (url == null || depth > maxDepth || completion.isDone()) {
+            return false;
+        }
+        metrics.linkChecked();
+        frontier.linked(url);
+        // A place under the page limit first, so that a page refused is not marked seen
+        if (admitted.getAndIncrement() >= maxPages) {
+            admitted.decrementAndGet();
+            return false;
+        }
+        if (!seenPages.add(url)) {
+            admitted.decrementAndGet();
+            duplicateLinks.incrementAndGet();
+            return false;
+        }
+        outstanding.incrementAndGet();
+        if (checkpoint != null) {
+            // Before the page is queued, so that it is always logged before it is scanned
+            checkpoint.queued(url, depth);
+        }
+        CrawlTask task = new CrawlTask(url, depth);
+        boolean queued;
+        try {
+            queued = frontier.offer(task, submitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            queued = false;
+        }
+        if (!queued) {
+            // Still admitted and outstanding, so the crawl does not end without it
+            droppedLinks.incrementAndGet();
+            dropped.add(task);
+        }
+        return true;
+    }
+
+    /**
+     * Checkpoints the crawl to the given log from now on. Must be called before start().
+     * @param log The log; left open by shutdown()
+     */
+    public synchronized void setCheckpoint(CrawlLog log) {
+        if (pool != null) {
+            throw new IllegalStateException("Scheduler already started");
+        }
+        this.checkpoint = log;
+    }
+
+    /**
+     * Skips the links and images of pages whose content was scanned before under
+     * another URL. Must be called before start().
+     * @param index Fingerprints of the pages scanned, possibly shared with other crawls
+     */
+    public synchronized void setContentIndex(ContentIndex index) {
+        if (pool != null) {
+            throw new IllegalStateException("Scheduler already started");
+        }
+        this.contentIndex = index;
+    }
+
+    /** Fingerprints of the pages scanned, or null if pages are not compared by content. */
+    public synchronized ContentIndex getContentIndex() {
+        return contentIndex;
+    }
+
+    /**
+     * Fetches pages known from an earlier crawl only if they changed, and keeps the
+     * validators and links of the pages fetched whole in the store. Must be called
+     * before start().
+     * @param store The store; saved by the caller after the crawl
+     */
+    public synchronized void setRecrawlStore(RecrawlStore store) {
+        if (pool != null) {
+            throw new IllegalStateException("Scheduler already started");
+        }
+        this.recrawlStore = store;
+    }
+
+    /** Validators and links of the pages fetched, or null if every page is fetched whole. */
+    public synchronized RecrawlStore getRecrawlStore() {
+        return recrawlStore;
+    }
+
+    /**
+     * Continues the crawl recorded in a log: the pages it queued count as seen and
+     * against the page limit, the images it saw are not shown again, and the pages it
+     * queued but did not scan are queued again once the crawl starts. The crawl is
+     * then checkpointed to the same log. Must be called before start(), instead of
+     * submitting the seed.
+     * @param log A log opened with append, to which nothing was appended yet
+     * @return Number of pages queued again
+     */
+    public synchronized int resume(CrawlLog log) throws IOException {
+        if (pool != null) {
+            throw new IllegalStateException("Scheduler already started");
+        }
+        Map<String, Integer> pending = new LinkedHashMap<>();
+        log.replay(new CrawlLog.Listener() {
+            @Override
+            public void queued(String url, int depth) {
+                if (seenPages.add(url)) {
+                    admitted.incrementAndGet();
+                }
+                pending.put(url, depth);
+            }
+
+            @Override
+            public void scanned(String url) {
+                pending.remove(url);
+            }
+
+            @Override
+            public void image(String url) {
+                PageScanner.markImageSeen(url);
+            }
+        });
+        pending.forEach((url, depth) -> resumed.add(new CrawlTask(url, depth)));
+        outstanding.addAndGet(pending.size());
+        this.checkpoint = log;
+        return pending.size();
+    }
+
+    // Records an image the first time any page shows it
+    void imageSeen(String url) {
+        if (checkpoint != null) {
+            checkpoint.image(url);
+        }
+    }
+
+    /**
+     * Fetches pages with the given fetcher instead of an HttpFetcher created and closed
+     * by this scheduler. Must be called before start().
+     * @param fetcher The fetcher, live or offline; left open by shutdown()
+     * @param maxInFlight Maximum number of pages being fetched at once
+     */
+    public synchronized void setFetcher(Fetcher fetcher, int maxInFlight) {
+        if (pool != null) {
+            throw new IllegalStateException("Scheduler already started");
+        }
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("Need at least one page in flight");
+        }
+        this.fetcher = fetcher;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /** Starts the worker threads. */
+    public synchronized void start() {
+        if (pool != null) {
+            throw new IllegalStateException("Scheduler already started");
+        }
+        if (fetcher == null) {
+            fetcher = new HttpFetcher();
+            ownsFetcher = true;
+        }
+        inFlightPermits = new Semaphore(maxInFlight);
+        running = true;
+        startNanos = System.nanoTime();
+        pool = Executors.newFixedThreadPool(workers, new WorkerThreadFactory());
+        for (int i = 0; i < workers; i++) {
+            pool.execute(this::workLoop);
+        }
+        if (!resumed.isEmpty()) {
+            // The frontier may not hold them all at once, so they are fed in as it empties
+            List<CrawlTask> tasks = resumed;
+            resumed = new ArrayList<>();
+            Thread feeder = new Thread(() -> requeue(tasks), "crawler-resume");
+            feeder.setDaemon(true);
+            feeder.start();
+        }
+        if (outstanding.get() == 0) {
+            completion.complete(null); // nothing was submitted
+        }
+    }
+
+    private void requeue(List<CrawlTask> tasks) {
+        for (CrawlTask task : tasks) {
+            try {
+                while (!frontier.offer(task, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                    if (!running) {
+                        return;
+                    }
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    // Moves the pages that did not fit into the frontier while it has room
+    private void requeueDropped() throws InterruptedException {
+        CrawlTask task;
+        while ((task = dropped.pollFirst()) != null) {
+            if (!frontier.offer(task, 0, TimeUnit.MILLISECONDS)) {
+                dropped.addFirst(task);
+                return;
+            }
+        }
+    }
+
+    private void workLoop() {
+        while (running) {
+            try {
+                if (!dropped.isEmpty()) {
+                    requeueDropped();
+                }
+                // The permit comes first, so that a page is fetched as soon as it leaves the
+                // frontier: a PoliteFrontier starts the host's delay when the page is polled
+                inFlightPermits.acquire();
+            } catch (InterruptedException e) {
+                return;
+            }
+            CrawlTask task;
+            try {
+                task = frontier.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                inFlightPermits.release();
+                return;
+            }
+            if (task == null) {
+                inFlightPermits.release();
+                continue;
+            }
+            if (!running) {
+                // Stopped while polling: the page is not fetched
+                inFlightPermits.release();
+                return;
+            }
+            int fetching = inFlight.incrementAndGet();
+            peakInFlight.accumulateAndGet(fetching, Math::max);
+            CompletableFuture<Void> scan;
+            try {
+                scan = new PageScanner(task.getUrl(), task.getDepth(), this).scan(fetcher);
+            } catch (RuntimeException e) {
+                scan = CompletableFuture.failedFuture(e);
+            }
+            scan.whenComplete((result, e) -> {
+                if (e != null) {
+                    System.out.println("Error occurred: " + e);
+                    metrics.pageFailed(e);
+                } else if (checkpoint != null && !completion.isDone()) {
+                    // A page finishing after the crawl was stopped had its links refused, so it is left unscanned
+                    checkpoint.scanned(task.getUrl());
+                }
+                frontier.done(task);
+                inFlight.decrementAndGet();
+                inFlightPermits.release();
+                pagesScanned.incrementAndGet();
+                finishOne();
+            });
+        }
+    }
+
+    private void finishOne() {
+        if (outstanding.decrementAndGet() == 0 && pool != null) {
+            completion.complete(null);
+        }
+    }
+
+    /**
+     * Returns a future that completes when every queued page has been scanned.
+     * @return Completion signal for the crawl
+     */
+    public CompletableFuture<Void> completion() {
+        return completion;
+    }
+
+    /** Counters and latencies of this crawl. */
+    public CrawlMetrics getMetrics() {
+        return metrics;
+    }
+
+    /** The fetcher that pages are fetched with; null before start() unless one was set. */
+    synchronized Fetcher getFetcher() {
+        return fetcher;
+    }
+
+    /**
+     * Stops the workers and discards the rest of the frontier. Waits up to the given
+     * time for the workers to exit, then closes the fetcher if this scheduler created
+     * it, abandoning any fetches still in flight.
+     * @return true if all workers exited in time
+     */
+    public boolean shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        running = false;
+        completion.complete(null);
+        synchronized (this) {
+            if (pool == null) {
+                return true;
+            }
+            pool.shutdown();
+        }
+        boolean stopped = pool.awaitTermination(timeout, unit);
+        frontier.clear();
+        dropped.clear();
+        if (ownsFetcher) {
+            fetcher.close();
+        }
+        return stopped;
+    }
+
+    /** Number of pages scanned so far, successfully or not. */
+    public long getPagesScanned() {
+        return pagesScanned.get();
+    }
+
+    /** Number of links that did not fit in the frontier before the timeout, and were queued later. */
+    public long getDroppedLinks() {
+        return droppedLinks.get();
+    }
+
+    /** Number of links that were not queued because their page had been seen before. */
+    public long getDuplicateLinks() {
+        return duplicateLinks.get();
+    }
+
+    /** Number of pages currently waiting in the frontier. */
+    public int getFrontierSize() {
+        return frontier.size();
+    }
+
+    /** Number of pages being fetched and scanned right now. */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /** Highest number of pages that were being fetched at the same time. */
+    public int getPeakInFlight() {
+        return peakInFlight.get();
+    }
+
+    /** Average number of pages scanned per second since start(). */
+    public double getPagesPerSecond() {
+        long elapsed = System.nanoTime() - startNanos;
+        return elapsed <= 0 ? 0 : pagesScanned.get() * 1e9 / elapsed;
+    }
+
+    // Names the crawler threads so they are easy to find in a thread dump
+    private static class WorkerThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "crawler-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
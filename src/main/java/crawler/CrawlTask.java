@@ -0,0 +1,28 @@
+package crawler;
+
+/*
+ * A page waiting to be crawled: its URL and how many links away from the seed it was found.
+ */
+public final class CrawlTask {
+
+    private final String url;
+    private final int depth;
+
+    public CrawlTask(String url, int depth) {
+        this.url = url;
+        this.depth = depth;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    @Override
+    public String toString() {
+        return url + " (depth " + depth + ")";
+    }
+}
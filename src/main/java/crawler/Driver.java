@@ -0,0 +1,250 @@
+package crawler;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import javax.management.JMException;
+
+// Define a class named Driver
+public class Driver {
+    // How to run it; every option has a default
+    private static final String USAGE = String.join("\n",
+            "Usage: Driver [--resume] [--recrawl] [--seed URL] [--backend live | replay:DIR | synthetic[:PAGES[,FANOUT[,LATENCY_MS]]]]",
+            "              [--workers N] [--in-flight N] [--fetcher-threads N] [--max-pages N] [--max-depth N]",
+            "  live       fetch from the web (default), archiving to ./archive; --resume continues the last crawl,",
+            "             --recrawl fetches only the pages changed since the last --recrawl run",
+            "  replay     serve the pages recorded in a crawl archive or a mirror directory; the seed",
+            "             defaults to that of the crawl archived",
+            "  synthetic  make up a site of PAGES pages (10000), each linking to FANOUT new ones (8),",
+            "             every response LATENCY_MS late (20); the seed defaults to its first page");
+
+    // Crawl limits: worker threads, queued pages, link depth and total pages
+    private static final int WORKERS = 2;
+    private static final int FRONTIER_CAPACITY = 1000;
+    private static final int MAX_DEPTH = 3;
+    private static final int MAX_PAGES = 500;
+    private static final long SUBMIT_TIMEOUT_MILLIS = 2000;
+
+    // Fetching: pages downloaded at once, threads handling responses, and timeouts
+    private static final int MAX_IN_FLIGHT = 64;
+    private static final int FETCHER_THREADS = 2;
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(5);
+    private static final Duration READ_TIMEOUT = Duration.ofSeconds(15);
+
+    // Politeness: pages fetched at once from one host, and the least time between them on the web
+    private static final int MAX_PER_HOST = 2;
+    private static final long MIN_HOST_DELAY_MILLIS = 500;
+
+    // The synthetic site by default: pages, links per page, hosts, page size and latency
+    private static final int SYNTHETIC_PAGES = 10000;
+    private static final int SYNTHETIC_FANOUT = 8;
+    private static final int SYNTHETIC_HOSTS = 16;
+    private static final int SYNTHETIC_PAGE_BYTES = 8192;
+    private static final long SYNTHETIC_LATENCY_MILLIS = 20;
+
+    // Checkpoint of the crawl, from which "--resume" continues it
+    private static final Path CHECKPOINT = Path.of("crawl.log");
+
+    // Archive of every page and image downloaded, for analysing them again without refetching
+    private static final Path ARCHIVE = Path.of("archive");
+
+    // Validators and links of the pages crawled, from which "--recrawl" fetches only those that changed
+    private static final Path RECRAWL_STORE = Path.of("recrawl.store");
+
+    // How often a summary of the crawl metrics is logged
+    private static final long REPORT_SECONDS = 10;
+
+    // The command-line options
+    private static class Options {
+        boolean resume;
+        boolean recrawl;
+        String seed;
+        String backend = "live";
+        int workers = WORKERS;
+        int inFlight = MAX_IN_FLIGHT;
+        int fetcherThreads = FETCHER_THREADS;
+        int maxPages = MAX_PAGES;
+        int maxDepth = MAX_DEPTH;
+
+        static Options parse(String[] args) {
+            Options options = new Options();
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                if (arg.equals("--resume")) {
+                    options.resume = true;
+                    continue;
+                }
+                if (arg.equals("--recrawl")) {
+                    options.recrawl = true;
+                    continue;
+                }
+                if (i + 1 == args.length) {
+                    throw new IllegalArgumentException("Unknown option or missing value: " + arg);
+                }
+                String value = args[++i];
+                switch (arg) {
+                case "--seed" -> options.seed = value;
+                case "--backend" -> options.backend = value;
+                case "--workers" -> options.workers = positive(arg, value);
+                case "--in-flight" -> options.inFlight = positive(arg, value);
+                case "--fetcher-threads" -> options.fetcherThreads = positive(arg, value);
+                case "--max-pages" -> options.maxPages = positive(arg, value);
+                case "--max-depth" -> options.maxDepth = positive(arg, value);
+                default -> throw new IllegalArgumentException("Unknown option: " + arg);
+                }
+            }
+            return options;
+        }
+
+        private static int positive(String option, String value) {
+            try {
+                int number = Integer.parseInt(value);
+                if (number > 0) {
+                    return number;
+                }
+            } catch (NumberFormatException e) {
+                // reported below
+            }
+            throw new IllegalArgumentException(option + " needs a positive number, not " + value);
+        }
+    }
+
+    // The main method, the entry point of the program
+    public static void main(String[] args) throws InterruptedException, JMException, IOException {
+        Options options;
+        Fetcher fetcher;
+        try {
+            options = Options.parse(args);
+            fetcher = fetcher(options);
+        } catch (IllegalArgumentException | IOException e) {
+            System.out.println(e.getMessage());
+            System.out.println(USAGE);
+            System.exit(2);
+            return;
+        }
+        // Only a crawl of the web is checkpointed and archived; the offline ones can simply be run again
+        boolean live = fetcher instanceof HttpFetcher;
+        boolean resume = live && options.resume && Files.exists(CHECKPOINT);
+        try (fetcher;
+                CrawlLog checkpoint = live ? new CrawlLog(CHECKPOINT, resume) : null;
+                CrawlArchive archive = live ? new CrawlArchive(ARCHIVE) : null) {
+            if (archive != null) {
+                // Record the pages and images as they are downloaded
+                ((HttpFetcher) fetcher).setArchive(archive);
+                PictureViewer.getDecoder().setArchive(archive);
+            }
+            // Images come from the same place as the pages
+            PictureViewer.getDecoder().setFetcher(fetcher);
+
+            // Create a scheduler whose worker threads take turns between hosts, honouring robots.txt;
+            // offline hosts need no delay between fetches. The frontier can hold every page the crawl
+            // admits, so that scanning a page never waits for room while the hosts it waits on are busy
+            Frontier frontier = new PoliteFrontier(Math.max(FRONTIER_CAPACITY, options.maxPages), MAX_PER_HOST,
+                    live ? MIN_HOST_DELAY_MILLIS : 0, fetcher);
+            CrawlScheduler scheduler = new CrawlScheduler(options.workers, frontier, options.maxDepth,
+                    options.maxPages, SUBMIT_TIMEOUT_MILLIS, new ConcurrentSeenUrlStore());
+            scheduler.setFetcher(fetcher, options.inFlight);
+            // Skip the links of pages whose content was already scanned under another URL
+            scheduler.setContentIndex(new ContentIndex(options.maxPages));
+            // Fetch the pages of the last crawl only if they changed, reusing the links found on them then
+            RecrawlStore recrawl = live && options.recrawl ? new RecrawlStore(RECRAWL_STORE) : null;
+            if (recrawl != null) {
+                System.out.println("Recrawling with the validators of " + recrawl.size() + " pages");
+                scheduler.setRecrawlStore(recrawl);
+            }
+
+            // Publish the crawl and image metrics over JMX, and log a summary of them periodically
+            MetricsReporter reporter = new MetricsReporter(scheduler.getMetrics(), PictureViewer.getDecoder());
+            reporter.registerMBeans("driver");
+            reporter.start(REPORT_SECONDS, TimeUnit.SECONDS);
+
+            if (resume) {
+                // Pick up the crawl where the checkpoint left it
+                System.out.println("Resuming with " + scheduler.resume(checkpoint) + " pages queued");
+            } else {
+                // Queue the seed page, in canonical form, and start crawling from it
+                String given = seed(options, fetcher);
+                if (given == null) {
+                    System.out.println("No seed page: give one with --seed");
+                    System.exit(2);
+                }
+                String seed = UrlNormalizer.normalize(given);
+                if (seed == null) {
+                    System.out.println(given + ": not a crawlable http(s) URL");
+                    System.out.println(USAGE);
+                    System.exit(2);
+                }
+                if (checkpoint != null) {
+                    scheduler.setCheckpoint(checkpoint);
+                }
+                if (archive != null) {
+                    // So that a replay of the archive starts from the same page
+                    archive.recordSeed(seed);
+                }
+                scheduler.submit(seed, 0);
+            }
+            scheduler.start();
+
+            // Wait until every queued page has been scanned, then stop the workers
+            scheduler.completion().join();
+            scheduler.shutdown(5, TimeUnit.SECONDS);
+            System.out.println(reporter.summary());
+            reporter.close();
+            if (recrawl != null) {
+                System.out.printf("%d pages not modified%n", scheduler.getMetrics().getPagesNotModified());
+                try {
+                    recrawl.save();
+                    System.out.printf("Saved the validators of %d pages to %s%n", recrawl.size(), RECRAWL_STORE);
+                } catch (IOException e) {
+                    System.out.println("Error saving " + RECRAWL_STORE + ": " + e);
+                }
+            }
+            if (archive != null) {
+                archive.flush();
+                System.out.printf("Archived %d records, %d KB compressed, to %s; %d dropped%n",
+                        archive.getRecords(), archive.getBytesWritten() / 1024, ARCHIVE, archive.getDropped());
+            }
+        }
+        if (!live) {
+            // An offline run, as in a build, ends with the crawl rather than when the viewer is closed
+            System.exit(0);
+        }
+    }
+
+    // Creates the fetcher for the backend option
+    private static Fetcher fetcher(Options options) throws IOException {
+        String backend = options.backend;
+        if (backend.equals("live")) {
+            return new HttpFetcher(CONNECT_TIMEOUT, READ_TIMEOUT, options.fetcherThreads);
+        }
+        if (backend.startsWith("replay:")) {
+            return ReplayFetcher.open(Path.of(backend.substring("replay:".length())), options.fetcherThreads);
+        }
+        if (backend.equals("synthetic") || backend.startsWith("synthetic:")) {
+            String[] values = backend.equals("synthetic") ? new String[0]
+                    : backend.substring("synthetic:".length()).split(",");
+            int pages = values.length > 0 ? Options.positive("synthetic pages", values[0]) : SYNTHETIC_PAGES;
+            int fanout = values.length > 1 ? Options.positive("synthetic fanout", values[1]) : SYNTHETIC_FANOUT;
+            long latency = values.length > 2 ? Long.parseLong(values[2]) : SYNTHETIC_LATENCY_MILLIS;
+            return new SyntheticFetcher(pages, fanout, SYNTHETIC_HOSTS, SYNTHETIC_PAGE_BYTES, latency,
+                    options.fetcherThreads);
+        }
+        throw new IllegalArgumentException("Unknown backend: " + backend);
+    }
+
+    // The seed page: as given, or else the first page of a synthetic site, the seed of an archive, or Google
+    private static String seed(Options options, Fetcher fetcher) {
+        if (options.seed != null) {
+            return options.seed;
+        }
+        if (fetcher instanceof SyntheticFetcher) {
+            return ((SyntheticFetcher) fetcher).url(0);
+        }
+        if (fetcher instanceof ReplayFetcher) {
+            return ((ReplayFetcher) fetcher).getFirstUrl();
+        }
+        return "https://www.google.com";
+    }
+}
@@ -0,0 +1,57 @@
+package crawler;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Counts errors by type: the simple class name of an exception, after unwrapping
+ * the CompletionException or ExecutionException around it, or a label such as
+ * "HTTP 404".
+ */
+public class ErrorCounter {
+
+    private final ConcurrentHashMap<String, LongAdder> counts = new ConcurrentHashMap<>();
+
+    /** Counts an exception under its type. */
+    public void record(Throwable error) {
+        record(typeOf(error));
+    }
+
+    /** Counts an error under the given label. */
+    public void record(String type) {
+        counts.computeIfAbsent(type, t -> new LongAdder()).increment();
+    }
+
+    static String typeOf(Throwable error) {
+        while ((error instanceof CompletionException || error instanceof ExecutionException)
+                && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error.getClass().getSimpleName();
+    }
+
+    /** Total number of errors counted. */
+    public long getTotal() {
+        long total = 0;
+        for (LongAdder count : counts.values()) {
+            total += count.sum();
+        }
+        return total;
+    }
+
+    /** Number of errors of each type, sorted by type. */
+    public Map<String, Long> getCounts() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        counts.forEach((type, count) -> snapshot.put(type, count.sum()));
+        return snapshot;
+    }
+
+    @Override
+    public String toString() {
+        return getCounts().toString();
+    }
+}
@@ -0,0 +1,55 @@
+package crawler;
+
+import java.net.http.HttpHeaders;
+
+/*
+ * Outcome of one fetch by a Fetcher: the status and headers of the response, the
+ * number of body bytes read, and how long it took.
+ */
+public final class FetchResult {
+    private final String url;
+    private final int statusCode;
+    private final HttpHeaders headers;
+    private final long bodyBytes;
+    private final long elapsedNanos;
+
+    FetchResult(String url, int statusCode, HttpHeaders headers, long bodyBytes, long elapsedNanos) {
+        this.url = url;
+        this.statusCode = statusCode;
+        this.headers = headers;
+        this.bodyBytes = bodyBytes;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public HttpHeaders getHeaders() {
+        return headers;
+    }
+
+    /** Target of a redirect, as sent by the server, or null if this is not a redirect. */
+    public String getLocation() {
+        return statusCode >= 300 && statusCode < 400 ? headers.firstValue("Location").orElse(null) : null;
+    }
+
+    /** Number of body bytes read; 0 if the body was not wanted and not downloaded. */
+    public long getBodyBytes() {
+        return bodyBytes;
+    }
+
+    /** Time from sending the request to reading the last byte of the body. */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return statusCode + " " + url + " (" + bodyBytes + " bytes)";
+    }
+}
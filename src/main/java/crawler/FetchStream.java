@@ -0,0 +1,76 @@
+package crawler;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * The body of a response read as a stream, for resources that are decoded whole such
+ * as images, with the status and headers of the response. abort() gives up on the
+ * rest of the body, closing the connection rather than reading the body to its end.
+ */
+public class FetchStream extends FilterInputStream {
+
+    private final int statusCode;
+    private final Map<String, List<String>> headers;
+    private final long contentLength;
+    private final Runnable abort;
+
+    /**
+     * @param in The body
+     * @param statusCode HTTP status code
+     * @param headers Response headers
+     * @param contentLength Length of the body, or -1 if it is not known
+     * @param abort Gives up on the rest of the body
+     */
+    public FetchStream(InputStream in, int statusCode, Map<String, List<String>> headers, long contentLength,
+            Runnable abort) {
+        super(in);
+        this.statusCode = statusCode;
+        this.headers = headers;
+        this.contentLength = contentLength;
+        this.abort = abort;
+    }
+
+    /**
+     * Opens a URL with java.net.URLConnection, blocking until the headers have arrived.
+     * @throws IOException if it cannot be fetched, or the response is an error
+     */
+    static FetchStream open(String url, int connectTimeoutMillis, int readTimeoutMillis) throws IOException {
+        URLConnection connection = new URL(url).openConnection();
+        connection.setConnectTimeout(connectTimeoutMillis);
+        connection.setReadTimeout(readTimeoutMillis);
+        InputStream in = connection.getInputStream();
+        if (connection instanceof HttpURLConnection) {
+            HttpURLConnection http = (HttpURLConnection) connection;
+            return new FetchStream(in, http.getResponseCode(), http.getHeaderFields(), http.getContentLengthLong(),
+                    http::disconnect);
+        }
+        // Not HTTP, such as a file: URL; closing the stream is all there is to it
+        return new FetchStream(in, 200, connection.getHeaderFields(), connection.getContentLengthLong(), () -> {});
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /** Response headers; a null name, if any, holds the status line. */
+    public Map<String, List<String>> getHeaders() {
+        return headers;
+    }
+
+    /** Length of the body, or -1 if it is not known. */
+    public long getContentLength() {
+        return contentLength;
+    }
+
+    /** Closes the connection without reading the rest of the body. */
+    public void abort() {
+        abort.run();
+    }
+}
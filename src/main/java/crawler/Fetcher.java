@@ -0,0 +1,61 @@
+package crawler;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/*
+ * Where a crawl gets its pages, robots.txt files and images from. Implementations:
+ *   HttpFetcher      - fetches them from the web
+ *   ReplayFetcher    - serves those recorded earlier, in a CrawlArchive or a directory
+ *   SyntheticFetcher - makes up a site of any size, with a configurable fan-out and latency
+ * The offline ones let a crawl be tested and measured reproducibly, without a network.
+ */
+public interface Fetcher extends AutoCloseable {
+
+    /**
+     * Starts fetching a page.
+     * @param url Absolute http(s) URL
+     * @param body Receives the decoded body of a successful HTML response, in order,
+     *        one chunk at a time; never called concurrently for one fetch. The buffer
+     *        is reused, so its contents must be consumed before accept() returns
+     * @return Completes with the result once the body has been read, or exceptionally
+     *         if the page could not be fetched
+     */
+    CompletableFuture<FetchResult> fetch(String url, Consumer<CharBuffer> body);
+
+    /**
+     * Starts fetching a page unless it is unchanged since an earlier fetch: the server
+     * answers 304 Not Modified, without a body, if the page still has the given ETag
+     * or was not modified since the given time. Fetchers that cannot ask this fetch
+     * the page whole.
+     * @param etag The ETag the page was last sent with, or null
+     * @param lastModified The Last-Modified header it was last sent with, or null
+     * @see #fetch(String, Consumer)
+     */
+    default CompletableFuture<FetchResult> fetchIfModified(String url, String etag, String lastModified,
+            Consumer<CharBuffer> body) {
+        return fetch(url, body);
+    }
+
+    /**
+     * Fetches a small text resource, such as robots.txt, whole.
+     * @param url Absolute http(s) URL
+     * @return Completes with the body of a successful text or HTML response, with null
+     *         for any other response, or exceptionally if it could not be fetched
+     */
+    CompletableFuture<String> fetchText(String url);
+
+    /**
+     * Opens a resource that is read whole, such as an image, on the calling thread.
+     * @param url Absolute URL
+     * @return The body, from its first byte
+     * @throws IOException if it cannot be fetched, or the response is an error
+     */
+    FetchStream openStream(String url) throws IOException;
+
+    /** Stops the threads of this fetcher; fetches still in flight may not complete. */
+    @Override
+    void close();
+}
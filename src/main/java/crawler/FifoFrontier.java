@@ -0,0 +1,45 @@
+package crawler;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Frontier that hands out pages in the order they were found, over a bounded
+ * LinkedBlockingQueue. Every page is due at once.
+ */
+public class FifoFrontier implements Frontier {
+
+    private final BlockingQueue<CrawlTask> queue;
+
+    /**
+     * @param capacity Maximum number of pages waiting
+     */
+    public FifoFrontier(int capacity) {
+        queue = new LinkedBlockingQueue<>(capacity);
+    }
+
+    @Override
+    public boolean offer(CrawlTask task, long timeout, TimeUnit unit) throws InterruptedException {
+        return queue.offer(task, timeout, unit);
+    }
+
+    @Override
+    public CrawlTask poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return queue.poll(timeout, unit);
+    }
+
+    @Override
+    public void done(CrawlTask task) {
+    }
+
+    @Override
+    public int size() {
+        return queue.size();
+    }
+
+    @Override
+    public void clear() {
+        queue.clear();
+    }
+}
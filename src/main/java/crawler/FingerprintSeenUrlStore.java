@@ -0,0 +1,155 @@
+package crawler;
+
+/*
+ * Compact SeenUrlStore that keeps a 64-bit fingerprint of each URL instead of the URL
+ * itself, in open-addressing long[] tables with linear probing: about 8 to 16 bytes
+ * per URL, against roughly 100 for a URL string in a hash set.
+ *
+ * The fingerprints are split across independently locked segments by their top bits,
+ * so threads only contend when they add URLs to the same segment, and a segment grows
+ * without stopping the others. Two different URLs share a fingerprint with probability
+ * about n^2 / 2^65 over n URLs (around 3% after a billion URLs); the second one would
+ * then be treated as already seen.
+ */
+public class FingerprintSeenUrlStore implements SeenUrlStore {
+
+    private static final int SEGMENT_BITS = 6;
+    private static final int MIN_SEGMENT_CAPACITY = 64;
+
+    // Marks an empty slot; a fingerprint that happens to be 0 is stored as 1
+    private static final long EMPTY = 0;
+
+    private final Segment[] segments = new Segment[1 << SEGMENT_BITS];
+
+    public FingerprintSeenUrlStore() {
+        this(1024);
+    }
+
+    /**
+     * @param expectedUrls Number of URLs to size the tables for up front
+     */
+    public FingerprintSeenUrlStore(long expectedUrls) {
+        long perSegment = Math.max(MIN_SEGMENT_CAPACITY, expectedUrls / segments.length * 2);
+        int capacity = Integer.highestOneBit((int) Math.min(perSegment, 1 << 30) - 1) << 1;
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment(capacity);
+        }
+    }
+
+    @Override
+    public boolean add(String url) {
+        long fingerprint = fingerprint(url);
+        return segmentFor(fingerprint).add(fingerprint);
+    }
+
+    /**
+     * Adds a fingerprint computed elsewhere, such as a hash of a page's content.
+     * @param fingerprint A well-mixed 64-bit hash
+     * @return true if the fingerprint was not in the store
+     */
+    public boolean addFingerprint(long fingerprint) {
+        if (fingerprint == EMPTY) {
+            fingerprint = 1;
+        }
+        return segmentFor(fingerprint).add(fingerprint);
+    }
+
+    @Override
+    public boolean contains(String url) {
+        long fingerprint = fingerprint(url);
+        return segmentFor(fingerprint).contains(fingerprint);
+    }
+
+    @Override
+    public long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.count;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Returns the bytes held by the fingerprint tables.
+     * @return Total length of the tables times 8
+     */
+    public long tableBytes() {
+        long bytes = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                bytes += 8L * segment.table.length;
+            }
+        }
+        return bytes;
+    }
+
+    private Segment segmentFor(long fingerprint) {
+        return segments[(int) (fingerprint >>> (64 - SEGMENT_BITS))];
+    }
+
+    /*
+     * 64-bit FNV-1a over the characters of the URL, followed by the MurmurHash3
+     * finalizer so that every bit of the result depends on every character.
+     */
+    static long fingerprint(String url) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < url.length(); i++) {
+            hash ^= url.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash == EMPTY ? 1 : hash;
+    }
+
+    // One open-addressing table; kept at most three quarters full
+    private static class Segment {
+        private long[] table;
+        private int count;
+
+        Segment(int capacity) {
+            table = new long[capacity];
+        }
+
+        synchronized boolean add(long fingerprint) {
+            int slot = find(table, fingerprint);
+            if (table[slot] == fingerprint) {
+                return false;
+            }
+            table[slot] = fingerprint;
+            if (++count > table.length - (table.length >>> 2)) {
+                grow();
+            }
+            return true;
+        }
+
+        synchronized boolean contains(long fingerprint) {
+            return table[find(table, fingerprint)] == fingerprint;
+        }
+
+        private void grow() {
+            long[] bigger = new long[table.length * 2];
+            for (long fingerprint : table) {
+                if (fingerprint != EMPTY) {
+                    bigger[find(bigger, fingerprint)] = fingerprint;
+                }
+            }
+            table = bigger;
+        }
+
+        // Returns the slot holding the fingerprint, or the empty slot where it belongs
+        private static int find(long[] table, long fingerprint) {
+            int mask = table.length - 1;
+            int slot = (int) fingerprint & mask;
+            while (table[slot] != EMPTY && table[slot] != fingerprint) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package crawler;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * The pages waiting to be crawled. CrawlScheduler offers the links it admits and its
+ * workers poll for the next page to fetch; the frontier decides the order, and may
+ * hold pages back (for example to be polite to a busy host) until they are due.
+ * Implementations must be safe for many threads and bounded in the pages they hold.
+ *
+ *   FifoFrontier     - first in, first out
+ *   PoliteFrontier   - round-robin across hosts, with per-host concurrency and delays
+ *   PriorityFrontier - best score first, as given by a PageScorer, spilling to disk
+ */
+public interface Frontier {
+
+    /**
+     * Adds a page, waiting while the frontier is full.
+     * @param task The page
+     * @param timeout How long to wait for room
+     * @param unit Unit of the timeout
+     * @return true if the page was added, false if there was no room in time
+     */
+    boolean offer(CrawlTask task, long timeout, TimeUnit unit) throws InterruptedException;
+
+    /**
+     * Removes the next page that may be fetched now, waiting until one is due.
+     * @param timeout How long to wait
+     * @param unit Unit of the timeout
+     * @return The page, or null if none became due in time
+     */
+    CrawlTask poll(long timeout, TimeUnit unit) throws InterruptedException;
+
+    /**
+     * Reports a link to a page found while scanning another, whether or not the page
+     * was seen before, for frontiers that favour pages linked to often. Does nothing
+     * by default.
+     * @param url Canonical URL of the page linked to
+     */
+    default void linked(String url) {
+    }
+
+    /**
+     * Reports that a page returned by poll() has been fetched, successfully or not.
+     * @param task The page
+     */
+    void done(CrawlTask task);
+
+    /** Number of pages waiting, including those not yet due. */
+    int size();
+
+    /** Discards every waiting page. */
+    void clear();
+}
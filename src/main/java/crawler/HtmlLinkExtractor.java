@@ -0,0 +1,393 @@
+package crawler;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+
+/*
+ * Finds the links and images in an HTML page in a single pass over its characters,
+ * without splitting the page into lines or running regular expressions. The page can
+ * be fed in chunks of any size as it arrives; a tag, attribute or comment may be cut
+ * anywhere between two chunks, and attribute values may span lines.
+ *
+ * Reported are the href of <a> and <area> tags and the src of <img> tags. The first
+ * <base href> in the page changes the URL that later links are resolved against.
+ * Comments and the contents of <script> and <style> are skipped, and character
+ * references such as &amp; in attribute values are decoded.
+ */
+public class HtmlLinkExtractor {
+
+    /** Receives the links and images found, in page order. */
+    public interface Listener {
+        void link(String url);
+
+        void image(String url);
+    }
+
+    // Where in the markup the previous chunk ended
+    private enum State {
+        TEXT, TAG_OPEN, TAG_NAME, END_TAG, MARKUP_DECLARATION, COMMENT, BEFORE_ATTRIBUTE, ATTRIBUTE_NAME,
+        AFTER_ATTRIBUTE_NAME, BEFORE_VALUE, QUOTED_VALUE, UNQUOTED_VALUE, RAW_TEXT
+    }
+
+    // Tags whose attributes are worth buffering
+    private enum Tag {
+        A, AREA, IMG, BASE, SCRIPT, STYLE, OTHER
+    }
+
+    // Longest tag or attribute name that can matter; longer ones are not buffered
+    private static final int MAX_NAME = 8;
+
+    private final Listener listener;
+    private String base;
+    private boolean baseSeen;
+
+    private State state = State.TEXT;
+    private Tag tag;
+    private final StringBuilder name = new StringBuilder(MAX_NAME);
+    private final StringBuilder value = new StringBuilder(128);
+    private boolean keepValue;
+    private char quote;
+    // Progress through "-->" in a comment or "</script" / "</style" in raw text
+    private int matched;
+    private String rawTextEnd;
+
+    /**
+     * @param pageUrl URL of the page, which links are resolved against; if null, links
+     *        are reported exactly as written and <base href> is ignored
+     * @param listener Receives the links and images found
+     */
+    public HtmlLinkExtractor(String pageUrl, Listener listener) {
+        this.base = pageUrl;
+        this.listener = listener;
+    }
+
+    /**
+     * Scans the next chunk of the page, consuming all of it.
+     * @param chunk Characters following those of the previous call
+     */
+    public void feed(CharBuffer chunk) {
+        if (chunk.hasArray()) {
+            feed(chunk.array(), chunk.arrayOffset() + chunk.position(), chunk.remaining());
+            chunk.position(chunk.limit());
+        } else {
+            while (chunk.hasRemaining()) {
+                step(chunk.get());
+            }
+        }
+    }
+
+    /**
+     * Scans the next chunk of the page.
+     * @param chars Characters following those of the previous call
+     * @param offset Index of the first character to scan
+     * @param length Number of characters to scan
+     */
+    public void feed(char[] chars, int offset, int length) {
+        for (int i = offset, end = offset + length; i < end; i++) {
+            step(chars[i]);
+        }
+    }
+
+    /**
+     * Scans a whole page from a reader; the reader is not closed.
+     * @param reader The page
+     */
+    public void feed(Reader reader) throws IOException {
+        char[] buffer = new char[8192];
+        int count;
+        while ((count = reader.read(buffer)) != -1) {
+            feed(buffer, 0, count);
+        }
+    }
+
+    /**
+     * Ends the page. A tag left open at the end of the page is discarded, as an
+     * unterminated tag is by browsers.
+     */
+    public void finish() {
+        state = State.TEXT;
+        value.setLength(0);
+    }
+
+    private void step(char c) {
+        switch (state) {
+        case TEXT:
+            if (c == '<') {
+                state = State.TAG_OPEN;
+            }
+            break;
+        case TAG_OPEN:
+            if (isLetter(c)) {
+                name.setLength(0);
+                name.append(Character.toLowerCase(c));
+                state = State.TAG_NAME;
+            } else if (c == '/') {
+                state = State.END_TAG;
+            } else if (c == '!') {
+                matched = 0;
+                state = State.MARKUP_DECLARATION;
+            } else if (c != '<') {
+                state = State.TEXT;
+            }
+            break;
+        case TAG_NAME:
+            if (isSpace(c) || c == '/') {
+                tag = tagNamed(name);
+                state = State.BEFORE_ATTRIBUTE;
+            } else if (c == '>') {
+                tag = tagNamed(name);
+                endStartTag();
+            } else if (name.length() <= MAX_NAME) {
+                name.append(Character.toLowerCase(c));
+            }
+            break;
+        case END_TAG:
+            if (c == '>') {
+                state = State.TEXT;
+            }
+            break;
+        case MARKUP_DECLARATION:
+            // "<!--" opens a comment; anything else, like <!DOCTYPE html>, ends at '>'
+            if (c == '-' && matched >= 0 && ++matched == 2) {
+                matched = 0;
+                state = State.COMMENT;
+            } else if (c == '>') {
+                state = State.TEXT;
+            } else if (c != '-') {
+                matched = -1;
+            }
+            break;
+        case COMMENT:
+            if (c == '-') {
+                matched = Math.min(matched + 1, 2);
+            } else if (c == '>' && matched == 2) {
+                state = State.TEXT;
+            } else {
+                matched = 0;
+            }
+            break;
+        case BEFORE_ATTRIBUTE:
+            if (c == '>') {
+                endStartTag();
+            } else if (!isSpace(c) && c != '/') {
+                name.setLength(0);
+                name.append(Character.toLowerCase(c));
+                state = State.ATTRIBUTE_NAME;
+            }
+            break;
+        case ATTRIBUTE_NAME:
+            if (c == '=') {
+                startValue();
+            } else if (c == '>') {
+                endStartTag();
+            } else if (isSpace(c)) {
+                state = State.AFTER_ATTRIBUTE_NAME;
+            } else if (c == '/') {
+                state = State.BEFORE_ATTRIBUTE;
+            } else if (name.length() <= MAX_NAME) {
+                name.append(Character.toLowerCase(c));
+            }
+            break;
+        case AFTER_ATTRIBUTE_NAME:
+            if (c == '=') {
+                startValue();
+            } else if (c == '>') {
+                endStartTag();
+            } else if (!isSpace(c) && c != '/') {
+                name.setLength(0);
+                name.append(Character.toLowerCase(c));
+                state = State.ATTRIBUTE_NAME;
+            }
+            break;
+        case BEFORE_VALUE:
+            if (c == '"' || c == '\'') {
+                quote = c;
+                state = State.QUOTED_VALUE;
+            } else if (c == '>') {
+                endStartTag();
+            } else if (!isSpace(c)) {
+                state = State.UNQUOTED_VALUE;
+                append(c);
+            }
+            break;
+        case QUOTED_VALUE:
+            if (c == quote) {
+                endValue();
+                state = State.BEFORE_ATTRIBUTE;
+            } else {
+                append(c);
+            }
+            break;
+        case UNQUOTED_VALUE:
+            if (isSpace(c)) {
+                endValue();
+                state = State.BEFORE_ATTRIBUTE;
+            } else if (c == '>') {
+                endValue();
+                endStartTag();
+            } else {
+                append(c);
+            }
+            break;
+        case RAW_TEXT:
+            // Looks for the closing tag, e.g. "</script", ignoring case
+            if (Character.toLowerCase(c) == rawTextEnd.charAt(matched)) {
+                if (++matched == rawTextEnd.length()) {
+                    state = State.END_TAG;
+                }
+            } else {
+                matched = c == '<' ? 1 : 0;
+            }
+            break;
+        default:
+            throw new IllegalStateException(state.toString());
+        }
+    }
+
+    private void startValue() {
+        value.setLength(0);
+        keepValue = isWanted(tag, name);
+        state = State.BEFORE_VALUE;
+    }
+
+    private void append(char c) {
+        if (keepValue) {
+            value.append(c);
+        }
+    }
+
+    private void endValue() {
+        if (!keepValue) {
+            return;
+        }
+        keepValue = false;
+        String raw = value.indexOf("&") >= 0 ? decodeReferences(value) : value.toString();
+        if (tag == Tag.BASE) {
+            if (!baseSeen && base != null) {
+                String resolved = UrlNormalizer.normalize(base, raw);
+                if (resolved != null) {
+                    base = resolved;
+                }
+            }
+            baseSeen = true;
+            return;
+        }
+        String url = base == null ? raw : UrlNormalizer.normalize(base, raw);
+        if (url == null) {
+            return;
+        }
+        if (tag == Tag.IMG) {
+            listener.image(url);
+        } else {
+            listener.link(url);
+        }
+    }
+
+    private void endStartTag() {
+        if (tag == Tag.SCRIPT || tag == Tag.STYLE) {
+            rawTextEnd = tag == Tag.SCRIPT ? "</script" : "</style";
+            matched = 0;
+            state = State.RAW_TEXT;
+        } else {
+            state = State.TEXT;
+        }
+    }
+
+    private static Tag tagNamed(CharSequence name) {
+        switch (name.toString()) {
+        case "a":
+            return Tag.A;
+        case "area":
+            return Tag.AREA;
+        case "img":
+            return Tag.IMG;
+        case "base":
+            return Tag.BASE;
+        case "script":
+            return Tag.SCRIPT;
+        case "style":
+            return Tag.STYLE;
+        default:
+            return Tag.OTHER;
+        }
+    }
+
+    private static boolean isWanted(Tag tag, StringBuilder attribute) {
+        switch (tag) {
+        case A:
+        case AREA:
+        case BASE:
+            return attribute.length() == 4 && attribute.indexOf("href") == 0;
+        case IMG:
+            return attribute.length() == 3 && attribute.indexOf("src") == 0;
+        default:
+            return false;
+        }
+    }
+
+    // Decodes &amp;, &lt;, &gt;, &quot;, &apos; and numeric references; others are left as written
+    private static String decodeReferences(CharSequence text) {
+        StringBuilder decoded = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            int semicolon = c == '&' ? indexOf(text, ';', i + 1, i + 12) : -1;
+            if (semicolon < 0) {
+                decoded.append(c);
+                continue;
+            }
+            String entity = text.subSequence(i + 1, semicolon).toString();
+            int codePoint = -1;
+            switch (entity) {
+            case "amp":
+                codePoint = '&';
+                break;
+            case "lt":
+                codePoint = '<';
+                break;
+            case "gt":
+                codePoint = '>';
+                break;
+            case "quot":
+                codePoint = '"';
+                break;
+            case "apos":
+                codePoint = '\'';
+                break;
+            default:
+                if (entity.length() > 1 && entity.charAt(0) == '#') {
+                    try {
+                        boolean hex = entity.charAt(1) == 'x' || entity.charAt(1) == 'X';
+                        codePoint = Integer.parseInt(entity.substring(hex ? 2 : 1), hex ? 16 : 10);
+                    } catch (NumberFormatException e) {
+                        codePoint = -1;
+                    }
+                }
+            }
+            if (codePoint < 0 || !Character.isValidCodePoint(codePoint)) {
+                decoded.append(c);
+            } else {
+                decoded.appendCodePoint(codePoint);
+                i = semicolon;
+            }
+        }
+        return decoded.toString();
+    }
+
+    private static int indexOf(CharSequence text, char c, int from, int to) {
+        for (int i = from; i < Math.min(to, text.length()); i++) {
+            if (text.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\n' || c == '\t' || c == '\r' || c == '\f';
+    }
+}
@@ -0,0 +1,393 @@
+package crawler;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/*
+ * Fetches pages asynchronously with java.net.http.HttpClient. A small, fixed pool of
+ * threads serves any number of requests in flight; no thread waits on a socket.
+ * Connections are kept alive and reused per host, and HTTP/2 is used for https
+ * where the server offers it.
+ *
+ * HTML bodies are decoded with the charset from the Content-Type header (UTF-8 if
+ * there is none) and handed to the caller chunk by chunk as they arrive, so link
+ * extraction runs while the rest of the page is still downloading. Other bodies are
+ * not downloaded. Redirects are not followed: the Location is reported instead, so
+ * that the crawler can deduplicate and queue it like any other link.
+ *
+ * The connect timeout limits connection setup, and the read timeout limits both the
+ * wait for the response headers and any pause between two chunks of the body.
+ *
+ * With a CrawlArchive, every response whose body is read to its end is archived with
+ * its body as received, before it is decoded; bodies that are not downloaded are not.
+ *
+ * fetchIfModified() sends the validators of an earlier response as If-None-Match and
+ * If-Modified-Since, so that a server answers 304 Not Modified, with no body, for a
+ * page that has not changed. A 304 is not archived: it would hide the page itself.
+ */
+public class HttpFetcher implements Fetcher {
+
+    // Names the crawler to servers, and in robots.txt groups
+    static final String PRODUCT_TOKEN = "java-software-engineering-crawler";
+    private static final String USER_AGENT = PRODUCT_TOKEN + "/1.0";
+
+    // Unwanted bodies up to this size are read and discarded, so the connection can be reused
+    private static final long MAX_DISCARDED_BYTES = 64 * 1024;
+    // Largest Content-Length trusted to size the copy kept for the archive up front
+    private static final long MAX_PRESIZED_BYTES = 1024 * 1024;
+
+    private final HttpClient client;
+    private final ExecutorService executor;
+    private final ScheduledExecutorService timer;
+    private final Duration connectTimeout;
+    private final Duration readTimeout;
+    private volatile CrawlArchive archive;
+
+    /** Creates a fetcher with a 10 second connect timeout, a 30 second read timeout and 2 threads. */
+    public HttpFetcher() {
+        this(Duration.ofSeconds(10), Duration.ofSeconds(30), 2);
+    }
+
+    /**
+     * @param connectTimeout Longest time to wait for a connection to be established
+     * @param readTimeout Longest time to wait for the headers or for the next part of the body
+     * @param threads Number of threads that handle responses and run the body consumers
+     */
+    public HttpFetcher(Duration connectTimeout, Duration readTimeout, int threads) {
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+        AtomicInteger count = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(threads, r -> daemon(r, "fetcher-" + count.incrementAndGet()));
+        timer = Executors.newSingleThreadScheduledExecutor(r -> daemon(r, "fetcher-timeouts"));
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .executor(executor)
+                .build();
+    }
+
+    /**
+     * Archives the responses fetched from now on.
+     * @param archive The archive, or null to stop archiving; left open by close()
+     */
+    public void setArchive(CrawlArchive archive) {
+        this.archive = archive;
+    }
+
+    /** The archive responses are recorded in, or null. */
+    public CrawlArchive getArchive() {
+        return archive;
+    }
+
+    private static Thread daemon(Runnable r, String name) {
+        Thread thread = new Thread(r, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * Starts fetching a page.
+     * @param url Absolute http(s) URL
+     * @param body Receives the decoded body of a successful HTML response, in order,
+     *        one chunk at a time; never called concurrently for one fetch. The buffer
+     *        is reused, so its contents must be consumed before accept() returns
+     * @return Completes with the result once the body has been read, or exceptionally
+     *         on a connection failure or timeout
+     */
+    @Override
+    public CompletableFuture<FetchResult> fetch(String url, Consumer<CharBuffer> body) {
+        return fetch(url, body, false, null, null);
+    }
+
+    /**
+     * Starts fetching a page with a conditional GET, unless neither validator is given.
+     * @return Completes with a 304 result, with no body, if the page has not changed
+     * @see #fetch(String, Consumer)
+     */
+    @Override
+    public CompletableFuture<FetchResult> fetchIfModified(String url, String etag, String lastModified,
+            Consumer<CharBuffer> body) {
+        return fetch(url, body, false, etag, lastModified);
+    }
+
+    /**
+     * Fetches a small text resource, such as robots.txt, whole.
+     * @param url Absolute http(s) URL
+     * @return Completes with the body of a successful text or HTML response, with null
+     *         for any other response, or exceptionally on a connection failure or timeout
+     */
+    @Override
+    public CompletableFuture<String> fetchText(String url) {
+        StringBuilder text = new StringBuilder();
+        return fetch(url, text::append, true, null, null)
+                .thenApply(result -> result.getStatusCode() / 100 == 2 && result.getBodyBytes() > 0 ? text.toString() : null);
+    }
+
+    /**
+     * Opens a resource with a blocking java.net.URLConnection, with the same timeouts.
+     * Its response is not archived.
+     */
+    @Override
+    public FetchStream openStream(String url) throws IOException {
+        return FetchStream.open(url, (int) connectTimeout.toMillis(), (int) readTimeout.toMillis());
+    }
+
+    private CompletableFuture<FetchResult> fetch(String url, Consumer<CharBuffer> body, boolean anyText, String etag,
+            String lastModified) {
+        HttpRequest request;
+        try {
+            URI uri = URI.create(url);
+            HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+                    .version(versionFor(uri))
+                    .timeout(readTimeout)
+                    .header("User-Agent", USER_AGENT)
+                    .header("Accept", "text/html,*/*;q=0.5");
+            if (etag != null) {
+                builder.header("If-None-Match", etag);
+            }
+            if (lastModified != null) {
+                builder.header("If-Modified-Since", lastModified);
+            }
+            request = builder.GET().build();
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        long start = System.nanoTime();
+        return client.sendAsync(request, info -> new DecodingSubscriber(url, info, body, anyText))
+                .thenApply(response -> new FetchResult(url, response.statusCode(), response.headers(),
+                        response.body(), System.nanoTime() - start));
+    }
+
+    /*
+     * HTTP/2 is negotiated during the TLS handshake for https. Over plain http it would
+     * need an h2c upgrade, which few servers support and which costs the connection its
+     * keep-alive when refused, so plain http stays on HTTP/1.1.
+     */
+    private static HttpClient.Version versionFor(URI uri) {
+        return "https".equalsIgnoreCase(uri.getScheme()) ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1;
+    }
+
+    /** Stops the threads of this fetcher; fetches still in flight may not complete. */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        timer.shutdownNow();
+    }
+
+    // Whether a response's body is decoded for the caller: HTML, or any text for fetchText()
+    static boolean isDecoded(int status, String contentType, boolean anyText) {
+        String type = contentType.toLowerCase(Locale.ROOT);
+        return status >= 200 && status < 300 && (type.contains("html") || (anyText && type.startsWith("text/")));
+    }
+
+    static Charset charsetOf(String contentType) {
+        for (String parameter : contentType.split(";")) {
+            String[] pair = parameter.trim().split("=", 2);
+            if (pair.length == 2 && pair[0].trim().equalsIgnoreCase("charset")) {
+                try {
+                    return Charset.forName(pair[1].trim().replace("\"", ""));
+                } catch (IllegalArgumentException e) {
+                    break; // unknown or unsupported charset
+                }
+            }
+        }
+        return StandardCharsets.UTF_8;
+    }
+
+    /*
+     * Decodes the body as it arrives and hands each chunk to the consumer. Counts the
+     * bytes read, and enforces the read timeout between chunks. With an archive, also
+     * keeps a copy of the bytes read and archives them at the end.
+     */
+    private class DecodingSubscriber implements HttpResponse.BodySubscriber<Long> {
+        private final CompletableFuture<Long> result = new CompletableFuture<>();
+        private final String url;
+        private final HttpResponse.ResponseInfo info;
+        private final CrawlArchive archive;
+        private byte[] raw;
+        private int rawLength;
+        private final Consumer<CharBuffer> body;
+        private final boolean wanted;
+        private final boolean discard;
+        private CharsetDecoder decoder;
+        private CharBuffer chars;
+        // Bytes of a character cut off at the end of the previous chunk
+        private ByteBuffer carry;
+        private Flow.Subscription subscription;
+        private long bytes;
+        private volatile long lastRead;
+
+        DecodingSubscriber(String url, HttpResponse.ResponseInfo info, Consumer<CharBuffer> body, boolean anyText) {
+            this.url = url;
+            this.info = info;
+            this.body = body;
+            String contentType = info.headers().firstValue("Content-Type").orElse("text/html");
+            wanted = isDecoded(info.statusCode(), contentType, anyText);
+            // A 304 never has a body, whatever its headers say
+            long length = info.statusCode() == 304 ? 0
+                    : info.headers().firstValueAsLong("Content-Length").orElse(Long.MAX_VALUE);
+            discard = !wanted && length <= MAX_DISCARDED_BYTES;
+            if (wanted) {
+                decoder = charsetOf(contentType).newDecoder()
+                        .onMalformedInput(CodingErrorAction.REPLACE)
+                        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+                chars = CharBuffer.allocate(8192);
+            }
+            archive = (wanted || discard) && info.statusCode() != 304 ? HttpFetcher.this.archive : null;
+            if (archive != null) {
+                // Sized to the whole body when it is known, so that it is copied only once
+                raw = new byte[(int) (length <= MAX_PRESIZED_BYTES ? Math.max(0, length) : 16 * 1024)];
+            }
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (!wanted && !discard) {
+                subscription.cancel(); // closes the connection rather than download a large body
+                result.complete(0L);
+                return;
+            }
+            lastRead = System.nanoTime();
+            scheduleTimeoutCheck(readTimeout.toNanos());
+            subscription.request(1);
+        }
+
+        private void scheduleTimeoutCheck(long delayNanos) {
+            try {
+                timer.schedule(this::checkTimeout, delayNanos, TimeUnit.NANOSECONDS);
+            } catch (RuntimeException e) {
+                // fetcher closed
+            }
+        }
+
+        private void checkTimeout() {
+            if (result.isDone()) {
+                return;
+            }
+            long idle = System.nanoTime() - lastRead;
+            if (idle >= readTimeout.toNanos()) {
+                subscription.cancel();
+                result.completeExceptionally(new HttpTimeoutException("No data for " + readTimeout.toMillis() + " ms"));
+            } else {
+                scheduleTimeoutCheck(readTimeout.toNanos() - idle);
+            }
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> buffers) {
+            lastRead = System.nanoTime();
+            if (result.isDone()) {
+                return;
+            }
+            try {
+                for (ByteBuffer buffer : buffers) {
+                    if (archive != null) {
+                        keep(buffer);
+                    }
+                    if (wanted) {
+                        bytes += buffer.remaining();
+                        decode(buffer, false);
+                    }
+                }
+            } catch (RuntimeException e) {
+                subscription.cancel();
+                result.completeExceptionally(e);
+                return;
+            }
+            subscription.request(1);
+        }
+
+        // Appends a copy of a buffer to the raw body, leaving the buffer's position where it is
+        private void keep(ByteBuffer buffer) {
+            int length = buffer.remaining();
+            if (rawLength + length > raw.length) {
+                raw = Arrays.copyOf(raw, Math.max(rawLength + length, 2 * raw.length));
+            }
+            buffer.duplicate().get(raw, rawLength, length);
+            rawLength += length;
+        }
+
+        private void decode(ByteBuffer input, boolean endOfInput) {
+            if (carry != null) {
+                ByteBuffer joined = ByteBuffer.allocate(carry.remaining() + input.remaining());
+                joined.put(carry).put(input).flip();
+                input = joined;
+                carry = null;
+            }
+            while (decoder.decode(input, chars, endOfInput).isOverflow()) {
+                drain();
+            }
+            if (endOfInput) {
+                while (decoder.flush(chars).isOverflow()) {
+                    drain();
+                }
+            }
+            drain();
+            if (input.hasRemaining()) {
+                carry = ByteBuffer.allocate(input.remaining()).put(input).flip();
+            }
+        }
+
+        private void drain() {
+            chars.flip();
+            if (chars.hasRemaining()) {
+                body.accept(chars);
+            }
+            chars.clear();
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            result.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            if (result.isDone()) {
+                return;
+            }
+            try {
+                if (wanted) {
+                    decode(ByteBuffer.allocate(0), true);
+                }
+                if (archive != null) {
+                    archive.record(url, info.statusCode(), info.headers().map(), raw, rawLength);
+                }
+                result.complete(bytes);
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        }
+
+        @Override
+        public CompletionStage<Long> getBody() {
+            return result;
+        }
+    }
+}
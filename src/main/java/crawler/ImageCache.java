@@ -0,0 +1,135 @@
+package crawler;
+
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+ * Least-recently-used cache of decoded, scaled images, bounded by the memory their
+ * pixels take rather than by their number. Images that were rejected, for example
+ * as too small, are remembered too, at a small fixed cost, so that asking for them
+ * again costs neither a download nor a decode.
+ *
+ * Keys should be canonical URLs, so that one image linked in different ways is
+ * cached once. All methods are synchronized; each one is a hash lookup plus a
+ * few pointer updates, so the lock is held only briefly.
+ */
+public class ImageCache {
+
+    // Bytes charged for an entry besides its pixels: key, map node and entry object
+    private static final long ENTRY_OVERHEAD = 128;
+
+    /** A cached image, or the fact that there is no image to show for a URL. */
+    public static final class Entry {
+        private final BufferedImage image;
+        private final long downloadedBytes;
+        private final long weight;
+
+        Entry(BufferedImage image, long downloadedBytes) {
+            this.image = image;
+            this.downloadedBytes = downloadedBytes;
+            this.weight = ENTRY_OVERHEAD + (image == null ? 0 : 4L * image.getWidth() * image.getHeight());
+        }
+
+        /** The image, or null if the URL had no image worth showing. */
+        public BufferedImage getImage() {
+            return image;
+        }
+
+        /** Number of bytes that were downloaded to produce this entry. */
+        public long getDownloadedBytes() {
+            return downloadedBytes;
+        }
+    }
+
+    private final long maxBytes;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long bytesSaved;
+    private long evictions;
+
+    /**
+     * @param maxBytes Most memory the cached images may take, counting 4 bytes per pixel
+     */
+    public ImageCache(long maxBytes) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("maxBytes must not be negative");
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Looks up an image, making it the most recently used.
+     * @param key Canonical URL of the image
+     * @return The entry, or null if the URL is not cached
+     */
+    public synchronized Entry get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+        } else {
+            hits++;
+            bytesSaved += entry.downloadedBytes;
+        }
+        return entry;
+    }
+
+    /**
+     * Caches an image, evicting the least recently used ones until it fits. An image
+     * larger than the whole budget is not cached.
+     * @param key Canonical URL of the image
+     * @param image The image, or null to remember that the URL has no image to show
+     * @param downloadedBytes Number of bytes downloaded to produce it
+     */
+    public synchronized void put(String key, BufferedImage image, long downloadedBytes) {
+        Entry entry = new Entry(image, downloadedBytes);
+        Entry old = entries.remove(key);
+        if (old != null) {
+            bytes -= old.weight;
+        }
+        if (entry.weight > maxBytes) {
+            return;
+        }
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        while (bytes + entry.weight > maxBytes) {
+            bytes -= eldest.next().getValue().weight;
+            eldest.remove();
+            evictions++;
+        }
+        entries.put(key, entry);
+        bytes += entry.weight;
+    }
+
+    /** Number of URLs cached. */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /** Memory charged for the cached images, in bytes. */
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    /** Number of lookups that found their URL. */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /** Number of lookups that did not find their URL. */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /** Bytes that hits did not have to download again. */
+    public synchronized long getBytesSaved() {
+        return bytesSaved;
+    }
+
+    /** Number of images dropped to make room for others. */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+}
@@ -0,0 +1,397 @@
+package crawler;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+
+/*
+ * Downloads, decodes and scales images on a small pool of its own threads, so that
+ * the threads asking for an image never wait on image I/O. The queue of images
+ * waiting to be decoded is bounded: when it is full, further images are dropped
+ * rather than queued, as a viewer that is behind has no use for them.
+ *
+ * The size of an image is read from its header, the first few hundred bytes, before
+ * the rest is downloaded. Images smaller than the minimum size are rejected there and
+ * their connection is closed, so the bandwidth and CPU go to images worth showing.
+ * Large images are decoded subsampled, reading only every n-th pixel of every n-th
+ * row, to about the size they will be shown at. The result is scaled to fit the
+ * maximum size exactly, so that it can be drawn without scaling.
+ *
+ * Images are downloaded with a Fetcher if one is set, so that they can come from a
+ * replayed or synthetic site too, and with a URLConnection otherwise.
+ *
+ * With a cache, the outcome for each canonical URL is kept, so an image asked for
+ * again is neither downloaded nor decoded, and an image asked for while it is being
+ * decoded is decoded once.
+ *
+ * With a CrawlArchive, each image that is decoded is read to its end and archived
+ * with its body as received; images rejected from their header are not archived.
+ */
+public class ImageDecoder implements ImageDecoderMXBean, AutoCloseable {
+
+    private static final int CONNECT_TIMEOUT_MILLIS = 5000;
+    private static final int READ_TIMEOUT_MILLIS = 15000;
+
+    private final int maxWidth;
+    private final int maxHeight;
+    private final int minWidth;
+    private final int minHeight;
+    private final ThreadPoolExecutor pool;
+    private final ImageCache cache;
+    // Images being decoded, by canonical URL
+    private final ConcurrentHashMap<String, CompletableFuture<BufferedImage>> pending = new ConcurrentHashMap<>();
+    private volatile Fetcher fetcher;
+    private volatile CrawlArchive archive;
+
+    private final AtomicLong decoded = new AtomicLong();
+    private final AtomicLong tooSmall = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong bytesRead = new AtomicLong();
+    private final AtomicLong bytesSkipped = new AtomicLong();
+    private final LatencyHistogram decodeLatency = new LatencyHistogram();
+    private final ErrorCounter errors = new ErrorCounter();
+
+    /**
+     * Creates a decoder without a cache.
+     * @see #ImageDecoder(int, int, int, int, int, int, ImageCache)
+     */
+    public ImageDecoder(int threads, int queueCapacity, int maxWidth, int maxHeight, int minWidth, int minHeight) {
+        this(threads, queueCapacity, maxWidth, maxHeight, minWidth, minHeight, null);
+    }
+
+    /**
+     * @param threads Number of threads decoding images
+     * @param queueCapacity Maximum number of images waiting for a thread
+     * @param maxWidth Width of the area the images are shown in
+     * @param maxHeight Height of the area the images are shown in
+     * @param minWidth Images narrower than this are rejected
+     * @param minHeight Images lower than this are rejected
+     * @param cache Cache for the decoded images, or null
+     */
+    public ImageDecoder(int threads, int queueCapacity, int maxWidth, int maxHeight, int minWidth, int minHeight,
+            ImageCache cache) {
+        if (threads < 1 || queueCapacity < 1 || maxWidth < 1 || maxHeight < 1) {
+            throw new IllegalArgumentException("Need threads, queueCapacity, maxWidth and maxHeight >= 1");
+        }
+        this.maxWidth = maxWidth;
+        this.maxHeight = maxHeight;
+        this.minWidth = minWidth;
+        this.minHeight = minHeight;
+        this.cache = cache;
+        AtomicInteger count = new AtomicInteger();
+        pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread thread = new Thread(r, "image-decoder-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.NORM_PRIORITY - 1);
+                    return thread;
+                });
+    }
+
+    /**
+     * Downloads images with the given fetcher from now on, instead of with a URLConnection of its own.
+     * @param fetcher The fetcher, or null for a URLConnection; left open by close()
+     */
+    public void setFetcher(Fetcher fetcher) {
+        this.fetcher = fetcher;
+    }
+
+    /**
+     * Archives the images downloaded from now on.
+     * @param archive The archive, or null to stop archiving; left open by close()
+     */
+    public void setArchive(CrawlArchive archive) {
+        this.archive = archive;
+    }
+
+    /**
+     * Queues an image for decoding and returns at once.
+     * @param url Absolute URL of the image
+     * @return Completes with the scaled image; with null if the image was too small,
+     *         not in a readable format, or dropped because the queue was full; or
+     *         exceptionally if it could not be downloaded
+     */
+    public CompletableFuture<BufferedImage> submit(String url) {
+        String canonical = UrlNormalizer.normalize(url);
+        String key = canonical == null ? url : canonical;
+        if (cache != null) {
+            ImageCache.Entry entry = cache.get(key);
+            if (entry != null) {
+                return CompletableFuture.completedFuture(entry.getImage());
+            }
+        }
+        CompletableFuture<BufferedImage> result = new CompletableFuture<>();
+        CompletableFuture<BufferedImage> decoding = pending.putIfAbsent(key, result);
+        if (decoding != null) {
+            return decoding;
+        }
+        try {
+            pool.execute(() -> {
+                try {
+                    long[] downloaded = new long[1];
+                    BufferedImage image = decode(url, downloaded);
+                    if (cache != null) {
+                        cache.put(key, image, downloaded[0]);
+                    }
+                    result.complete(image);
+                } catch (IOException | RuntimeException e) {
+                    errors.record(e);
+                    result.completeExceptionally(e);
+                } finally {
+                    pending.remove(key, result);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.remove(key, result);
+            dropped.incrementAndGet();
+            result.complete(null);
+        }
+        return result;
+    }
+
+    /**
+     * Downloads, decodes and scales an image on the calling thread, bypassing the cache.
+     * @param url Absolute URL of the image
+     * @return The image scaled to fit maxWidth x maxHeight, or null if it is too small
+     *         or not in a readable format
+     */
+    public BufferedImage decode(String url) throws IOException {
+        return decode(url, new long[1]);
+    }
+
+    // As decode(url), also storing the number of bytes downloaded in downloaded[0]
+    private BufferedImage decode(String url, long[] downloaded) throws IOException {
+        long start = System.nanoTime();
+        Fetcher fetcher = this.fetcher;
+        FetchStream body = fetcher != null ? fetcher.openStream(url)
+                : FetchStream.open(url, CONNECT_TIMEOUT_MILLIS, READ_TIMEOUT_MILLIS);
+        CrawlArchive archive = this.archive;
+        CountingInputStream in = new CountingInputStream(body, archive != null);
+        // Buffers in memory what the reader has read so far, rather than in a temporary file
+        try (in; ImageInputStream stream = new MemoryCacheImageInputStream(in)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(stream);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(stream, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if (width < minWidth || height < minHeight) {
+                    tooSmall.incrementAndGet();
+                    skipRest(body, in.count);
+                    return null;
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = subsampling(width, height, maxWidth, maxHeight);
+                param.setSourceSubsampling(step, step, 0, 0);
+                BufferedImage image = scaleToFit(reader.read(0, param), maxWidth, maxHeight);
+                decoded.incrementAndGet();
+                if (archive != null) {
+                    archive(archive, url, body, in);
+                }
+                return image;
+            } finally {
+                reader.dispose();
+            }
+        } finally {
+            downloaded[0] = in.count;
+            bytesRead.addAndGet(in.count);
+            decodeLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    // Gives up on the rest of a body: closes the connection instead of reading the body to its end
+    private void skipRest(FetchStream body, long read) {
+        long length = body.getContentLength();
+        if (length > read) {
+            bytesSkipped.addAndGet(length - read);
+        }
+        body.abort();
+    }
+
+    // Reads the rest of an image the reader did not need, and archives all of it
+    private static void archive(CrawlArchive archive, String url, FetchStream body, CountingInputStream in)
+            throws IOException {
+        byte[] rest = new byte[8192];
+        while (in.read(rest, 0, rest.length) >= 0) {
+            // kept by the stream
+        }
+        archive.record(url, body.getStatusCode(), body.getHeaders(), in.copy, (int) in.count);
+    }
+
+    // Counts the bytes read through it, and optionally keeps a copy of them
+    private static class CountingInputStream extends FilterInputStream {
+        long count;
+        byte[] copy;
+
+        CountingInputStream(InputStream in, boolean keepCopy) {
+            super(in);
+            if (keepCopy) {
+                copy = new byte[16 * 1024];
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                keep(new byte[] { (byte) b }, 0, 1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                keep(b, off, n);
+            }
+            return n;
+        }
+
+        // Skipped bytes are read instead when a copy is kept, so that the copy is whole
+        @Override
+        public long skip(long n) throws IOException {
+            if (copy != null) {
+                return Math.max(0, read(new byte[(int) Math.min(n, 8192)]));
+            }
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+
+        private void keep(byte[] b, int off, int len) {
+            if (copy != null) {
+                if (count + len > copy.length) {
+                    copy = Arrays.copyOf(copy, (int) Math.max(count + len, 2L * copy.length));
+                }
+                System.arraycopy(b, off, copy, (int) count, len);
+            }
+            count += len;
+        }
+    }
+
+    /*
+     * The largest subsampling step that still leaves at least as many pixels as the
+     * image is shown with, so that the final scaling only ever shrinks it a little.
+     */
+    static int subsampling(int width, int height, int maxWidth, int maxHeight) {
+        double ratio = Math.max((double) width / maxWidth, (double) height / maxHeight);
+        return Math.max(1, (int) ratio);
+    }
+
+    // Scales an image, keeping its aspect ratio, to fill maxWidth or maxHeight and fit in both
+    static BufferedImage scaleToFit(BufferedImage image, int maxWidth, int maxHeight) {
+        double scale = Math.min((double) maxWidth / image.getWidth(), (double) maxHeight / image.getHeight());
+        int width = Math.max(1, (int) (scale * image.getWidth()));
+        int height = Math.max(1, (int) (scale * image.getHeight()));
+        int type = image.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB_PRE : BufferedImage.TYPE_INT_RGB;
+        BufferedImage scaled = new BufferedImage(width, height, type);
+        Graphics2D g = scaled.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return scaled;
+    }
+
+    /** Number of images decoded and scaled. */
+    @Override
+    public long getDecoded() {
+        return decoded.get();
+    }
+
+    /** Number of images rejected from their header as smaller than the minimum size. */
+    @Override
+    public long getTooSmall() {
+        return tooSmall.get();
+    }
+
+    /** Number of images not decoded because the queue was full. */
+    @Override
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /** Number of image bytes downloaded. */
+    @Override
+    public long getBytesRead() {
+        return bytesRead.get();
+    }
+
+    /** Number of image bytes not downloaded because the header showed the image was too small. */
+    @Override
+    public long getBytesSkipped() {
+        return bytesSkipped.get();
+    }
+
+    /** Time from opening each image to having it decoded and scaled, or rejected. */
+    @Override
+    public LatencyStats getDecodeLatency() {
+        return decodeLatency.getStats();
+    }
+
+    /** Number of images found in the cache; 0 without a cache. */
+    @Override
+    public long getCacheHits() {
+        return cache == null ? 0 : cache.getHits();
+    }
+
+    /** Number of images not found in the cache; 0 without a cache. */
+    @Override
+    public long getCacheMisses() {
+        return cache == null ? 0 : cache.getMisses();
+    }
+
+    /** Bytes that cache hits did not have to download again; 0 without a cache. */
+    @Override
+    public long getCacheBytesSaved() {
+        return cache == null ? 0 : cache.getBytesSaved();
+    }
+
+    /** Number of images that could not be downloaded or decoded, by type of error. */
+    @Override
+    public Map<String, Long> getErrorsByType() {
+        return errors.getCounts();
+    }
+
+    /** The cache of decoded images, or null. */
+    public ImageCache getCache() {
+        return cache;
+    }
+
+    /** Number of images waiting for a decoder thread. */
+    @Override
+    public int getQueued() {
+        return pool.getQueue().size();
+    }
+
+    /** Stops the decoder threads; images still queued are not decoded. */
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,28 @@
+package crawler;
+
+import java.util.Map;
+
+/** Management interface of ImageDecoder, as shown by JMX consoles under crawler:type=ImageDecoder. */
+public interface ImageDecoderMXBean {
+    long getDecoded();
+
+    long getTooSmall();
+
+    long getDropped();
+
+    int getQueued();
+
+    long getBytesRead();
+
+    long getBytesSkipped();
+
+    LatencyStats getDecodeLatency();
+
+    long getCacheHits();
+
+    long getCacheMisses();
+
+    long getCacheBytesSaved();
+
+    Map<String, Long> getErrorsByType();
+}
@@ -0,0 +1,110 @@
+package crawler;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Lock-free histogram of durations, for percentiles of fetch, parse and decode
+ * times. Durations are counted in microsecond buckets that grow geometrically: each
+ * power of two is split into 8 buckets, so a percentile is accurate to within about
+ * 12%, and the whole histogram from 1 microsecond to over four hours is 256 counters.
+ * Recording is two atomic increments and never allocates.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = 32 * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /** Records one duration. */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        counts.incrementAndGet(bucketOf(nanos / 1000));
+        count.increment();
+        totalNanos.add(nanos);
+        if (nanos > maxNanos.get()) {
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+    }
+
+    // Values below 8 get a bucket each; above, the top 4 significant bits pick the bucket
+    static int bucketOf(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros) - SUB_BUCKET_BITS;
+        long bucket = (long) exponent * SUB_BUCKETS + (micros >>> exponent);
+        return (int) Math.min(bucket, BUCKETS - 1);
+    }
+
+    // Smallest value, in microseconds, that falls in a bucket
+    static long lowerBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS - 1;
+        return (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << exponent;
+    }
+
+    /** Number of durations recorded. */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /** Mean duration in milliseconds, or 0 if none was recorded. */
+    public double getMeanMillis() {
+        long n = count.sum();
+        return n == 0 ? 0 : totalNanos.sum() / 1e6 / n;
+    }
+
+    /** Longest duration recorded, in milliseconds. */
+    public double getMaxMillis() {
+        return maxNanos.get() / 1e6;
+    }
+
+    /**
+     * Estimates a percentile from the buckets, as the middle of the bucket it falls in.
+     * @param percentile Between 0 and 100
+     * @return The duration in milliseconds, or 0 if none was recorded
+     */
+    public double getPercentileMillis(double percentile) {
+        long total = 0;
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                double middle = i + 1 < BUCKETS ? (lowerBound(i) + lowerBound(i + 1)) / 2.0 : lowerBound(i);
+                return Math.min(middle / 1000, getMaxMillis());
+            }
+        }
+        return getMaxMillis();
+    }
+
+    /** Count, mean, median, 90th and 99th percentiles and maximum, in a form JMX can show. */
+    public LatencyStats getStats() {
+        return new LatencyStats(getCount(), getMeanMillis(), getPercentileMillis(50), getPercentileMillis(90),
+                getPercentileMillis(99), getMaxMillis());
+    }
+
+    @Override
+    public String toString() {
+        return getStats().toString();
+    }
+}
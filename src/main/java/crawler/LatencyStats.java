@@ -0,0 +1,53 @@
+package crawler;
+
+import java.beans.ConstructorProperties;
+
+/** Summary of a LatencyHistogram at one moment, in milliseconds. */
+public final class LatencyStats {
+    private final long count;
+    private final double meanMillis;
+    private final double p50Millis;
+    private final double p90Millis;
+    private final double p99Millis;
+    private final double maxMillis;
+
+    @ConstructorProperties({ "count", "meanMillis", "p50Millis", "p90Millis", "p99Millis", "maxMillis" })
+    public LatencyStats(long count, double meanMillis, double p50Millis, double p90Millis, double p99Millis,
+            double maxMillis) {
+        this.count = count;
+        this.meanMillis = meanMillis;
+        this.p50Millis = p50Millis;
+        this.p90Millis = p90Millis;
+        this.p99Millis = p99Millis;
+        this.maxMillis = maxMillis;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMeanMillis() {
+        return meanMillis;
+    }
+
+    public double getP50Millis() {
+        return p50Millis;
+    }
+
+    public double getP90Millis() {
+        return p90Millis;
+    }
+
+    public double getP99Millis() {
+        return p99Millis;
+    }
+
+    public double getMaxMillis() {
+        return maxMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("p50 %.1f ms, p99 %.1f ms", p50Millis, p99Millis);
+    }
+}
@@ -0,0 +1,133 @@
+package crawler;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/*
+ * Publishes the metrics of a crawl, and optionally of the image decoder, as JMX
+ * MBeans under the "crawler" domain, and logs a one-line summary of them at a fixed
+ * period to the "crawler.metrics" logger. The summary shows the rate of pages over
+ * the last period next to the totals, so a slowdown shows up as it happens.
+ */
+public class MetricsReporter implements AutoCloseable {
+
+    private static final Logger LOG = Logger.getLogger("crawler.metrics");
+
+    private final CrawlMetrics crawl;
+    private final ImageDecoder images;
+    private final List<ObjectName> registered = new ArrayList<>();
+    private ScheduledExecutorService timer;
+    private long lastPages;
+    private long lastNanos = System.nanoTime();
+
+    /**
+     * @param crawl Metrics of the crawl
+     * @param images Decoder whose metrics are reported too, or null
+     */
+    public MetricsReporter(CrawlMetrics crawl, ImageDecoder images) {
+        this.crawl = crawl;
+        this.images = images;
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server, as
+     * crawler:type=CrawlMetrics,name=... and crawler:type=ImageDecoder,name=...
+     * @param name Tells this crawl apart from others in the same JVM
+     */
+    public synchronized void registerMBeans(String name) throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName crawlName = new ObjectName("crawler:type=CrawlMetrics,name=" + ObjectName.quote(name));
+        server.registerMBean(crawl, crawlName);
+        registered.add(crawlName);
+        if (images != null) {
+            ObjectName imagesName = new ObjectName("crawler:type=ImageDecoder,name=" + ObjectName.quote(name));
+            server.registerMBean(images, imagesName);
+            registered.add(imagesName);
+        }
+    }
+
+    /** Starts logging a summary every period, on a daemon thread of its own. */
+    public synchronized void start(long period, TimeUnit unit) {
+        if (timer != null) {
+            throw new IllegalStateException("Reporter already started");
+        }
+        timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "metrics-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.scheduleAtFixedRate(() -> LOG.info(summary()), period, period, unit);
+    }
+
+    /** One line describing the crawl so far, and the pages per second since the previous summary. */
+    public synchronized String summary() {
+        long now = System.nanoTime();
+        long pages = crawl.getPagesScanned();
+        double recentRate = now > lastNanos ? (pages - lastPages) * 1e9 / (now - lastNanos) : 0;
+        lastPages = pages;
+        lastNanos = now;
+        StringBuilder line = new StringBuilder();
+        line.append(String.format("pages %d (%.1f/s now, %.1f/s overall), in flight %d, frontier %d, %.1f MB",
+                pages, recentRate, crawl.getPagesPerSecond(), crawl.getInFlight(), crawl.getFrontierSize(),
+                crawl.getBytesDownloaded() / 1e6));
+        line.append(String.format("; fetch %s, parse %s; dedup %.0f%% of %d links, %d dropped", crawl.getFetchLatency(),
+                crawl.getParseLatency(), 100 * crawl.getDedupHitRate(), crawl.getLinksChecked(),
+                crawl.getDroppedLinks()));
+        if (crawl.getPagesNotModified() > 0) {
+            line.append(String.format("; %d not modified", crawl.getPagesNotModified()));
+        }
+        if (crawl.getExactCopies() + crawl.getNearCopies() > 0) {
+            line.append(String.format("; copies skipped %d exact, %d near", crawl.getExactCopies(),
+                    crawl.getNearCopies()));
+        }
+        if (images != null) {
+            line.append(String.format("; images %d shown, %d too small, %d dropped, decode %s, cache %d hits",
+                    images.getDecoded(), images.getTooSmall(), images.getDropped(), images.getDecodeLatency(),
+                    images.getCacheHits()));
+        }
+        if (crawl.getErrorCount() > 0) {
+            line.append("; errors ").append(crawl.getErrorsByType());
+        }
+        if (images != null && !images.getErrorsByType().isEmpty()) {
+            line.append("; image errors ").append(images.getErrorsByType());
+        }
+        line.append("; slowest hosts ").append(formatHosts());
+        return line.toString();
+    }
+
+    private String formatHosts() {
+        StringBuilder hosts = new StringBuilder("{");
+        crawl.getSlowestHosts(3).forEach((host, millis) -> {
+            if (hosts.length() > 1) {
+                hosts.append(", ");
+            }
+            hosts.append(host).append(String.format("=%.0f ms", millis));
+        });
+        return hosts.append('}').toString();
+    }
+
+    /** Stops logging and unregisters the MBeans. */
+    @Override
+    public synchronized void close() {
+        if (timer != null) {
+            timer.shutdownNow();
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (ObjectName name : registered) {
+            try {
+                server.unregisterMBean(name);
+            } catch (JMException e) {
+                // already unregistered
+            }
+        }
+        registered.clear();
+    }
+}
@@ -0,0 +1,199 @@
+package crawler;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.http.HttpHeaders;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/*
+ * Base of the fetchers that answer from memory or disk rather than the network. A
+ * subclass only makes the response for a URL; this class hands it out as HttpFetcher
+ * would: HTML bodies, and text for fetchText(), are decoded with the charset from
+ * the Content-Type header and handed to the caller in chunks, on a small pool of
+ * threads of its own, and other bodies are not passed on.
+ *
+ * Each response can be delayed by a fixed latency, as a network would; the delay is
+ * a timer, so any number of fetches wait at once without holding a thread.
+ */
+abstract class OfflineFetcher implements Fetcher {
+
+    private static final int CHUNK_CHARS = 8192;
+
+    private final ExecutorService executor;
+    private final ScheduledExecutorService timer;
+    private final long latencyNanos;
+    private final AtomicLong requests = new AtomicLong();
+
+    // A response, as made up or read back
+    static final class Response {
+        final int statusCode;
+        final Map<String, List<String>> headers;
+        final byte[] body;
+
+        Response(int statusCode, Map<String, List<String>> headers, byte[] body) {
+            this.statusCode = statusCode;
+            this.headers = headers;
+            this.body = body;
+        }
+
+        String contentType() {
+            List<String> values = headers.get("Content-Type");
+            return values == null || values.isEmpty() ? "text/html" : values.get(0);
+        }
+    }
+
+    static final Response NOT_FOUND = new Response(404, Map.of(), new byte[0]);
+
+    /**
+     * @param name Prefix of the names of the threads
+     * @param threads Number of threads that make the responses and run the body consumers
+     * @param latencyMillis Time each response is delayed by
+     */
+    OfflineFetcher(String name, int threads, long latencyMillis) {
+        if (threads < 1 || latencyMillis < 0) {
+            throw new IllegalArgumentException("Need threads >= 1 and latencyMillis >= 0");
+        }
+        this.latencyNanos = TimeUnit.MILLISECONDS.toNanos(latencyMillis);
+        AtomicInteger count = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(threads, r -> daemon(r, name + "-" + count.incrementAndGet()));
+        timer = Executors.newSingleThreadScheduledExecutor(r -> daemon(r, name + "-latency"));
+    }
+
+    private static Thread daemon(Runnable r, String name) {
+        Thread thread = new Thread(r, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * Makes the response for a URL; called on the fetcher's threads, any number at once.
+     * @return The response; NOT_FOUND if there is none
+     */
+    abstract Response respond(String url) throws IOException;
+
+    @Override
+    public CompletableFuture<FetchResult> fetch(String url, Consumer<CharBuffer> body) {
+        return fetch(url, body, false);
+    }
+
+    @Override
+    public CompletableFuture<String> fetchText(String url) {
+        StringBuilder text = new StringBuilder();
+        return fetch(url, text::append, true)
+                .thenApply(result -> result.getStatusCode() / 100 == 2 && result.getBodyBytes() > 0 ? text.toString() : null);
+    }
+
+    private CompletableFuture<FetchResult> fetch(String url, Consumer<CharBuffer> body, boolean anyText) {
+        long start = System.nanoTime();
+        requests.incrementAndGet();
+        CompletableFuture<FetchResult> result = new CompletableFuture<>();
+        Runnable serve = () -> {
+            try {
+                result.complete(serve(url, body, anyText, start));
+            } catch (IOException | RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        };
+        try {
+            if (latencyNanos > 0) {
+                timer.schedule(() -> execute(serve, result), latencyNanos, TimeUnit.NANOSECONDS);
+            } else {
+                execute(serve, result);
+            }
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(e); // fetcher closed
+        }
+        return result;
+    }
+
+    private void execute(Runnable serve, CompletableFuture<FetchResult> result) {
+        try {
+            executor.execute(serve);
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(e);
+        }
+    }
+
+    private FetchResult serve(String url, Consumer<CharBuffer> body, boolean anyText, long start) throws IOException {
+        Response response = respond(url);
+        String contentType = response.contentType();
+        boolean decoded = HttpFetcher.isDecoded(response.statusCode, contentType, anyText);
+        if (decoded) {
+            decode(response.body, HttpFetcher.charsetOf(contentType).newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE), body);
+        }
+        return new FetchResult(url, response.statusCode, HttpHeaders.of(response.headers, (name, value) -> true),
+                decoded ? response.body.length : 0, System.nanoTime() - start);
+    }
+
+    private static void decode(byte[] bytes, CharsetDecoder decoder, Consumer<CharBuffer> body) {
+        ByteBuffer input = ByteBuffer.wrap(bytes);
+        CharBuffer chars = CharBuffer.allocate(CHUNK_CHARS);
+        while (decoder.decode(input, chars, true).isOverflow()) {
+            drain(chars, body);
+        }
+        while (decoder.flush(chars).isOverflow()) {
+            drain(chars, body);
+        }
+        drain(chars, body);
+    }
+
+    private static void drain(CharBuffer chars, Consumer<CharBuffer> body) {
+        chars.flip();
+        if (chars.hasRemaining()) {
+            body.accept(chars);
+        }
+        chars.clear();
+    }
+
+    /** Makes the response on the calling thread, after the latency; error responses throw as a URLConnection would. */
+    @Override
+    public FetchStream openStream(String url) throws IOException {
+        requests.incrementAndGet();
+        if (latencyNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(latencyNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted fetching " + url);
+            }
+        }
+        Response response = respond(url);
+        if (response.statusCode == 404) {
+            throw new FileNotFoundException(url);
+        }
+        if (response.statusCode >= 400) {
+            throw new IOException("Server returned HTTP response code: " + response.statusCode + " for URL: " + url);
+        }
+        return new FetchStream(new ByteArrayInputStream(response.body), response.statusCode, response.headers,
+                response.body.length, () -> {});
+    }
+
+    /** Number of fetches and streams asked for so far. */
+    public long getRequests() {
+        return requests.get();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        timer.shutdownNow();
+    }
+}
@@ -0,0 +1,222 @@
+package crawler;
+
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+
+/* 
+ * Scans a web page looking for links and images, in a single pass with
+ * an HtmlLinkExtractor fed while the page downloads. Each link that is
+ * found is handed to the CrawlScheduler, whose worker threads scan it
+ * later. Images that are found are displayed in a common PicViewer
+ * shared by all threads in the application; an image found again is
+ * shown again, from the viewer's cache rather than downloaded again.
+ *
+ * When the scheduler has a ContentIndex, the page is fingerprinted as it
+ * downloads and held back from the extractor until it is complete; a page
+ * that turns out to be a copy of one scanned before is not searched at all.
+ * Pages longer than MAX_HELD_CHARS are searched as they arrive instead.
+ *
+ * When the scheduler has a RecrawlStore that knows the page, it is fetched
+ * only if it changed since; if the server answers 304 Not Modified, the
+ * links and images found on it last time are reported instead. The links
+ * and images of every page fetched whole are kept in the store.
+ */
+public class PageScanner implements Runnable, HtmlLinkExtractor.Listener {
+
+	// Longest page held back until its fingerprint is known
+	static final int MAX_HELD_CHARS = 1 << 20;
+
+	// The URL of the web page to be scanned
+	private String URLString = null;
+
+	// Images already seen, shared by all scanners so that each is logged once
+	private static final SeenUrlStore imagesProcessed = new ConcurrentSeenUrlStore();
+
+	// Images shown by the run before of a crawl that is being resumed, not shown again
+	private static final SeenUrlStore imagesResumed = new ConcurrentSeenUrlStore();
+
+	// How many links away from the seed this page is
+	private final int depth;
+
+	// Receives the links found on this page
+	private final CrawlScheduler scheduler;
+
+	// Time spent extracting links, and the part of it spent handing them to the scheduler
+	private long parseNanos;
+	private long submitNanos;
+
+	// The page so far, while it is held back from the extractor
+	private char[] held;
+	private int heldLength;
+
+	// Links and images found on the page, kept for the next crawl with a RecrawlStore
+	private List<String> linksFound;
+	private List<String> imagesFound;
+
+	// Constructor to initialize the URL
+	public PageScanner(String urlString, int depth, CrawlScheduler scheduler) {
+		this.URLString = urlString;
+		this.depth = depth;
+		this.scheduler = scheduler;
+	}
+
+	// Scans the page and waits until it is done, with the scheduler's fetcher
+	@Override
+	public void run() {
+		scan(scheduler.getFetcher()).join();
+	}
+
+	/*
+	 * Starts fetching the page and returns at once. Links and images are
+	 * reported as each part of the body arrives, or once it has all arrived
+	 * with a ContentIndex; the future completes when the whole page has been
+	 * scanned.
+	 */
+	CompletableFuture<Void> scan(Fetcher fetcher) {
+		HtmlLinkExtractor extractor = new HtmlLinkExtractor(URLString, this);
+		CrawlMetrics metrics = scheduler.getMetrics();
+		ContentIndex index = scheduler.getContentIndex();
+		ContentFingerprint fingerprint = index == null ? null : new ContentFingerprint();
+		if(index != null) {
+			held = new char[8192];
+		}
+		RecrawlStore recrawl = scheduler.getRecrawlStore();
+		RecrawlStore.Entry known = recrawl == null ? null : recrawl.get(URLString);
+		if(recrawl != null) {
+			linksFound = new ArrayList<>();
+			imagesFound = new ArrayList<>();
+		}
+		Consumer<CharBuffer> body = chunk -> {
+			long start = System.nanoTime();
+			if(fingerprint != null) {
+				fingerprint.feed(chunk);
+			}
+			if(held == null) {
+				extractor.feed(chunk);
+			} else if(heldLength + chunk.remaining() <= MAX_HELD_CHARS) {
+				hold(chunk);
+			} else {
+				// Too long to hold back: searched from here on whatever its fingerprint
+				extractor.feed(held, 0, heldLength);
+				held = null;
+				extractor.feed(chunk);
+			}
+			parseNanos += System.nanoTime() - start;
+		};
+		CompletableFuture<FetchResult> fetch = known == null ? fetcher.fetch(URLString, body)
+				: fetcher.fetchIfModified(URLString, known.getEtag(), known.getLastModified(), body);
+		return fetch.handle((result, e) -> {
+			if(e != null) {
+				// If any exception occurs, print a message, count it and give up on this page
+				Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+				System.out.println("Error occurred: " + URLString + ": " + cause);
+				metrics.pageFailed(cause);
+				return null;
+			}
+			if(known != null && result.getStatusCode() == 304) {
+				// Unchanged since the last crawl: what was found on it then is still there
+				linksFound = null;
+				imagesFound = null;
+				for(String link : known.getLinks()) {
+					link(link);
+				}
+				for(String image : known.getImages()) {
+					image(image);
+				}
+				metrics.pageNotModified();
+				metrics.pageFetched(result, 0);
+				return null;
+			}
+			if(fingerprint != null) {
+				long start = System.nanoTime();
+				fingerprint.finish();
+				// A copy of a page already scanned has no links or images to add
+				if(index.add(fingerprint) == ContentIndex.Match.NEW && held != null) {
+					extractor.feed(held, 0, heldLength);
+				}
+				held = null;
+				parseNanos += System.nanoTime() - start;
+			}
+			extractor.finish();
+			
+			// Waiting for room in the frontier is not parsing, so that time is left out
+			metrics.pageFetched(result, parseNanos - submitNanos);
+			if(recrawl != null) {
+				remember(recrawl, result);
+			}
+			
+			// A redirect is followed like a link, so that its target is deduplicated too
+			String location = UrlNormalizer.normalize(URLString, result.getLocation());
+			if(location != null) {
+				link(location);
+			}
+			return null;
+		});
+	}
+
+	// Keeps the validators and what was found on a page fetched whole, for the next crawl
+	private void remember(RecrawlStore recrawl, FetchResult result) {
+		String etag = result.getHeaders().firstValue("ETag").orElse(null);
+		String lastModified = result.getHeaders().firstValue("Last-Modified").orElse(null);
+		if(result.getStatusCode() == 200 && (etag != null || lastModified != null)) {
+			recrawl.put(URLString, new RecrawlStore.Entry(etag, lastModified, linksFound, imagesFound));
+		} else {
+			recrawl.remove(URLString);
+		}
+		linksFound = null;
+		imagesFound = null;
+	}
+
+	// Appends a chunk to the page held back, leaving the chunk's position where it is
+	private void hold(CharBuffer chunk) {
+		int length = chunk.remaining();
+		if(heldLength + length > held.length) {
+			held = Arrays.copyOf(held, Math.max(heldLength + length, 2 * held.length));
+		}
+		chunk.duplicate().get(held, heldLength, length);
+		heldLength += length;
+	}
+
+	/* 
+	 * Called for each link on the page, already resolved against the page
+	 * (or its <base href>) and canonicalized.
+	 */
+	@Override
+	public void link(String link) {
+		if(linksFound != null) {
+			linksFound.add(link);
+		}
+		// Queue the link for a worker to scan; the scheduler skips pages it has already seen
+		long start = System.nanoTime();
+		scheduler.submit(link, depth + 1);
+		submitNanos += System.nanoTime() - start;
+	}
+
+	/* Called for each image on the page, resolved like links. */
+	@Override
+	public void image(String image) {
+		if(imagesFound != null) {
+			imagesFound.add(image);
+		}
+		// If the image is not already processed, log it for a resumed crawl
+		if(imagesProcessed.add(image)) {
+			scheduler.imageSeen(image);
+		}
+		// Display it using PictureViewer; its cache serves an image seen before
+		// without downloading or decoding it again
+		if(!imagesResumed.contains(image)) {
+			PictureViewer.showImage(image);
+		}
+	}
+
+	// Marks an image as already displayed, by a crawl that is being resumed
+	static void markImageSeen(String image) {
+		imagesProcessed.add(image);
+		imagesResumed.add(image);
+	}
+}
@@ -0,0 +1,21 @@
+package crawler;
+
+/*
+ * Decides how soon a page should be crawled, for a PriorityFrontier: pages with
+ * higher scores are handed out first. A score is computed when the page is offered
+ * and again each time another link to it is found while it waits, so it may depend
+ * on what the crawl has seen so far, but should be cheap to compute.
+ *
+ *   WeightedPageScorer - weighs depth, in-links, pages per host and likely images
+ */
+public interface PageScorer {
+
+    /**
+     * Scores a page waiting to be crawled.
+     * @param task The page
+     * @param inLinks Number of links to the page found so far, 1 when it is first offered
+     * @param hostPages Number of pages of the same host waiting in memory, this one included
+     * @return The score; pages with higher scores are crawled first
+     */
+    double score(CrawlTask task, int inLinks, int hostPages);
+}
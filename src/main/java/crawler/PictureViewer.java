@@ -0,0 +1,122 @@
+package crawler;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.Graphics;
+import java.awt.GraphicsEnvironment;
+import java.awt.image.BufferedImage;
+import javax.swing.JFrame;
+import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
+import javax.swing.WindowConstants;
+
+public class PictureViewer {
+
+    // Constants for window dimensions and minimum picture size
+    private static final int WINDOW_HEIGHT = 540;
+    private static final int WINDOW_WIDTH = 960;
+    private static final int MIN_PIC_WIDTH = 200;
+    private static final int MIN_PIC_HEIGHT = 150;
+
+    // Images are decoded and scaled on a few threads of their own, with a short queue
+    private static final int DECODER_THREADS = 2;
+    private static final int DECODE_QUEUE_CAPACITY = 8;
+
+    // Memory for decoded images, which every page that shows them again is served from; about 32 full-window images
+    private static final long IMAGE_CACHE_BYTES = 64L * 1024 * 1024;
+
+    // Panel to display images
+    private static MyPanel thePanel = new MyPanel();
+
+    // Decoder that turns image URLs into images ready to be drawn
+    private static final ImageDecoder decoder = new ImageDecoder(DECODER_THREADS, DECODE_QUEUE_CAPACITY,
+            WINDOW_WIDTH, WINDOW_HEIGHT, MIN_PIC_WIDTH, MIN_PIC_HEIGHT, new ImageCache(IMAGE_CACHE_BYTES));
+
+    // Method to show an image; returns at once, and the image appears once it has been decoded
+    public static void showImage(String imageName) {
+        // Replace spaces in the image name with "%20" for URL handling
+        String picName = imageName.replace(" ", "%20");
+
+        // Decode and scale the image off the calling thread, then hand it to the event dispatch thread
+        decoder.submit(picName).whenComplete((image, e) -> {
+            if (e != null) {
+                // If any exception occurs, print an error message and stack trace
+                System.out.println("Error displaying image: " + imageName);
+                e.printStackTrace();
+            } else if (image != null) {
+                // Use the original imageName, not the modified picName
+                SwingUtilities.invokeLater(() -> thePanel.setImage(image, imageName));
+            }
+        });
+    }
+
+    // The decoder, for its counters
+    static ImageDecoder getDecoder() {
+        return decoder;
+    }
+
+    // Method to set up the panel
+    private static void setupPanel() {
+        thePanel.setLayout(null);
+        thePanel.setPreferredSize(new Dimension(WINDOW_WIDTH, WINDOW_HEIGHT));
+        thePanel.setBounds(0, 0, WINDOW_WIDTH, WINDOW_HEIGHT); // Correct bounds setup
+    }
+
+    // Method to set up the frame
+    private static void setupFrame() {
+        JFrame frame = new JFrame("Picture Viewer");
+        frame.setResizable(false);
+        frame.setDefaultCloseOperation(WindowConstants.EXIT_ON_CLOSE);
+        frame.setContentPane(thePanel);
+        frame.pack();
+        frame.setVisible(true);
+    }
+
+    // Inner class representing the panel
+    private static class MyPanel extends JPanel {
+
+        private static final long serialVersionUID = 1L;
+        private static Font theFont = new Font("Arial", Font.BOLD, 18);
+
+        // The current image, already scaled to the window, and its name; only used on the event dispatch thread
+        private BufferedImage currentImage = null;
+        private String currentImageName = null;
+
+        // Constructor for MyPanel; without a display, as on a build server, there is no window to show
+        public MyPanel() {
+            if (GraphicsEnvironment.isHeadless()) {
+                return;
+            }
+            javax.swing.SwingUtilities.invokeLater(() -> {
+                Thread.currentThread().setPriority(Thread.MAX_PRIORITY);
+                setupPanel();
+                setupFrame();
+            });
+        }
+
+        // Method to replace the image shown; called on the event dispatch thread
+        void setImage(BufferedImage image, String imageName) {
+            currentImage = image;
+            currentImageName = imageName;
+            repaint();
+        }
+
+        // Method to paint components on the panel
+        @Override
+        public void paintComponent(Graphics g) {
+            super.paintComponent(g);
+            if (currentImage != null) {
+                // The image was scaled when it was decoded, so it is drawn as it is
+                g.drawImage(currentImage, 0, 0, null);
+            }
+            
+            // Display the image name on the panel
+            if (currentImageName != null) {
+                g.setFont(theFont);
+                g.setColor(Color.GREEN);
+                g.drawString(currentImageName, 0, 30);
+            }
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package crawler;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ * Frontier that keeps a queue per host (scheme, host and port) and hands out pages
+ * round-robin across the hosts that are due, so that a page with hundreds of links
+ * to one site cannot monopolize the crawl while other sites wait. For each host, at
+ * most maxPerHost pages are fetched at once, and consecutive fetches start at least
+ * the host's delay apart. The delay is minDelay, or the Crawl-delay from the host's
+ * robots.txt if that is longer and a fetcher for robots.txt was given.
+ *
+ * Hosts that are due wait in a ring; hosts that are waiting out their delay wait in
+ * a heap ordered by when they are next due, so poll() is O(log hosts).
+ */
+public class PoliteFrontier implements Frontier {
+
+    private final int capacity;
+    private final int maxPerHost;
+    private final long minDelayNanos;
+    private final Fetcher robotsFetcher;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition due = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final Map<String, Host> hosts = new HashMap<>();
+    private final ArrayDeque<Host> ready = new ArrayDeque<>();
+    private final PriorityQueue<Host> delayed = new PriorityQueue<>((a, b) -> Long.compare(a.nextStart, b.nextStart));
+    private int size;
+
+    // Pages of one host, and when the host may next be fetched from
+    private static class Host {
+        final String origin;
+        final ArrayDeque<CrawlTask> tasks = new ArrayDeque<>();
+        long delayNanos;
+        long nextStart;
+        int active;
+        // Whether the host is in ready or delayed
+        boolean scheduled;
+        // Whether its robots.txt is still being fetched
+        boolean pendingRobots;
+
+        Host(String origin, long delayNanos) {
+            this.origin = origin;
+            this.delayNanos = delayNanos;
+        }
+    }
+
+    /**
+     * Creates a frontier that ignores robots.txt.
+     * @param capacity Maximum number of pages waiting, over all hosts
+     * @param maxPerHost Maximum number of pages of one host fetched at once
+     * @param minDelayMillis Minimum time between the starts of two fetches from one host
+     */
+    public PoliteFrontier(int capacity, int maxPerHost, long minDelayMillis) {
+        this(capacity, maxPerHost, minDelayMillis, null);
+    }
+
+    /**
+     * Creates a frontier that honours the Crawl-delay in each host's robots.txt. The
+     * pages of a host are held back until its robots.txt has been fetched.
+     * @param robotsFetcher Fetcher for robots.txt files, or null to ignore them
+     * @see #PoliteFrontier(int, int, long)
+     */
+    public PoliteFrontier(int capacity, int maxPerHost, long minDelayMillis, Fetcher robotsFetcher) {
+        if (capacity < 1 || maxPerHost < 1 || minDelayMillis < 0) {
+            throw new IllegalArgumentException("Need capacity >= 1, maxPerHost >= 1 and minDelayMillis >= 0");
+        }
+        this.capacity = capacity;
+        this.maxPerHost = maxPerHost;
+        this.minDelayNanos = TimeUnit.MILLISECONDS.toNanos(minDelayMillis);
+        this.robotsFetcher = robotsFetcher;
+    }
+
+    @Override
+    public boolean offer(CrawlTask task, long timeout, TimeUnit unit) throws InterruptedException {
+        long remaining = unit.toNanos(timeout);
+        Host fetchRobotsFor = null;
+        lock.lockInterruptibly();
+        try {
+            while (size >= capacity) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                remaining = notFull.awaitNanos(remaining);
+            }
+            String origin = originOf(task.getUrl());
+            Host host = hosts.get(origin);
+            if (host == null) {
+                host = new Host(origin, minDelayNanos);
+                hosts.put(origin, host);
+                if (robotsFetcher != null) {
+                    host.pendingRobots = true;
+                    fetchRobotsFor = host;
+                }
+            }
+            host.tasks.add(task);
+            size++;
+            schedule(host, System.nanoTime());
+        } finally {
+            lock.unlock();
+        }
+        if (fetchRobotsFor != null) {
+            fetchRobots(fetchRobotsFor);
+        }
+        return true;
+    }
+
+    private void fetchRobots(Host host) {
+        robotsFetcher.fetchText(host.origin + "/robots.txt").handle((text, e) -> {
+            long crawlDelay = text == null ? -1 : RobotsTxt.crawlDelayMillis(text, HttpFetcher.PRODUCT_TOKEN);
+            lock.lock();
+            try {
+                host.delayNanos = Math.max(minDelayNanos, TimeUnit.MILLISECONDS.toNanos(crawlDelay));
+                host.pendingRobots = false;
+                schedule(host, System.nanoTime());
+            } finally {
+                lock.unlock();
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public CrawlTask poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (true) {
+                long now = System.nanoTime();
+                while (!delayed.isEmpty() && delayed.peek().nextStart <= now) {
+                    ready.add(delayed.poll());
+                }
+                Host host = ready.poll();
+                if (host != null) {
+                    host.scheduled = false;
+                    CrawlTask task = host.tasks.poll();
+                    host.active++;
+                    host.nextStart = now + host.delayNanos;
+                    size--;
+                    notFull.signal();
+                    schedule(host, now); // to the back of the ring, or to wait out its delay
+                    return task;
+                }
+                long wait = deadline - now;
+                if (wait <= 0) {
+                    return null;
+                }
+                if (!delayed.isEmpty()) {
+                    wait = Math.min(wait, delayed.peek().nextStart - now);
+                }
+                due.awaitNanos(wait);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void done(CrawlTask task) {
+        lock.lock();
+        try {
+            Host host = hosts.get(originOf(task.getUrl()));
+            if (host != null) {
+                host.active--;
+                schedule(host, System.nanoTime());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Puts a host that has pages and a free slot where poll() will find it; called with the lock held
+    private void schedule(Host host, long now) {
+        if (host.scheduled || host.pendingRobots || host.tasks.isEmpty() || host.active >= maxPerHost) {
+            return;
+        }
+        host.scheduled = true;
+        if (host.nextStart <= now) {
+            ready.add(host);
+        } else {
+            delayed.add(host);
+        }
+        due.signal();
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Number of hosts seen so far. */
+    public int hostCount() {
+        lock.lock();
+        try {
+            return hosts.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.lock();
+        try {
+            for (Host host : hosts.values()) {
+                host.tasks.clear();
+                host.scheduled = false;
+            }
+            ready.clear();
+            delayed.clear();
+            size = 0;
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /*
+     * The scheme, host and port of a canonical URL, e.g. "https://www.example.com" for
+     * "https://www.example.com/a/b". Pages on one origin share a politeness queue.
+     */
+    static String originOf(String url) {
+        int authority = url.indexOf("://");
+        if (authority < 0) {
+            return url;
+        }
+        int path = url.indexOf('/', authority + 3);
+        int query = url.indexOf('?', authority + 3);
+        int end = path < 0 ? query : (query < 0 ? path : Math.min(path, query));
+        return end < 0 ? url : url.substring(0, end);
+    }
+}
@@ -0,0 +1,416 @@
+package crawler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ * Frontier that hands out the page with the highest score first, as given by a
+ * pluggable PageScorer, so that a limited budget of fetches goes to the pages most
+ * worth crawling rather than to whichever links were found first. A page's score is
+ * computed when it is offered and again whenever linked() reports another link to it.
+ *
+ * The waiting pages are kept in a red-black tree ordered by score, pages with equal
+ * scores in the order they came, plus a map from URL to tree entry for the in-link
+ * updates and a count of the pages of each host in the tree, for the scorer;
+ * offer(), poll() and rescoring are O(log n). All of them hold one lock for
+ * a few tree operations only.
+ *
+ * At most capacity pages are kept in memory. Without a spill directory, offer()
+ * waits for room as other frontiers do. With one, a full frontier moves its lowest
+ * scored quarter to a file on disk, sorted by score, and poll() takes the best of
+ * the tree and the heads of those files, so the order stays the same. Spilled pages
+ * keep the score they had, and are merged into one file when there are more than
+ * MAX_RUNS files. At most maxSpilled pages are spilled; offer() then waits for room.
+ *
+ * CrawlScheduler's page limit counts pages as they are queued, first come first
+ * served; to spend a budget of fetches on the best pages, give a larger limit and
+ * stop the crawl once the budget is spent.
+ */
+public class PriorityFrontier implements Frontier {
+
+    // Spill files kept before they are merged into one
+    static final int MAX_RUNS = 16;
+
+    private final int capacity;
+    private final PageScorer scorer;
+    private final long maxSpilled;
+    private Path spillDirectory;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final TreeSet<Entry> entries = new TreeSet<>(PriorityFrontier::compare);
+    private final Map<String, Entry> byUrl = new HashMap<>();
+    // Pages waiting in memory per origin; origins with none are removed
+    private final Map<String, Integer> hostPages = new HashMap<>();
+    // Spill files by the score of their next page, best first
+    private final PriorityQueue<Run> runs = new PriorityQueue<>((a, b) -> compare(a.head, b.head));
+    private long sequence;
+    private long spills;
+
+    // A waiting page and its score; score and inLinks change only while it is out of the tree
+    private static class Entry {
+        final CrawlTask task;
+        final long sequence;
+        double score;
+        int inLinks;
+
+        Entry(CrawlTask task, long sequence, double score, int inLinks) {
+            this.task = task;
+            this.sequence = sequence;
+            this.score = score;
+            this.inLinks = inLinks;
+        }
+    }
+
+    // Best first, then first come
+    private static int compare(Entry a, Entry b) {
+        int byScore = Double.compare(b.score, a.score);
+        return byScore != 0 ? byScore : Long.compare(a.sequence, b.sequence);
+    }
+
+    // A spill file being read back, best page first
+    private static class Run {
+        final Path file;
+        final DataInputStream in;
+        long remaining;
+        Entry head;
+
+        Run(Path file, long remaining) throws IOException {
+            this.file = file;
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)));
+            this.remaining = remaining;
+        }
+
+        // Reads the next page into head; false at the end of the file
+        boolean advance() throws IOException {
+            if (remaining == 0) {
+                return false;
+            }
+            double score = in.readDouble();
+            long sequence = in.readLong();
+            int depth = in.readInt();
+            String url = in.readUTF();
+            head = new Entry(new CrawlTask(url, depth), sequence, score, 0);
+            remaining--;
+            return true;
+        }
+
+        void delete() {
+            try {
+                in.close();
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                System.out.println("Could not delete " + file + ": " + e);
+            }
+        }
+    }
+
+    /**
+     * Creates a frontier that keeps all its pages in memory.
+     * @param capacity Maximum number of pages waiting
+     * @param scorer Scores the pages; higher scores are crawled first
+     */
+    public PriorityFrontier(int capacity, PageScorer scorer) {
+        this(capacity, scorer, null, 0);
+    }
+
+    /**
+     * Creates a frontier that moves its lowest scored pages to disk when it is full.
+     * @param capacity Maximum number of pages kept in memory
+     * @param scorer Scores the pages; higher scores are crawled first
+     * @param spillDirectory Directory for the spill files, or null to keep all pages in memory
+     * @param maxSpilled Maximum number of pages on disk
+     */
+    public PriorityFrontier(int capacity, PageScorer scorer, Path spillDirectory, long maxSpilled) {
+        if (capacity < 4) {
+            throw new IllegalArgumentException("Need capacity >= 4");
+        }
+        this.capacity = capacity;
+        this.scorer = scorer;
+        this.spillDirectory = spillDirectory;
+        this.maxSpilled = maxSpilled;
+    }
+
+    @Override
+    public boolean offer(CrawlTask task, long timeout, TimeUnit unit) throws InterruptedException {
+        long remaining = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (entries.size() >= capacity && !spill()) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                remaining = notFull.awaitNanos(remaining);
+            }
+            int pages = hostPages.merge(PoliteFrontier.originOf(task.getUrl()), 1, Integer::sum);
+            Entry entry = new Entry(task, sequence++, scorer.score(task, 1, pages), 1);
+            entries.add(entry);
+            byUrl.put(task.getUrl(), entry);
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Counts another link to a page while it waits in memory, and scores it again. */
+    @Override
+    public void linked(String url) {
+        lock.lock();
+        try {
+            Entry entry = byUrl.get(url);
+            if (entry != null) {
+                entries.remove(entry);
+                entry.inLinks++;
+                Integer pages = hostPages.get(PoliteFrontier.originOf(url));
+                entry.score = scorer.score(entry.task, entry.inLinks, pages == null ? 1 : pages);
+                entries.add(entry);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public CrawlTask poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long remaining = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (true) {
+                Entry best = entries.isEmpty() ? null : entries.first();
+                Run run = runs.peek();
+                if (run != null && (best == null || compare(run.head, best) < 0)) {
+                    runs.poll();
+                    CrawlTask task = run.head.task;
+                    advance(run);
+                    return task;
+                }
+                if (best != null) {
+                    entries.pollFirst();
+                    byUrl.remove(best.task.getUrl());
+                    uncount(best.task);
+                    notFull.signal();
+                    return best.task;
+                }
+                if (remaining <= 0) {
+                    return null;
+                }
+                remaining = notEmpty.awaitNanos(remaining);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Takes a page that leaves the tree off the count of its host; called with the lock held
+    private void uncount(CrawlTask task) {
+        hostPages.computeIfPresent(PoliteFrontier.originOf(task.getUrl()),
+                (origin, pages) -> pages > 1 ? pages - 1 : null);
+    }
+
+    // Moves a run to its next page, or deletes it at its end; called with the lock held
+    private void advance(Run run) {
+        try {
+            if (run.advance()) {
+                runs.add(run);
+                return;
+            }
+        } catch (IOException e) {
+            // The rest of the file is lost, rather than the crawl
+            System.out.println("Could not read " + run.file + ": " + e);
+        }
+        run.delete();
+        notFull.signal();
+    }
+
+    /*
+     * Moves the lowest scored quarter of the tree to a new spill file, merging the
+     * files if there are too many. Returns false if pages cannot be spilled, because
+     * there is no spill directory, too many pages are on disk already, or writing
+     * failed; spilling is then turned off. Called with the lock held.
+     */
+    private boolean spill() {
+        int count = capacity / 4;
+        if (spillDirectory == null || spilled() + count > maxSpilled) {
+            return false;
+        }
+        List<Entry> worst = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            worst.add(entries.pollLast());
+        }
+        Collections.reverse(worst);
+        try {
+            addRun(worst);
+        } catch (IOException e) {
+            System.out.println("Could not spill the frontier to " + spillDirectory + ": " + e);
+            spillDirectory = null;
+            entries.addAll(worst);
+            return false;
+        }
+        for (Entry entry : worst) {
+            byUrl.remove(entry.task.getUrl());
+            uncount(entry.task);
+        }
+        spills++;
+        if (runs.size() > MAX_RUNS) {
+            mergeRuns();
+        }
+        return true;
+    }
+
+    // Writes pages, best first, to a new spill file and starts reading it back
+    private void addRun(List<Entry> pages) throws IOException {
+        Path file = Files.createTempFile(spillDirectory, "frontier-", ".spill");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+                for (Entry entry : pages) {
+                    write(out, entry);
+                }
+            }
+            Run run = new Run(file, pages.size());
+            run.advance();
+            runs.add(run);
+        } catch (IOException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+    }
+
+    private static void write(DataOutputStream out, Entry entry) throws IOException {
+        out.writeDouble(entry.score);
+        out.writeLong(entry.sequence);
+        out.writeInt(entry.task.getDepth());
+        out.writeUTF(entry.task.getUrl());
+    }
+
+    /*
+     * Merges every spill file into one, in order, so that few files are open. If that
+     * fails, spilling is turned off and the pages taken out of the files so far are
+     * lost. Called with the lock held.
+     */
+    private void mergeRuns() {
+        Path file = null;
+        Run run = null;
+        try {
+            file = Files.createTempFile(spillDirectory, "frontier-", ".spill");
+            long count = 0;
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+                while (!runs.isEmpty()) {
+                    run = runs.poll();
+                    write(out, run.head);
+                    count++;
+                    if (run.advance()) {
+                        runs.add(run);
+                    } else {
+                        run.delete();
+                    }
+                    run = null;
+                }
+            }
+            Run merged = new Run(file, count);
+            merged.advance();
+            runs.add(merged);
+        } catch (IOException e) {
+            System.out.println("Could not merge the frontier's spill files: " + e);
+            spillDirectory = null;
+            if (run != null) {
+                run.delete();
+            }
+            if (file != null) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException ignored) {
+                    // nothing more to lose
+                }
+            }
+        }
+    }
+
+    // Number of pages on disk: each file's head and the pages after it; called with the lock held
+    private long spilled() {
+        long spilled = 0;
+        for (Run run : runs) {
+            spilled += 1 + run.remaining;
+        }
+        return spilled;
+    }
+
+    @Override
+    public void done(CrawlTask task) {
+    }
+
+    /** Number of pages waiting, in memory and on disk. */
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return (int) Math.min(Integer.MAX_VALUE, entries.size() + spilled());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Number of pages waiting on disk. */
+    public long getSpilled() {
+        lock.lock();
+        try {
+            return spilled();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Number of times pages were moved to disk. */
+    public long getSpills() {
+        lock.lock();
+        try {
+            return spills;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Number of spill files on disk. */
+    public int getRuns() {
+        lock.lock();
+        try {
+            return runs.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Discards every waiting page and deletes the spill files. */
+    @Override
+    public void clear() {
+        lock.lock();
+        try {
+            entries.clear();
+            byUrl.clear();
+            hostPages.clear();
+            for (Run run : runs) {
+                run.delete();
+            }
+            runs.clear();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package crawler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/*
+ * What a crawl learned about each page it fetched, kept on disk for the next crawl of
+ * the same pages: the validators the server sent with the page, its ETag and
+ * Last-Modified headers, and the links and images found on it. The next crawl asks
+ * for the page only if it changed (If-None-Match, If-Modified-Since), and when the
+ * server answers 304 Not Modified, takes the links and images from here instead of
+ * downloading and parsing the page again.
+ *
+ * Entries are kept in memory by canonical URL, and save() writes them all to a
+ * temporary file that then replaces the store, so that a crash while saving leaves
+ * the previous one. A store that cannot be read, or whose checksum does not match,
+ * is started empty: the next crawl is simply a cold one.
+ *
+ * File layout (DataOutputStream): int MAGIC, int entryCount, then per entry
+ *   UTF url, UTF etag, UTF lastModified ("" for none),
+ *   int linkCount, UTF links..., int imageCount, UTF images...
+ * and finally the CRC-32C of everything before it, as an int.
+ */
+public class RecrawlStore {
+
+    private static final int MAGIC = 0x52435331; // "RCS1"
+    // Longest string writeUTF() takes, in its modified UTF-8
+    private static final int MAX_UTF_BYTES = 65535;
+
+    private final Path file;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /** The validators of a page and what was found on it, as last fetched whole. */
+    public static final class Entry {
+        private final String etag;
+        private final String lastModified;
+        private final List<String> links;
+        private final List<String> images;
+
+        /**
+         * @param etag The ETag header, or null
+         * @param lastModified The Last-Modified header as sent, or null
+         * @param links Canonical links found on the page, in order
+         * @param images Images found on the page, in order
+         */
+        public Entry(String etag, String lastModified, List<String> links, List<String> images) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.links = List.copyOf(links);
+            this.images = List.copyOf(images);
+        }
+
+        /** The ETag header, or null. */
+        public String getEtag() {
+            return etag;
+        }
+
+        /** The Last-Modified header as sent, or null. */
+        public String getLastModified() {
+            return lastModified;
+        }
+
+        public List<String> getLinks() {
+            return links;
+        }
+
+        public List<String> getImages() {
+            return images;
+        }
+    }
+
+    /**
+     * Opens a store, reading the entries saved in it before.
+     * @param file The store; need not exist yet
+     */
+    public RecrawlStore(Path file) {
+        this.file = file;
+        try (InputStream in = Files.newInputStream(file)) {
+            read(in);
+        } catch (NoSuchFileException e) {
+            // first crawl
+        } catch (IOException e) {
+            System.out.println("Error reading " + file + ", recrawling every page whole: " + e);
+            entries.clear();
+        }
+    }
+
+    private void read(InputStream stream) throws IOException {
+        CRC32C crc = new CRC32C();
+        DataInputStream in = new DataInputStream(new CheckedInputStream(new BufferedInputStream(stream), crc));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a recrawl store");
+        }
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            String url = in.readUTF();
+            String etag = in.readUTF();
+            String lastModified = in.readUTF();
+            List<String> links = readList(in);
+            List<String> images = readList(in);
+            entries.put(url, new Entry(etag.isEmpty() ? null : etag, lastModified.isEmpty() ? null : lastModified,
+                    links, images));
+        }
+        int expected = (int) crc.getValue();
+        if (in.readInt() != expected) {
+            throw new IOException("Checksum mismatch");
+        }
+    }
+
+    private static List<String> readList(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        if (count < 0) {
+            throw new IOException("Negative count");
+        }
+        List<String> list = new ArrayList<>(Math.min(count, 1024));
+        for (int i = 0; i < count; i++) {
+            list.add(in.readUTF());
+        }
+        return list;
+    }
+
+    /** The entry of a page, or null if it was not fetched whole with a validator before. */
+    public Entry get(String url) {
+        return entries.get(url);
+    }
+
+    /** Keeps the validators of a page just fetched whole, and what was found on it. */
+    public void put(String url, Entry entry) {
+        entries.put(url, entry);
+    }
+
+    /** Forgets a page, as when it is now sent without validators. */
+    public void remove(String url) {
+        entries.remove(url);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Writes every entry to the file, replacing what was saved before. Entries with a
+     * URL longer than 64 KB are left out; so are links and images that long.
+     */
+    public void save() throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        CRC32C crc = new CRC32C();
+        try (OutputStream stream = Files.newOutputStream(temporary)) {
+            DataOutputStream out = new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(stream), crc));
+            List<Map.Entry<String, Entry>> saved = new ArrayList<>();
+            for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                if (fits(entry.getKey())) {
+                    saved.add(entry);
+                }
+            }
+            out.writeInt(MAGIC);
+            out.writeInt(saved.size());
+            for (Map.Entry<String, Entry> saving : saved) {
+                Entry entry = saving.getValue();
+                out.writeUTF(saving.getKey());
+                out.writeUTF(entry.etag == null || !fits(entry.etag) ? "" : entry.etag);
+                out.writeUTF(entry.lastModified == null || !fits(entry.lastModified) ? "" : entry.lastModified);
+                writeList(out, entry.links);
+                writeList(out, entry.images);
+            }
+            // The checksum covers what was written so far, and is not part of itself
+            out.writeInt((int) crc.getValue());
+            out.flush();
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeList(DataOutputStream out, List<String> list) throws IOException {
+        int count = 0;
+        for (String value : list) {
+            if (fits(value)) {
+                count++;
+            }
+        }
+        out.writeInt(count);
+        for (String value : list) {
+            if (fits(value)) {
+                out.writeUTF(value);
+            }
+        }
+    }
+
+    // Whether writeUTF() takes the string: at most MAX_UTF_BYTES in its modified UTF-8
+    private static boolean fits(String value) {
+        if (value.length() <= MAX_UTF_BYTES / 3) {
+            return true;
+        }
+        long bytes = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            bytes += c >= 1 && c <= 0x7F ? 1 : c <= 0x7FF ? 2 : 3;
+        }
+        return bytes <= MAX_UTF_BYTES;
+    }
+}
@@ -0,0 +1,150 @@
+package crawler;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/*
+ * Serves pages and images recorded earlier, so that a crawl can be run again offline
+ * and gives the same result every time. The recording is either a CrawlArchive,
+ * whose responses are served with their original status and headers, redirects
+ * included, or a directory mirroring sites as wget does:
+ *   <directory>/<host>[_<port>]/<path>[?<query>]
+ * with index.html for a path that is a directory. Files from a directory are served
+ * with a Content-Type from their extension, files without one as HTML. URLs that
+ * were not recorded are answered with 404.
+ */
+public class ReplayFetcher extends OfflineFetcher {
+
+    private static final Map<String, String> CONTENT_TYPES = Map.of(
+            "html", "text/html", "htm", "text/html", "txt", "text/plain", "css", "text/css",
+            "png", "image/png", "jpg", "image/jpeg", "jpeg", "image/jpeg", "gif", "image/gif",
+            "webp", "image/webp", "svg", "image/svg+xml");
+
+    private final ArchiveReader archive;
+    private final boolean ownsArchive;
+    private final Path directory;
+
+    /**
+     * Serves the responses in an archive.
+     * @param archive The archive; left open by close()
+     * @param threads Number of threads that read the responses and run the body consumers
+     */
+    public ReplayFetcher(ArchiveReader archive, int threads) {
+        this(archive, false, null, threads);
+    }
+
+    /**
+     * Serves the files in a directory mirroring sites.
+     * @param directory The directory, with a subdirectory per host
+     * @param threads Number of threads that read the files and run the body consumers
+     */
+    public ReplayFetcher(Path directory, int threads) {
+        this(null, false, directory, threads);
+    }
+
+    private ReplayFetcher(ArchiveReader archive, boolean ownsArchive, Path directory, int threads) {
+        super("replay", threads, 0);
+        this.archive = archive;
+        this.ownsArchive = ownsArchive;
+        this.directory = directory == null ? null : directory.toAbsolutePath().normalize();
+    }
+
+    /**
+     * Serves the recording in a directory: a CrawlArchive if it holds one, or else a
+     * mirror of sites.
+     * @param directory Directory a CrawlArchive wrote to, or a mirror of sites
+     * @param threads Number of threads that read the responses and run the body consumers
+     */
+    public static ReplayFetcher open(Path directory, int threads) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            throw new IOException("Not a directory: " + directory);
+        }
+        if (CrawlArchive.lastFileNumber(directory) > 0) {
+            return new ReplayFetcher(new ArchiveReader(directory), true, null, threads);
+        }
+        return new ReplayFetcher(directory, threads);
+    }
+
+    /**
+     * The page to start a crawl of the recording from: the seed of the first crawl in
+     * the archive, or the first URL archived if no seed was; null for a directory.
+     */
+    public String getFirstUrl() {
+        if (archive == null) {
+            return null;
+        }
+        if (!archive.getSeeds().isEmpty()) {
+            return archive.getSeeds().get(0);
+        }
+        return archive.size() == 0 ? null : archive.getUrls().get(0);
+    }
+
+    @Override
+    Response respond(String url) throws IOException {
+        if (archive != null) {
+            ArchiveReader.Record record = archive.read(url);
+            return record == null ? NOT_FOUND : new Response(record.getStatusCode(), record.getHeaders(), record.getBody());
+        }
+        Path file = fileOf(url);
+        if (file != null && Files.isDirectory(file)) {
+            file = file.resolve("index.html");
+        }
+        if (file == null || !Files.isRegularFile(file)) {
+            return NOT_FOUND;
+        }
+        byte[] body = Files.readAllBytes(file);
+        return new Response(200, Map.of("Content-Type", List.of(contentTypeOf(file)),
+                "Content-Length", List.of(String.valueOf(body.length))), body);
+    }
+
+    // Where a URL is mirrored, or null if it cannot be, or would be outside the directory
+    Path fileOf(String url) {
+        URI uri;
+        try {
+            uri = URI.create(url);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (uri.getHost() == null) {
+            return null;
+        }
+        String host = uri.getHost().toLowerCase(Locale.ROOT) + (uri.getPort() == -1 ? "" : "_" + uri.getPort());
+        String path = uri.getPath() == null || uri.getPath().isEmpty() ? "/" : uri.getPath();
+        if (path.endsWith("/")) {
+            path += "index.html";
+        }
+        if (uri.getRawQuery() != null) {
+            path += "?" + uri.getRawQuery();
+        }
+        Path file = directory.resolve(host).resolve(path.substring(1)).normalize();
+        return file.startsWith(directory.resolve(host)) ? file : null;
+    }
+
+    private static String contentTypeOf(Path file) {
+        String name = file.getFileName().toString();
+        int query = name.indexOf('?');
+        if (query >= 0) {
+            name = name.substring(0, query);
+        }
+        int dot = name.lastIndexOf('.');
+        String type = dot < 0 ? null : CONTENT_TYPES.get(name.substring(dot + 1).toLowerCase(Locale.ROOT));
+        return type != null ? type : dot < 0 ? "text/html" : "application/octet-stream";
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        if (ownsArchive) {
+            try {
+                archive.close();
+            } catch (IOException e) {
+                System.out.println("Error closing " + archive.getDirectory() + ": " + e);
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package crawler;
+
+import java.util.Locale;
+
+/*
+ * Reads the Crawl-delay a site asks for in its robots.txt. Only the delay is read;
+ * Allow and Disallow rules are not applied.
+ */
+public final class RobotsTxt {
+
+    private RobotsTxt() {
+    }
+
+    /**
+     * Finds the crawl delay for a crawler. As RFC 9309 has it, only the most specific
+     * group applies: when a group names the crawler's user agent, the "*" group is
+     * ignored, even if the named group sets no delay. A group names the crawler when its
+     * product token, the part before any "/", is the crawler's, ignoring case.
+     * @param robotsTxt Contents of robots.txt
+     * @param userAgent Product token of the crawler, e.g. "mycrawler"; a version after a "/" is ignored
+     * @return The delay in milliseconds, or -1 if the file sets none for this crawler
+     */
+    public static long crawlDelayMillis(String robotsTxt, String userAgent) {
+        String agent = productToken(userAgent);
+        long wildcardDelay = -1;
+        long agentDelay = -1;
+        boolean agentNamed = false;
+        // User-agent lines that follow each other form one group
+        boolean inWildcard = false;
+        boolean inAgent = false;
+        boolean groupHasRules = false;
+        for (String line : robotsTxt.split("\r\n|\r|\n")) {
+            int comment = line.indexOf('#');
+            if (comment >= 0) {
+                line = line.substring(0, comment);
+            }
+            int colon = line.indexOf(':');
+            if (colon < 0) {
+                continue;
+            }
+            String field = line.substring(0, colon).trim().toLowerCase(Locale.ROOT);
+            String value = line.substring(colon + 1).trim();
+            if (field.equals("user-agent")) {
+                if (groupHasRules) {
+                    inWildcard = false;
+                    inAgent = false;
+                    groupHasRules = false;
+                }
+                String named = productToken(value);
+                inWildcard |= named.equals("*");
+                inAgent |= !named.isEmpty() && named.equals(agent);
+                agentNamed |= inAgent;
+            } else {
+                groupHasRules = true;
+                if (field.equals("crawl-delay")) {
+                    long delay = parseSeconds(value);
+                    if (inAgent && delay >= 0) {
+                        agentDelay = delay;
+                    } else if (inWildcard && delay >= 0) {
+                        wildcardDelay = delay;
+                    }
+                }
+            }
+        }
+        return agentNamed ? agentDelay : wildcardDelay;
+    }
+
+    // The product token of a user agent, without its version, in lower case
+    private static String productToken(String userAgent) {
+        int slash = userAgent.indexOf('/');
+        return (slash < 0 ? userAgent : userAgent.substring(0, slash)).trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static long parseSeconds(String value) {
+        try {
+            double seconds = Double.parseDouble(value);
+            return seconds >= 0 && seconds < 86400 ? Math.round(seconds * 1000) : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package crawler;
+
+/*
+ * Remembers which URLs the crawler has already seen, so that each page is queued once.
+ * Implementations must be safe to call from every crawler thread at once.
+ *
+ *   ConcurrentSeenUrlStore  - exact, keeps every URL string; the default
+ *   FingerprintSeenUrlStore - keeps a 64-bit fingerprint per URL in primitive tables
+ *   BloomSeenUrlStore       - fixed-size bit array; may report an unseen URL as seen
+ */
+public interface SeenUrlStore {
+
+    /**
+     * Marks a URL as seen.
+     * @param url The URL
+     * @return true if the URL had not been seen before, false if it had
+     */
+    boolean add(String url);
+
+    /**
+     * Checks whether a URL has been seen, without marking it.
+     * @param url The URL
+     * @return true if the URL has been seen
+     */
+    boolean contains(String url);
+
+    /**
+     * Returns the number of distinct URLs seen so far.
+     * @return Number of URLs for which add() returned true
+     */
+    long size();
+}
@@ -0,0 +1,151 @@
+package crawler;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.imageio.ImageIO;
+
+/*
+ * Makes up a site of any size, the same every time, so that a crawl can be measured
+ * reproducibly without a network. Page i, /page/i, is served from host
+ * site<i % hosts>.test; it has about pageBytes of text and links to pages
+ * i * fanout + 1 to i * fanout + fanout (modulo the number of pages), so that every
+ * page is reached from page 0, and to one earlier page chosen at random, so that the
+ * crawl finds links to pages it has already seen as real crawls do. Each page also
+ * shows one of IMAGES images, /image/j.png.
+ *
+ * Every response is delayed by the latency; any other URL is answered with 404.
+ */
+public class SyntheticFetcher extends OfflineFetcher {
+
+    // Number of different images shown by the pages
+    static final int IMAGES = 16;
+    private static final int IMAGE_WIDTH = 320;
+    private static final int IMAGE_HEIGHT = 240;
+
+    private static final Map<String, List<String>> HTML = Map.of("Content-Type", List.of("text/html; charset=utf-8"));
+    private static final Map<String, List<String>> PNG = Map.of("Content-Type", List.of("image/png"));
+    private static final String[] WORDS = { "crawler", "page", "link", "image", "frontier", "queue", "host",
+            "fetch", "parse", "index", "copy", "mirror", "session", "print", "text", "site", "server", "thread",
+            "body", "tag" };
+
+    private final int pages;
+    private final int fanout;
+    private final int hosts;
+    private final int pageBytes;
+    private final Map<Integer, byte[]> images = new ConcurrentHashMap<>();
+
+    /**
+     * @param pages Number of pages of the site
+     * @param fanout Number of new pages each page links to
+     * @param hosts Number of hosts the pages are spread over
+     * @param pageBytes Approximate size of each page
+     * @param latencyMillis Time each response is delayed by
+     * @param threads Number of threads that make the pages and run the body consumers
+     */
+    public SyntheticFetcher(int pages, int fanout, int hosts, int pageBytes, long latencyMillis, int threads) {
+        super("synthetic", threads, latencyMillis);
+        if (pages < 1 || fanout < 1 || hosts < 1) {
+            throw new IllegalArgumentException("Need pages, fanout and hosts >= 1");
+        }
+        this.pages = pages;
+        this.fanout = fanout;
+        this.hosts = hosts;
+        this.pageBytes = pageBytes;
+    }
+
+    /** URL of page i; page 0 is the seed from which every page is reached. */
+    public String url(int page) {
+        return "http://site" + page % hosts + ".test/page/" + page;
+    }
+
+    /** URL of image j. */
+    public String imageUrl(int image) {
+        return "http://site0.test/image/" + image + ".png";
+    }
+
+    public int getPages() {
+        return pages;
+    }
+
+    @Override
+    Response respond(String url) {
+        String path;
+        try {
+            path = URI.create(url).getPath();
+        } catch (IllegalArgumentException e) {
+            return NOT_FOUND;
+        }
+        if (path == null) {
+            return NOT_FOUND;
+        }
+        if (path.startsWith("/page/")) {
+            int page = number(path.substring("/page/".length()));
+            return page < 0 || page >= pages ? NOT_FOUND : new Response(200, HTML, page(page));
+        }
+        if (path.startsWith("/image/") && path.endsWith(".png")) {
+            int image = number(path.substring("/image/".length(), path.length() - ".png".length()));
+            if (image < 0 || image >= IMAGES) {
+                return NOT_FOUND;
+            }
+            return new Response(200, PNG, images.computeIfAbsent(image, SyntheticFetcher::image));
+        }
+        return NOT_FOUND;
+    }
+
+    private static int number(String text) {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // The HTML of page i, the same each time
+    byte[] page(int page) {
+        Random random = new Random(page);
+        StringBuilder html = new StringBuilder(pageBytes + 100 * (fanout + 2));
+        html.append("<html><head><title>Page ").append(page).append("</title></head><body>\n<h1>Page ")
+                .append(page).append("</h1>\n<p>");
+        while (html.length() < pageBytes) {
+            html.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+        }
+        html.append("</p>\n");
+        for (long child = (long) page * fanout + 1; child <= (long) page * fanout + fanout; child++) {
+            html.append("<a href=\"").append(url((int) (child % pages))).append("\">page ").append(child % pages)
+                    .append("</a>\n");
+        }
+        html.append("<a href=\"").append(url(random.nextInt(Math.max(1, page)))).append("\">back</a>\n");
+        html.append("<img src=\"").append(imageUrl(page % IMAGES)).append("\" alt=\"\">\n");
+        html.append("</body></html>\n");
+        return html.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    // A PNG of one colour per image, made once
+    private static byte[] image(int image) {
+        BufferedImage picture = new BufferedImage(IMAGE_WIDTH, IMAGE_HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = picture.createGraphics();
+        try {
+            g.setColor(Color.getHSBColor((float) image / IMAGES, 0.6f, 0.9f));
+            g.fillRect(0, 0, IMAGE_WIDTH, IMAGE_HEIGHT);
+        } finally {
+            g.dispose();
+        }
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        try {
+            ImageIO.write(picture, "png", png);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return png.toByteArray();
+    }
+}
@@ -0,0 +1,206 @@
+package crawler;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/*
+ * Turns the links found on a page into absolute, canonical URLs, so that every way of
+ * writing the same address is deduplicated as one page:
+ *   - relative links are resolved against the page's base URL
+ *   - scheme and host are lower-cased, and default ports (80, 443) are dropped
+ *   - "." and ".." path segments are removed, and an empty path becomes "/"
+ *   - the #fragment is dropped, as is an empty "?"
+ *   - percent-escapes are upper-cased, escapes of unreserved characters are decoded,
+ *     and characters that are not allowed in a URL (spaces, non-ASCII) are escaped
+ * The query string is otherwise kept as written, since reordering parameters can
+ * change what a server returns.
+ */
+public final class UrlNormalizer {
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private UrlNormalizer() {
+    }
+
+    /**
+     * Resolves a link against the URL of the page it was found on and canonicalizes it.
+     * @param base Absolute URL of the page (or of its <base href>)
+     * @param link The link as written in the page, absolute or relative
+     * @return The canonical absolute URL, or null if the link is not an http(s) URL
+     *         (mailto:, javascript:, a bare fragment...) or cannot be parsed
+     */
+    public static String normalize(String base, String link) {
+        if (link == null) {
+            return null;
+        }
+        link = link.trim();
+        if (link.isEmpty() || link.startsWith("#")) {
+            return null; // the page itself
+        }
+        try {
+            URI uri = parse(link);
+            if (base != null && !uri.isAbsolute()) {
+                uri = resolve(parse(base), uri);
+            }
+            return canonicalize(uri);
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Canonicalizes an absolute URL.
+     * @param url Absolute URL
+     * @return The canonical URL, or null if it is not an http(s) URL or cannot be parsed
+     */
+    public static String normalize(String url) {
+        return normalize(null, url);
+    }
+
+    private static URI parse(String url) throws URISyntaxException {
+        return new URI(escapeIllegal(url));
+    }
+
+    /*
+     * URI.resolve follows the older RFC 2396, which differs from browsers for a base
+     * with an empty path ("http://host" + "a" gives "http://hosta") and for links that
+     * are only a query string.
+     */
+    private static URI resolve(URI base, URI link) throws URISyntaxException {
+        if (base.getRawPath() == null || base.getRawPath().isEmpty()) {
+            base = new URI(base.getScheme(), base.getRawAuthority(), "/", null, null);
+        }
+        if (link.getRawPath().isEmpty() && link.getRawAuthority() == null && link.getRawQuery() != null) {
+            return new URI(base.getScheme() + "://" + base.getRawAuthority() + base.getRawPath() + "?" + link.getRawQuery());
+        }
+        return base.resolve(link);
+    }
+
+    private static String canonicalize(URI uri) {
+        String scheme = uri.getScheme();
+        String host = uri.getHost();
+        if (scheme == null || host == null) {
+            return null;
+        }
+        scheme = scheme.toLowerCase(Locale.ROOT);
+        if (!scheme.equals("http") && !scheme.equals("https")) {
+            return null;
+        }
+        int port = uri.getPort();
+        if ((port == 80 && scheme.equals("http")) || (port == 443 && scheme.equals("https"))) {
+            port = -1;
+        }
+
+        StringBuilder url = new StringBuilder(scheme).append("://");
+        if (uri.getRawUserInfo() != null) {
+            url.append(uri.getRawUserInfo()).append('@');
+        }
+        url.append(host.toLowerCase(Locale.ROOT));
+        if (port != -1) {
+            url.append(':').append(port);
+        }
+        // Escapes first, so that "%2E%2E" is a ".." segment too
+        String path = removeDotSegments(normalizeEscapes(uri.getRawPath()));
+        url.append(path.isEmpty() ? "/" : path);
+        String query = uri.getRawQuery();
+        if (query != null && !query.isEmpty()) {
+            url.append('?').append(normalizeEscapes(query));
+        }
+        return url.toString();
+    }
+
+    /*
+     * RFC 3986 section 5.2.4. URI.normalize() does this too but keeps ".." segments
+     * that climb above the root, which browsers drop.
+     */
+    private static String removeDotSegments(String path) {
+        if (path == null || path.isEmpty()) {
+            return "";
+        }
+        if (path.indexOf('.') < 0) {
+            return path;
+        }
+        String[] segments = path.split("/", -1);
+        String[] output = new String[segments.length];
+        int count = 0;
+        for (int i = 1; i < segments.length; i++) {
+            String segment = segments[i];
+            boolean last = i == segments.length - 1;
+            if (segment.equals(".") || segment.equals("..")) {
+                if (segment.equals("..") && count > 0) {
+                    count--;
+                }
+                if (last) {
+                    output[count++] = ""; // "/a/b/.." keeps its trailing slash
+                }
+            } else {
+                output[count++] = segment;
+            }
+        }
+        StringBuilder result = new StringBuilder(path.length());
+        for (int i = 0; i < count; i++) {
+            result.append('/').append(output[i]);
+        }
+        return result.length() == 0 ? "/" : result.toString();
+    }
+
+    // Upper-cases the percent-escapes of raw URL text and decodes escaped unreserved characters
+    private static String normalizeEscapes(String raw) {
+        if (raw == null || raw.indexOf('%') < 0) {
+            return raw;
+        }
+        StringBuilder url = new StringBuilder(raw.length());
+        for (int i = 0; i < raw.length(); i++) {
+            char c = raw.charAt(i);
+            if (c == '%' && i + 2 < raw.length() && isHex(raw.charAt(i + 1)) && isHex(raw.charAt(i + 2))) {
+                int value = Character.digit(raw.charAt(i + 1), 16) * 16 + Character.digit(raw.charAt(i + 2), 16);
+                if (isUnreserved((char) value)) {
+                    url.append((char) value);
+                } else {
+                    url.append('%').append(HEX[value >> 4]).append(HEX[value & 15]);
+                }
+                i += 2;
+            } else {
+                url.append(c);
+            }
+        }
+        return url.toString();
+    }
+
+    // Percent-encodes characters that URI would reject, as browsers do before sending a request
+    private static String escapeIllegal(String url) {
+        StringBuilder escaped = null;
+        for (int i = 0; i < url.length(); i++) {
+            char c = url.charAt(i);
+            boolean illegal = c <= ' ' || c >= 0x7f || "\"<>\\^`{|}".indexOf(c) >= 0;
+            if (illegal && escaped == null) {
+                escaped = new StringBuilder(url.length() + 16).append(url, 0, i);
+            }
+            if (!illegal) {
+                if (escaped != null) {
+                    escaped.append(c);
+                }
+            } else if (c == '\t' || c == '\n' || c == '\r') {
+                continue; // stripped by browsers, e.g. hrefs split across lines
+            } else {
+                int end = Character.isHighSurrogate(c) && i + 1 < url.length() ? i + 2 : i + 1;
+                for (byte b : url.substring(i, end).getBytes(StandardCharsets.UTF_8)) {
+                    escaped.append('%').append(HEX[(b >> 4) & 15]).append(HEX[b & 15]);
+                }
+                i = end - 1;
+            }
+        }
+        return escaped == null ? url : escaped.toString();
+    }
+
+    private static boolean isHex(char c) {
+        return Character.digit(c, 16) >= 0 && c < 0x80;
+    }
+
+    private static boolean isUnreserved(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                || c == '-' || c == '.' || c == '_' || c == '~';
+    }
+}
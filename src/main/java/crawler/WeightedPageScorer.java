@@ -0,0 +1,93 @@
+package crawler;
+
+import java.util.Locale;
+
+/*
+ * PageScorer that adds up four signals, each times its weight:
+ *
+ *   depth            - links between the seed and the page, counted against it
+ *   in-links         - log2 of the links to the page found so far
+ *   host pages       - log2 of the pages of its host waiting, counted against it,
+ *                      so that one large site does not crowd out the others
+ *   image likelihood - 1 if the path looks like a gallery, photo or image page
+ *
+ * The default weights make a page with one more level of depth worth two more links
+ * to it, and a likely image page worth two levels of depth.
+ */
+public class WeightedPageScorer implements PageScorer {
+
+    // Path words of pages that usually show images, also with an "s" added
+    private static final String[] IMAGE_WORDS = { "gallery", "galleries", "photo", "image", "img", "picture", "pic",
+            "album", "wallpaper", "portfolio" };
+    // Extensions of files that are not pages
+    private static final String[] FILE_EXTENSIONS = { ".jpg", ".jpeg", ".png", ".gif", ".webp", ".svg", ".pdf",
+            ".zip", ".mp4", ".mp3" };
+
+    private final double depthWeight;
+    private final double inLinkWeight;
+    private final double hostWeight;
+    private final double imageWeight;
+
+    /** Creates a scorer with the default weights: 1 for depth and in-links, 0.5 for host pages, 2 for images. */
+    public WeightedPageScorer() {
+        this(1, 1, 0.5, 2);
+    }
+
+    /**
+     * @param depthWeight Score taken off per level of depth
+     * @param inLinkWeight Score added per doubling of the links to the page
+     * @param hostWeight Score taken off per doubling of the pages of its host
+     * @param imageWeight Score added to pages that likely show images
+     */
+    public WeightedPageScorer(double depthWeight, double inLinkWeight, double hostWeight, double imageWeight) {
+        this.depthWeight = depthWeight;
+        this.inLinkWeight = inLinkWeight;
+        this.hostWeight = hostWeight;
+        this.imageWeight = imageWeight;
+    }
+
+    @Override
+    public double score(CrawlTask task, int inLinks, int hostPages) {
+        return inLinkWeight * log2(inLinks) - depthWeight * task.getDepth() - hostWeight * log2(hostPages)
+                + imageWeight * imageLikelihood(task.getUrl());
+    }
+
+    private static double log2(int n) {
+        return n <= 1 ? 0 : Math.log(n) / Math.log(2);
+    }
+
+    /*
+     * How likely the page is to show images, from its URL alone: 1 if a word of its
+     * path names images, 0 otherwise, and for images and other files themselves, which
+     * have no images to find.
+     */
+    static double imageLikelihood(String url) {
+        int start = url.indexOf('/', url.indexOf("://") + 3);
+        if (start < 0) {
+            return 0;
+        }
+        int end = url.indexOf('?', start);
+        String path = url.substring(start, end < 0 ? url.length() : end).toLowerCase(Locale.ROOT);
+        for (String extension : FILE_EXTENSIONS) {
+            if (path.endsWith(extension)) {
+                return 0;
+            }
+        }
+        for (String word : IMAGE_WORDS) {
+            for (int at = path.indexOf(word); at >= 0; at = path.indexOf(word, at + 1)) {
+                if (isWord(path, at, at + word.length())) {
+                    return 1;
+                }
+            }
+        }
+        return 0;
+    }
+
+    // Whether path[from, to) is a word of its own, maybe plural, and not part of a word such as "topic"
+    private static boolean isWord(String path, int from, int to) {
+        if (to < path.length() && path.charAt(to) == 's') {
+            to++;
+        }
+        return !Character.isLetter(path.charAt(from - 1)) && (to == path.length() || !Character.isLetter(path.charAt(to)));
+    }
+}
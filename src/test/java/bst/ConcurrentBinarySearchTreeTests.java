@@ -0,0 +1,63 @@
+// Tests for ConcurrentBinarySearchTree.java
+package bst;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class ConcurrentBinarySearchTreeTests {
+    // Test case for the single-threaded operations shared with BinarySearchTree
+    @Test
+    public void testBasicOperations() {
+        ConcurrentBinarySearchTree<String, String> tree = new ConcurrentBinarySearchTree<>();
+        assertTrue(tree.put("B", "b"));
+        assertTrue(tree.put("C", "c"));
+        assertTrue(tree.put("A", "a"));
+        assertFalse(tree.put("A", "new_a"));
+        assertTrue(tree.put("D", null));
+        // Check lookups, including a null value
+        assertEquals("new_a", tree.get("A"));
+        assertNull(tree.get("D"));
+        assertTrue(tree.containsKey("D"));
+        assertEquals("D", tree.reverseLookup(null));
+        assertEquals("new_a", tree.getValueForSmallestKey());
+        assertEquals("{A:new_a}{B:b}{C:c}{D:null}", tree.toString());
+        // Check removal and clearing
+        tree.remove("A");
+        assertFalse(tree.containsKey("A"));
+        assertEquals("b", tree.getValueForSmallestKey());
+        tree.clear();
+        assertEquals(0, tree.size());
+        assertNull(tree.getValueForSmallestKey());
+    }
+
+    // Test case for concurrent writers on disjoint keys
+    @Test
+    public void testConcurrentPuts() throws InterruptedException {
+        ConcurrentBinarySearchTree<Integer, Integer> tree = new ConcurrentBinarySearchTree<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int offset = t;
+            threads.add(new Thread(() -> {
+                for (int i = offset; i < 80000; i += 8) {
+                    tree.put(i, i);
+                    tree.get(i / 2);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        // Check that no insert was lost
+        assertEquals(80000, tree.size());
+        for (int i = 0; i < 80000; i++) {
+            assertEquals(Integer.valueOf(i), tree.get(i));
+        }
+    }
+}
@@ -0,0 +1,75 @@
+// Tests for LongBinarySearchTree.java
+package bst;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+public class LongBinarySearchTreeTests {
+    // Test case for 'put', 'get' and 'remove' against java.util.TreeMap
+    @Test
+    public void testRandomOperationsMatchTreeMap() {
+        LongBinarySearchTree<String> tree = new LongBinarySearchTree<>();
+        TreeMap<Long, String> expected = new TreeMap<>();
+        Random random = new Random(3);
+        for (int i = 0; i < 50000; i++) {
+            long key = random.nextInt(5000) - 2500L;
+            if (random.nextInt(3) == 0) {
+                tree.remove(key);
+                expected.remove(key);
+            } else {
+                assertEquals(!expected.containsKey(key), tree.put(key, "v" + i));
+                expected.put(key, "v" + i);
+            }
+        }
+        assertEquals(expected.size(), tree.size());
+        for (long key = -2500; key < 2500; key++) {
+            assertEquals(expected.get(key), tree.get(key));
+            assertEquals(expected.containsKey(key), tree.containsKey(key));
+        }
+        // Check that the tree stayed balanced despite the churn
+        assertTrue(tree.getHeight() <= 1.45 * Math.log(expected.size() + 2) / Math.log(2));
+    }
+
+    // Test case for in-order iteration with 'forEach'
+    @Test
+    public void testForEachVisitsKeysInOrder() {
+        LongBinarySearchTree<Long> tree = new LongBinarySearchTree<>(4);
+        for (long i = 1000; i > 0; i--) {
+            tree.put(i * 7, i);
+        }
+        List<Long> keys = new ArrayList<>();
+        tree.forEach((key, value) -> {
+            assertEquals(key, value * 7);
+            keys.add(key);
+        });
+        assertEquals(1000, keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            assertEquals(Long.valueOf((i + 1) * 7L), keys.get(i));
+        }
+    }
+
+    // Test case for 'clear' and slot reuse after removal
+    @Test
+    public void testClearAndReuse() {
+        LongBinarySearchTree<String> tree = new LongBinarySearchTree<>();
+        tree.put(Long.MIN_VALUE, "min");
+        tree.put(Long.MAX_VALUE, "max");
+        tree.put(0, "zero");
+        assertEquals("{-9223372036854775808:min}{0:zero}{9223372036854775807:max}", tree.toString());
+        tree.remove(0);
+        tree.put(1, "one");
+        assertEquals("one", tree.get(1));
+        assertNull(tree.get(0));
+        tree.clear();
+        assertEquals(0, tree.size());
+        assertNull(tree.get(1));
+        assertTrue(tree.put(1, "again"));
+        assertEquals("again", tree.get(1));
+    }
+}
@@ -0,0 +1,67 @@
+// Tests for MappedBinarySearchTree.java
+package bst;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MappedBinarySearchTreeTests {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // Test case for writing a snapshot and looking up keys in the mapped file
+    @Test
+    public void testWriteAndOpen() throws IOException {
+        BinarySearchTree<Integer, String> tree = new BinarySearchTree<>(true);
+        for (int i = 0; i < 10000; i += 2) {
+            tree.put(i, "value" + i);
+        }
+        tree.put(7, null);
+        Path file = folder.getRoot().toPath().resolve("tree.snapshot");
+        MappedBinarySearchTree.write(tree, file, MappedBinarySearchTree.INTEGERS, MappedBinarySearchTree.STRINGS);
+
+        try (MappedBinarySearchTree<Integer, String> mapped = MappedBinarySearchTree.open(file,
+                MappedBinarySearchTree.INTEGERS, MappedBinarySearchTree.STRINGS)) {
+            // Check every key, the gaps between them and a null value
+            assertEquals(5001, mapped.size());
+            for (int i = 0; i < 10000; i++) {
+                assertEquals(i % 2 == 0 ? "value" + i : null, mapped.get(i));
+            }
+            assertTrue(mapped.containsKey(7));
+            assertFalse(mapped.containsKey(9));
+            assertFalse(mapped.containsKey(-1));
+            assertEquals("value0", mapped.getValueForSmallestKey());
+            // Check that loading the snapshot back reproduces the tree
+            assertEquals(tree.toString(), mapped.toTree(false).toString());
+        }
+        assertFalse(Files.exists(file.resolveSibling("tree.snapshot.tmp")));
+    }
+
+    // Test case for an empty snapshot
+    @Test
+    public void testEmptySnapshot() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("empty.snapshot");
+        MappedBinarySearchTree.write(new BinarySearchTree<String, Long>(), file, MappedBinarySearchTree.STRINGS,
+                MappedBinarySearchTree.LONGS);
+        try (MappedBinarySearchTree<String, Long> mapped = MappedBinarySearchTree.open(file,
+                MappedBinarySearchTree.STRINGS, MappedBinarySearchTree.LONGS)) {
+            assertEquals(0, mapped.size());
+            assertNull(mapped.get("A"));
+            assertNull(mapped.getValueForSmallestKey());
+        }
+    }
+
+    // Test case for opening a file that is not a snapshot
+    @Test(expected = IOException.class)
+    public void testRejectsOtherFiles() throws IOException {
+        Path file = folder.newFile("other.txt").toPath();
+        Files.writeString(file, "not a snapshot");
+        MappedBinarySearchTree.open(file, MappedBinarySearchTree.STRINGS, MappedBinarySearchTree.STRINGS);
+    }
+}
@@ -0,0 +1,68 @@
+// Tests for PersistentBinarySearchTree.java
+package bst;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+public class PersistentBinarySearchTreeTests {
+    // Test case for old versions staying unchanged after put and remove
+    @Test
+    public void testVersionsAreIndependent() {
+        PersistentBinarySearchTree<String, String> empty = PersistentBinarySearchTree.empty();
+        PersistentBinarySearchTree<String, String> v1 = empty.put("B", "b").put("C", "c").put("A", "a");
+        PersistentBinarySearchTree<String, String> v2 = v1.put("A", "new_a").remove("B");
+        // Check that each version sees only its own updates
+        assertEquals("{A:a}{B:b}{C:c}", v1.toString());
+        assertEquals("{A:new_a}{C:c}", v2.toString());
+        assertTrue(empty.isEmpty());
+        assertEquals(3, v1.size());
+        assertEquals(2, v2.size());
+        assertEquals("a", v1.getValueForSmallestKey());
+        // Check that no-op updates return the same version
+        assertSame(v2, v2.remove("Z"));
+        assertSame(v2, v2.put("C", v2.get("C")));
+    }
+
+    // Test case comparing random updates against java.util.TreeMap
+    @Test
+    public void testRandomOperationsMatchTreeMap() {
+        PersistentBinarySearchTree<Integer, Integer> tree = PersistentBinarySearchTree.empty();
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+        Random random = new Random(9);
+        for (int i = 0; i < 20000; i++) {
+            int key = random.nextInt(2000);
+            if (random.nextInt(3) == 0) {
+                tree = tree.remove(key);
+                expected.remove(key);
+            } else {
+                tree = tree.put(key, i);
+                expected.put(key, i);
+            }
+        }
+        assertEquals(expected.size(), tree.size());
+        for (int key = 0; key < 2000; key++) {
+            assertEquals(expected.get(key), tree.get(key));
+            assertEquals(expected.containsKey(key), tree.containsKey(key));
+        }
+        // Check that the tree stayed within the AVL height bound
+        assertTrue(tree.getHeight() <= 1.45 * Math.log(expected.size() + 2) / Math.log(2));
+    }
+
+    // Test case for copying a mutable BinarySearchTree
+    @Test
+    public void testOf() {
+        BinarySearchTree<Integer, Integer> source = new BinarySearchTree<>();
+        for (int i = 0; i < 1000; i++) {
+            source.put(i, -i);
+        }
+        PersistentBinarySearchTree<Integer, Integer> copy = PersistentBinarySearchTree.of(source);
+        source.clear();
+        assertEquals(1000, copy.size());
+        assertEquals(10, copy.getHeight());
+        assertEquals(Integer.valueOf(-999), copy.get(999));
+    }
+}
@@ -0,0 +1,449 @@
+// Tests for BinarySearchTree.java
+package bst;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+public class PublicTests {
+    // Test case for the 'get' method
+    @Test
+    public void testGet() {
+        BinarySearchTree<String, String> tree = createSmallTree();
+        // Check if values are retrieved correctly for existing keys
+        assertEquals("a", tree.get("A"));
+        assertEquals("b", tree.get("B"));
+        assertEquals("c", tree.get("C"));
+        // Check if null is returned for a non-existing key
+        assertNull(tree.get("D"));
+    }
+
+    // Test case for the 'countLeaves' method
+    @Test
+    public void testCountLeaves() {
+        BinarySearchTree<String, String> tree = createSmallTree();
+        // Check if the correct number of leaves is counted
+        assertEquals(2, tree.countLeaves());
+    }
+
+    // Test case for the 'getValueForSmallestKey' method
+    @Test
+    public void testGetValueForSmallestKey() {
+        BinarySearchTree<Integer, Integer> tree = createMediumTree();
+        // Check if the correct value for the smallest key is retrieved
+        assertEquals(Integer.valueOf(1000), tree.getValueForSmallestKey());
+    }
+
+    // Test case for the 'reverseLookup' method
+    @Test
+    public void testReverseLookup() {
+        BinarySearchTree<Integer, Integer> tree = createMediumTree();
+        // Check if reverse lookup returns correct keys for values in the specified range
+        for (int i = 1000; i < 1100; i++) {
+            assertEquals(Integer.valueOf(i - 1000), tree.reverseLookup(i));
+        }
+        // Check if null is returned for a value outside the range
+        assertNull(tree.reverseLookup(1200));
+    }
+
+    // Test case for the 'put' method
+    @Test
+    public void testPut() {
+        BinarySearchTree<String, String> tree = createSmallTree();
+        // Check if updating an existing key works
+        assertFalse(tree.put("A", "new_a"));
+        // Check if inserting a new key works
+        assertTrue(tree.put("D", "d"));
+        // Check if update and insert are successful by verifying the values
+        assertEquals("new_a", tree.get("A"));
+        assertEquals("d", tree.get("D"));
+    }
+
+    // Test case for the 'toString' method
+    @Test
+    public void testToString() {
+        BinarySearchTree<String, String> tree = createSmallTree();
+        // Check if the string representation is as expected
+        assertEquals("{A:a}{B:b}{C:c}", tree.toString());
+    }
+
+    // Test case for the 'containsKey' method
+    @Test
+    public void testContainsKey() {
+        BinarySearchTree<String, String> tree = createSmallTree();
+        // Check if 'containsKey' returns true for existing key and false for non-existing key
+        assertTrue(tree.containsKey("A"));
+        assertFalse(tree.containsKey("D"));
+    }
+
+    // Test case for the 'containsValue' method
+    @Test
+    public void testContainsValue() {
+        BinarySearchTree<String, String> tree = createSmallTree();
+        // Check if 'containsValue' returns true for existing value and false for non-existing value
+        assertTrue(tree.containsValue("a"));
+        assertFalse(tree.containsValue("x"));
+    }
+
+    // Test case for the 'getHeight' method
+    @Test
+    public void testGetHeight() {
+        BinarySearchTree<String, String> tree = createSmallTree();
+        // Check if the correct height of the tree is returned
+        assertEquals(2, tree.getHeight());
+    }
+
+    // Test case for the 'isBalanced' method
+    @Test
+    public void testIsBalanced() {
+        BinarySearchTree<String, String> tree = createSmallTree();
+        // Check if 'isBalanced' returns true for a balanced tree
+        assertTrue(tree.isBalanced());
+    }
+
+    // Test case for the 'clear' method
+    @Test
+    public void testClear() {
+        BinarySearchTree<String, String> tree = createSmallTree();
+        // Check if 'clear' removes all elements from the tree
+        tree.clear();
+        assertNull(tree.get("A"));
+        assertEquals(0, tree.countLeaves());
+    }
+
+    // Test case for the 'remove' method
+    @Test
+    public void testRemove() {
+        BinarySearchTree<String, String> tree = createSmallTree();
+        // Check if 'remove' removes the specified key and associated value
+        tree.remove("B");
+        assertNull(tree.get("B"));
+        assertFalse(tree.containsKey("B"));
+    }
+
+    // Test case for 'remove' on a node with two children
+    @Test
+    public void testRemoveNodeWithTwoChildren() {
+        BinarySearchTree<Integer, Integer> tree = createMediumTree();
+        // Check that the successor's value moves along with its key
+        for (int i = 0; i < 100; i += 2) {
+            tree.remove(i);
+        }
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i % 2 == 0 ? null : Integer.valueOf(i + 1000), tree.get(i));
+        }
+    }
+
+    // Test case for the self-balancing mode on sorted input
+    @Test
+    public void testBalancedSortedInsert() {
+        BinarySearchTree<Integer, Integer> tree = new BinarySearchTree<>(true);
+        for (int i = 0; i < 100000; i++) {
+            tree.put(i, i);
+        }
+        // Check that sorted input no longer degenerates into a linked list
+        assertTrue(tree.isSelfBalancing());
+        assertTrue(tree.getHeight() <= 24);
+        assertTrue(tree.isBalanced());
+        assertEquals(Integer.valueOf(99999), tree.get(99999));
+        assertEquals(Integer.valueOf(0), tree.getValueForSmallestKey());
+    }
+
+    // Test case comparing both modes against java.util.TreeMap under random updates
+    @Test
+    public void testRandomOperationsMatchTreeMap() {
+        for (boolean balanced : new boolean[] {false, true}) {
+            BinarySearchTree<Integer, Integer> tree = new BinarySearchTree<>(balanced);
+            TreeMap<Integer, Integer> expected = new TreeMap<>();
+            Random random = new Random(42);
+            for (int i = 0; i < 20000; i++) {
+                int key = random.nextInt(2000);
+                if (random.nextInt(3) == 0) {
+                    tree.remove(key);
+                    expected.remove(key);
+                } else {
+                    assertEquals(!expected.containsKey(key), tree.put(key, i));
+                    expected.put(key, i);
+                }
+            }
+            for (int key = 0; key < 2000; key++) {
+                assertEquals(expected.get(key), tree.get(key));
+            }
+            if (balanced) {
+                assertTrue(tree.isBalanced());
+            }
+        }
+    }
+
+    // Test case for the 'size' method
+    @Test
+    public void testSize() {
+        BinarySearchTree<Integer, Integer> tree = createMediumTree();
+        // Check that size tracks inserts, updates and removals
+        assertEquals(100, tree.size());
+        tree.put(5, 0);
+        assertEquals(100, tree.size());
+        tree.remove(5);
+        tree.remove(500);
+        assertEquals(99, tree.size());
+        tree.clear();
+        assertEquals(0, tree.size());
+    }
+
+    // Test case for the 'isBalanced' method on a degenerate tree
+    @Test
+    public void testIsBalancedDegenerate() throws Throwable {
+        BinarySearchTree<Integer, Integer> tree = new BinarySearchTree<>();
+        for (int i = 0; i < 5000; i++) {
+            tree.put(i, i);
+        }
+        // Check that a linked-list shaped tree is reported without overflowing a small stack
+        runWithSmallStack(() -> {
+            assertEquals(5000, tree.getHeight());
+            assertFalse(tree.isBalanced());
+        });
+    }
+
+    // Test case for the 'select' and 'rank' methods
+    @Test
+    public void testSelectAndRank() {
+        for (boolean balanced : new boolean[] {false, true}) {
+            BinarySearchTree<Integer, Integer> tree = new BinarySearchTree<>(balanced);
+            for (int i = 0; i < 200; i += 2) {
+                tree.put(i, i);
+            }
+            // Check that select and rank are inverses over the even keys
+            for (int k = 0; k < 100; k++) {
+                assertEquals(Integer.valueOf(2 * k), tree.select(k));
+                assertEquals(k, tree.rank(2 * k));
+            }
+            // Check ranks of absent keys and out-of-range selections
+            assertEquals(1, tree.rank(1));
+            assertEquals(100, tree.rank(1000));
+            assertNull(tree.select(-1));
+            assertNull(tree.select(100));
+        }
+    }
+
+    // Test case for 'reverseLookup' and 'containsValue' with the value index enabled
+    @Test
+    public void testIndexedReverseLookup() {
+        BinarySearchTree<String, String> tree = new BinarySearchTree<>(true, true);
+        tree.put("A", "x");
+        tree.put("B", "x");
+        tree.put("C", null);
+        // Check that shared and null values are found
+        assertTrue(tree.containsValue("x"));
+        assertTrue(tree.containsValue(null));
+        assertEquals("C", tree.reverseLookup(null));
+        assertTrue(tree.reverseLookup("x").equals("A") || tree.reverseLookup("x").equals("B"));
+        // Check that the index follows updates and removals
+        tree.put("A", "y");
+        assertEquals("B", tree.reverseLookup("x"));
+        assertEquals("A", tree.reverseLookup("y"));
+        tree.remove("B");
+        assertFalse(tree.containsValue("x"));
+        assertNull(tree.reverseLookup("x"));
+        tree.clear();
+        assertFalse(tree.containsValue("y"));
+    }
+
+    // Test case for 'reverseLookup' and 'containsValue' on null values without the index
+    @Test
+    public void testReverseLookupNullValue() {
+        BinarySearchTree<String, String> tree = createSmallTree();
+        tree.put("D", null);
+        // Check that scanning past a null value does not throw
+        assertFalse(tree.containsValue("x"));
+        assertEquals("D", tree.reverseLookup(null));
+        assertTrue(tree.containsValue(null));
+    }
+
+    // Test case for in-order iteration
+    @Test
+    public void testIterator() {
+        BinarySearchTree<Integer, Integer> tree = createMediumTree();
+        // Check that entries come back in ascending key order
+        int expected = 0;
+        for (Map.Entry<Integer, Integer> entry : tree) {
+            assertEquals(Integer.valueOf(expected), entry.getKey());
+            assertEquals(Integer.valueOf(expected + 1000), entry.getValue());
+            expected++;
+        }
+        assertEquals(100, expected);
+        assertFalse(new BinarySearchTree<String, String>().iterator().hasNext());
+    }
+
+    // Test case for the 'range' view
+    @Test
+    public void testRange() {
+        BinarySearchTree<Integer, Integer> tree = createMediumTree();
+        // Check a bounded, a half-open and an empty range
+        List<Integer> keys = new ArrayList<>();
+        for (Map.Entry<Integer, Integer> entry : tree.range(10, 15)) {
+            keys.add(entry.getKey());
+        }
+        assertEquals(List.of(10, 11, 12, 13, 14), keys);
+        keys.clear();
+        for (Map.Entry<Integer, Integer> entry : tree.range(97, null)) {
+            keys.add(entry.getKey());
+        }
+        assertEquals(List.of(97, 98, 99), keys);
+        assertFalse(tree.range(50, 50).iterator().hasNext());
+    }
+
+    // Test case for the 'floorKey', 'ceilingKey', 'higherKey' and 'lowerKey' methods
+    @Test
+    public void testNavigation() {
+        BinarySearchTree<Integer, Integer> tree = new BinarySearchTree<>(true);
+        for (int i = 0; i <= 100; i += 10) {
+            tree.put(i, i);
+        }
+        assertEquals(Integer.valueOf(20), tree.floorKey(25));
+        assertEquals(Integer.valueOf(20), tree.floorKey(20));
+        assertEquals(Integer.valueOf(10), tree.lowerKey(20));
+        assertEquals(Integer.valueOf(30), tree.ceilingKey(25));
+        assertEquals(Integer.valueOf(20), tree.ceilingKey(20));
+        assertEquals(Integer.valueOf(30), tree.higherKey(20));
+        // Check the edges of the key space
+        assertNull(tree.floorKey(-1));
+        assertNull(tree.lowerKey(0));
+        assertNull(tree.ceilingKey(101));
+        assertNull(tree.higherKey(100));
+    }
+
+    // Test case for sequential and parallel streams
+    @Test
+    public void testStream() {
+        BinarySearchTree<Integer, Integer> tree = new BinarySearchTree<>(true);
+        for (int i = 0; i < 10000; i++) {
+            tree.put(i, i);
+        }
+        // Check that a parallel stream sees every entry exactly once, in order
+        assertEquals(49995000L, tree.stream().parallel().mapToLong(Map.Entry::getValue).sum());
+        List<Integer> keys = tree.stream().parallel().map(Map.Entry::getKey).collect(Collectors.toList());
+        assertEquals(10000, keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            assertEquals(Integer.valueOf(i), keys.get(i));
+        }
+    }
+
+    // Test case for 'toString' on a degenerate tree
+    @Test
+    public void testToStringDegenerate() throws Throwable {
+        BinarySearchTree<Integer, Integer> tree = new BinarySearchTree<>();
+        for (int i = 0; i < 5000; i++) {
+            tree.put(i, i);
+        }
+        // Check that a linked-list shaped tree prints without overflowing a small stack
+        runWithSmallStack(() -> assertTrue(tree.toString().startsWith("{0:0}{1:1}")));
+    }
+
+    // Test case for 'bulkLoad' from arrays and from an iterator
+    @Test
+    public void testBulkLoad() {
+        Integer[] keys = new Integer[100000];
+        Integer[] values = new Integer[100000];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = i;
+            values[i] = i + 1000;
+        }
+        BinarySearchTree<Integer, Integer> tree = new BinarySearchTree<>(false, true);
+        tree.put(-1, -1);
+        tree.bulkLoad(keys, values);
+        // Check that sorted input yields a minimal-height tree that replaces the old contents
+        assertEquals(100000, tree.size());
+        assertEquals(17, tree.getHeight());
+        assertTrue(tree.isBalanced());
+        assertNull(tree.get(-1));
+        assertEquals(Integer.valueOf(99999), tree.reverseLookup(100999));
+
+        BinarySearchTree<Integer, Integer> copy = new BinarySearchTree<>(true);
+        copy.bulkLoad(tree.iterator());
+        assertEquals(tree.toString(), copy.toString());
+        // Check that updates after a bulk load keep the tree balanced
+        for (int i = 0; i < 1000; i++) {
+            copy.remove(i * 7);
+        }
+        assertTrue(copy.isBalanced());
+    }
+
+    // Test case for 'bulkLoad' on unsorted input
+    @Test(expected = IllegalArgumentException.class)
+    public void testBulkLoadRejectsUnsortedKeys() {
+        new BinarySearchTree<String, String>().bulkLoad(new String[] {"A", "C", "B"}, new String[3]);
+    }
+
+    // Test case for 'putAll' with both the rebuild and the insert strategy
+    @Test
+    public void testPutAll() {
+        BinarySearchTree<Integer, String> evens = new BinarySearchTree<>();
+        BinarySearchTree<Integer, String> threes = new BinarySearchTree<>();
+        for (int i = 0; i < 3000; i++) {
+            evens.put(2 * i, "even");
+            threes.put(3 * i, "three");
+        }
+        evens.putAll(threes);
+        // Check the merged contents; keys in both trees take the other tree's value
+        assertEquals(5000, evens.size());
+        assertEquals("three", evens.get(6));
+        assertEquals("even", evens.get(4));
+        assertEquals("three", evens.get(3));
+        assertTrue(evens.isBalanced());
+
+        BinarySearchTree<Integer, String> single = new BinarySearchTree<>();
+        single.put(1, "one");
+        evens.putAll(single);
+        assertEquals(5001, evens.size());
+        assertEquals("one", evens.get(1));
+    }
+
+    // Helper method for running a check on a thread with a 64 KB stack, which recursion
+    // a few hundred calls deep overflows
+    private static void runWithSmallStack(Runnable check) throws Throwable {
+        Throwable[] failure = new Throwable[1];
+        Thread thread = new Thread(null, () -> {
+            try {
+                check.run();
+            } catch (Throwable e) {
+                failure[0] = e;
+            }
+        }, "small-stack", 64 * 1024);
+        thread.start();
+        thread.join();
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+    }
+
+    // Helper method for creating a small tree
+    private static BinarySearchTree<String, String> createSmallTree() {
+        BinarySearchTree<String, String> tree = new BinarySearchTree<String, String>();
+        tree.put("B", "b");
+        tree.put("C", "c");
+        tree.put("A", "a");
+        return tree;
+    }
+
+    // Helper method for creating a medium-sized tree
+    private static BinarySearchTree<Integer, Integer> createMediumTree() {
+        ArrayList<Integer> list = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            list.add(i);
+        }
+        Collections.shuffle(list);
+        BinarySearchTree<Integer, Integer> tree = new BinarySearchTree<>();
+        for (Integer x : list) {
+            tree.put(x, x + 1000);   // 0 -> 1000, 1 -> 1001, etc.
+        }
+        return tree;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,157 @@
+// Tests for ContentIndex.java
+package crawler;
+
+import static org.junit.Assert.*;
+
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class ContentIndexTests {
+
+    // Fingerprints a page fed in chunks of the given size
+    private static ContentFingerprint fingerprint(String page, int chunkSize) {
+        ContentFingerprint fingerprint = new ContentFingerprint();
+        for (int i = 0; i < page.length(); i += chunkSize) {
+            CharBuffer chunk = CharBuffer.wrap(page, i, Math.min(page.length(), i + chunkSize));
+            fingerprint.feed(chunk);
+            // The chunk is left for the link extractor
+            assertEquals(i, chunk.position());
+        }
+        fingerprint.finish();
+        return fingerprint;
+    }
+
+    private static ContentFingerprint fingerprint(String page) {
+        return fingerprint(page, 4096);
+    }
+
+    // A page of the given number of random words, with the given markup around them
+    private static String page(long seed, int words, String before, String after) {
+        Random random = new Random(seed);
+        StringBuilder page = new StringBuilder("<html><body>").append(before).append("<p>");
+        for (int i = 0; i < words; i++) {
+            page.append(Integer.toString(random.nextInt(1000), 36)).append(i % 20 == 19 ? ".\n" : " ");
+        }
+        return page.append("</p>").append(after).append("</body></html>").toString();
+    }
+
+    // Test case for fingerprints not depending on how the page is split into chunks
+    @Test
+    public void testChunks() {
+        String page = page(1, 300, "<a href=\"/x?sid=1\">x</a>", "");
+        ContentFingerprint whole = fingerprint(page, page.length());
+        for (int chunkSize : new int[] { 1, 7, 100 }) {
+            ContentFingerprint chunked = fingerprint(page, chunkSize);
+            assertEquals(whole.getExact(), chunked.getExact());
+            assertEquals(whole.getSimHash(), chunked.getSimHash());
+            assertEquals(whole.getShingles(), chunked.getShingles());
+        }
+        assertEquals(301 - ContentFingerprint.SHINGLE_WORDS + 1, whole.getShingles());
+    }
+
+    // Test case for how far apart the SimHashes of copies and of different pages are
+    @Test
+    public void testSimHash() {
+        String page = page(1, 500, "<div class=\"nav\"><a href=\"/?sid=1\">home</a></div>", "");
+        long simHash = fingerprint(page).getSimHash();
+        // Markup and case do not count
+        String restyled = page.replace("<p>", "<p class=\"text\" style=\"font-size: large\">").toUpperCase();
+        assertEquals(simHash, fingerprint(restyled).getSimHash());
+        assertEquals(simHash, fingerprint(page.replace("sid=1", "sid=2")).getSimHash());
+        assertNotEquals(fingerprint(page).getExact(), fingerprint(page.replace("sid=1", "sid=2")).getExact());
+        // The navigation left out, as in a printer-friendly copy
+        String print = page(1, 500, "", "<i>Printed from example.com</i>");
+        assertTrue(Long.bitCount(simHash ^ fingerprint(print).getSimHash()) <= ContentIndex.MAX_DISTANCE);
+        for (int seed = 2; seed < 50; seed++) {
+            long other = fingerprint(page(seed, 500, "", "")).getSimHash();
+            assertTrue(Long.bitCount(simHash ^ other) > 10);
+        }
+    }
+
+    // Test case for telling new pages from exact and near copies
+    @Test
+    public void testMatches() {
+        ContentIndex index = new ContentIndex(16);
+        List<String> pages = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            pages.add(page(i, 200, "<a href=\"?sid=" + i + "\">home</a>", ""));
+            assertEquals(ContentIndex.Match.NEW, index.add(fingerprint(pages.get(i))));
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(ContentIndex.Match.EXACT, index.add(fingerprint(pages.get(i))));
+            String copy = pages.get(i).replace("sid=" + i, "sid=x" + i);
+            assertEquals(ContentIndex.Match.NEAR, index.add(fingerprint(copy)));
+        }
+        assertEquals(3000, index.getPages());
+        assertEquals(1000, index.getExactCopies());
+        assertEquals(1000, index.getNearCopies());
+        assertTrue(index.tableBytes() <= 200 * 1000);
+
+        // Pages with too little text are only compared exactly
+        assertEquals(ContentIndex.Match.NEW, index.add(fingerprint("<html><script>a()</script></html>")));
+        assertEquals(ContentIndex.Match.NEW, index.add(fingerprint("<html><script>b()</script></html>")));
+        assertEquals(ContentIndex.Match.EXACT, index.add(fingerprint("<html><script>b()</script></html>")));
+    }
+
+    // Test case for skipping the links of copies, while crawling a site full of them
+    @Test(timeout = 60000)
+    public void testCrawlCopies() throws Exception {
+        try (StubSite site = new StubSite(31)) {
+            site.setCopies(true);
+            CrawlScheduler scheduler = new CrawlScheduler(2, 1000, 6, 1000, 1000);
+            ContentIndex index = new ContentIndex();
+            scheduler.setContentIndex(index);
+            scheduler.submit(site.url(0), 0);
+            scheduler.start();
+            scheduler.completion().get(30, TimeUnit.SECONDS);
+            scheduler.shutdown(5, TimeUnit.SECONDS);
+            // Each page once, then its printer-friendly copy and a link home with a new session ID
+            assertEquals(93, site.getRequests());
+            assertEquals(31, index.getPages() - index.getExactCopies() - index.getNearCopies());
+            assertEquals(62, scheduler.getMetrics().getNearCopies());
+        }
+        // Without the index every session ID is another page to crawl
+        try (StubSite site = new StubSite(31)) {
+            site.setCopies(true);
+            CrawlScheduler scheduler = new CrawlScheduler(2, 1000, 6, 1000, 1000);
+            scheduler.submit(site.url(0), 0);
+            scheduler.start();
+            scheduler.completion().get(30, TimeUnit.SECONDS);
+            scheduler.shutdown(5, TimeUnit.SECONDS);
+            assertEquals(1000, site.getRequests());
+        }
+    }
+
+    // Test case for adding pages from many threads at once
+    @Test(timeout = 30000)
+    public void testConcurrentAdds() throws Exception {
+        ContentIndex index = new ContentIndex(16);
+        AtomicInteger fresh = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 500; i++) {
+                    if (index.add(fingerprint(page(i, 100, "", ""))) == ContentIndex.Match.NEW) {
+                        fresh.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(2000, index.getPages());
+        // Every page is new to exactly one thread, as exact fingerprints are added atomically
+        assertEquals(500, fresh.get());
+        assertEquals(1500, index.getExactCopies());
+    }
+}
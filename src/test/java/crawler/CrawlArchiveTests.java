@@ -0,0 +1,293 @@
+// Tests for CrawlArchive.java and ArchiveReader.java
+package crawler;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CrawlArchiveTests {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final Map<String, List<String>> HTML = Map.of("Content-Type", List.of("text/html; charset=utf-8"),
+            "Transfer-Encoding", List.of("chunked"));
+
+    private static byte[] page(int i) {
+        StringBuilder html = new StringBuilder("<html><body><h1>Page ").append(i).append("</h1>\n");
+        Random random = new Random(i);
+        for (int w = 0; w < 200; w++) {
+            html.append(Integer.toString(random.nextInt(1000), 36)).append(' ');
+        }
+        return html.append("</body></html>\n").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String url(int i) {
+        return "http://a.example/page/" + i;
+    }
+
+    private static List<Path> files(Path directory, String suffix) throws IOException {
+        try (Stream<Path> paths = Files.list(directory)) {
+            return paths.filter(path -> path.toString().endsWith(suffix)).sorted().toList();
+        }
+    }
+
+    // Test case for reading back the status, headers and body of each response
+    @Test
+    public void testRoundTrip() throws IOException {
+        Path directory = folder.getRoot().toPath().resolve("archive");
+        byte[] image = new byte[5000];
+        new Random(1).nextBytes(image);
+        try (CrawlArchive archive = new CrawlArchive(directory)) {
+            for (int i = 0; i < 100; i++) {
+                byte[] body = page(i);
+                assertTrue(archive.record(url(i), 200, HTML, body, body.length));
+            }
+            assertTrue(archive.record("http://a.example/cat.png", 200, Map.of("Content-Type", List.of("image/png")),
+                    image, image.length));
+            assertTrue(archive.record("http://a.example/old", 301, Map.of("Location", List.of("/new")), new byte[0], 0));
+            // Only the bytes received are archived
+            assertTrue(archive.record("http://a.example/short", 200, HTML, page(7), 10));
+            assertFalse(archive.record("http://a.example/\r\nWARC-Type: bad", 200, HTML, new byte[0], 0));
+            archive.flush();
+            assertEquals(103, archive.getRecords());
+            assertEquals(0, archive.getDropped());
+            assertEquals(1, archive.getFiles());
+        }
+
+        try (ArchiveReader reader = new ArchiveReader(directory)) {
+            assertEquals(103, reader.size());
+            assertEquals(url(0), reader.getUrls().get(0));
+            for (int i = 0; i < 100; i++) {
+                ArchiveReader.Record record = reader.read(url(i));
+                assertEquals(url(i), record.getUrl());
+                assertEquals(200, record.getStatusCode());
+                assertEquals("text/html; charset=utf-8", record.getHeader("content-type"));
+                assertNull(record.getHeader("Transfer-Encoding"));
+                assertArrayEquals(page(i), record.getBody());
+                assertNotNull(record.getDate());
+            }
+            assertArrayEquals(image, reader.read("http://a.example/cat.png").getBody());
+            ArchiveReader.Record redirect = reader.read("http://a.example/old");
+            assertEquals(301, redirect.getStatusCode());
+            assertEquals("/new", redirect.getHeader("Location"));
+            assertEquals(0, redirect.getBody().length);
+            assertEquals(10, reader.read("http://a.example/short").getBody().length);
+            assertNull(reader.read("http://a.example/missing"));
+        }
+
+        // The file is a series of gzip members that decompress, together, to the WARC records
+        Path file = files(directory, CrawlArchive.RECORD_SUFFIX).get(0);
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+            String text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            assertTrue(text.startsWith("WARC/1.1\r\nWARC-Type: response\r\n"));
+            assertEquals(103, text.split("WARC/1.1\r\n", -1).length - 1);
+            assertTrue(text.contains("WARC-Target-URI: " + url(99) + "\r\n"));
+            assertTrue(text.contains("HTTP/1.1 301 \r\nLocation: /new\r\n\r\n\r\n\r\n"));
+        }
+    }
+
+    // Test case for archiving the seed of each crawl apart from its pages
+    @Test
+    public void testSeeds() throws IOException {
+        Path directory = folder.getRoot().toPath().resolve("archive");
+        for (int crawl = 0; crawl < 2; crawl++) {
+            try (CrawlArchive archive = new CrawlArchive(directory)) {
+                assertTrue(archive.recordSeed(url(crawl * 10)));
+                for (int i = crawl * 10; i < crawl * 10 + 3; i++) {
+                    archive.record(url(i), 200, HTML, page(i), page(i).length);
+                }
+            }
+        }
+        try (ArchiveReader reader = new ArchiveReader(directory)) {
+            assertEquals(List.of(url(0), url(10)), reader.getSeeds());
+            assertEquals(6, reader.size());
+            assertEquals(url(0), reader.getUrls().get(0));
+            assertArrayEquals(page(10), reader.read(url(10)).getBody());
+        }
+        // A warcinfo record, as WARC tools expect
+        Path file = files(directory, CrawlArchive.RECORD_SUFFIX).get(0);
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+            String text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            assertTrue(text.startsWith("WARC/1.1\r\nWARC-Type: warcinfo\r\n"));
+            assertTrue(text.contains("Content-Type: application/warc-fields\r\n"));
+            assertTrue(text.contains("\r\n\r\nseed: " + url(0) + "\r\n\r\n\r\n"));
+        }
+    }
+
+    // Test case for starting new files past the size limit, and new ones again when reopened
+    @Test
+    public void testRolling() throws IOException {
+        Path directory = folder.getRoot().toPath().resolve("archive");
+        try (CrawlArchive archive = new CrawlArchive(directory, 20000, 1 << 20, 10)) {
+            for (int i = 0; i < 200; i++) {
+                byte[] body = page(i);
+                archive.record(url(i), 200, HTML, body, body.length);
+            }
+            archive.flush();
+            assertTrue(archive.getFiles() > 5);
+        }
+        List<Path> files = files(directory, CrawlArchive.RECORD_SUFFIX);
+        assertEquals(files.size(), files(directory, CrawlArchive.INDEX_SUFFIX).size());
+        for (Path file : files) {
+            assertTrue(Files.size(file) <= 20000);
+        }
+
+        // A record larger than a whole file gets a file of its own
+        byte[] large = new byte[100000];
+        new Random(2).nextBytes(large);
+        try (CrawlArchive archive = new CrawlArchive(directory, 20000, 1 << 20, 10)) {
+            archive.record(url(0), 200, HTML, page(1000), page(1000).length);
+            archive.record("http://a.example/large", 200, Map.of(), large, large.length);
+        }
+        assertEquals(files.size() + 2, files(directory, CrawlArchive.RECORD_SUFFIX).size());
+
+        try (ArchiveReader reader = new ArchiveReader(directory)) {
+            assertEquals(201, reader.size());
+            // The latest record of a URL archived twice
+            assertArrayEquals(page(1000), reader.read(url(0)).getBody());
+            for (int i = 1; i < 200; i++) {
+                assertArrayEquals(page(i), reader.read(url(i)).getBody());
+            }
+            assertArrayEquals(large, reader.read("http://a.example/large").getBody());
+        }
+    }
+
+    // Test case for matching repeats in text, and coding other bodies alone
+    @Test
+    public void testCompression() throws IOException {
+        StringBuilder html = new StringBuilder("<html><body>\n");
+        Random random = new Random(3);
+        while (html.length() < 50000) {
+            html.append("<p class=\"item\"><a href=\"/item/").append(random.nextInt(100)).append("\">Item</a></p>\n");
+        }
+        byte[] text = html.toString().getBytes(StandardCharsets.UTF_8);
+        byte[] noise = new byte[50000];
+        random.nextBytes(noise);
+        Path directory = folder.getRoot().toPath().resolve("archive");
+        try (CrawlArchive archive = new CrawlArchive(directory)) {
+            archive.record(url(0), 200, HTML, text, text.length);
+            archive.flush();
+            assertTrue(archive.getBytesWritten() < text.length / 5);
+            archive.record(url(1), 200, Map.of(), noise, noise.length);
+            archive.flush();
+            assertTrue(archive.getBytesWritten() < text.length / 5 + noise.length * 101 / 100);
+        }
+        try (ArchiveReader reader = new ArchiveReader(directory)) {
+            assertArrayEquals(text, reader.read(url(0)).getBody());
+            assertArrayEquals(noise, reader.read(url(1)).getBody());
+        }
+    }
+
+    // Test case for dropping responses rather than waiting when the queue is full
+    @Test
+    public void testFullQueue() throws IOException {
+        Path directory = folder.getRoot().toPath().resolve("archive");
+        try (CrawlArchive archive = new CrawlArchive(directory, 1 << 20, 1000, 10000)) {
+            byte[] body = new byte[600];
+            assertTrue(archive.record(url(0), 200, HTML, body, body.length));
+            assertFalse(archive.record(url(1), 200, HTML, body, body.length));
+            assertEquals(1, archive.getDropped());
+            // Written by flush() rather than after the flush time
+            archive.flush();
+            assertTrue(archive.record(url(2), 200, HTML, body, body.length));
+        }
+        try (ArchiveReader reader = new ArchiveReader(directory)) {
+            assertEquals(List.of(url(0), url(2)), reader.getUrls());
+        }
+    }
+
+    // Test case for an index line cut off by a crash
+    @Test
+    public void testTornIndex() throws IOException {
+        Path directory = folder.getRoot().toPath().resolve("archive");
+        try (CrawlArchive archive = new CrawlArchive(directory)) {
+            for (int i = 0; i < 10; i++) {
+                archive.record(url(i), 200, HTML, page(i), page(i).length);
+            }
+        }
+        Path index = files(directory, CrawlArchive.INDEX_SUFFIX).get(0);
+        String text = Files.readString(index);
+        Files.writeString(index, text.substring(0, text.length() - 5));
+        try (ArchiveReader reader = new ArchiveReader(directory)) {
+            assertEquals(9, reader.size());
+            assertFalse(reader.contains(url(9)));
+            assertArrayEquals(page(8), reader.read(url(8)).getBody());
+        }
+    }
+
+    // Test case for many threads recording at once
+    @Test(timeout = 60000)
+    public void testConcurrent() throws Exception {
+        Path directory = folder.getRoot().toPath().resolve("archive");
+        List<Thread> threads = new ArrayList<>();
+        try (CrawlArchive archive = new CrawlArchive(directory, 100000, 64L << 20, 5)) {
+            for (int t = 0; t < 4; t++) {
+                int thread = t;
+                threads.add(new Thread(() -> {
+                    for (int i = 0; i < 500; i++) {
+                        byte[] body = page(thread * 500 + i);
+                        assertTrue(archive.record(url(thread * 500 + i), 200, HTML, body, body.length));
+                    }
+                }));
+            }
+            for (Thread thread : threads) {
+                thread.start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        }
+        try (ArchiveReader reader = new ArchiveReader(directory)) {
+            assertEquals(2000, reader.size());
+            for (int i = 0; i < 2000; i += 7) {
+                assertArrayEquals(page(i), reader.read(url(i)).getBody());
+            }
+        }
+    }
+
+    // Test case for archiving every page a crawl fetches
+    @Test(timeout = 60000)
+    public void testCrawl() throws Exception {
+        Path directory = folder.getRoot().toPath().resolve("archive");
+        try (StubSite site = new StubSite(100);
+                HttpFetcher fetcher = new HttpFetcher();
+                CrawlArchive archive = new CrawlArchive(directory)) {
+            fetcher.setArchive(archive);
+            CrawlScheduler scheduler = new CrawlScheduler(2, 100, 100, 1000, 1000);
+            scheduler.setFetcher(fetcher, 8);
+            scheduler.submit(site.url(0), 0);
+            scheduler.start();
+            scheduler.completion().get(30, TimeUnit.SECONDS);
+            scheduler.shutdown(5, TimeUnit.SECONDS);
+            archive.flush();
+
+            try (ArchiveReader reader = new ArchiveReader(directory)) {
+                assertEquals(100, reader.size());
+                for (int i = 0; i < 100; i++) {
+                    ArchiveReader.Record record = reader.read(site.url(i));
+                    assertEquals(200, record.getStatusCode());
+                    assertTrue(record.getHeader("Content-Type").startsWith("text/html"));
+                    String html = new String(record.getBody(), StandardCharsets.UTF_8);
+                    assertTrue(html.contains("<h1>Page " + i + "</h1>"));
+                    assertTrue(html.endsWith("</body></html>\n"));
+                }
+            }
+        }
+    }
+}
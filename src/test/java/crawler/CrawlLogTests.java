@@ -0,0 +1,215 @@
+// Tests for CrawlLog.java
+package crawler;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CrawlLogTests {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // Collects replayed records as strings such as "queued http://a/ 2"
+    private static class Recorder implements CrawlLog.Listener {
+        final List<String> records = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void queued(String url, int depth) {
+            records.add("queued " + url + " " + depth);
+        }
+
+        @Override
+        public void scanned(String url) {
+            records.add("scanned " + url);
+        }
+
+        @Override
+        public void image(String url) {
+            records.add("image " + url);
+        }
+    }
+
+    private static List<String> replay(Path file) throws IOException {
+        Recorder recorder = new Recorder();
+        try (CrawlLog log = new CrawlLog(file, true)) {
+            log.replay(recorder);
+        }
+        return recorder.records;
+    }
+
+    // Test case for replaying records in order, across batches and reopenings
+    @Test
+    public void testReplay() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("crawl.log");
+        Recorder expected = new Recorder();
+        try (CrawlLog log = new CrawlLog(file, false, 1024, 1000, -1)) {
+            for (int i = 0; i < 1000; i++) {
+                String url = "https://www.example.com/page/" + i + "/été";
+                log.queued(url, i % 7);
+                expected.queued(url, i % 7);
+                if (i % 3 == 0) {
+                    log.scanned(url);
+                    expected.scanned(url);
+                    log.image(url + ".png");
+                    expected.image(url + ".png");
+                }
+            }
+            assertEquals(1668, log.getRecords());
+        }
+        assertEquals(expected.records, replay(file));
+
+        try (CrawlLog log = new CrawlLog(file, true)) {
+            assertEquals(1668, log.replay(new Recorder()));
+            log.scanned("https://www.example.com/last");
+            expected.scanned("https://www.example.com/last");
+        }
+        assertEquals(expected.records, replay(file));
+
+        // Opening without append starts a new log
+        new CrawlLog(file, false).close();
+        assertEquals(0, Files.size(file));
+    }
+
+    // Test case for appending from many threads at once
+    @Test(timeout = 30000)
+    public void testConcurrentAppends() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("crawl.log");
+        try (CrawlLog log = new CrawlLog(file, false, 4096, 10, -1)) {
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int thread = t;
+                threads.add(new Thread(() -> {
+                    for (int i = 0; i < 20000; i++) {
+                        log.queued("http://host" + thread + ".example/" + i, 1);
+                    }
+                }));
+            }
+            for (Thread thread : threads) {
+                thread.start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            log.flush();
+            assertEquals(80000, log.getRecords());
+            assertTrue(log.getBatches() > 100);
+            assertEquals(Files.size(file), log.getBytesWritten());
+        }
+        List<String> records = replay(file);
+        assertEquals(80000, records.size());
+        assertEquals(80000, new HashSet<>(records).size());
+    }
+
+    // Test case for cutting off a batch torn or corrupted by a crash
+    @Test
+    public void testTornBatch() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("crawl.log");
+        try (CrawlLog log = new CrawlLog(file, false)) {
+            log.queued("http://a.example/", 0);
+            log.flush();
+            log.queued("http://b.example/", 1);
+        }
+        long whole = Files.size(file);
+        // Half a batch header, as a crash in the middle of a write leaves it
+        Files.write(file, new byte[] { 0, 0, 0 }, StandardOpenOption.APPEND);
+        assertEquals(List.of("queued http://a.example/ 0", "queued http://b.example/ 1"), replay(file));
+        assertEquals(whole, Files.size(file));
+
+        // A batch whose bytes were not all written
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(file, bytes);
+        try (CrawlLog log = new CrawlLog(file, true)) {
+            assertEquals(1, log.replay(new Recorder()));
+            log.scanned("http://a.example/");
+        }
+        assertEquals(List.of("queued http://a.example/ 0", "scanned http://a.example/"), replay(file));
+    }
+
+    // Test case for the fsync settings
+    @Test
+    public void testFsync() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("crawl.log");
+        try (CrawlLog log = new CrawlLog(file, false, 1024, 1000, 0)) {
+            for (int i = 0; i < 500; i++) {
+                log.queued("http://a.example/" + i, 0);
+            }
+            log.flush();
+            assertTrue(log.getBatches() >= 10);
+            // Every batch, plus the flush
+            assertEquals(log.getBatches() + 1, log.getSyncs());
+        }
+        try (CrawlLog log = new CrawlLog(file, false, 1024, 1000, -1)) {
+            for (int i = 0; i < 500; i++) {
+                log.queued("http://a.example/" + i, 0);
+            }
+            while (log.getBatches() < 10) {
+                Thread.yield();
+            }
+            assertEquals(0, log.getSyncs());
+        }
+    }
+
+    // Test case for resuming a crawl that was stopped halfway, without fetching pages twice
+    @Test(timeout = 60000)
+    public void testResumeCrawl() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("crawl.log");
+        try (StubSite site = new StubSite(31)) {
+            site.setLatencyMillis(20);
+            long scannedBefore;
+            try (CrawlLog log = new CrawlLog(file, false)) {
+                CrawlScheduler scheduler = new CrawlScheduler(1, 100, 10, 1000, 1000);
+                scheduler.setCheckpoint(log);
+                scheduler.submit(site.url(0), 0);
+                scheduler.start();
+                while (scheduler.getPagesScanned() < 10) {
+                    Thread.sleep(5);
+                }
+                // As if the JVM stopped: no more pages are taken from the frontier
+                scheduler.shutdown(5, TimeUnit.SECONDS);
+                scannedBefore = scheduler.getPagesScanned();
+            }
+            assertTrue(scannedBefore < 31);
+            int requestsBefore = site.getRequests();
+
+            try (CrawlLog log = new CrawlLog(file, true)) {
+                CrawlScheduler scheduler = new CrawlScheduler(1, 100, 10, 1000, 1000);
+                int queued = scheduler.resume(log);
+                assertTrue(queued > 0);
+                // Already seen, so not queued again
+                assertFalse(scheduler.submit(site.url(0), 0));
+                scheduler.start();
+                scheduler.completion().get(30, TimeUnit.SECONDS);
+                scheduler.shutdown(5, TimeUnit.SECONDS);
+                // The pages left over, and the pages only they link to
+                long scanned = scannedBefore + scheduler.getPagesScanned();
+                assertTrue(scanned >= 31 && scanned <= 32);
+            }
+            // Only a page that was being fetched when the crawl stopped may be fetched twice
+            assertTrue(site.getRequests() >= 31 && site.getRequests() <= 32);
+            assertTrue(site.getRequests() - requestsBefore <= 31 - scannedBefore + 1);
+
+            Set<String> scanned = new HashSet<>();
+            for (String record : replay(file)) {
+                if (record.startsWith("scanned ")) {
+                    scanned.add(record);
+                }
+            }
+            assertEquals(31, scanned.size());
+        }
+    }
+}
@@ -0,0 +1,114 @@
+// Tests for CrawlMetrics.java, LatencyHistogram.java and MetricsReporter.java
+package crawler;
+
+import static org.junit.Assert.*;
+
+import java.lang.management.ManagementFactory;
+import java.net.ConnectException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+
+import org.junit.Test;
+
+public class CrawlMetricsTests {
+
+    // Test case for the buckets of the histogram covering every value without gaps
+    @Test
+    public void testBuckets() {
+        for (long micros = 0; micros < 100000; micros++) {
+            int bucket = LatencyHistogram.bucketOf(micros);
+            assertTrue(LatencyHistogram.lowerBound(bucket) <= micros);
+            assertTrue(micros < LatencyHistogram.lowerBound(bucket + 1));
+        }
+        assertEquals(255, LatencyHistogram.bucketOf(Long.MAX_VALUE / 1000));
+    }
+
+    // Test case for percentiles being within the precision of the buckets
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentileMillis(50), 0);
+        // 1 to 1000 ms, once each
+        for (int millis = 1; millis <= 1000; millis++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(millis));
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(500.5, histogram.getMeanMillis(), 0.01);
+        assertEquals(1000, histogram.getMaxMillis(), 0.01);
+        assertEquals(500, histogram.getPercentileMillis(50), 500 * 0.07);
+        assertEquals(900, histogram.getPercentileMillis(90), 900 * 0.07);
+        assertEquals(990, histogram.getPercentileMillis(99), 990 * 0.07);
+        assertTrue(histogram.getPercentileMillis(100) <= 1000);
+        LatencyStats stats = histogram.getStats();
+        assertEquals(1000, stats.getCount());
+        assertEquals(histogram.getPercentileMillis(90), stats.getP90Millis(), 0);
+    }
+
+    // Test case for the metrics of a crawl with duplicate links, a missing page and a dead host
+    @Test(timeout = 30000)
+    public void testCrawlMetrics() throws Exception {
+        try (StubSite site = new StubSite(31, true)) {
+            CrawlScheduler scheduler = new CrawlScheduler(2, 100, 10, 1000, 1000);
+            scheduler.submit(UrlNormalizer.normalize(site.url(0)), 0);
+            scheduler.submit(site.url(99), 0);
+            // Nothing listens on port 1
+            scheduler.submit("http://127.0.0.1:1/", 0);
+            scheduler.start();
+            scheduler.completion().get(20, TimeUnit.SECONDS);
+            scheduler.shutdown(5, TimeUnit.SECONDS);
+
+            CrawlMetrics metrics = scheduler.getMetrics();
+            assertEquals(33, metrics.getPagesScanned());
+            assertEquals(32, metrics.getPagesFetched());
+            assertTrue(metrics.getBytesDownloaded() > 31 * 100);
+            assertEquals(32, metrics.getFetchLatency().getCount());
+            assertEquals(31, metrics.getParseLatency().getCount());
+            assertTrue(metrics.getParseLatency().getMeanMillis() < metrics.getFetchLatency().getMeanMillis());
+            assertEquals(3 + 30 * 8 + 31, metrics.getLinksChecked());
+            assertEquals((30 * 7 + 31) / (double) (3 + 30 * 8 + 31), metrics.getDedupHitRate(), 1e-9);
+            Map<String, Long> errors = metrics.getErrorsByType();
+            assertEquals(Long.valueOf(1), errors.get("HTTP 404"));
+            assertEquals(Long.valueOf(1), errors.get(ConnectException.class.getSimpleName()));
+            assertEquals(2, metrics.getErrorCount());
+            assertEquals(1, metrics.getSlowestHosts().size());
+        }
+    }
+
+    // Test case for publishing the metrics over JMX and summarizing them
+    @Test(timeout = 30000)
+    public void testReporter() throws Exception {
+        try (StubSite site = new StubSite(7);
+                ImageDecoder images = new ImageDecoder(1, 4, 960, 540, 200, 150, new ImageCache(1 << 20))) {
+            CrawlScheduler scheduler = new CrawlScheduler(2, 100, 10, 1000, 1000);
+            MetricsReporter reporter = new MetricsReporter(scheduler.getMetrics(), images);
+            reporter.registerMBeans("test");
+            try {
+                scheduler.submit(site.url(0), 0);
+                scheduler.start();
+                scheduler.completion().get(20, TimeUnit.SECONDS);
+                scheduler.shutdown(5, TimeUnit.SECONDS);
+
+                MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+                ObjectName crawl = new ObjectName("crawler:type=CrawlMetrics,name=\"test\"");
+                assertEquals(7L, server.getAttribute(crawl, "PagesScanned"));
+                CompositeData fetch = (CompositeData) server.getAttribute(crawl, "FetchLatency");
+                assertEquals(7L, fetch.get("count"));
+                assertNotNull(server.getAttribute(crawl, "ErrorsByType"));
+                ObjectName decoder = new ObjectName("crawler:type=ImageDecoder,name=\"test\"");
+                assertEquals(0L, server.getAttribute(decoder, "Decoded"));
+
+                String summary = reporter.summary();
+                assertTrue(summary, summary.startsWith("pages 7 ("));
+                assertTrue(summary, summary.contains("images 0 shown"));
+                assertTrue(summary, summary.contains("slowest hosts {http://127.0.0.1:"));
+            } finally {
+                reporter.close();
+            }
+            assertFalse(ManagementFactory.getPlatformMBeanServer()
+                    .isRegistered(new ObjectName("crawler:type=CrawlMetrics,name=\"test\"")));
+        }
+    }
+}
@@ -0,0 +1,141 @@
+// Tests for CrawlScheduler.java
+package crawler;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class CrawlSchedulerTests {
+
+    // Test case for crawling a whole site and signalling completion
+    @Test(timeout = 30000)
+    public void testCrawlsEveryPage() throws Exception {
+        try (StubSite site = new StubSite(40)) {
+            CrawlScheduler scheduler = new CrawlScheduler(4, 100, 10, 1000, 1000);
+            assertTrue(scheduler.submit(site.url(0), 0));
+            scheduler.start();
+            scheduler.completion().get(20, TimeUnit.SECONDS);
+
+            assertEquals(40, scheduler.getPagesScanned());
+            assertEquals(40, site.getRequests());
+            assertEquals(0, scheduler.getDroppedLinks());
+            assertEquals(0, scheduler.getFrontierSize());
+            assertTrue(scheduler.getPeakInFlight() <= 4);
+            assertTrue(scheduler.shutdown(5, TimeUnit.SECONDS));
+        }
+    }
+
+    // Test case for queueing each page once, with a pluggable store
+    @Test(timeout = 30000)
+    public void testDuplicateLinks() throws Exception {
+        try (StubSite site = new StubSite(20)) {
+            CrawlScheduler scheduler = new CrawlScheduler(2, 100, 10, 1000, 1000, new FingerprintSeenUrlStore());
+            assertTrue(scheduler.submit(site.url(0), 0));
+            assertFalse(scheduler.submit(site.url(0), 0));
+            assertTrue(scheduler.submit(site.url(1), 1));
+            scheduler.start();
+            scheduler.completion().get(20, TimeUnit.SECONDS);
+            // Page 0 links to page 1 again, which was already queued
+            assertEquals(20, scheduler.getPagesScanned());
+            assertEquals(20, site.getRequests());
+            assertEquals(2, scheduler.getDuplicateLinks());
+            scheduler.shutdown(5, TimeUnit.SECONDS);
+        }
+    }
+
+    // Test case for fetching each page once however its links are spelled
+    @Test(timeout = 30000)
+    public void testNormalizedLinks() throws Exception {
+        try (StubSite site = new StubSite(31, true)) {
+            CrawlScheduler scheduler = new CrawlScheduler(2, 100, 10, 1000, 1000);
+            scheduler.submit(UrlNormalizer.normalize(site.url(0)), 0);
+            scheduler.start();
+            scheduler.completion().get(20, TimeUnit.SECONDS);
+            assertEquals(31, scheduler.getPagesScanned());
+            assertEquals(31, site.getRequests());
+            // 30 child pages linked 7 extra ways each, and every page linking to itself
+            assertEquals(30 * 7 + 31, scheduler.getDuplicateLinks());
+            scheduler.shutdown(5, TimeUnit.SECONDS);
+        }
+    }
+
+    // Test case for the depth and page limits
+    @Test(timeout = 30000)
+    public void testLimits() throws Exception {
+        try (StubSite site = new StubSite(63)) {
+            // Depths 0, 1 and 2 of the binary tree hold 1 + 2 + 4 pages
+            CrawlScheduler scheduler = new CrawlScheduler(2, 100, 2, 1000, 1000);
+            // A seed the normalizer rejected is refused, not queued
+            assertFalse(scheduler.submit(null, 0));
+            scheduler.submit(site.url(0), 0);
+            scheduler.start();
+            scheduler.completion().get(20, TimeUnit.SECONDS);
+            assertEquals(7, scheduler.getPagesScanned());
+            assertFalse(scheduler.submit(site.url(3), 3));
+            scheduler.shutdown(5, TimeUnit.SECONDS);
+        }
+        try (StubSite site = new StubSite(63)) {
+            CrawlScheduler scheduler = new CrawlScheduler(3, 100, 10, 10, 1000);
+            scheduler.submit(site.url(0), 0);
+            scheduler.start();
+            scheduler.completion().get(20, TimeUnit.SECONDS);
+            assertEquals(10, scheduler.getPagesScanned());
+            assertEquals(10, site.getRequests());
+            scheduler.shutdown(5, TimeUnit.SECONDS);
+        }
+    }
+
+    // Test case for holding back links when the frontier stays full, and queueing them once it has room
+    @Test(timeout = 30000)
+    public void testBackpressure() throws Exception {
+        try (StubSite site = new StubSite(100)) {
+            CrawlScheduler scheduler = new CrawlScheduler(1, 1, 10, 1000, 0);
+            assertTrue(scheduler.submit(site.url(0), 0));
+            // The only frontier slot is taken, so a second page is dropped at once, but kept
+            assertTrue(scheduler.submit(site.url(1), 1));
+            assertEquals(1, scheduler.getDroppedLinks());
+            assertFalse(scheduler.submit(site.url(1), 1));
+            scheduler.start();
+            scheduler.completion().get(20, TimeUnit.SECONDS);
+            assertEquals(1, scheduler.getPeakInFlight());
+            assertEquals(100, scheduler.getPagesScanned());
+            assertEquals(100, site.getRequests());
+            assertTrue(scheduler.getDroppedLinks() > 1);
+            assertTrue(scheduler.shutdown(5, TimeUnit.SECONDS));
+        }
+    }
+
+    // Test case for not marking seen the links refused by the page limit
+    @Test(timeout = 30000)
+    public void testRefusedNotSeen() throws Exception {
+        SeenUrlStore seen = new ConcurrentSeenUrlStore();
+        CrawlScheduler scheduler = new CrawlScheduler(1, 10, 10, 1, 1000, seen);
+        assertTrue(scheduler.submit("http://a.example/0", 0));
+        assertFalse(scheduler.submit("http://a.example/1", 1));
+        assertFalse(scheduler.submit("http://a.example/0", 1));
+        assertTrue(seen.contains("http://a.example/0"));
+        assertFalse(seen.contains("http://a.example/1"));
+        scheduler.shutdown(5, TimeUnit.SECONDS);
+    }
+
+    // Test case for starting without a seed and for shutting down early
+    @Test(timeout = 30000)
+    public void testShutdown() throws Exception {
+        CrawlScheduler empty = new CrawlScheduler(2, 10, 1, 10, 0);
+        empty.start();
+        assertTrue(empty.completion().isDone());
+        assertTrue(empty.shutdown(5, TimeUnit.SECONDS));
+
+        try (StubSite site = new StubSite(1000)) {
+            CrawlScheduler scheduler = new CrawlScheduler(2, 10, 20, 1000, 1000);
+            scheduler.submit(site.url(0), 0);
+            scheduler.start();
+            assertTrue(scheduler.shutdown(10, TimeUnit.SECONDS));
+            assertTrue(scheduler.completion().isDone());
+            assertEquals(0, scheduler.getFrontierSize());
+            assertFalse(scheduler.submit(site.url(1), 1));
+        }
+    }
+}
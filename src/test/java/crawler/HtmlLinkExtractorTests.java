@@ -0,0 +1,100 @@
+// Tests for HtmlLinkExtractor.java
+package crawler;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class HtmlLinkExtractorTests {
+
+    // Collects what the extractor reports, marking images with "img:"
+    private static class Collector implements HtmlLinkExtractor.Listener {
+        final List<String> found = new ArrayList<>();
+
+        @Override
+        public void link(String url) {
+            found.add(url);
+        }
+
+        @Override
+        public void image(String url) {
+            found.add("img:" + url);
+        }
+    }
+
+    private static List<String> extract(String pageUrl, String html) throws IOException {
+        Collector collector = new Collector();
+        HtmlLinkExtractor extractor = new HtmlLinkExtractor(pageUrl, collector);
+        extractor.feed(new StringReader(html));
+        extractor.finish();
+        return collector.found;
+    }
+
+    // Test case for the tags and attributes that are reported
+    @Test
+    public void testLinksAndImages() throws IOException {
+        String html = "<!DOCTYPE html><html><head><link rel=stylesheet href=\"/site.css\"></head>\n"
+                + "<body><A HREF='one.html'>1</A> <a class=nav href=two.html>2</a>\n"
+                + "<img alt=\"a > b\" src=\"pic.jpg\"/><area shape=rect href=\"/map\">"
+                + "<a name=anchor>no link</a><img data-src=\"lazy.jpg\"></body></html>";
+        assertEquals(List.of("one.html", "two.html", "img:pic.jpg", "/map"), extract(null, html));
+    }
+
+    // Test case for tags and attribute values that span lines
+    @Test
+    public void testSplitAcrossLines() throws IOException {
+        String html = "<a\n  class=\"x\"\n  href=\n\"/long/\npath\">text</a><img\nsrc='/i.png'\n>";
+        assertEquals(List.of("https://www.example.com/long/path", "img:https://www.example.com/i.png"),
+                extract("https://www.example.com/", html));
+    }
+
+    // Test case for <base href>, of which only the first counts
+    @Test
+    public void testBaseHref() throws IOException {
+        String html = "<a href=\"a.html\"></a><base href=\"https://cdn.example.com/docs/\">"
+                + "<base href=\"https://ignored.example.com/\"><a href=\"b.html\"></a><img src=\"../c.png\">";
+        assertEquals(List.of("https://www.example.com/dir/a.html", "https://cdn.example.com/docs/b.html",
+                "img:https://cdn.example.com/c.png"), extract("https://www.example.com/dir/page.html", html));
+    }
+
+    // Test case for comments, scripts, styles and character references
+    @Test
+    public void testSkippedContent() throws IOException {
+        String html = "<!-- <a href=\"commented.html\"> -- still comment --><a href=\"x?a=1&amp;b=2&#38;c=3\">x</a>"
+                + "<script>var s = '<a href=\"script.html\">'; if (a<b) {}</SCRIPT >"
+                + "<style>a[href=\"style.html\"] {}</style><a href=\"after.html\">";
+        assertEquals(List.of("x?a=1&b=2&c=3", "after.html"), extract(null, html));
+    }
+
+    // Test case for feeding the page one character at a time, which must not change the result
+    @Test
+    public void testChunkBoundaries() throws IOException {
+        String html = "<html><!-- c --><base href=\"/root/\"><script>'</script'</script>"
+                + "<a href='one'>1</a><img src=two><a\nhref=\"three&amp;x\">";
+        List<String> whole = extract("http://example.com/", html);
+        assertEquals(List.of("http://example.com/root/one", "img:http://example.com/root/two",
+                "http://example.com/root/three&x"), whole);
+
+        Collector collector = new Collector();
+        HtmlLinkExtractor extractor = new HtmlLinkExtractor("http://example.com/", collector);
+        for (char c : html.toCharArray()) {
+            extractor.feed(CharBuffer.wrap(new char[] { c }));
+        }
+        extractor.finish();
+        assertEquals(whole, collector.found);
+    }
+
+    // Test case for relative image names, which used to be appended to the page URL with a "/"
+    @Test
+    public void testImageNames() throws IOException {
+        String html = "<img src=\"photo.jpg\"><img alt=\"x\" src='/images/logo.png'><img src=\"https://cdn.example.com/a.gif\">";
+        assertEquals(List.of("img:https://www.example.com/gallery/photo.jpg", "img:https://www.example.com/images/logo.png",
+                "img:https://cdn.example.com/a.gif"), extract("https://www.example.com/gallery/index.html", html));
+    }
+}
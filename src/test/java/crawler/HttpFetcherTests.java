@@ -0,0 +1,191 @@
+// Tests for HttpFetcher.java
+package crawler;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+public class HttpFetcherTests {
+
+    private HttpServer server;
+    private ExecutorService serverThreads;
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    private String page;
+
+    @Before
+    public void startServer() throws IOException {
+        StringBuilder html = new StringBuilder("<html><body>\n");
+        for (int i = 0; i < 5000; i++) {
+            html.append("<p>Café numéro ").append(i).append(" <a href=\"/p/").append(i).append("\">lien</a></p>\n");
+        }
+        page = html.append("</body></html>\n").toString();
+
+        serverThreads = Executors.newFixedThreadPool(250);
+        server = StubSite.createServer(1024);
+        server.setExecutor(serverThreads);
+        // A Latin-1 page sent in small pieces, with chunked transfer encoding
+        server.createContext("/latin1", exchange -> {
+            exchange.getResponseHeaders().set("Content-Type", "text/html; charset=ISO-8859-1");
+            exchange.sendResponseHeaders(200, 0);
+            byte[] body = page.getBytes(StandardCharsets.ISO_8859_1);
+            try (OutputStream out = exchange.getResponseBody()) {
+                for (int offset = 0; offset < body.length; offset += 1000) {
+                    out.write(body, offset, Math.min(1000, body.length - offset));
+                    out.flush();
+                }
+            }
+        });
+        server.createContext("/image", exchange -> respond(exchange, 200, "image/png", new byte[100]));
+        server.createContext("/redirect", exchange -> {
+            exchange.getResponseHeaders().set("Location", "/latin1");
+            respond(exchange, 302, "text/html", new byte[0]);
+        });
+        server.createContext("/small", exchange -> {
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            respond(exchange, 200, "text/html", "<a href=x>x</a>".getBytes(StandardCharsets.UTF_8));
+        });
+        server.createContext("/slow", exchange -> {
+            sleep(200);
+            respond(exchange, 200, "text/html", "<p>slow</p>".getBytes(StandardCharsets.UTF_8));
+        });
+        // Sends half a page, then stops
+        server.createContext("/stall", exchange -> {
+            exchange.getResponseHeaders().set("Content-Type", "text/html");
+            exchange.sendResponseHeaders(200, 0);
+            exchange.getResponseBody().write("<html><body>".getBytes(StandardCharsets.UTF_8));
+            exchange.getResponseBody().flush();
+            sleep(5000);
+            exchange.close();
+        });
+        server.createContext("/no-headers", exchange -> {
+            sleep(5000);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    private static void respond(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private String url(String path) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+
+    // Test case for decoding a page in its own charset as it streams in
+    @Test(timeout = 30000)
+    public void testStreamsBody() throws Exception {
+        try (HttpFetcher fetcher = new HttpFetcher()) {
+            StringBuilder received = new StringBuilder();
+            List<Integer> chunks = new ArrayList<>();
+            FetchResult result = fetcher.fetch(url("/latin1"), chunk -> {
+                chunks.add(chunk.remaining());
+                received.append(chunk);
+            }).get(20, TimeUnit.SECONDS);
+            assertEquals(200, result.getStatusCode());
+            assertEquals(page.length(), result.getBodyBytes());
+            assertEquals(page, received.toString());
+            assertTrue(chunks.size() > 1);
+            assertNull(result.getLocation());
+        }
+    }
+
+    // Test case for bodies that are not HTML and for redirects, which are reported but not read
+    @Test(timeout = 30000)
+    public void testNotHtmlAndRedirects() throws Exception {
+        try (HttpFetcher fetcher = new HttpFetcher()) {
+            FetchResult image = fetcher.fetch(url("/image"), chunk -> fail("image body was decoded"))
+                    .get(20, TimeUnit.SECONDS);
+            assertEquals(200, image.getStatusCode());
+            assertEquals(0, image.getBodyBytes());
+
+            FetchResult redirect = fetcher.fetch(url("/redirect"), chunk -> fail("redirect was followed"))
+                    .get(20, TimeUnit.SECONDS);
+            assertEquals(302, redirect.getStatusCode());
+            assertEquals("/latin1", redirect.getLocation());
+        }
+    }
+
+    // Test case for giving up on a server that stops sending, before or during the body
+    @Test(timeout = 30000)
+    public void testReadTimeout() throws Exception {
+        try (HttpFetcher fetcher = new HttpFetcher(Duration.ofSeconds(5), Duration.ofMillis(300), 2)) {
+            for (String path : new String[] { "/stall", "/no-headers" }) {
+                long start = System.nanoTime();
+                try {
+                    fetcher.fetch(url(path), chunk -> { }).get(20, TimeUnit.SECONDS);
+                    fail("expected a timeout for " + path);
+                } catch (ExecutionException e) {
+                    assertTrue(e.getCause().toString(), e.getCause() instanceof HttpTimeoutException);
+                }
+                assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(3));
+            }
+        }
+    }
+
+    // Test case for many requests in flight on two threads
+    @Test(timeout = 60000)
+    public void testManyInFlight() throws Exception {
+        try (HttpFetcher fetcher = new HttpFetcher(Duration.ofSeconds(5), Duration.ofSeconds(20), 2)) {
+            long start = System.nanoTime();
+            List<CompletableFuture<FetchResult>> fetches = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                fetches.add(fetcher.fetch(url("/slow"), chunk -> { }));
+            }
+            for (CompletableFuture<FetchResult> fetch : fetches) {
+                assertEquals(200, fetch.get(30, TimeUnit.SECONDS).getStatusCode());
+            }
+            // One at a time, 200 responses of 200 ms would take 40 seconds
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(10));
+        }
+    }
+
+    // Test case for keeping the connection alive between requests to the same host
+    @Test(timeout = 30000)
+    public void testConnectionReuse() throws Exception {
+        try (HttpFetcher fetcher = new HttpFetcher()) {
+            for (int i = 0; i < 20; i++) {
+                fetcher.fetch(url("/small"), chunk -> { }).get(10, TimeUnit.SECONDS);
+            }
+            assertEquals(1, clientPorts.size());
+        }
+    }
+}
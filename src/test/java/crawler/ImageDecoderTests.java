@@ -0,0 +1,214 @@
+// Tests for ImageDecoder.java
+package crawler;
+
+import static org.junit.Assert.*;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.imageio.ImageIO;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.sun.net.httpserver.HttpServer;
+
+public class ImageDecoderTests {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // Writes a width x height image, red on the left half and blue on the right, and returns its URL
+    private String image(String name, int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.RED);
+        g.fillRect(0, 0, width / 2, height);
+        g.setColor(Color.BLUE);
+        g.fillRect(width / 2, 0, width - width / 2, height);
+        g.dispose();
+        File file = folder.newFile(name);
+        ImageIO.write(image, name.substring(name.indexOf('.') + 1), file);
+        return file.toURI().toString();
+    }
+
+    // Test case for choosing how many pixels to skip while decoding
+    @Test
+    public void testSubsampling() {
+        assertEquals(1, ImageDecoder.subsampling(400, 300, 960, 540));
+        assertEquals(1, ImageDecoder.subsampling(1919, 1079, 960, 540));
+        assertEquals(2, ImageDecoder.subsampling(1920, 1080, 960, 540));
+        assertEquals(4, ImageDecoder.subsampling(4000, 2000, 960, 540));
+        // The side that limits the scaled size decides
+        assertEquals(5, ImageDecoder.subsampling(1000, 2700, 960, 540));
+    }
+
+    // Test case for decoding large images to the size they are shown at
+    @Test
+    public void testDecodeScaled() throws IOException {
+        try (ImageDecoder decoder = new ImageDecoder(1, 4, 960, 540, 200, 150)) {
+            BufferedImage wide = decoder.decode(image("wide.png", 4000, 1500));
+            assertEquals(960, wide.getWidth());
+            assertEquals(360, wide.getHeight());
+            assertEquals(Color.RED.getRGB(), wide.getRGB(10, 180));
+            assertEquals(Color.BLUE.getRGB(), wide.getRGB(950, 180));
+
+            BufferedImage tall = decoder.decode(image("tall.jpg", 1200, 2400));
+            assertEquals(270, tall.getWidth());
+            assertEquals(540, tall.getHeight());
+
+            // Small images are shown enlarged, as before
+            BufferedImage small = decoder.decode(image("small.gif", 240, 180));
+            assertEquals(720, small.getWidth());
+            assertEquals(540, small.getHeight());
+            assertEquals(3, decoder.getDecoded());
+        }
+    }
+
+    // Test case for rejecting images that are too small or not images
+    @Test
+    public void testRejected() throws IOException {
+        try (ImageDecoder decoder = new ImageDecoder(1, 4, 960, 540, 200, 150)) {
+            assertNull(decoder.decode(image("icon.png", 32, 32)));
+            assertNull(decoder.decode(image("banner.png", 960, 60)));
+            assertEquals(2, decoder.getTooSmall());
+            File text = folder.newFile("page.html");
+            Files.writeString(text.toPath(), "<html></html>");
+            assertNull(decoder.decode(text.toURI().toString()));
+            assertEquals(0, decoder.getDecoded());
+        }
+    }
+
+    // Test case for submitting images without waiting, and dropping them when the queue is full
+    @Test(timeout = 20000)
+    public void testSubmitNeverBlocks() throws Exception {
+        // Connections to this socket are accepted by the system but never answered
+        try (ServerSocket stall = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+                ImageDecoder decoder = new ImageDecoder(1, 2, 960, 540, 200, 150)) {
+            String stalled = "http://127.0.0.1:" + stall.getLocalPort() + "/image.png?";
+            List<CompletableFuture<BufferedImage>> results = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int i = 0; i < 10; i++) {
+                results.add(decoder.submit(stalled + i));
+            }
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+            // One image is being decoded and two wait; the rest were dropped
+            assertEquals(7, decoder.getDropped());
+            for (int i = 3; i < 10; i++) {
+                assertNull(results.get(i).getNow(new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB)));
+            }
+            assertFalse(results.get(0).isDone());
+
+            CompletableFuture<BufferedImage> decoded = decoder.submit(image("late.png", 1920, 1080));
+            assertNull(decoded.getNow(null));
+            assertEquals(8, decoder.getDropped());
+        }
+    }
+
+    // Serves the files of the temporary folder over HTTP, counting the requests
+    private HttpServer serve(AtomicInteger requests) throws IOException {
+        HttpServer server = StubSite.createServer(0);
+        server.createContext("/", exchange -> {
+            requests.incrementAndGet();
+            byte[] body = Files.readAllBytes(folder.getRoot().toPath().resolve(exchange.getRequestURI().getPath().substring(1)));
+            exchange.getResponseHeaders().set("Content-Type", "image/png");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            } catch (IOException e) {
+                // the client closed the connection early
+            }
+        });
+        server.start();
+        return server;
+    }
+
+    // Test case for rejecting small images from their header, without downloading the rest
+    @Test
+    public void testHeaderProbe() throws IOException {
+        // Noise does not compress, so this narrow image is a large file
+        BufferedImage noise = new BufferedImage(190, 2000, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(42);
+        for (int y = 0; y < noise.getHeight(); y++) {
+            for (int x = 0; x < noise.getWidth(); x++) {
+                noise.setRGB(x, y, random.nextInt());
+            }
+        }
+        File file = folder.newFile("strip.png");
+        ImageIO.write(noise, "png", file);
+        HttpServer server = serve(new AtomicInteger());
+        try (ImageDecoder decoder = new ImageDecoder(1, 4, 960, 540, 200, 150)) {
+            String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/strip.png";
+            assertNull(decoder.decode(url));
+            assertEquals(1, decoder.getTooSmall());
+            assertTrue(decoder.getBytesRead() < 16 * 1024);
+            assertEquals(file.length(), decoder.getBytesRead() + decoder.getBytesSkipped());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    // Test case for the LRU order and byte budget of the cache
+    @Test
+    public void testCacheEviction() {
+        BufferedImage image = new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB);
+        // Room for two images of 40000 bytes each and a few rejections
+        ImageCache cache = new ImageCache(2 * 40000 + 1000);
+        cache.put("a", image, 5000);
+        cache.put("b", image, 6000);
+        cache.put("icon", null, 100);
+        assertEquals(5000, cache.get("a").getDownloadedBytes());
+        cache.put("c", image, 7000);
+        assertNull(cache.get("b"));
+        assertNull(cache.get("icon").getImage());
+        assertSame(image, cache.get("c").getImage());
+        assertEquals(1, cache.getEvictions());
+        assertEquals(3, cache.size());
+        assertTrue(cache.getBytes() <= 2 * 40000 + 1000);
+        assertEquals(3, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(5000 + 100 + 7000, cache.getBytesSaved());
+        // An image larger than the whole budget is not kept
+        cache.put("huge", new BufferedImage(200, 200, BufferedImage.TYPE_INT_RGB), 9000);
+        assertNull(cache.get("huge"));
+        assertEquals(3, cache.size());
+    }
+
+    // Test case for decoding an image linked in different ways only once
+    @Test(timeout = 20000)
+    public void testCachedDecoding() throws Exception {
+        String name = "photo.png";
+        image(name, 1920, 1080);
+        AtomicInteger requests = new AtomicInteger();
+        HttpServer server = serve(requests);
+        ImageCache cache = new ImageCache(16 * 1024 * 1024);
+        try (ImageDecoder decoder = new ImageDecoder(1, 4, 960, 540, 200, 150, cache)) {
+            int port = server.getAddress().getPort();
+            BufferedImage first = decoder.submit("http://127.0.0.1:" + port + "/" + name).get();
+            assertEquals(960, first.getWidth());
+            BufferedImage again = decoder.submit("HTTP://127.0.0.1:" + port + "/images/../" + name + "#x").get();
+            assertSame(first, again);
+            assertEquals(1, requests.get());
+            assertEquals(1, decoder.getDecoded());
+            assertEquals(1, cache.getHits());
+            // The reader stops at the end of the image data, just short of the end of the file
+            assertEquals(decoder.getBytesRead(), cache.getBytesSaved());
+            assertTrue(cache.getBytesSaved() > new File(folder.getRoot(), name).length() - 100);
+        } finally {
+            server.stop(0);
+        }
+    }
+}
@@ -0,0 +1,251 @@
+// Tests for SyntheticFetcher.java and ReplayFetcher.java
+package crawler;
+
+import static org.junit.Assert.*;
+
+import java.awt.image.BufferedImage;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class OfflineFetcherTests {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // Fetches a page through fetch(), returning its result and collecting its text
+    private static FetchResult fetch(Fetcher fetcher, String url, StringBuilder text) throws Exception {
+        return fetcher.fetch(url, text::append).get(10, TimeUnit.SECONDS);
+    }
+
+    // Test case for the pages of the synthetic site and the links between them
+    @Test
+    public void testSyntheticSite() throws Exception {
+        try (SyntheticFetcher fetcher = new SyntheticFetcher(100, 3, 4, 2000, 0, 1)) {
+            assertEquals("http://site1.test/page/5", fetcher.url(5));
+            // The same page every time
+            assertArrayEquals(fetcher.page(5), fetcher.page(5));
+
+            StringBuilder text = new StringBuilder();
+            FetchResult result = fetch(fetcher, fetcher.url(5), text);
+            assertEquals(200, result.getStatusCode());
+            assertEquals(text.toString().getBytes(StandardCharsets.UTF_8).length, result.getBodyBytes());
+            assertTrue(text.length() >= 2000);
+            assertTrue(result.getHeaders().firstValue("Content-Type").get().startsWith("text/html"));
+            for (int child = 16; child <= 18; child++) {
+                assertTrue(text.toString().contains("<a href=\"" + fetcher.url(child) + "\">"));
+            }
+            assertTrue(text.toString().contains("<img src=\"" + fetcher.imageUrl(5) + "\""));
+            // Links past the last page wrap around to the first
+            StringBuilder last = new StringBuilder();
+            fetch(fetcher, fetcher.url(99), last);
+            assertTrue(last.toString().contains("<a href=\"" + fetcher.url(98) + "\">"));
+
+            for (String missing : List.of(fetcher.url(100), "http://site0.test/page/x", "http://site0.test/other")) {
+                StringBuilder none = new StringBuilder();
+                result = fetch(fetcher, missing, none);
+                assertEquals(404, result.getStatusCode());
+                assertEquals(0, result.getBodyBytes());
+                assertEquals(0, none.length());
+            }
+            // Images are not passed on as text
+            StringBuilder image = new StringBuilder();
+            result = fetch(fetcher, fetcher.imageUrl(3), image);
+            assertEquals(200, result.getStatusCode());
+            assertEquals(0, image.length());
+
+            assertTrue(fetcher.fetchText(fetcher.url(0)).get(10, TimeUnit.SECONDS).contains("<h1>Page 0</h1>"));
+            assertNull(fetcher.fetchText("http://site0.test/robots.txt").get(10, TimeUnit.SECONDS));
+            assertEquals(8, fetcher.getRequests());
+        }
+    }
+
+    // Test case for delaying every response by the latency, without a thread per fetch
+    @Test(timeout = 30000)
+    public void testLatency() throws Exception {
+        try (SyntheticFetcher fetcher = new SyntheticFetcher(100, 3, 4, 1000, 200, 1)) {
+            long start = System.nanoTime();
+            List<CompletableFuture<FetchResult>> results = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                results.add(fetcher.fetch(fetcher.url(i), chunk -> {}));
+            }
+            for (CompletableFuture<FetchResult> result : results) {
+                assertEquals(200, result.get().getStatusCode());
+                assertTrue(result.get().getElapsedNanos() >= TimeUnit.MILLISECONDS.toNanos(200));
+            }
+            // All at once on one thread, rather than one after another
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+
+            start = System.nanoTime();
+            try (FetchStream stream = fetcher.openStream(fetcher.url(1))) {
+                assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(200));
+                assertEquals(200, stream.getStatusCode());
+                assertEquals(stream.getContentLength(), stream.readAllBytes().length);
+            }
+        }
+    }
+
+    // Test case for crawling the whole synthetic site, images included
+    @Test(timeout = 60000)
+    public void testSyntheticCrawl() throws Exception {
+        ImageDecoder decoder = PictureViewer.getDecoder();
+        try (SyntheticFetcher fetcher = new SyntheticFetcher(500, 4, 8, 1000, 1, 2)) {
+            decoder.setFetcher(fetcher);
+            long decoded = decoder.getDecoded();
+            long hits = decoder.getCacheHits();
+            CrawlScheduler scheduler = new CrawlScheduler(2, 1000, 100, 1000, 1000);
+            scheduler.setFetcher(fetcher, 16);
+            scheduler.submit(fetcher.url(0), 0);
+            scheduler.start();
+            scheduler.completion().get(30, TimeUnit.SECONDS);
+            scheduler.shutdown(5, TimeUnit.SECONDS);
+
+            assertEquals(500, scheduler.getPagesScanned());
+            assertEquals(0, scheduler.getDroppedLinks());
+            // Every page has a link back to one seen before, so most links are duplicates
+            assertTrue(scheduler.getDuplicateLinks() >= 500);
+            assertTrue(scheduler.getPeakInFlight() > 1);
+            // The images were fetched from the synthetic site too; some may be dropped by the short queue
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (decoder.getQueued() > 0 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertTrue(decoder.getDecoded() > decoded);
+            // The 16 images are shown again on later pages, from the cache
+            assertTrue(decoder.getCacheHits() > hits);
+            assertFalse(decoder.getErrorsByType().containsKey("UnknownHostException"));
+        } finally {
+            decoder.setFetcher(null);
+        }
+    }
+
+    // Test case for decoding the images of the synthetic site
+    @Test
+    public void testSyntheticImages() throws IOException {
+        try (SyntheticFetcher fetcher = new SyntheticFetcher(10, 2, 1, 1000, 0, 1);
+                ImageDecoder decoder = new ImageDecoder(1, 4, 320, 240, 200, 150)) {
+            decoder.setFetcher(fetcher);
+            BufferedImage image = decoder.decode(fetcher.imageUrl(3));
+            assertEquals(320, image.getWidth());
+            assertEquals(240, image.getHeight());
+            assertEquals(image.getRGB(0, 0), image.getRGB(319, 239));
+            assertNotEquals(image.getRGB(0, 0), decoder.decode(fetcher.imageUrl(4)).getRGB(0, 0));
+            try {
+                decoder.decode(fetcher.imageUrl(SyntheticFetcher.IMAGES));
+                fail("Expected FileNotFoundException");
+            } catch (FileNotFoundException e) {
+                // expected
+            }
+        }
+    }
+
+    // Test case for serving the files of a mirror directory
+    @Test
+    public void testReplayDirectory() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        Files.createDirectories(directory.resolve("a.example/page"));
+        Files.createDirectories(directory.resolve("a.example_8080"));
+        Files.createDirectories(directory.resolve("b.example"));
+        Files.writeString(directory.resolve("a.example/index.html"), "<a href=\"/page/1\">one</a>");
+        Files.writeString(directory.resolve("a.example/page/1"), "<h1>One</h1>");
+        Files.writeString(directory.resolve("a.example/page/index.html"), "<h1>Pages</h1>");
+        Files.writeString(directory.resolve("a.example/search?q=x"), "<h1>Results</h1>");
+        Files.writeString(directory.resolve("a.example/notes.txt"), "notes");
+        Files.write(directory.resolve("a.example_8080/cat.png"), new byte[] { 1, 2, 3 });
+        Files.writeString(directory.resolve("b.example/secret.html"), "secret");
+
+        try (ReplayFetcher fetcher = ReplayFetcher.open(directory, 1)) {
+            assertNull(fetcher.getFirstUrl());
+            StringBuilder text = new StringBuilder();
+            assertEquals(200, fetch(fetcher, "http://a.example/", text).getStatusCode());
+            assertEquals("<a href=\"/page/1\">one</a>", text.toString());
+            assertEquals("<h1>One</h1>", fetcher.fetchText("http://a.example/page/1").get());
+            assertEquals("<h1>Pages</h1>", fetcher.fetchText("http://a.example/page").get());
+            assertEquals("<h1>Results</h1>", fetcher.fetchText("http://a.example/search?q=x").get());
+            assertEquals("notes", fetcher.fetchText("http://a.example/notes.txt").get());
+
+            // Not text, so fetched but not passed on
+            text.setLength(0);
+            FetchResult image = fetch(fetcher, "http://a.example:8080/cat.png", text);
+            assertEquals(200, image.getStatusCode());
+            assertEquals("image/png", image.getHeaders().firstValue("Content-Type").get());
+            assertEquals(0, text.length());
+            try (FetchStream stream = fetcher.openStream("http://a.example:8080/cat.png")) {
+                assertArrayEquals(new byte[] { 1, 2, 3 }, stream.readAllBytes());
+            }
+
+            assertEquals(404, fetch(fetcher, "http://a.example/missing", text).getStatusCode());
+            assertEquals(404, fetch(fetcher, "http://c.example/", text).getStatusCode());
+            // Paths cannot climb out of the host's directory
+            assertNull(fetcher.fileOf("http://a.example/../b.example/secret.html"));
+            assertEquals(404, fetch(fetcher, "http://a.example/../b.example/secret.html", text).getStatusCode());
+            try {
+                fetcher.openStream("http://a.example/missing").close();
+                fail("Expected FileNotFoundException");
+            } catch (FileNotFoundException e) {
+                // expected
+            }
+        }
+    }
+
+    // Test case for crawling again, offline, the pages archived by a crawl of a site
+    @Test(timeout = 60000)
+    public void testReplayArchive() throws Exception {
+        Path directory = folder.getRoot().toPath().resolve("archive");
+        String seed;
+        List<String> pages = new ArrayList<>();
+        try (StubSite site = new StubSite(100);
+                HttpFetcher fetcher = new HttpFetcher();
+                CrawlArchive archive = new CrawlArchive(directory)) {
+            fetcher.setArchive(archive);
+            CrawlScheduler scheduler = new CrawlScheduler(2, 100, 100, 1000, 1000);
+            scheduler.setFetcher(fetcher, 8);
+            seed = site.url(0);
+            archive.recordSeed(seed);
+            scheduler.submit(seed, 0);
+            scheduler.start();
+            scheduler.completion().get(30, TimeUnit.SECONDS);
+            scheduler.shutdown(5, TimeUnit.SECONDS);
+            for (int i = 0; i < 100; i++) {
+                pages.add(fetcher.fetchText(site.url(i)).get(10, TimeUnit.SECONDS));
+            }
+            // A redirect, replayed as it was received
+            archive.record(site.url(100), 301, Map.of("Location", List.of(site.url(0))), new byte[0], 0);
+        }
+
+        // The site is gone; the archive answers in its place
+        try (ReplayFetcher fetcher = ReplayFetcher.open(directory, 2)) {
+            assertEquals(seed, fetcher.getFirstUrl());
+            for (int i = 0; i < 100; i += 9) {
+                assertEquals(pages.get(i), fetcher.fetchText(urlOf(seed, i)).get());
+            }
+            FetchResult redirect = fetch(fetcher, urlOf(seed, 100), new StringBuilder());
+            assertEquals(301, redirect.getStatusCode());
+            assertEquals(seed, redirect.getLocation());
+
+            CrawlScheduler scheduler = new CrawlScheduler(2, 100, 100, 1000, 1000);
+            scheduler.setFetcher(fetcher, 8);
+            scheduler.submit(seed, 0);
+            scheduler.start();
+            scheduler.completion().get(30, TimeUnit.SECONDS);
+            scheduler.shutdown(5, TimeUnit.SECONDS);
+            assertEquals(100, scheduler.getPagesScanned());
+        }
+    }
+
+    // URL of page i of the site whose page 0 is at seed
+    private static String urlOf(String seed, int page) {
+        return seed.substring(0, seed.lastIndexOf('/') + 1) + page;
+    }
+}
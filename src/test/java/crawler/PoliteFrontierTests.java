@@ -0,0 +1,181 @@
+// Tests for PoliteFrontier.java and RobotsTxt.java
+package crawler;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class PoliteFrontierTests {
+
+    private static CrawlTask task(String host, int page) {
+        return new CrawlTask("http://" + host + "/page/" + page, 0);
+    }
+
+    // Test case for taking turns between hosts, whatever order their pages arrived in
+    @Test
+    public void testRoundRobin() throws InterruptedException {
+        PoliteFrontier frontier = new PoliteFrontier(100, 1, 0);
+        for (int i = 0; i < 3; i++) {
+            frontier.offer(task("a.example", i), 0, TimeUnit.SECONDS);
+        }
+        for (int i = 0; i < 3; i++) {
+            frontier.offer(task("b.example", i), 0, TimeUnit.SECONDS);
+            frontier.offer(task("c.example", i), 0, TimeUnit.SECONDS);
+        }
+        assertEquals(9, frontier.size());
+        assertEquals(3, frontier.hostCount());
+        List<String> order = new ArrayList<>();
+        for (int i = 0; i < 9; i++) {
+            CrawlTask task = frontier.poll(1, TimeUnit.SECONDS);
+            order.add(PoliteFrontier.originOf(task.getUrl()).substring(7, 8) + task.getUrl().charAt(task.getUrl().length() - 1));
+            frontier.done(task);
+        }
+        assertEquals(List.of("a0", "b0", "c0", "a1", "b1", "c1", "a2", "b2", "c2"), order);
+        assertEquals(0, frontier.size());
+    }
+
+    // Test case for the limit on fetches from one host at once
+    @Test
+    public void testConcurrencyPerHost() throws InterruptedException {
+        PoliteFrontier frontier = new PoliteFrontier(100, 2, 0);
+        for (int i = 0; i < 5; i++) {
+            frontier.offer(task("a.example", i), 0, TimeUnit.SECONDS);
+        }
+        frontier.offer(task("b.example", 0), 0, TimeUnit.SECONDS);
+        CrawlTask first = frontier.poll(1, TimeUnit.SECONDS);
+        assertEquals("http://b.example/page/0", frontier.poll(1, TimeUnit.SECONDS).getUrl());
+        assertEquals("http://a.example/page/1", frontier.poll(1, TimeUnit.SECONDS).getUrl());
+        // Two pages of a.example are in flight, so it is not due until one is done
+        assertNull(frontier.poll(100, TimeUnit.MILLISECONDS));
+        frontier.done(first);
+        assertEquals("http://a.example/page/2", frontier.poll(1, TimeUnit.SECONDS).getUrl());
+    }
+
+    // Test case for the minimum delay between fetches from one host
+    @Test
+    public void testMinDelay() throws InterruptedException {
+        PoliteFrontier frontier = new PoliteFrontier(100, 4, 100);
+        for (int i = 0; i < 4; i++) {
+            frontier.offer(task("a.example", i), 0, TimeUnit.SECONDS);
+        }
+        frontier.offer(task("b.example", 0), 0, TimeUnit.SECONDS);
+        long previous = 0;
+        int fromA = 0;
+        while (fromA < 4) {
+            CrawlTask task = frontier.poll(5, TimeUnit.SECONDS);
+            long now = System.nanoTime();
+            if (task.getUrl().contains("a.example")) {
+                if (fromA++ > 0) {
+                    assertTrue(now - previous >= TimeUnit.MILLISECONDS.toNanos(95));
+                }
+                previous = now;
+            }
+        }
+    }
+
+    // Test case for the bound on waiting pages
+    @Test
+    public void testCapacity() throws InterruptedException {
+        PoliteFrontier frontier = new PoliteFrontier(2, 1, 0);
+        assertTrue(frontier.offer(task("a.example", 0), 0, TimeUnit.SECONDS));
+        assertTrue(frontier.offer(task("b.example", 0), 0, TimeUnit.SECONDS));
+        assertFalse(frontier.offer(task("c.example", 0), 50, TimeUnit.MILLISECONDS));
+        frontier.poll(1, TimeUnit.SECONDS);
+        assertTrue(frontier.offer(task("c.example", 0), 0, TimeUnit.SECONDS));
+        frontier.clear();
+        assertEquals(0, frontier.size());
+        assertNull(frontier.poll(50, TimeUnit.MILLISECONDS));
+    }
+
+    // Test case for reading Crawl-delay from robots.txt
+    @Test
+    public void testRobotsTxt() {
+        String robots = "# comment\nUser-agent: *\nDisallow: /private\nCrawl-delay: 2\n\n"
+                + "User-agent: other-bot\nUser-agent: java-software-engineering-crawler\nCrawl-delay: 0.5 # seconds\n";
+        assertEquals(500, RobotsTxt.crawlDelayMillis(robots, "java-software-engineering-crawler"));
+        assertEquals(2000, RobotsTxt.crawlDelayMillis(robots, "somebot"));
+        assertEquals(-1, RobotsTxt.crawlDelayMillis("User-agent: *\nDisallow:\n", "somebot"));
+        assertEquals(-1, RobotsTxt.crawlDelayMillis("User-agent: *\nCrawl-delay: soon\n", "somebot"));
+        // A group naming the crawler without a delay still overrides the "*" group
+        assertEquals(-1, RobotsTxt.crawlDelayMillis("User-agent: *\nCrawl-delay: 2\n\nUser-agent: somebot\nDisallow: /x\n",
+                "somebot"));
+        // A group naming only part of the crawler's token is another crawler's, and leaves the "*" group in force
+        String partial = "User-agent: *\nCrawl-delay: 2\n\nUser-agent: crawler\nUser-agent: e\nCrawl-delay: 0\n";
+        assertEquals(2000, RobotsTxt.crawlDelayMillis(partial, "java-software-engineering-crawler"));
+        // The token is matched whole, ignoring case and any version
+        assertEquals(500, RobotsTxt.crawlDelayMillis("User-agent: SomeBot/2.1\nCrawl-delay: 0.5\n", "somebot/1.0"));
+        assertEquals("https://a.example:8443", PoliteFrontier.originOf("https://a.example:8443/x/y?z"));
+        assertEquals("https://a.example", PoliteFrontier.originOf("https://a.example?z=/"));
+    }
+
+    // Test case for starting a host's delay when its page is fetched, not while it waits for a fetch slot
+    @Test(timeout = 30000)
+    public void testDelayWithBusySlots() throws Exception {
+        StubSite[] slow = { new StubSite(1), new StubSite(1) };
+        try (StubSite fast = new StubSite(15); HttpFetcher fetcher = new HttpFetcher()) {
+            for (StubSite site : slow) {
+                site.setLatencyMillis(400);
+            }
+            CrawlScheduler scheduler = new CrawlScheduler(4, new PoliteFrontier(1000, 2, 100), 10, 1000, 1000,
+                    new ConcurrentSeenUrlStore());
+            // Both slots are taken by the slow sites while pages 1 and 2 of the fast one wait
+            scheduler.setFetcher(fetcher, 2);
+            scheduler.submit(slow[0].url(0), 0);
+            scheduler.submit(slow[1].url(0), 0);
+            scheduler.submit(fast.url(1), 1);
+            scheduler.submit(fast.url(2), 1);
+            scheduler.start();
+            scheduler.completion().get(20, TimeUnit.SECONDS);
+            scheduler.shutdown(5, TimeUnit.SECONDS);
+            assertEquals(14, fast.getRequests());
+            assertTrue("gap " + fast.minGapMillis(), fast.minGapMillis() >= 100 - 30);
+        } finally {
+            for (StubSite site : slow) {
+                site.close();
+            }
+        }
+    }
+
+    // Test case for crawling several sites at once while staying polite to each
+    @Test(timeout = 60000)
+    public void testCrawlSeveralHosts() throws Exception {
+        StubSite[] sites = { new StubSite(15), new StubSite(15), new StubSite(15) };
+        try (HttpFetcher fetcher = new HttpFetcher()) {
+            for (StubSite site : sites) {
+                site.setLatencyMillis(20);
+            }
+            sites[2].setRobotsTxt("User-agent: *\nCrawl-delay: 0.25\n");
+            CrawlScheduler scheduler = new CrawlScheduler(2, new PoliteFrontier(1000, 1, 100, fetcher), 10, 1000,
+                    1000, new ConcurrentSeenUrlStore());
+            scheduler.setFetcher(fetcher, 16);
+            for (StubSite site : sites) {
+                scheduler.submit(site.url(0), 0);
+            }
+            long start = System.nanoTime();
+            scheduler.start();
+            scheduler.completion().get(50, TimeUnit.SECONDS);
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            scheduler.shutdown(5, TimeUnit.SECONDS);
+
+            assertEquals(45, scheduler.getPagesScanned());
+            for (StubSite site : sites) {
+                assertEquals(15, site.getRequests());
+                assertEquals(1, site.getMaxConcurrent());
+            }
+            // Requests reach the server a little sooner or later after they leave the frontier
+            assertTrue("gap " + sites[0].minGapMillis(), sites[0].minGapMillis() >= 100 - 30);
+            assertTrue("gap " + sites[1].minGapMillis(), sites[1].minGapMillis() >= 100 - 30);
+            assertTrue("gap " + sites[2].minGapMillis(), sites[2].minGapMillis() >= 250 - 30);
+            // The slowest site needs 14 gaps of 250 ms; the others crawl alongside it
+            assertTrue("took " + elapsed + " ms", elapsed >= 14 * 250 && elapsed < 14 * 250 + 1500);
+        } finally {
+            for (StubSite site : sites) {
+                site.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,228 @@
+// Tests for PriorityFrontier.java and WeightedPageScorer.java
+package crawler;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PriorityFrontierTests {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // Scores pages by the number at the end of their URL, plus ten per in-link
+    private static final PageScorer BY_NUMBER = (task, inLinks, hostPages) ->
+            Integer.parseInt(task.getUrl().substring(task.getUrl().lastIndexOf('/') + 1)) + 10 * (inLinks - 1);
+
+    private static CrawlTask task(int page) {
+        return new CrawlTask("http://a.example/page/" + page, 0);
+    }
+
+    private static int number(CrawlTask task) {
+        return Integer.parseInt(task.getUrl().substring(task.getUrl().lastIndexOf('/') + 1));
+    }
+
+    // Test case for handing out the best page first, and equal pages in the order they came
+    @Test
+    public void testOrder() throws InterruptedException {
+        PriorityFrontier frontier = new PriorityFrontier(100, (task, inLinks, hostPages) -> task.getDepth() == 0 ? 1 : 0);
+        frontier.offer(new CrawlTask("http://a.example/deep1", 3), 0, TimeUnit.SECONDS);
+        frontier.offer(new CrawlTask("http://a.example/top1", 0), 0, TimeUnit.SECONDS);
+        frontier.offer(new CrawlTask("http://a.example/deep2", 3), 0, TimeUnit.SECONDS);
+        frontier.offer(new CrawlTask("http://a.example/top2", 0), 0, TimeUnit.SECONDS);
+        List<String> order = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            order.add(frontier.poll(0, TimeUnit.SECONDS).getUrl().substring(17));
+        }
+        assertEquals(List.of("top1", "top2", "deep1", "deep2"), order);
+        assertNull(frontier.poll(10, TimeUnit.MILLISECONDS));
+    }
+
+    // Test case for scoring a page again as more links to it are found
+    @Test
+    public void testInLinks() throws InterruptedException {
+        PriorityFrontier frontier = new PriorityFrontier(100, BY_NUMBER);
+        for (int i = 0; i < 20; i++) {
+            frontier.offer(task(i), 0, TimeUnit.SECONDS);
+        }
+        frontier.linked(task(3).getUrl());
+        frontier.linked(task(3).getUrl());
+        // Not waiting, so nothing to score
+        frontier.linked("http://a.example/page/99");
+        assertEquals(3, number(frontier.poll(0, TimeUnit.SECONDS)));
+        assertEquals(19, number(frontier.poll(0, TimeUnit.SECONDS)));
+        assertEquals(18, frontier.size());
+    }
+
+    // Test case for waiting for room when there is no spill directory
+    @Test
+    public void testCapacity() throws InterruptedException {
+        PriorityFrontier frontier = new PriorityFrontier(4, BY_NUMBER);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(frontier.offer(task(i), 0, TimeUnit.SECONDS));
+        }
+        assertFalse(frontier.offer(task(4), 50, TimeUnit.MILLISECONDS));
+        frontier.poll(0, TimeUnit.SECONDS);
+        assertTrue(frontier.offer(task(4), 0, TimeUnit.SECONDS));
+    }
+
+    // Test case for counting only the pages of a host still waiting in memory
+    @Test
+    public void testHostPages() throws IOException, InterruptedException {
+        List<Integer> counts = new ArrayList<>();
+        PageScorer recording = (task, inLinks, hostPages) -> {
+            counts.add(hostPages);
+            return BY_NUMBER.score(task, inLinks, hostPages);
+        };
+        PriorityFrontier frontier = new PriorityFrontier(4, recording, folder.newFolder("spill").toPath(), 100);
+        for (int i = 0; i < 3; i++) {
+            frontier.offer(task(i), 0, TimeUnit.SECONDS);
+        }
+        frontier.offer(new CrawlTask("http://b.example/page/3", 0), 0, TimeUnit.SECONDS);
+        assertEquals(List.of(1, 2, 3, 1), counts);
+        // Making room spills the worst page, page 0; the pages left in memory are polled
+        frontier.offer(new CrawlTask("http://b.example/page/4", 0), 0, TimeUnit.SECONDS);
+        assertEquals(2, (int) counts.get(4));
+        assertEquals(1, frontier.getSpilled());
+        for (int i = 0; i < 4; i++) {
+            frontier.poll(0, TimeUnit.SECONDS);
+        }
+        counts.clear();
+        frontier.offer(task(5), 0, TimeUnit.SECONDS);
+        frontier.offer(new CrawlTask("http://b.example/page/6", 0), 0, TimeUnit.SECONDS);
+        assertEquals(List.of(1, 1), counts);
+    }
+
+    // Test case for spilling the lowest scored pages to disk, and reading them back in order
+    @Test
+    public void testSpill() throws IOException, InterruptedException {
+        Path spillDirectory = folder.newFolder("spill").toPath();
+        PriorityFrontier frontier = new PriorityFrontier(100, BY_NUMBER, spillDirectory, 100000);
+        // Shuffled, so pages are spilled whatever order they came in
+        List<Integer> pages = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            pages.add(i * 7919 % 5000);
+        }
+        for (int page : pages) {
+            assertTrue(frontier.offer(task(page), 0, TimeUnit.SECONDS));
+        }
+        assertEquals(5000, frontier.size());
+        assertTrue(frontier.getSpilled() >= 4900);
+        assertTrue(frontier.getSpills() > PriorityFrontier.MAX_RUNS);
+        assertTrue(frontier.getRuns() <= PriorityFrontier.MAX_RUNS + 1);
+        try (var files = Files.list(spillDirectory)) {
+            assertEquals(frontier.getRuns(), files.count());
+        }
+        for (int i = 4999; i >= 2500; i--) {
+            assertEquals(i, number(frontier.poll(0, TimeUnit.SECONDS)));
+        }
+        // Pages offered later still come out in order with those on disk
+        frontier.offer(task(100000), 0, TimeUnit.SECONDS);
+        assertEquals(100000, number(frontier.poll(0, TimeUnit.SECONDS)));
+        for (int i = 2499; i >= 0; i--) {
+            assertEquals(i, number(frontier.poll(0, TimeUnit.SECONDS)));
+        }
+        assertEquals(0, frontier.size());
+        try (var files = Files.list(spillDirectory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    // Test case for limiting the pages on disk, and deleting the spill files on clear()
+    @Test
+    public void testSpillLimit() throws IOException, InterruptedException {
+        Path spillDirectory = folder.newFolder("spill").toPath();
+        PriorityFrontier frontier = new PriorityFrontier(100, BY_NUMBER, spillDirectory, 40);
+        for (int i = 0; i < 125; i++) {
+            assertTrue(frontier.offer(task(i), 0, TimeUnit.SECONDS));
+        }
+        assertEquals(25, frontier.getSpilled());
+        assertFalse(frontier.offer(task(125), 10, TimeUnit.MILLISECONDS));
+        frontier.clear();
+        assertEquals(0, frontier.size());
+        try (var files = Files.list(spillDirectory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    // Test case for many threads offering and polling at once, spilling as they go
+    @Test(timeout = 60000)
+    public void testConcurrent() throws Exception {
+        PriorityFrontier frontier = new PriorityFrontier(64, BY_NUMBER, folder.newFolder("spill").toPath(), 100000);
+        Set<Integer> polled = ConcurrentHashMap.newKeySet();
+        AtomicInteger duplicates = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int thread = t;
+            threads.add(new Thread(() -> {
+                try {
+                    for (int i = 0; i < 5000; i++) {
+                        frontier.offer(task(thread * 5000 + i), 1, TimeUnit.SECONDS);
+                        frontier.linked(task(thread * 5000 + i / 2).getUrl());
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+            threads.add(new Thread(() -> {
+                try {
+                    CrawlTask task;
+                    while ((task = frontier.poll(500, TimeUnit.MILLISECONDS)) != null) {
+                        if (!polled.add(number(task))) {
+                            duplicates.incrementAndGet();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(0, duplicates.get());
+        assertEquals(20000, polled.size());
+        assertEquals(0, frontier.size());
+    }
+
+    // Test case for the signals the default scorer weighs
+    @Test
+    public void testWeightedScorer() {
+        WeightedPageScorer scorer = new WeightedPageScorer();
+        CrawlTask page = new CrawlTask("http://a.example/news/today", 2);
+        double score = scorer.score(page, 1, 1);
+        assertEquals(-2, score, 1e-9);
+        assertTrue(scorer.score(new CrawlTask("http://a.example/news/today", 3), 1, 1) < score);
+        assertEquals(score + 2, scorer.score(page, 4, 1), 1e-9);
+        assertEquals(score - 1, scorer.score(page, 1, 4), 1e-9);
+        assertEquals(score + 2, scorer.score(new CrawlTask("http://a.example/photos/today", 2), 1, 1), 1e-9);
+
+        Set<String> images = new HashSet<>();
+        for (String url : List.of("http://a.example/gallery", "http://a.example/2024/Photos/beach?page=2",
+                "http://a.example/img/", "http://a.example/wallpapers-hd/", "http://a.example/topic/pic-of-the-day",
+                "http://a.example/epic/", "http://a.example/images/cat.jpg", "http://a.example/?q=gallery",
+                "http://a.example/picnic")) {
+            if (WeightedPageScorer.imageLikelihood(url) > 0) {
+                images.add(url.substring(17));
+            }
+        }
+        assertEquals(Set.of("gallery", "2024/Photos/beach?page=2", "img/", "wallpapers-hd/", "topic/pic-of-the-day"),
+                images);
+    }
+}
@@ -0,0 +1,190 @@
+// Tests for RecrawlStore.java
+package crawler;
+
+import static org.junit.Assert.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class RecrawlStoreTests {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // Crawls a site from its first page with the given store, and returns the scheduler
+    private static CrawlScheduler crawl(StubSite site, HttpFetcher fetcher, RecrawlStore store) throws Exception {
+        CrawlScheduler scheduler = new CrawlScheduler(2, 1000, 100, 1000, 1000);
+        scheduler.setFetcher(fetcher, 8);
+        scheduler.setRecrawlStore(store);
+        scheduler.submit(site.url(0), 0);
+        scheduler.start();
+        scheduler.completion().get(30, TimeUnit.SECONDS);
+        scheduler.shutdown(5, TimeUnit.SECONDS);
+        return scheduler;
+    }
+
+    // Test case for reading back what was saved
+    @Test
+    public void testRoundTrip() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("recrawl.store");
+        RecrawlStore store = new RecrawlStore(file);
+        assertEquals(0, store.size());
+        store.put("http://a.example/", new RecrawlStore.Entry("\"abc\"", "Mon, 01 Jan 2024 00:00:00 GMT",
+                List.of("http://a.example/one", "http://a.example/café"), List.of("http://a.example/cat.png")));
+        store.put("http://a.example/one", new RecrawlStore.Entry(null, "Tue, 02 Jan 2024 00:00:00 GMT", List.of(),
+                List.of()));
+        store.put("http://a.example/two", new RecrawlStore.Entry("W/\"2\"", null, List.of("http://a.example/"),
+                List.of()));
+        // Too long to save; the page is saved without it
+        store.put("http://a.example/long", new RecrawlStore.Entry("\"l\"", null,
+                List.of("http://a.example/" + "x".repeat(70000), "http://a.example/short"), List.of()));
+        store.save();
+        assertFalse(Files.exists(file.resolveSibling("recrawl.store.tmp")));
+
+        RecrawlStore read = new RecrawlStore(file);
+        assertEquals(4, read.size());
+        RecrawlStore.Entry entry = read.get("http://a.example/");
+        assertEquals("\"abc\"", entry.getEtag());
+        assertEquals("Mon, 01 Jan 2024 00:00:00 GMT", entry.getLastModified());
+        assertEquals(List.of("http://a.example/one", "http://a.example/café"), entry.getLinks());
+        assertEquals(List.of("http://a.example/cat.png"), entry.getImages());
+        assertNull(read.get("http://a.example/one").getEtag());
+        assertNull(read.get("http://a.example/two").getLastModified());
+        assertEquals(List.of("http://a.example/short"), read.get("http://a.example/long").getLinks());
+        assertNull(read.get("http://a.example/missing"));
+
+        // Saving again replaces the file
+        read.remove("http://a.example/one");
+        read.save();
+        assertEquals(3, new RecrawlStore(file).size());
+    }
+
+    // Test case for starting empty from a damaged store
+    @Test
+    public void testCorrupt() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("recrawl.store");
+        RecrawlStore store = new RecrawlStore(file);
+        for (int i = 0; i < 100; i++) {
+            store.put("http://a.example/" + i, new RecrawlStore.Entry("\"" + i + "\"", null, List.of(), List.of()));
+        }
+        store.save();
+        byte[] bytes = Files.readAllBytes(file);
+
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(file, bytes);
+        assertEquals(0, new RecrawlStore(file).size());
+
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 10));
+        assertEquals(0, new RecrawlStore(file).size());
+
+        Files.writeString(file, "not a store");
+        assertEquals(0, new RecrawlStore(file).size());
+    }
+
+    // Test case for conditional requests answered 304, which have no body and are not archived
+    @Test(timeout = 30000)
+    public void testConditionalFetch() throws Exception {
+        Path directory = folder.getRoot().toPath().resolve("archive");
+        try (StubSite site = new StubSite(10);
+                HttpFetcher fetcher = new HttpFetcher();
+                CrawlArchive archive = new CrawlArchive(directory)) {
+            site.setValidators(true, true);
+            fetcher.setArchive(archive);
+            StringBuilder text = new StringBuilder();
+            FetchResult result = fetcher.fetch(site.url(3), text::append).get();
+            assertEquals(200, result.getStatusCode());
+            String etag = result.getHeaders().firstValue("ETag").get();
+            String lastModified = result.getHeaders().firstValue("Last-Modified").get();
+
+            StringBuilder none = new StringBuilder();
+            result = fetcher.fetchIfModified(site.url(3), etag, null, none::append).get();
+            assertEquals(304, result.getStatusCode());
+            assertEquals(0, result.getBodyBytes());
+            assertEquals(0, none.length());
+            assertEquals(304, fetcher.fetchIfModified(site.url(3), null, lastModified, none::append).get()
+                    .getStatusCode());
+            assertEquals(text.length(), site.getBytesSent());
+
+            // A new version is sent whole
+            site.change(3);
+            result = fetcher.fetchIfModified(site.url(3), etag, lastModified, none::append).get();
+            assertEquals(200, result.getStatusCode());
+            assertNotEquals(etag, result.getHeaders().firstValue("ETag").get());
+            assertTrue(none.toString().contains("Version 1"));
+            assertEquals(2, site.getNotModified());
+
+            archive.flush();
+            try (ArchiveReader reader = new ArchiveReader(directory)) {
+                assertEquals(List.of(site.url(3)), reader.getUrls());
+                assertEquals(200, reader.read(site.url(3)).getStatusCode());
+                assertTrue(new String(reader.read(site.url(3)).getBody()).contains("Version 1"));
+            }
+        }
+    }
+
+    // Test case for recrawling a site, downloading and parsing only the pages that changed
+    @Test(timeout = 60000)
+    public void testRecrawl() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("recrawl.store");
+        try (StubSite site = new StubSite(100); HttpFetcher fetcher = new HttpFetcher()) {
+            site.setValidators(true, false);
+            RecrawlStore store = new RecrawlStore(file);
+            CrawlScheduler cold = crawl(site, fetcher, store);
+            assertEquals(100, cold.getPagesScanned());
+            assertEquals(0, cold.getMetrics().getPagesNotModified());
+            assertEquals(100, store.size());
+            assertEquals(List.of(site.url(1), site.url(2)), store.get(site.url(0)).getLinks());
+            assertEquals(List.of(), store.get(site.url(99)).getLinks());
+            store.save();
+            long coldBytes = site.getBytesSent();
+
+            site.change(5);
+            site.change(50);
+            RecrawlStore recrawl = new RecrawlStore(file);
+            CrawlScheduler warm = crawl(site, fetcher, recrawl);
+            // Every page is reached again, through the links kept for the pages that did not change
+            assertEquals(100, warm.getPagesScanned());
+            assertEquals(98, warm.getMetrics().getPagesNotModified());
+            assertEquals(98, site.getNotModified());
+            assertEquals(200, site.getRequests());
+            long warmBytes = site.getBytesSent() - coldBytes;
+            assertTrue(warmBytes > 0 && warmBytes < coldBytes / 20);
+            assertEquals(warmBytes, warm.getMetrics().getBytesDownloaded());
+            assertEquals("\"5-1\"", recrawl.get(site.url(5)).getEtag());
+            assertEquals(List.of(site.url(11), site.url(12)), recrawl.get(site.url(5)).getLinks());
+        }
+    }
+
+    // Test case for recrawling with If-Modified-Since when a site sends only Last-Modified
+    @Test(timeout = 60000)
+    public void testRecrawlLastModified() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("recrawl.store");
+        try (StubSite site = new StubSite(50); HttpFetcher fetcher = new HttpFetcher()) {
+            site.setValidators(false, true);
+            RecrawlStore store = new RecrawlStore(file);
+            crawl(site, fetcher, store);
+            assertNull(store.get(site.url(0)).getEtag());
+            assertNotNull(store.get(site.url(0)).getLastModified());
+
+            site.change(7);
+            CrawlScheduler warm = crawl(site, fetcher, store);
+            assertEquals(50, warm.getPagesScanned());
+            assertEquals(49, warm.getMetrics().getPagesNotModified());
+
+            // A site that stops sending validators is fetched whole, and forgotten
+            site.setValidators(false, false);
+            CrawlScheduler plain = crawl(site, fetcher, store);
+            assertEquals(50, plain.getPagesScanned());
+            assertEquals(0, plain.getMetrics().getPagesNotModified());
+            assertEquals(0, store.size());
+        }
+    }
+}
@@ -0,0 +1,103 @@
+// Tests for SeenUrlStore.java and its implementations
+package crawler;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class SeenUrlStoreTests {
+
+    private static String url(int i) {
+        return "https://www.example.com/page/" + i;
+    }
+
+    // Checks the behaviour every exact store must have
+    private static void checkExact(SeenUrlStore store) {
+        for (int i = 0; i < 100000; i++) {
+            assertTrue(store.add(url(i)));
+        }
+        for (int i = 0; i < 100000; i++) {
+            assertFalse(store.add(url(i)));
+            assertTrue(store.contains(url(i)));
+        }
+        assertFalse(store.contains(url(100000)));
+        assertFalse(store.contains("https://www.example.com/page/"));
+        assertEquals(100000, store.size());
+    }
+
+    // Test case for the exact stores, including growth of the fingerprint tables
+    @Test
+    public void testExactStores() {
+        checkExact(new ConcurrentSeenUrlStore());
+        checkExact(new FingerprintSeenUrlStore());
+        checkExact(new FingerprintSeenUrlStore(200000));
+    }
+
+    // Adds URLs 0 to 19,999 from 8 threads at once; returns how many adds reported a new URL
+    private static int addFromManyThreads(SeenUrlStore store) throws InterruptedException {
+        AtomicInteger added = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 20000; i++) {
+                    if (store.add(url(i))) {
+                        added.incrementAndGet();
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return added.get();
+    }
+
+    // Test case for many threads adding overlapping URLs: each URL must be new exactly once
+    @Test
+    public void testConcurrentAdds() throws InterruptedException {
+        for (SeenUrlStore store : new SeenUrlStore[] { new ConcurrentSeenUrlStore(), new FingerprintSeenUrlStore() }) {
+            assertEquals(store.getClass().getSimpleName(), 20000, addFromManyThreads(store));
+            assertEquals(20000, store.size());
+        }
+        // The Bloom filter may tell two racing threads that the same URL is new, but never misses one
+        BloomSeenUrlStore bloom = new BloomSeenUrlStore(100000, 1e-9);
+        assertTrue(addFromManyThreads(bloom) >= 20000);
+        for (int i = 0; i < 20000; i++) {
+            assertTrue(bloom.contains(url(i)));
+        }
+    }
+
+    // Test case for the Bloom filter: no false negatives and about the configured false-positive rate
+    @Test
+    public void testBloomFalsePositiveRate() {
+        BloomSeenUrlStore store = new BloomSeenUrlStore(100000, 0.01);
+        assertEquals(7, store.getHashCount());
+        for (int i = 0; i < 100000; i++) {
+            store.add(url(i));
+        }
+        for (int i = 0; i < 100000; i++) {
+            assertTrue(store.contains(url(i)));
+        }
+        int falsePositives = 0;
+        for (int i = 100000; i < 200000; i++) {
+            if (store.contains(url(i))) {
+                falsePositives++;
+            }
+        }
+        assertTrue("false positives: " + falsePositives, falsePositives > 500 && falsePositives < 1500);
+        assertEquals(0.01, store.expectedFalsePositiveRate(), 0.002);
+        assertTrue(store.tableBytes() < 2 * 100000);
+    }
+
+    // Test case for rejecting impossible Bloom filter settings
+    @Test(expected = IllegalArgumentException.class)
+    public void testBloomRejectsRateOfOne() {
+        new BloomSeenUrlStore(1000, 1.0);
+    }
+}
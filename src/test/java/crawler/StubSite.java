@@ -0,0 +1,316 @@
+// Local HTTP server that serves a synthetic site for the crawler tests
+package crawler;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/*
+ * Serves pages /page/0 to /page/(size - 1) as a binary tree: page i links to pages
+ * 2i+1 and 2i+2, so every page is reachable from /page/0 exactly once and page i is
+ * at depth floor(log2(i + 1)).
+ *
+ * With link variants on, each page also links to itself and its children in the
+ * many ways real pages spell one address: relative paths, "./" and "../" segments,
+ * fragments, and an upper-case scheme and host.
+ *
+ * With copies on, the site is full of duplicates as real sites are: each page has a
+ * long text of its own, every link carries a new session ID, so that no URL is seen
+ * twice, and every page links home and to a printer-friendly copy /print/i, which
+ * has the same text without the navigation.
+ *
+ * With validators on, each page is sent with an ETag, a Last-Modified date or both,
+ * and conditional requests for a page that was not changed since are answered 304
+ * Not Modified. change(i) makes a new version of page i, with new validators.
+ *
+ * Requests for pages are handled on many threads, each after an optional delay, and
+ * the site records when each one started and how many it served at once, and how
+ * many body bytes it sent.
+ *
+ * Its server, and every other server of the tests, is made by createServer, which
+ * turns on TCP_NODELAY; without it every response written in two segments waits for
+ * the delayed ACK of the first, about 40 ms.
+ */
+class StubSite implements AutoCloseable {
+    static {
+        // Read once, when the first HttpServer is made
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    // When the first version of every page was made
+    private static final Instant CREATED = Instant.parse("2024-01-01T00:00:00Z");
+
+    private final HttpServer server;
+    private final int size;
+    private final boolean linkVariants;
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger maxActive = new AtomicInteger();
+    private final List<Long> requestStarts = Collections.synchronizedList(new ArrayList<>());
+    private final ExecutorService threads = Executors.newCachedThreadPool();
+    private volatile int latencyMillis;
+    private volatile String robotsTxt;
+    private volatile boolean copies;
+    private final AtomicInteger sessions = new AtomicInteger();
+    // Version of each page
+    private final AtomicIntegerArray versions;
+    private volatile boolean etags;
+    private volatile boolean lastModified;
+    private final AtomicInteger notModified = new AtomicInteger();
+    private final AtomicLong bytesSent = new AtomicLong();
+
+    StubSite(int size) throws IOException {
+        this(size, false);
+    }
+
+    StubSite(int size, boolean linkVariants) throws IOException {
+        this.size = size;
+        this.linkVariants = linkVariants;
+        this.versions = new AtomicIntegerArray(size);
+        server = createServer(0);
+        server.setExecutor(threads);
+        server.createContext("/page/", this::handle);
+        server.createContext("/print/", this::handle);
+        server.createContext("/robots.txt", this::handleRobots);
+        server.start();
+    }
+
+    // An unstarted server on a free local port, with TCP_NODELAY on
+    static HttpServer createServer(int backlog) throws IOException {
+        return HttpServer.create(new InetSocketAddress("127.0.0.1", 0), backlog);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        requestStarts.add(System.nanoTime());
+        maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+        try {
+            if (latencyMillis > 0) {
+                Thread.sleep(latencyMillis);
+            }
+            respond(exchange);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            active.decrementAndGet();
+        }
+    }
+
+    private void handleRobots(HttpExchange exchange) throws IOException {
+        String text = robotsTxt;
+        if (text == null) {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+            return;
+        }
+        byte[] body = text.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private void respond(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        boolean print = path.startsWith("/print/");
+        int page;
+        try {
+            page = Integer.parseInt(path.substring(path.indexOf('/', 1) + 1));
+        } catch (NumberFormatException e) {
+            page = -1;
+        }
+        if (page < 0 || page >= size) {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+            return;
+        }
+        int version = versions.get(page);
+        if (notModified(exchange, page, version)) {
+            notModified.incrementAndGet();
+            // A 304 ends the exchange at once; unless the request was read to its end by then,
+            // the server closes the connection, which the client may already be reusing
+            exchange.getRequestBody().close();
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+        StringBuilder html = new StringBuilder("<html><body>\n<h1>Page " + page + "</h1>\n");
+        if (version > 0) {
+            html.append("<p>Version ").append(version).append("</p>\n");
+        }
+        if (copies) {
+            html.append("<p>").append(text(page)).append("</p>\n");
+        }
+        for (int child = 2 * page + 1; child <= 2 * page + 2 && child < size; child++) {
+            html.append("<a href=\"").append(copies ? session(url(child)) : url(child)).append("\">page ")
+                    .append(child).append("</a>\n");
+            if (linkVariants) {
+                for (String variant : variants(child)) {
+                    html.append("<a href=\"").append(variant).append("\">again</a>\n");
+                }
+            }
+        }
+        if (linkVariants) {
+            html.append("<a href=\"#top\">top</a> <a href=\"").append(page).append("\">this page</a>\n");
+        }
+        if (copies && !print) {
+            html.append("<div class=\"nav\"><a href=\"").append(session(url(0))).append("\">home</a> <a href=\"")
+                    .append(session(printUrl(page))).append("\">printer friendly</a></div>\n");
+        }
+        html.append("</body></html>\n");
+        byte[] body = html.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+        exchange.sendResponseHeaders(200, body.length);
+        bytesSent.addAndGet(body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    // Sets the validators of a page, and tells whether the request's conditions say the client has it
+    private boolean notModified(HttpExchange exchange, int page, int version) {
+        String etag = "\"" + page + "-" + version + "\"";
+        // Each version a day after the one before
+        ZonedDateTime modified = ZonedDateTime.ofInstant(CREATED, ZoneOffset.UTC).plusDays(version);
+        if (etags) {
+            exchange.getResponseHeaders().set("ETag", etag);
+        }
+        if (lastModified) {
+            exchange.getResponseHeaders().set("Last-Modified", DateTimeFormatter.RFC_1123_DATE_TIME.format(modified));
+        }
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        if (ifNoneMatch != null) {
+            // Takes precedence over If-Modified-Since
+            return etags && ifNoneMatch.equals(etag);
+        }
+        String ifModifiedSince = exchange.getRequestHeaders().getFirst("If-Modified-Since");
+        if (ifModifiedSince != null && lastModified) {
+            try {
+                return !modified.isAfter(ZonedDateTime.parse(ifModifiedSince, DateTimeFormatter.RFC_1123_DATE_TIME));
+            } catch (DateTimeParseException e) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    // Other spellings of url(page), as seen from a page under /page/
+    List<String> variants(int page) {
+        String upperHost = "HTTP://127.0.0.1:" + server.getAddress().getPort();
+        return List.of(String.valueOf(page), "./" + page, "../page/" + page, "/page/" + page + "#comments",
+                "/page/./" + page, upperHost + "/page/" + page, url(page) + "#top");
+    }
+
+    // Words of the text of a page, the same each time the page is served
+    private static String text(int page) {
+        String[] words = { "crawler", "page", "link", "image", "frontier", "queue", "host", "fetch", "parse",
+                "index", "copy", "mirror", "session", "print", "text", "site", "server", "thread", "body", "tag" };
+        Random random = new Random(page);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            text.append(i == 0 ? "" : " ").append(words[random.nextInt(words.length)]);
+        }
+        return text.toString();
+    }
+
+    private String session(String url) {
+        return url + "?sid=" + sessions.incrementAndGet();
+    }
+
+    String printUrl(int page) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/print/" + page;
+    }
+
+    String url(int page) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/page/" + page;
+    }
+
+    int getRequests() {
+        return requests.get();
+    }
+
+    // Turns the session IDs, home links and printer-friendly copies on
+    void setCopies(boolean copies) {
+        this.copies = copies;
+    }
+
+    // Makes every page request take this long
+    void setLatencyMillis(int latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    // Serves this text as /robots.txt; null for a 404
+    void setRobotsTxt(String robotsTxt) {
+        this.robotsTxt = robotsTxt;
+    }
+
+    // Times at which page requests arrived, from System.nanoTime()
+    List<Long> getRequestStarts() {
+        synchronized (requestStarts) {
+            return new ArrayList<>(requestStarts);
+        }
+    }
+
+    // Shortest time between two page requests arriving, in milliseconds
+    long minGapMillis() {
+        List<Long> starts = getRequestStarts();
+        Collections.sort(starts);
+        long gap = Long.MAX_VALUE;
+        for (int i = 1; i < starts.size(); i++) {
+            gap = Math.min(gap, starts.get(i) - starts.get(i - 1));
+        }
+        return TimeUnit.NANOSECONDS.toMillis(gap);
+    }
+
+    // Sends pages with an ETag, a Last-Modified date or both, and honours conditional requests for them
+    void setValidators(boolean etags, boolean lastModified) {
+        this.etags = etags;
+        this.lastModified = lastModified;
+    }
+
+    // Makes a new version of a page, with new text and new validators
+    void change(int page) {
+        versions.incrementAndGet(page);
+    }
+
+    // Page requests answered 304 Not Modified
+    int getNotModified() {
+        return notModified.get();
+    }
+
+    // Body bytes of the pages sent
+    long getBytesSent() {
+        return bytesSent.get();
+    }
+
+    // Most page requests handled at the same time
+    int getMaxConcurrent() {
+        return maxActive.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        threads.shutdownNow();
+    }
+}
@@ -0,0 +1,72 @@
+// Tests for UrlNormalizer.java
+package crawler;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class UrlNormalizerTests {
+
+    private static final String BASE = "http://www.example.com/news/world/story.html?page=2";
+
+    // Test case for resolving relative links against the page URL
+    @Test
+    public void testResolve() {
+        assertEquals("http://www.example.com/news/world/other.html", UrlNormalizer.normalize(BASE, "other.html"));
+        assertEquals("http://www.example.com/news/world/other.html", UrlNormalizer.normalize(BASE, "./other.html"));
+        assertEquals("http://www.example.com/news/sport/", UrlNormalizer.normalize(BASE, "../sport/"));
+        assertEquals("http://www.example.com/about", UrlNormalizer.normalize(BASE, "/about"));
+        assertEquals("http://www.example.com/about", UrlNormalizer.normalize(BASE, "../../../../about"));
+        assertEquals("https://cdn.example.com/a.png", UrlNormalizer.normalize("https://www.example.com/", "//cdn.example.com/a.png"));
+        assertEquals("http://www.example.com/news/world/story.html?page=3", UrlNormalizer.normalize(BASE, "?page=3"));
+        assertEquals("http://www.example.com/a", UrlNormalizer.normalize("http://www.example.com", "a"));
+        assertEquals("http://other.org/", UrlNormalizer.normalize(BASE, "http://other.org"));
+    }
+
+    // Test case for spellings of the same URL that must become identical
+    @Test
+    public void testCanonicalize() {
+        String canonical = "http://www.example.com/a/b.html";
+        assertEquals(canonical, UrlNormalizer.normalize("HTTP://WWW.Example.COM/a/b.html"));
+        assertEquals(canonical, UrlNormalizer.normalize("http://www.example.com:80/a/b.html"));
+        assertEquals(canonical, UrlNormalizer.normalize("http://www.example.com/a/./c/../b.html#section-2"));
+        assertEquals(canonical, UrlNormalizer.normalize("http://www.example.com/%61/b.html"));
+        assertEquals(canonical, UrlNormalizer.normalize(" http://www.example.com/a/b.html? "));
+        assertEquals("https://www.example.com/", UrlNormalizer.normalize("https://www.example.com:443"));
+        assertEquals("https://www.example.com:8443/", UrlNormalizer.normalize("https://www.example.com:8443/"));
+        // Case of the path and the order of the query are significant
+        assertEquals("http://www.example.com/A?b=1&a=2", UrlNormalizer.normalize("http://www.example.com/A?b=1&a=2"));
+        assertEquals("http://www.example.com/a%2Fb", UrlNormalizer.normalize("http://www.example.com/a%2fb"));
+        assertEquals("http://www.example.com/my%20page/%C3%A9t%C3%A9", UrlNormalizer.normalize("http://www.example.com/my page/été"));
+        // Escaped dots are dot segments too
+        assertEquals(canonical, UrlNormalizer.normalize("http://www.example.com/a/%2E/c/%2E%2E/b.html"));
+        assertEquals("http://www.example.com/b", UrlNormalizer.normalize("http://www.example.com/a/%2e%2E/b"));
+        assertEquals("http://www.example.com/a/", UrlNormalizer.normalize("http://www.example.com/a/b/.%2E"));
+    }
+
+    // Test case for a canonical URL being its own canonical form
+    @Test
+    public void testIdempotent() {
+        String[] urls = { "HTTP://WWW.Example.COM:80/a/./c/../b.html#x", "http://www.example.com/a/%2E%2E/b",
+                "http://www.example.com/a/%2e/%2E%2e/%2E%2E/b?q=%7e%2f", "http://www.example.com/my page/été",
+                "https://www.example.com:443", "http://www.example.com/a%2F..%2Fb/%2E%2E%2F" };
+        for (String url : urls) {
+            String canonical = UrlNormalizer.normalize(url);
+            assertNotNull(url, canonical);
+            assertEquals(url, canonical, UrlNormalizer.normalize(canonical));
+        }
+    }
+
+    // Test case for links that do not lead to a crawlable page
+    @Test
+    public void testRejects() {
+        assertNull(UrlNormalizer.normalize(BASE, "#top"));
+        assertNull(UrlNormalizer.normalize(BASE, ""));
+        assertNull(UrlNormalizer.normalize(BASE, null));
+        assertNull(UrlNormalizer.normalize(BASE, "mailto:someone@example.com"));
+        assertNull(UrlNormalizer.normalize(BASE, "javascript:void(0)"));
+        assertNull(UrlNormalizer.normalize(BASE, "ftp://ftp.example.com/file"));
+        assertNull(UrlNormalizer.normalize(BASE, "http://bad host%zz/"));
+        assertNull(UrlNormalizer.normalize("relative/base", "page.html"));
+    }
+}